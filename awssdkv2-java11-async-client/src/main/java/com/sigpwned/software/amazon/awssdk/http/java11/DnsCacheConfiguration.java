@@ -0,0 +1,170 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import java.time.Duration;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Configures the DNS cache used to resolve endpoint host names on Java 18 and later. The cache
+ * keeps each host's addresses for a fixed time to live, refreshes them in the background shortly
+ * before they expire, so lookups on the connection path rarely wait on DNS, remembers failed
+ * lookups for a shorter time, and rotates through a host's addresses on each lookup.
+ *
+ * <p>
+ * The JDK only allows one resolver for the whole process, so the cache is shared by all clients.
+ * The first client built with caching enabled configures it, and later configurations are ignored.
+ * On Java versions before 18, the JDK has no way to replace the resolver, and caching has no
+ * effect. The platform resolver does not report record TTLs, so the configured time to live
+ * applies to every host.
+ * </p>
+ *
+ * @see Java11AsyncHttpClient.Builder#dnsCacheConfiguration(DnsCacheConfiguration)
+ */
+@SdkPublicApi
+public final class DnsCacheConfiguration {
+
+  public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(5);
+
+  public static final Duration DEFAULT_REFRESH_AHEAD = Duration.ofSeconds(5);
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+  private final Duration ttl;
+  private final Duration negativeTtl;
+  private final Duration refreshAhead;
+  private final int maximumSize;
+
+  private DnsCacheConfiguration(DefaultBuilder builder) {
+    this.ttl = builder.ttl;
+    this.negativeTtl = builder.negativeTtl;
+    this.refreshAhead = builder.refreshAhead;
+    this.maximumSize = builder.maximumSize;
+  }
+
+  /**
+   * @return true if lookups should be cached at all, i.e., the time to live is positive
+   */
+  public boolean isEnabled() {
+    return !ttl.isZero();
+  }
+
+  public Duration ttl() {
+    return ttl;
+  }
+
+  public Duration negativeTtl() {
+    return negativeTtl;
+  }
+
+  public Duration refreshAhead() {
+    return refreshAhead;
+  }
+
+  public int maximumSize() {
+    return maximumSize;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("DnsCacheConfiguration")
+        .add("ttl", ttl)
+        .add("negativeTtl", negativeTtl)
+        .add("refreshAhead", refreshAhead)
+        .add("maximumSize", maximumSize)
+        .build();
+  }
+
+  /**
+   * Create a {@link Builder}, used to create a {@link DnsCacheConfiguration}.
+   */
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  /**
+   * A builder for {@link DnsCacheConfiguration}.
+   *
+   * <p>All implementations of this interface are mutable and not thread safe.</p>
+   */
+  public interface Builder {
+
+    /**
+     * How long to keep a host's addresses. The default is zero, which disables caching.
+     */
+    Builder ttl(Duration ttl);
+
+    /**
+     * How long to remember that a host could not be resolved, or zero not to remember failures.
+     * The default is 5 seconds.
+     */
+    Builder negativeTtl(Duration negativeTtl);
+
+    /**
+     * How long before a host's addresses expire to start resolving it again in the background, or
+     * zero to only resolve it again once it has expired. At most half the time to live is used.
+     * The default is 5 seconds.
+     */
+    Builder refreshAhead(Duration refreshAhead);
+
+    /**
+     * The most hosts to cache. The default is 1024.
+     */
+    Builder maximumSize(Integer maximumSize);
+
+    DnsCacheConfiguration build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private Duration ttl = Duration.ZERO;
+    private Duration negativeTtl = DEFAULT_NEGATIVE_TTL;
+    private Duration refreshAhead = DEFAULT_REFRESH_AHEAD;
+    private int maximumSize = DEFAULT_MAXIMUM_SIZE;
+
+    @Override
+    public Builder ttl(Duration ttl) {
+      this.ttl = Validate.isNotNegative(ttl, "ttl");
+      return this;
+    }
+
+    public void setTtl(Duration ttl) {
+      ttl(ttl);
+    }
+
+    @Override
+    public Builder negativeTtl(Duration negativeTtl) {
+      this.negativeTtl = Validate.isNotNegative(negativeTtl, "negativeTtl");
+      return this;
+    }
+
+    public void setNegativeTtl(Duration negativeTtl) {
+      negativeTtl(negativeTtl);
+    }
+
+    @Override
+    public Builder refreshAhead(Duration refreshAhead) {
+      this.refreshAhead = Validate.isNotNegative(refreshAhead, "refreshAhead");
+      return this;
+    }
+
+    public void setRefreshAhead(Duration refreshAhead) {
+      refreshAhead(refreshAhead);
+    }
+
+    @Override
+    public Builder maximumSize(Integer maximumSize) {
+      this.maximumSize = Validate.isPositive(maximumSize, "maximumSize");
+      return this;
+    }
+
+    public void setMaximumSize(Integer maximumSize) {
+      maximumSize(maximumSize);
+    }
+
+    @Override
+    public DnsCacheConfiguration build() {
+      return new DnsCacheConfiguration(this);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+
+/**
+ * A snapshot of what the process-wide DNS cache has done. A low ratio of misses to hits means
+ * connection setup rarely waits on DNS. Refreshes happen in the background, off the connection
+ * path.
+ *
+ * @see Java11AsyncHttpClient#dnsCacheStatistics()
+ * @see DnsCacheConfiguration
+ */
+@SdkPublicApi
+public final class DnsCacheStatistics {
+
+  public static DnsCacheStatistics create(long hits, long negativeHits, long misses,
+      long refreshes, long failures) {
+    return new DnsCacheStatistics(hits, negativeHits, misses, refreshes, failures);
+  }
+
+  private final long hits;
+  private final long negativeHits;
+  private final long misses;
+  private final long refreshes;
+  private final long failures;
+
+  private DnsCacheStatistics(long hits, long negativeHits, long misses, long refreshes,
+      long failures) {
+    this.hits = hits;
+    this.negativeHits = negativeHits;
+    this.misses = misses;
+    this.refreshes = refreshes;
+    this.failures = failures;
+  }
+
+  /**
+   * @return how many lookups were answered with cached addresses
+   */
+  public long hits() {
+    return hits;
+  }
+
+  /**
+   * @return how many lookups were answered with a cached failure
+   */
+  public long negativeHits() {
+    return negativeHits;
+  }
+
+  /**
+   * @return how many lookups had to wait for the resolver
+   */
+  public long misses() {
+    return misses;
+  }
+
+  /**
+   * @return how many background refreshes were started
+   */
+  public long refreshes() {
+    return refreshes;
+  }
+
+  /**
+   * @return how many resolutions failed, whether on a miss or in the background
+   */
+  public long failures() {
+    return failures;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("DnsCacheStatistics")
+        .add("hits", hits)
+        .add("negativeHits", negativeHits)
+        .add("misses", misses)
+        .add("refreshes", refreshes)
+        .add("failures", failures)
+        .build();
+  }
+}
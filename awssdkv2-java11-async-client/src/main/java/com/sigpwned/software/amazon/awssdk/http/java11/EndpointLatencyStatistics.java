@@ -0,0 +1,87 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Objects.requireNonNull;
+
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+
+/**
+ * A snapshot of how long a client's exchanges with one host took, for responses of one status
+ * class. Every phase is measured from when the client was asked to execute the request, so the
+ * phases of one exchange nest:
+ *
+ * <ul>
+ *   <li>time to headers ends when the response headers arrive</li>
+ *   <li>time to first byte ends when the first byte of the response body arrives, and is only
+ *   measured for responses with a body</li>
+ *   <li>total time ends when the whole response body has arrived, or the exchange failed</li>
+ * </ul>
+ *
+ * <p>
+ * Exchanges that failed before receiving response headers have status class 0, and only a total
+ * time.
+ * </p>
+ *
+ * @see Java11AsyncHttpClient#latencyStatistics()
+ */
+@SdkPublicApi
+public final class EndpointLatencyStatistics {
+
+  public static EndpointLatencyStatistics create(String host, int statusClass,
+      LatencyDistribution timeToHeaders, LatencyDistribution timeToFirstByte,
+      LatencyDistribution totalTime) {
+    return new EndpointLatencyStatistics(host, statusClass, timeToHeaders, timeToFirstByte,
+        totalTime);
+  }
+
+  private final String host;
+  private final int statusClass;
+  private final LatencyDistribution timeToHeaders;
+  private final LatencyDistribution timeToFirstByte;
+  private final LatencyDistribution totalTime;
+
+  private EndpointLatencyStatistics(String host, int statusClass,
+      LatencyDistribution timeToHeaders, LatencyDistribution timeToFirstByte,
+      LatencyDistribution totalTime) {
+    this.host = requireNonNull(host);
+    this.statusClass = statusClass;
+    this.timeToHeaders = requireNonNull(timeToHeaders);
+    this.timeToFirstByte = requireNonNull(timeToFirstByte);
+    this.totalTime = requireNonNull(totalTime);
+  }
+
+  public String host() {
+    return host;
+  }
+
+  /**
+   * @return the first digit of the response status code, like 2 for 2xx responses, or 0 for
+   *     exchanges that failed before receiving a response
+   */
+  public int statusClass() {
+    return statusClass;
+  }
+
+  public LatencyDistribution timeToHeaders() {
+    return timeToHeaders;
+  }
+
+  public LatencyDistribution timeToFirstByte() {
+    return timeToFirstByte;
+  }
+
+  public LatencyDistribution totalTime() {
+    return totalTime;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("EndpointLatencyStatistics")
+        .add("host", host)
+        .add("statusClass", statusClass)
+        .add("timeToHeaders", timeToHeaders)
+        .add("timeToFirstByte", timeToFirstByte)
+        .add("totalTime", totalTime)
+        .build();
+  }
+}
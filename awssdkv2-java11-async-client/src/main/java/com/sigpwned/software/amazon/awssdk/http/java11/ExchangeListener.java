@@ -0,0 +1,92 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.SdkHttpRequest;
+
+/**
+ * Listens to the phases of one exchange, for per-phase latency without instrumentation. Every
+ * callback gets the time it happened, from {@link System#nanoTime()}, so only differences between
+ * timestamps are meaningful. All methods do nothing by default.
+ *
+ * <p>
+ * For each exchange, the callbacks come in this order, though some may not come at all:
+ * </p>
+ *
+ * <ol>
+ *   <li>{@link #started(long)} when the client starts executing the request</li>
+ *   <li>{@link #requestMapped(long)} once the request is ready to send, including reading a small
+ *   body into memory</li>
+ *   <li>{@link #requestHeadersSent(long)} when the HTTP client starts sending the body, which it
+ *   does once it has written the headers</li>
+ *   <li>{@link #requestBodySent(long, long)} when the HTTP client has taken the whole body</li>
+ *   <li>{@link #responseHeadersReceived(long, int)} when the response headers arrive</li>
+ *   <li>{@link #responseBodyReceived(long, long)} for each chunk of the response body</li>
+ *   <li>{@link #completed(long)} when the whole response body has arrived, or
+ *   {@link #failed(long, Throwable)} if the exchange failed or the response body was cancelled
+ *   instead</li>
+ * </ol>
+ *
+ * <p>
+ * If the request is hedged, the request callbacks come once per attempt, and the response
+ * callbacks only for the attempt that wins. Callbacks come on the HTTP client's threads, so they
+ * must be quick and must not block. Exceptions they throw are logged and otherwise ignored.
+ * </p>
+ *
+ * @see Java11AsyncHttpClient.Builder#exchangeListenerFactory(Factory)
+ */
+@SdkPublicApi
+public interface ExchangeListener {
+
+  /**
+   * Creates a listener for each exchange.
+   */
+  @FunctionalInterface
+  interface Factory {
+
+    /**
+     * @return a listener for an exchange of the given request, or null not to listen to it
+     */
+    ExchangeListener newListener(SdkHttpRequest request);
+  }
+
+  /**
+   * @return a factory that never listens to any exchange
+   */
+  static Factory noListeners() {
+    return request -> null;
+  }
+
+  /**
+   * The client started executing the request. This client does not limit concurrency itself, so
+   * this is also when the request was admitted.
+   */
+  default void started(long nanoTime) {
+  }
+
+  default void requestMapped(long nanoTime) {
+  }
+
+  default void requestHeadersSent(long nanoTime) {
+  }
+
+  /**
+   * @param bytes how many bytes of body were sent
+   */
+  default void requestBodySent(long nanoTime, long bytes) {
+  }
+
+  default void responseHeadersReceived(long nanoTime, int statusCode) {
+  }
+
+  /**
+   * @param bytes how many bytes of body arrived in this chunk
+   */
+  default void responseBodyReceived(long nanoTime, long bytes) {
+  }
+
+  default void completed(long nanoTime) {
+  }
+
+  default void failed(long nanoTime, Throwable error) {
+  }
+}
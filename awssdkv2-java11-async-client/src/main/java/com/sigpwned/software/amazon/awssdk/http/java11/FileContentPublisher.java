@@ -0,0 +1,100 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.FileRegionPublisher;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.reactivestreams.FlowAdapters;
+import org.reactivestreams.Subscriber;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * A request body backed by a region of a local file. The {@link Java11AsyncHttpClient} recognizes
+ * these bodies and sends the file directly from memory-mapped pages with the content length taken
+ * from the file, rather than adapting them chunk by chunk. Other clients see an ordinary
+ * {@link SdkHttpContentPublisher}.
+ *
+ * <p>
+ * The client also recognizes request bodies created by the SDK's
+ * {@code AsyncRequestBody.fromFile}, so most users will not need to use this class directly.
+ * </p>
+ */
+@SdkPublicApi
+public final class FileContentPublisher implements SdkHttpContentPublisher {
+
+  /**
+   * Creates a publisher for the whole of the given file.
+   *
+   * @throws UncheckedIOException if the size of the file cannot be determined
+   */
+  public static FileContentPublisher create(Path path) {
+    try {
+      return create(path, 0L, Files.size(path));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Creates a publisher for the given region of the given file.
+   */
+  public static FileContentPublisher create(Path path, long position, long length) {
+    return new FileContentPublisher(path, position, length);
+  }
+
+  private final Path path;
+  private final long position;
+  private final long length;
+
+  private FileContentPublisher(Path path, long position, long length) {
+    this.path = requireNonNull(path);
+    this.position = Validate.isNotNegative(position, "position");
+    this.length = Validate.isNotNegative(length, "length");
+  }
+
+  public Path path() {
+    return path;
+  }
+
+  /**
+   * @return the offset in the file of the first byte of the body
+   */
+  public long position() {
+    return position;
+  }
+
+  /**
+   * @return the length of the body in bytes
+   */
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public Optional<Long> contentLength() {
+    return Optional.of(length);
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+    new FileRegionPublisher(path, position, length).subscribe(
+        FlowAdapters.toFlowSubscriber(subscriber));
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("FileContentPublisher")
+        .add("path", path)
+        .add("position", position)
+        .add("length", length)
+        .build();
+  }
+}
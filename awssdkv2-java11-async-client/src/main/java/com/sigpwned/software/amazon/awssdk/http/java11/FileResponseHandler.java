@@ -0,0 +1,273 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.FileResponseWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.utils.BinaryUtils;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * A response handler that writes the body of a successful response into a file, starting at a
+ * given position. The {@link Java11AsyncHttpClient} recognizes these handlers and writes the
+ * client's body buffers straight into the file with positional writes, without copying them or
+ * handing them off to another thread first. In that case {@link #onStream(Publisher)} is never
+ * called. Other clients see an ordinary {@link SdkAsyncHttpResponseHandler}.
+ *
+ * <p>
+ * The bodies of unsuccessful responses are not written to the file. They are usually short error
+ * documents, so they are kept in memory and made available from {@link #errorBody()} instead.
+ * </p>
+ *
+ * <p>
+ * Because writes are positional, several handlers may write disjoint regions of the same file
+ * concurrently, which is how ranged downloads are assembled.
+ * </p>
+ *
+ * <p>
+ * This only helps callers that pass the handler to {@link SdkAsyncHttpClient#execute} themselves,
+ * such as the parallel transfer utilities, which sign their own requests. Service clients always
+ * wrap the caller's response handler in their own, so a download to a path through the SDK's file
+ * transformer never reaches the client as one of these, and takes the generic stream path. That is
+ * deliberate: the SDK validates checksums and handles retries on the stream between the client and
+ * the transformer, and writing around the transformer would skip both.
+ * </p>
+ */
+@SdkPublicApi
+public final class FileResponseHandler implements SdkAsyncHttpResponseHandler {
+
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  public interface Builder {
+
+    /**
+     * The file to write. Required. The file is created if it does not exist.
+     */
+    Builder path(Path path);
+
+    /**
+     * The offset in the file at which to write the first byte of the body. Defaults to 0.
+     */
+    Builder position(Long position);
+
+    /**
+     * Whether to truncate the file if it already exists. Defaults to {@code true}. Set this to
+     * {@code false} when writing one region of a file that other handlers are also writing.
+     */
+    Builder truncateExisting(Boolean truncateExisting);
+
+    /**
+     * Whether and how to force the file to storage before the download is considered complete.
+     * Defaults to {@link FsyncPolicy#NONE}.
+     */
+    Builder fsyncPolicy(FsyncPolicy fsyncPolicy);
+
+    FileResponseHandler build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private Path path;
+    private Long position;
+    private Boolean truncateExisting;
+    private FsyncPolicy fsyncPolicy;
+
+    @Override
+    public Builder path(Path path) {
+      this.path = path;
+      return this;
+    }
+
+    @Override
+    public Builder position(Long position) {
+      this.position = position;
+      return this;
+    }
+
+    @Override
+    public Builder truncateExisting(Boolean truncateExisting) {
+      this.truncateExisting = truncateExisting;
+      return this;
+    }
+
+    @Override
+    public Builder fsyncPolicy(FsyncPolicy fsyncPolicy) {
+      this.fsyncPolicy = fsyncPolicy;
+      return this;
+    }
+
+    @Override
+    public FileResponseHandler build() {
+      return new FileResponseHandler(this);
+    }
+  }
+
+  private final Path path;
+  private final long position;
+  private final FileResponseWriter writer;
+  private final ByteArrayOutputStream errorBody = new ByteArrayOutputStream();
+  private final CompletableFuture<SdkHttpResponse> headersFuture = new CompletableFuture<>();
+  private volatile SdkHttpResponse response;
+
+  private FileResponseHandler(DefaultBuilder builder) {
+    this.path = Validate.paramNotNull(builder.path, "path");
+    this.position = Validate.isNotNegative(Optional.ofNullable(builder.position).orElse(0L),
+        "position");
+    this.writer = new FileResponseWriter(path, position,
+        Optional.ofNullable(builder.truncateExisting).orElse(Boolean.TRUE),
+        Optional.ofNullable(builder.fsyncPolicy).orElse(FsyncPolicy.NONE));
+  }
+
+  @Override
+  public void onHeaders(SdkHttpResponse headers) {
+    this.response = requireNonNull(headers);
+    headersFuture.complete(headers);
+  }
+
+  @Override
+  public void onStream(Publisher<ByteBuffer> stream) {
+    SdkHttpResponse head = response;
+    if (head != null && head.isSuccessful()) {
+      stream.subscribe(new BodySubscriber(writer::write, true));
+    } else {
+      stream.subscribe(
+          new BodySubscriber(b -> errorBody.writeBytes(BinaryUtils.copyBytesFrom(b)), false));
+    }
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    headersFuture.completeExceptionally(error);
+    writer.abort(error);
+  }
+
+  /**
+   * @return the response headers, or {@code null} if they have not arrived yet
+   */
+  public SdkHttpResponse response() {
+    return response;
+  }
+
+  /**
+   * @return a future that completes with the response headers as soon as they arrive, which is
+   *     useful for inspecting them before the body has been written
+   */
+  public CompletableFuture<SdkHttpResponse> headersFuture() {
+    return headersFuture;
+  }
+
+  /**
+   * @return a future that completes with the number of bytes written to the file once the body
+   *     has been written completely, and forced to storage if requested. For unsuccessful
+   *     responses, nothing is written and the future completes with 0 once the error body has
+   *     been read.
+   */
+  public CompletableFuture<Long> future() {
+    return writer.future();
+  }
+
+  /**
+   * @return the body of an unsuccessful response. Only meaningful once {@link #future()} has
+   *     completed.
+   */
+  public byte[] errorBody() {
+    return errorBody.toByteArray();
+  }
+
+  public Path path() {
+    return path;
+  }
+
+  public long position() {
+    return position;
+  }
+
+  /**
+   * @return the writer the client uses to write the body directly
+   */
+  @SdkInternalApi
+  public FileResponseWriter writer() {
+    return writer;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("FileResponseHandler").add("path", path).add("position", position)
+        .build();
+  }
+
+  @FunctionalInterface
+  private interface BufferConsumer {
+
+    void accept(ByteBuffer buffer) throws IOException;
+  }
+
+  private final class BodySubscriber implements Subscriber<ByteBuffer> {
+
+    private final BufferConsumer consumer;
+
+    /**
+     * Whether this subscriber writes the body into the file
+     */
+    private final boolean writing;
+
+    private Subscription subscription;
+
+    public BodySubscriber(BufferConsumer consumer, boolean writing) {
+      this.consumer = consumer;
+      this.writing = writing;
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      if (subscription != null) {
+        s.cancel();
+        return;
+      }
+      subscription = s;
+      subscription.request(1L);
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+      try {
+        consumer.accept(buffer);
+      } catch (IOException e) {
+        subscription.cancel();
+        onError(e);
+        return;
+      }
+      subscription.request(1L);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      writer.abort(t);
+    }
+
+    @Override
+    public void onComplete() {
+      if (writing) {
+        writer.complete();
+      } else {
+        writer.skip();
+      }
+    }
+  }
+}
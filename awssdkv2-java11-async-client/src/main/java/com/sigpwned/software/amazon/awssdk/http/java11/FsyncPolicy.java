@@ -0,0 +1,28 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import java.nio.channels.FileChannel;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+
+/**
+ * Whether and how to force a downloaded file to storage once the download completes.
+ *
+ * @see FileResponseHandler.Builder#fsyncPolicy(FsyncPolicy)
+ */
+@SdkPublicApi
+public enum FsyncPolicy {
+  /**
+   * Leave it to the operating system to write the file to storage. This is the default.
+   */
+  NONE,
+
+  /**
+   * Force the file's content to storage, as with {@link FileChannel#force(boolean) force(false)}.
+   */
+  DATA,
+
+  /**
+   * Force the file's content and metadata to storage, as with
+   * {@link FileChannel#force(boolean) force(true)}.
+   */
+  DATA_AND_METADATA;
+}
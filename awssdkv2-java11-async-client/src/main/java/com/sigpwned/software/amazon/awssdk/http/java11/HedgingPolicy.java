@@ -0,0 +1,254 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Chooses which requests the client hedges, and when. If a hedged request has not received its
+ * response headers within the hedge delay, the client sends the same request again, uses whichever
+ * attempt responds first, and cancels the other. The delay is the configured percentile of how long
+ * recent requests to the same endpoint took to receive their headers, so only the slowest requests
+ * are hedged. A budget caps hedges at a percentage of eligible requests, so a slow endpoint never
+ * sees more than that much extra load.
+ *
+ * <p>
+ * Only idempotent requests may be hedged, since both attempts may reach the server. {@code GET} and
+ * {@code HEAD} requests are eligible, as are requests matching any configured
+ * {@link RequestPattern}, like DynamoDB {@code GetItem}. Requests with a body are only hedged if the
+ * body is small enough to be {@link Java11AsyncHttpClient.Builder#smallRequestBodyThresholdInBytes(Integer)
+ * held in memory}, so it can be sent twice.
+ * </p>
+ *
+ * @see Java11AsyncHttpClient.Builder#hedgingPolicy(HedgingPolicy)
+ */
+@SdkPublicApi
+public final class HedgingPolicy {
+
+  public static final double DEFAULT_PERCENTILE = 95.0;
+
+  public static final Duration DEFAULT_INITIAL_DELAY = Duration.ofMillis(100);
+
+  public static final Duration DEFAULT_MINIMUM_DELAY = Duration.ofMillis(5);
+
+  public static final int DEFAULT_MINIMUM_SAMPLES = 100;
+
+  public static final double DEFAULT_BUDGET_PERCENT = 5.0;
+
+  private static final HedgingPolicy NONE = new HedgingPolicy(new DefaultBuilder(), false);
+
+  /**
+   * @return a policy that hedges no requests
+   */
+  public static HedgingPolicy none() {
+    return NONE;
+  }
+
+  private final boolean enabled;
+  private final List<RequestPattern> patterns;
+  private final double percentile;
+  private final Duration initialDelay;
+  private final Duration minimumDelay;
+  private final int minimumSamples;
+  private final double budgetPercent;
+
+  private HedgingPolicy(DefaultBuilder builder, boolean enabled) {
+    this.enabled = enabled;
+    this.patterns = unmodifiableList(new ArrayList<>(builder.patterns));
+    this.percentile = builder.percentile;
+    this.initialDelay = builder.initialDelay;
+    this.minimumDelay = builder.minimumDelay;
+    this.minimumSamples = builder.minimumSamples;
+    this.budgetPercent = builder.budgetPercent;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return true if the given request is idempotent, as far as this policy is concerned
+   */
+  public boolean matches(SdkHttpRequest request) {
+    if (!enabled) {
+      return false;
+    }
+    if (request.method() == SdkHttpMethod.GET || request.method() == SdkHttpMethod.HEAD) {
+      return true;
+    }
+    for (RequestPattern pattern : patterns) {
+      if (pattern.matches(request)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public double percentile() {
+    return percentile;
+  }
+
+  public Duration initialDelay() {
+    return initialDelay;
+  }
+
+  public Duration minimumDelay() {
+    return minimumDelay;
+  }
+
+  public int minimumSamples() {
+    return minimumSamples;
+  }
+
+  public double budgetPercent() {
+    return budgetPercent;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("HedgingPolicy")
+        .add("enabled", enabled)
+        .add("patterns", patterns)
+        .add("percentile", percentile)
+        .add("initialDelay", initialDelay)
+        .add("minimumDelay", minimumDelay)
+        .add("minimumSamples", minimumSamples)
+        .add("budgetPercent", budgetPercent)
+        .build();
+  }
+
+  /**
+   * Create a {@link Builder}, used to create a {@link HedgingPolicy}. By default, the policy hedges
+   * {@code GET} and {@code HEAD} requests.
+   */
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  /**
+   * A builder for {@link HedgingPolicy}.
+   *
+   * <p>All implementations of this interface are mutable and not thread safe.</p>
+   */
+  public interface Builder {
+
+    /**
+     * Also hedge requests that match the given pattern, which must only match idempotent
+     * operations. May be given multiple times.
+     */
+    Builder hedge(RequestPattern pattern);
+
+    /**
+     * Sets the percentile of recent time-to-headers at which to hedge, from 50 to 99.9. The default
+     * is 95.
+     */
+    Builder percentile(Double percentile);
+
+    /**
+     * Sets the hedge delay to use for an endpoint until enough of its requests have been observed.
+     * The default is 100 milliseconds.
+     */
+    Builder initialDelay(Duration initialDelay);
+
+    /**
+     * Sets the shortest hedge delay, however fast an endpoint is. The default is 5 milliseconds.
+     */
+    Builder minimumDelay(Duration minimumDelay);
+
+    /**
+     * Sets how many requests to an endpoint must be observed before its own latency sets its hedge
+     * delay. The default is 100.
+     */
+    Builder minimumSamples(Integer minimumSamples);
+
+    /**
+     * Sets the most hedges to send, as a percentage of eligible requests. The default is 5.
+     */
+    Builder budgetPercent(Double budgetPercent);
+
+    HedgingPolicy build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private final List<RequestPattern> patterns = new ArrayList<>();
+    private double percentile = DEFAULT_PERCENTILE;
+    private Duration initialDelay = DEFAULT_INITIAL_DELAY;
+    private Duration minimumDelay = DEFAULT_MINIMUM_DELAY;
+    private int minimumSamples = DEFAULT_MINIMUM_SAMPLES;
+    private double budgetPercent = DEFAULT_BUDGET_PERCENT;
+
+    @Override
+    public Builder hedge(RequestPattern pattern) {
+      patterns.add(requireNonNull(pattern));
+      return this;
+    }
+
+    @Override
+    public Builder percentile(Double percentile) {
+      Validate.isTrue(percentile >= 50.0 && percentile <= 99.9,
+          "percentile must be between 50 and 99.9");
+      this.percentile = percentile;
+      return this;
+    }
+
+    public void setPercentile(Double percentile) {
+      percentile(percentile);
+    }
+
+    @Override
+    public Builder initialDelay(Duration initialDelay) {
+      this.initialDelay = Validate.isPositive(initialDelay, "initialDelay");
+      return this;
+    }
+
+    public void setInitialDelay(Duration initialDelay) {
+      initialDelay(initialDelay);
+    }
+
+    @Override
+    public Builder minimumDelay(Duration minimumDelay) {
+      this.minimumDelay = Validate.isNotNegative(minimumDelay, "minimumDelay");
+      return this;
+    }
+
+    public void setMinimumDelay(Duration minimumDelay) {
+      minimumDelay(minimumDelay);
+    }
+
+    @Override
+    public Builder minimumSamples(Integer minimumSamples) {
+      this.minimumSamples = Validate.isPositive(minimumSamples, "minimumSamples");
+      return this;
+    }
+
+    public void setMinimumSamples(Integer minimumSamples) {
+      minimumSamples(minimumSamples);
+    }
+
+    @Override
+    public Builder budgetPercent(Double budgetPercent) {
+      Validate.isTrue(budgetPercent > 0.0 && budgetPercent <= 100.0,
+          "budgetPercent must be greater than 0 and at most 100");
+      this.budgetPercent = budgetPercent;
+      return this;
+    }
+
+    public void setBudgetPercent(Double budgetPercent) {
+      budgetPercent(budgetPercent);
+    }
+
+    @Override
+    public HedgingPolicy build() {
+      return new HedgingPolicy(this, true);
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+
+/**
+ * A snapshot of what a client has done to hedge requests. Comparing hedges sent with hedges won
+ * shows whether the hedge percentile is well tuned, and hedges denied shows whether the budget is
+ * binding.
+ *
+ * @see Java11AsyncHttpClient#hedgingStatistics()
+ * @see Java11AsyncHttpClient.Builder#hedgingPolicy(HedgingPolicy)
+ */
+@SdkPublicApi
+public final class HedgingStatistics {
+
+  public static HedgingStatistics create(long eligibleRequests, long hedgesSent, long hedgesWon,
+      long hedgesDenied) {
+    return new HedgingStatistics(eligibleRequests, hedgesSent, hedgesWon, hedgesDenied);
+  }
+
+  private final long eligibleRequests;
+  private final long hedgesSent;
+  private final long hedgesWon;
+  private final long hedgesDenied;
+
+  private HedgingStatistics(long eligibleRequests, long hedgesSent, long hedgesWon,
+      long hedgesDenied) {
+    this.eligibleRequests = eligibleRequests;
+    this.hedgesSent = hedgesSent;
+    this.hedgesWon = hedgesWon;
+    this.hedgesDenied = hedgesDenied;
+  }
+
+  /**
+   * @return how many requests the policy allowed to be hedged
+   */
+  public long eligibleRequests() {
+    return eligibleRequests;
+  }
+
+  /**
+   * @return how many hedges were sent because a request was slow to respond
+   */
+  public long hedgesSent() {
+    return hedgesSent;
+  }
+
+  /**
+   * @return how many hedges received their response headers before the request they hedged
+   */
+  public long hedgesWon() {
+    return hedgesWon;
+  }
+
+  /**
+   * @return how many hedges were not sent because the budget was spent
+   */
+  public long hedgesDenied() {
+    return hedgesDenied;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("HedgingStatistics")
+        .add("eligibleRequests", eligibleRequests)
+        .add("hedgesSent", hedgesSent)
+        .add("hedgesWon", hedgesWon)
+        .add("hedgesDenied", hedgesDenied)
+        .build();
+  }
+}
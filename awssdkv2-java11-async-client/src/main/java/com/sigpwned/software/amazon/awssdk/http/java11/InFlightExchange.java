@@ -0,0 +1,95 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+
+/**
+ * A snapshot of one exchange a client has in flight.
+ *
+ * @see InFlightStatistics#slowestExchanges()
+ */
+@SdkPublicApi
+public final class InFlightExchange {
+
+  public enum Phase {
+    /**
+     * The request is being sent, or has been sent and the response headers have not arrived yet
+     */
+    AWAITING_HEADERS,
+
+    /**
+     * The response headers have arrived, and the response body is streaming
+     */
+    STREAMING_BODY;
+  }
+
+  public static InFlightExchange create(String method, String host, String path, Phase phase,
+      Duration elapsed, long responseBytes) {
+    return new InFlightExchange(method, host, path, phase, elapsed, responseBytes);
+  }
+
+  private final String method;
+  private final String host;
+  private final String path;
+  private final Phase phase;
+  private final Duration elapsed;
+  private final long responseBytes;
+
+  private InFlightExchange(String method, String host, String path, Phase phase,
+      Duration elapsed, long responseBytes) {
+    this.method = requireNonNull(method);
+    this.host = requireNonNull(host);
+    this.path = requireNonNull(path);
+    this.phase = requireNonNull(phase);
+    this.elapsed = requireNonNull(elapsed);
+    this.responseBytes = responseBytes;
+  }
+
+  public String method() {
+    return method;
+  }
+
+  public String host() {
+    return host;
+  }
+
+  /**
+   * @return the encoded path of the request, without its query string
+   */
+  public String path() {
+    return path;
+  }
+
+  public Phase phase() {
+    return phase;
+  }
+
+  /**
+   * @return how long ago the client started executing the request
+   */
+  public Duration elapsed() {
+    return elapsed;
+  }
+
+  /**
+   * @return how many bytes of response body have arrived so far
+   */
+  public long responseBytes() {
+    return responseBytes;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("InFlightExchange")
+        .add("method", method)
+        .add("host", host)
+        .add("path", path)
+        .add("phase", phase)
+        .add("elapsed", elapsed)
+        .add("responseBytes", responseBytes)
+        .build();
+  }
+}
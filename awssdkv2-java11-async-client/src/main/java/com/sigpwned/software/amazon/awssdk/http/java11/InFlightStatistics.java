@@ -0,0 +1,113 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+
+/**
+ * A snapshot of what a client is doing right now, for seeing where it is stuck during an incident.
+ * The counts are gathered without stopping the client, so exchanges that start or finish while the
+ * snapshot is taken may or may not be counted.
+ *
+ * @see Java11AsyncHttpClient#inFlightStatistics(int)
+ */
+@SdkPublicApi
+public final class InFlightStatistics {
+
+  public static InFlightStatistics create(Map<String, Integer> inFlightRequestsByHost,
+      int awaitingHeaders, int streamingBodies, Duration oldestAge, long bufferedResponseBytes,
+      List<InFlightExchange> slowestExchanges) {
+    return new InFlightStatistics(inFlightRequestsByHost, awaitingHeaders, streamingBodies,
+        oldestAge, bufferedResponseBytes, slowestExchanges);
+  }
+
+  private final Map<String, Integer> inFlightRequestsByHost;
+  private final int awaitingHeaders;
+  private final int streamingBodies;
+  private final Duration oldestAge;
+  private final long bufferedResponseBytes;
+  private final List<InFlightExchange> slowestExchanges;
+
+  private InFlightStatistics(Map<String, Integer> inFlightRequestsByHost, int awaitingHeaders,
+      int streamingBodies, Duration oldestAge, long bufferedResponseBytes,
+      List<InFlightExchange> slowestExchanges) {
+    this.inFlightRequestsByHost = unmodifiableMap(
+        new LinkedHashMap<>(requireNonNull(inFlightRequestsByHost)));
+    this.awaitingHeaders = awaitingHeaders;
+    this.streamingBodies = streamingBodies;
+    this.oldestAge = requireNonNull(oldestAge);
+    this.bufferedResponseBytes = bufferedResponseBytes;
+    this.slowestExchanges = unmodifiableList(new ArrayList<>(requireNonNull(slowestExchanges)));
+  }
+
+  /**
+   * @return how many requests are in flight
+   */
+  public int inFlightRequests() {
+    return awaitingHeaders + streamingBodies;
+  }
+
+  /**
+   * @return how many requests are in flight to each host
+   */
+  public Map<String, Integer> inFlightRequestsByHost() {
+    return inFlightRequestsByHost;
+  }
+
+  /**
+   * @return how many requests in flight are being sent or waiting for response headers
+   */
+  public int awaitingHeaders() {
+    return awaitingHeaders;
+  }
+
+  /**
+   * @return how many requests in flight are streaming their response bodies
+   */
+  public int streamingBodies() {
+    return streamingBodies;
+  }
+
+  /**
+   * @return how long the oldest request in flight has been, or zero if there are none
+   */
+  public Duration oldestAge() {
+    return oldestAge;
+  }
+
+  /**
+   * @return how many response bytes the client has received but not yet handed to the SDK
+   * @see Java11AsyncHttpClient#bufferedResponseBytes()
+   */
+  public long bufferedResponseBytes() {
+    return bufferedResponseBytes;
+  }
+
+  /**
+   * @return the requests that have been in flight longest, oldest first, up to the number asked
+   *     for
+   */
+  public List<InFlightExchange> slowestExchanges() {
+    return slowestExchanges;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("InFlightStatistics")
+        .add("inFlightRequestsByHost", inFlightRequestsByHost)
+        .add("awaitingHeaders", awaitingHeaders)
+        .add("streamingBodies", streamingBodies)
+        .add("oldestAge", oldestAge)
+        .add("bufferedResponseBytes", bufferedResponseBytes)
+        .add("slowestExchanges", slowestExchanges)
+        .build();
+  }
+}
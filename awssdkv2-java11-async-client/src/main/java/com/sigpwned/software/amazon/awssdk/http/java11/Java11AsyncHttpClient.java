@@ -1,24 +1,38 @@
 package com.sigpwned.software.amazon.awssdk.http.java11;
 
 import static java.util.Collections.*;
-import static java.util.Objects.requireNonNull;
 
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.CheckpointRestoreHooks;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.FailoverProxySelector;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.InFlightRegistry;
 import com.sigpwned.software.amazon.awssdk.http.java11.internal.JavaHttpClientRequestExecutor;
-import java.io.IOException;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.JavaHttpClientRequestMapper;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.LatencyRecorder;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.NegotiatedProtocolCache;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.RequestHedger;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.ResponseBodyPolicy;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.ResponseBufferBudget;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.ResponseDrainCounters;
+import com.sigpwned.software.amazon.awssdk.http.java11.internal.SharedDnsCache;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
 import java.net.ProxySelector;
 import java.net.Socket;
-import java.net.SocketAddress;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.file.Path;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import javax.net.ssl.KeyManager;
@@ -57,10 +71,69 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
     return builder().build();
   }
 
-  private final HttpClient javaHttpClient;
+  private final HttpClient.Builder javaHttpClientBuilder;
+
+  /**
+   * The current underlying client. This is dropped before a checkpoint and rebuilt on demand, so it
+   * may be null. Always access via {@link #getHttpClient()}.
+   */
+  private volatile HttpClient javaHttpClient;
 
   private final AttributeMap serviceDefaultsMap;
 
+  /**
+   * The protocols each endpoint has negotiated, if negotiating protocols per endpoint, or null.
+   */
+  private final NegotiatedProtocolCache negotiatedProtocols;
+
+  /**
+   * Per-request protocol overrides, or null if there are none.
+   */
+  private final ProtocolRoutingTable protocolRoutingTable;
+
+  /**
+   * Our proxy selector, which is told how each proxied request went, or null if not using one.
+   */
+  private final FailoverProxySelector proxySelector;
+
+  /**
+   * Maps SDK requests to Java 11 requests. Immutable, so shared by all requests.
+   */
+  private final JavaHttpClientRequestMapper requestMapper;
+
+  /**
+   * How to handle response bodies, including the budget shared by all responses.
+   */
+  private final ResponseBodyPolicy responseBodyPolicy;
+
+  /**
+   * Decides which requests to hedge and when, or null if not hedging.
+   */
+  private final RequestHedger hedger;
+
+  /**
+   * Latency histograms by host and status class, or null if not recording them.
+   */
+  private final LatencyRecorder latencyRecorder;
+
+  /**
+   * Creates a listener for each exchange.
+   */
+  private final ExchangeListener.Factory exchangeListenerFactory;
+
+  /**
+   * Keeps track of the exchanges in flight.
+   */
+  private final InFlightRegistry inFlightRegistry = new InFlightRegistry();
+
+  /**
+   * CRaC holds registered resources weakly, so we hold a strong reference here to keep our hooks
+   * registered until this client is closed. Null if hooks were not registered.
+   */
+  private final CheckpointRestoreHooks.Registration checkpointRestoreRegistration;
+
+  private volatile boolean closed;
+
   private Java11AsyncHttpClient(DefaultBuilder builder, AttributeMap serviceDefaultsMap) {
     /*this.configuration = new JavaHttpClientConfiguration(serviceDefaultsMap);*/
 
@@ -69,7 +142,9 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
     SSLParameters sslParameters = getSslParameters(serviceDefaultsMap);
     SSLContext sslContext = getSslContext(serviceDefaultsMap);
     Executor requestExecutor = getRequestExecutor(serviceDefaultsMap);
-    ProxySelector proxySelector = getProxySelector(serviceDefaultsMap);
+    FailoverProxySelector failoverProxySelector = getFailoverProxySelector(serviceDefaultsMap);
+    ProxySelector proxySelector =
+        failoverProxySelector != null ? failoverProxySelector : ProxySelector.getDefault();
 
     HttpClient.Builder javaHttpClientBuilder = HttpClient.newBuilder()
         .connectTimeout(connectTimeout).version(version).sslParameters(sslParameters)
@@ -80,13 +155,125 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
       javaHttpClientBuilder = javaHttpClientBuilder.executor(requestExecutor);
     }
 
+    this.javaHttpClientBuilder = javaHttpClientBuilder;
+    this.proxySelector = failoverProxySelector;
     this.javaHttpClient = javaHttpClientBuilder.build();
 
     this.serviceDefaultsMap = serviceDefaultsMap;
+
+    if (getProtocolNegotiation(serviceDefaultsMap) == ProtocolNegotiation.ALPN) {
+      this.negotiatedProtocols = new NegotiatedProtocolCache();
+    } else {
+      this.negotiatedProtocols = null;
+    }
+
+    ProtocolRoutingTable routingTable = getProtocolRoutingTable(serviceDefaultsMap);
+    this.protocolRoutingTable = routingTable.isEmpty() ? null : routingTable;
+
+    this.requestMapper = new JavaHttpClientRequestMapper(getResponseTimeout(serviceDefaultsMap),
+        getExpectContinueThresholdInBytes(serviceDefaultsMap),
+        getRequestBodyPrefetch(serviceDefaultsMap),
+        getRequestBodyCoalesceSizeInBytes(serviceDefaultsMap),
+        getSmallRequestBodyThresholdInBytes(serviceDefaultsMap),
+        getDecompressResponses(serviceDefaultsMap), getRequestCompression(serviceDefaultsMap));
+
+    this.responseBodyPolicy = new ResponseBodyPolicy(
+        getSmallResponseBodyThresholdInBytes(serviceDefaultsMap),
+        getMaxResponseSizeInBytes(serviceDefaultsMap),
+        new ResponseBufferBudget(getMaxBufferedResponseBytes(serviceDefaultsMap)),
+        getResponseSpillThresholdInBytes(serviceDefaultsMap),
+        getResponseSpillDirectory(serviceDefaultsMap),
+        getResponseDrainThresholdInBytes(serviceDefaultsMap), new ResponseDrainCounters());
+
+    HedgingPolicy hedgingPolicy = getHedgingPolicy(serviceDefaultsMap);
+    this.hedger = hedgingPolicy.isEnabled() ? new RequestHedger(hedgingPolicy) : null;
+
+    this.latencyRecorder =
+        getRecordLatencyHistograms(serviceDefaultsMap) ? new LatencyRecorder() : null;
+
+    this.exchangeListenerFactory = getExchangeListenerFactory(serviceDefaultsMap);
+
+    if (getCheckpointRestoreHooks(serviceDefaultsMap)) {
+      this.checkpointRestoreRegistration = CheckpointRestoreHooks.register(this::beforeCheckpoint,
+          this::afterRestore).orElse(null);
+    } else {
+      this.checkpointRestoreRegistration = null;
+    }
+
+    DnsCacheConfiguration dnsCacheConfiguration = getDnsCacheConfiguration(serviceDefaultsMap);
+    if (dnsCacheConfiguration.isEnabled()) {
+      SharedDnsCache.enable(dnsCacheConfiguration);
+    }
   }
 
   HttpClient getHttpClient() {
-    return javaHttpClient;
+    HttpClient result = javaHttpClient;
+    if (result == null) {
+      synchronized (this) {
+        result = javaHttpClient;
+        if (result == null) {
+          result = javaHttpClient = javaHttpClientBuilder.build();
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Prepares this client for a CRaC checkpoint or Lambda SnapStart snapshot by dropping the
+   * underlying {@link HttpClient} and, with it, its connection pool. Any connections captured in a
+   * snapshot would be stale on restore. On Java 21 and later, this waits for in-flight requests to
+   * complete and closes the client's connections. On earlier versions, the connections are released
+   * when the dropped client is garbage collected.
+   *
+   * <p>
+   * This is called automatically if checkpoint/restore hooks are enabled and a CRaC API is on the
+   * classpath, but may also be called directly from application-managed hooks. It does nothing
+   * once the client is closed.
+   * </p>
+   *
+   * @see Builder#registerCheckpointRestoreHooks(Boolean)
+   */
+  public void beforeCheckpoint() {
+    if (closed) {
+      return;
+    }
+    HttpClient previous;
+    synchronized (this) {
+      previous = javaHttpClient;
+      javaHttpClient = null;
+    }
+    if (previous instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) previous).close();
+      } catch (Exception e) {
+        log.debug(() -> "Failed to close HttpClient before checkpoint", e);
+      }
+    }
+  }
+
+  /**
+   * Rebuilds the underlying {@link HttpClient} after a restore, and opens connections to the
+   * configured prewarm endpoints, if any, so that the first requests after restore do not pay for
+   * connection setup. It does nothing once the client is closed.
+   *
+   * @see Builder#prewarmEndpoints(Collection)
+   */
+  public void afterRestore() {
+    if (closed) {
+      return;
+    }
+    HttpClient client = getHttpClient();
+    Duration requestTimeout = getResponseTimeout(serviceDefaultsMap);
+    for (URI endpoint : getPrewarmEndpoints(serviceDefaultsMap)) {
+      HttpRequest prewarmRequest = HttpRequest.newBuilder().uri(endpoint)
+          .method("HEAD", BodyPublishers.noBody()).timeout(requestTimeout).build();
+      client.sendAsync(prewarmRequest, BodyHandlers.discarding()).whenComplete((r, e) -> {
+        if (e != null) {
+          log.debug(() -> "Failed to prewarm endpoint " + endpoint, e);
+        }
+      });
+    }
   }
 
   /**
@@ -106,13 +293,113 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
     // TODO What should happen if the future is cancelled? What does happen? Check Netty.
 
     // Wholly delegate to an internal API
-    Duration requestTimeout = getResponseTimeout(serviceDefaultsMap);
-    return new JavaHttpClientRequestExecutor(getHttpClient(), requestTimeout).execute(request)
+    return JavaHttpClientRequestExecutor.builder()
+        .javaClient(getHttpClient())
+        .requestMapper(requestMapper)
+        .negotiatedProtocols(negotiatedProtocols)
+        .protocolRoutingTable(protocolRoutingTable)
+        .responseBodyPolicy(responseBodyPolicy)
+        .proxySelector(proxySelector)
+        .hedger(hedger)
+        .latencyRecorder(latencyRecorder)
+        .listenerFactory(exchangeListenerFactory)
+        .inFlightRegistry(inFlightRegistry)
+        .build().execute(request)
         .thenApply(response -> null);
   }
 
+  /**
+   * Returns how many response bytes this client has received from the network but not yet handed
+   * to the SDK, across all of its responses. This is a gauge for monitoring memory use under load;
+   * it can exceed {@link Builder#maxBufferedResponseBytes(Long) the budget} by about one read per
+   * response.
+   *
+   * @return the number of response bytes currently buffered
+   */
+  public long bufferedResponseBytes() {
+    return responseBodyPolicy.getBudget().used();
+  }
+
+  /**
+   * Returns a snapshot of what this client has done with responses whose consumers cancelled before
+   * reading the whole body, for tuning {@link Builder#responseDrainThresholdInBytes(Long) the drain
+   * threshold}.
+   *
+   * @return the statistics so far
+   */
+  public ResponseDrainStatistics responseDrainStatistics() {
+    return responseBodyPolicy.getDrainCounters().snapshot();
+  }
+
+  /**
+   * Returns a snapshot of what the DNS cache has done. The cache is shared by all clients in the
+   * process, so these statistics are too.
+   *
+   * @return the statistics so far, or empty if the cache has not been used
+   * @see Builder#dnsCacheConfiguration(DnsCacheConfiguration)
+   */
+  public Optional<DnsCacheStatistics> dnsCacheStatistics() {
+    return SharedDnsCache.statistics();
+  }
+
+  /**
+   * Returns a snapshot of what this client has done to hedge requests.
+   *
+   * @return the statistics so far, or empty if this client does not hedge requests
+   * @see Builder#hedgingPolicy(HedgingPolicy)
+   */
+  public Optional<HedgingStatistics> hedgingStatistics() {
+    return Optional.ofNullable(hedger).map(RequestHedger::snapshot);
+  }
+
+  /**
+   * Returns a snapshot of how long this client's exchanges have taken, by host and response status
+   * class, for tuning timeouts. Each entry has distributions of time to response headers, time to
+   * the first byte of the response body, and total time.
+   *
+   * @return the statistics so far, or empty if this client does not record latencies
+   * @see Builder#recordLatencyHistograms(Boolean)
+   */
+  public List<EndpointLatencyStatistics> latencyStatistics() {
+    return latencyRecorder != null ? latencyRecorder.snapshot() : emptyList();
+  }
+
+  /**
+   * Returns a snapshot of the exchanges this client has in flight right now: how many there are to
+   * each host, how many are waiting for response headers and how many are streaming response
+   * bodies, how long the oldest has been in flight, and how many response bytes are buffered.
+   *
+   * @return the snapshot
+   */
+  public InFlightStatistics inFlightStatistics() {
+    return inFlightStatistics(0);
+  }
+
+  /**
+   * Returns a snapshot of the exchanges this client has in flight right now, like
+   * {@link #inFlightStatistics()}, that also lists the exchanges that have been in flight longest
+   * with their method, host, path, and elapsed time.
+   *
+   * @param slowestExchanges how many of the exchanges in flight longest to list
+   * @return the snapshot
+   */
+  public InFlightStatistics inFlightStatistics(int slowestExchanges) {
+    Validate.isNotNegative(slowestExchanges, "slowestExchanges");
+    return inFlightRegistry.snapshot(bufferedResponseBytes(), slowestExchanges);
+  }
+
   @Override
   public void close() {
+    closed = true;
+    if (checkpointRestoreRegistration != null) {
+      checkpointRestoreRegistration.deregister();
+    }
+    if (proxySelector != null) {
+      proxySelector.close();
+    }
+    if (hedger != null) {
+      hedger.close();
+    }
   }
 
   @Override
@@ -145,6 +432,28 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
      */
     Builder protocol(Protocol protocol);
 
+    /**
+     * Sets how the client decides which HTTP protocol to use with each endpoint. With
+     * {@link ProtocolNegotiation#ALPN}, the client prefers HTTP/2, falls back to HTTP/1.1 for
+     * endpoints that do not support it, and remembers the outcome per endpoint. This allows one
+     * client to multiplex requests to HTTP/2 services while using pooled HTTP/1.1 connections for
+     * the rest. The default is {@link ProtocolNegotiation#ASSUME_PROTOCOL}.
+     *
+     * @param protocolNegotiation the protocol negotiation strategy
+     * @return This builder for method chaining.
+     */
+    Builder protocolNegotiation(ProtocolNegotiation protocolNegotiation);
+
+    /**
+     * Sets per-request protocol overrides. Requests matching a route use that route's protocol
+     * regardless of the client's protocol or any negotiated protocol. All requests still share
+     * one client and its connection pools.
+     *
+     * @param protocolRoutingTable the routes
+     * @return This builder for method chaining.
+     */
+    Builder protocolRoutingTable(ProtocolRoutingTable protocolRoutingTable);
+
     /**
      * Sets the SSL related parameters (e.g. Protocols, CipherSuites, ApplicationProtocols etc.) via
      * SSLParameters object.
@@ -162,6 +471,175 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
      */
     Builder responseTimeout(Duration responseTimeout);
 
+    /**
+     * Sets the minimum request body size for which the client honors an
+     * {@code Expect: 100-continue} request header, such as the one the SDK sends with S3 uploads.
+     * For qualifying requests, the client waits for the server to accept the request before
+     * sending the body, so a rejected upload costs a round trip instead of the whole body. Bodies
+     * of unknown length always qualify. The default is 0, i.e., the header is always honored.
+     *
+     * @param expectContinueThresholdInBytes the minimum body size, in bytes
+     * @return This builder for method chaining.
+     */
+    Builder expectContinueThresholdInBytes(Long expectContinueThresholdInBytes);
+
+    /**
+     * Sets how many buffers of a request body the client requests from the SDK ahead of writing
+     * them, so that the next buffer is usually ready as soon as the connection can take it. The
+     * default is 8.
+     *
+     * @param requestBodyPrefetch the number of buffers, at least 1
+     * @return This builder for method chaining.
+     */
+    Builder requestBodyPrefetch(Integer requestBodyPrefetch);
+
+    /**
+     * Sets the largest buffer into which the client merges small request body buffers, such as
+     * signed {@code aws-chunked} frames, that are waiting to be written. Fewer, larger writes mean
+     * fewer system calls and less signalling per byte. Merging never changes the bytes sent or
+     * delays a write. The default is 32 KiB; 0 disables merging.
+     *
+     * @param requestBodyCoalesceSizeInBytes the largest merged buffer, in bytes
+     * @return This builder for method chaining.
+     */
+    Builder requestBodyCoalesceSizeInBytes(Integer requestBodyCoalesceSizeInBytes);
+
+    /**
+     * Sets the largest request body of known length that the client reads into memory before
+     * sending it as a single array, rather than streaming it through the reactive pipeline. Most
+     * non-streaming operations, such as DynamoDB, SQS, and SNS calls, have small bodies that the SDK
+     * has already marshalled into memory, in which case the client sends that array without copying
+     * it. The default is 16 KiB; 0 disables the fast path.
+     *
+     * @param smallRequestBodyThresholdInBytes the largest body to send from memory, in bytes
+     * @return This builder for method chaining.
+     */
+    Builder smallRequestBodyThresholdInBytes(Integer smallRequestBodyThresholdInBytes);
+
+    /**
+     * Sets the largest response body of known length that the client reads into one exact-size
+     * buffer and hands to the SDK as a single element, rather than streaming it chunk by chunk. The
+     * small JSON and XML responses of most non-streaming operations are aggregated by the SDK
+     * anyway, so streaming them is pure overhead. Responses with no body, such as responses to HEAD
+     * requests and 204 and 304 responses, are always completed immediately. The default is 16 KiB;
+     * 0 disables the single-buffer path.
+     *
+     * @param smallResponseBodyThresholdInBytes the largest body to read into one buffer, in bytes
+     * @return This builder for method chaining.
+     */
+    Builder smallResponseBodyThresholdInBytes(Integer smallResponseBodyThresholdInBytes);
+
+    /**
+     * Sets the budget for response bytes that the client has received from the network but not yet
+     * handed to the SDK, across all of its responses. When the budget is used up, responses stop
+     * reading from the network until their consumers catch up, so a burst of slow consumers cannot
+     * exhaust the heap. Each response may always read once when it has nothing buffered, so no
+     * response is starved. The default is 64 MiB.
+     *
+     * @param maxBufferedResponseBytes the budget, in bytes
+     * @return This builder for method chaining.
+     * @see Java11AsyncHttpClient#bufferedResponseBytes()
+     */
+    Builder maxBufferedResponseBytes(Long maxBufferedResponseBytes);
+
+    /**
+     * Sets the largest response body the client will accept. Responses that declare a larger
+     * {@code Content-Length} fail before any of the body is read, and other responses fail as soon
+     * as they exceed the limit, in both cases with a {@link ResponseTooLargeException}. The default
+     * is 0, which means no limit.
+     *
+     * @param maxResponseSizeInBytes the largest body to accept, in bytes, or 0 for no limit
+     * @return This builder for method chaining.
+     */
+    Builder maxResponseSizeInBytes(Long maxResponseSizeInBytes);
+
+    /**
+     * Enables spilling of response bodies to disk. Normally, a response whose consumer falls behind
+     * stops reading from the network, which holds its connection open for as long as the consumer
+     * takes. With spilling enabled, the client keeps reading at full speed, and once a response
+     * holds this many bytes in memory, or {@link #maxBufferedResponseBytes(Long) the budget} is
+     * used up, the rest of its body goes to a temporary file and is read back in order as the
+     * consumer asks for it. The connection is released as soon as the body has arrived, and the heap
+     * stays bounded. The default is 0, which disables spilling.
+     *
+     * @param responseSpillThresholdInBytes the bytes each response may hold in memory, or 0 never
+     *                                      to spill
+     * @return This builder for method chaining.
+     */
+    Builder responseSpillThresholdInBytes(Long responseSpillThresholdInBytes);
+
+    /**
+     * Sets the directory in which the client creates the temporary files for spilled response
+     * bodies. The files are deleted as soon as their responses are consumed or abandoned. The
+     * default is the system's default temporary directory.
+     *
+     * @param responseSpillDirectory the directory for spill files
+     * @return This builder for method chaining.
+     * @see #responseSpillThresholdInBytes(Long)
+     */
+    Builder responseSpillDirectory(Path responseSpillDirectory);
+
+    /**
+     * Sets how much of a response body the client will read and discard after the SDK cancels it,
+     * e.g., after reading only the start of an object. Draining the rest of a short body lets its
+     * connection go back to the pool, rather than being closed and costing a new TLS handshake
+     * later. Bodies with more than this remaining are aborted immediately, and bodies of unknown
+     * length are aborted once they exceed it. The default is 64 KiB; 0 always aborts.
+     *
+     * @param responseDrainThresholdInBytes the most of a body to drain, in bytes
+     * @return This builder for method chaining.
+     * @see Java11AsyncHttpClient#responseDrainStatistics()
+     */
+    Builder responseDrainThresholdInBytes(Long responseDrainThresholdInBytes);
+
+    /**
+     * Sets whether the client should ask for compressed responses, and decode them. If enabled,
+     * then requests that don't already have an {@code Accept-Encoding} header ask for gzip or
+     * deflate, and response bodies in either encoding are decoded as they stream in, at the pace
+     * the SDK reads them. The SDK sees the decoded body, without the {@code Content-Encoding} and
+     * {@code Content-Length} headers. Responses to requests that set their own
+     * {@code Accept-Encoding} are passed through as they are, even if they are encoded, like an S3
+     * object stored with a {@code Content-Encoding}. The default is false.
+     *
+     * @param decompressResponses whether to decode compressed responses
+     * @return This builder for method chaining.
+     */
+    Builder decompressResponses(Boolean decompressResponses);
+
+    /**
+     * Sets whether the client should record how long each phase of its exchanges takes, by host
+     * and response status class. Recording is lock-free and allocates one small object per
+     * exchange, but each host uses some memory for its histograms. The default is false.
+     *
+     * @param recordLatencyHistograms whether to record latency histograms
+     * @return This builder for method chaining.
+     * @see Java11AsyncHttpClient#latencyStatistics()
+     */
+    Builder recordLatencyHistograms(Boolean recordLatencyHistograms);
+
+    /**
+     * Sets the factory that creates an {@link ExchangeListener} for each exchange, which is told
+     * when each phase of the exchange happens. The factory may return null for exchanges it does
+     * not want to listen to, which then cost nothing extra. By default, no exchanges are listened
+     * to.
+     *
+     * @param exchangeListenerFactory the exchange listener factory
+     * @return This builder for method chaining.
+     */
+    Builder exchangeListenerFactory(ExchangeListener.Factory exchangeListenerFactory);
+
+    /**
+     * Sets which request bodies the client gzips on the fly before sending. Compressed bodies of
+     * known length up to {@link #smallRequestBodyThresholdInBytes(Integer) the small body
+     * threshold} are compressed all at once and keep a known length; larger ones are compressed as
+     * they stream, and sent with unknown length, i.e., chunked on HTTP/1.1. Requests signed with
+     * SigV4 are never compressed. By default, no request bodies are compressed.
+     *
+     * @param requestCompression which request bodies to compress
+     * @return This builder for method chaining.
+     */
+    Builder requestCompression(RequestCompression requestCompression);
+
     /**
      * Sets the {@link ExecutorProvider} that will be used by the HTTP client to create the
      * {@link Executor} used to handle requests. If the provider is not set OR if the provider is
@@ -198,6 +676,53 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
      * @return
      */
     Builder proxyConfiguration(ProxyConfiguration proxyConfiguration);
+
+    /**
+     * Sets how endpoint host names are cached on Java 18 and later, where the client installs a
+     * caching resolver. The cache is shared by all clients in the process, and the first client
+     * with caching enabled configures it. By default, nothing is cached beyond the JDK's own cache.
+     *
+     * @param dnsCacheConfiguration the DNS cache configuration
+     * @return This builder for method chaining.
+     * @see Java11AsyncHttpClient#dnsCacheStatistics()
+     */
+    Builder dnsCacheConfiguration(DnsCacheConfiguration dnsCacheConfiguration);
+
+    /**
+     * Sets which idempotent requests the client hedges to cut tail latency. A hedged request that
+     * has not received response headers within a delay learned from recent requests to the same
+     * endpoint is sent again, and whichever attempt responds first wins. By default, no requests
+     * are hedged.
+     *
+     * @param hedgingPolicy the hedging policy
+     * @return This builder for method chaining.
+     * @see Java11AsyncHttpClient#hedgingStatistics()
+     */
+    Builder hedgingPolicy(HedgingPolicy hedgingPolicy);
+
+    /**
+     * Whether to register checkpoint/restore hooks with CRaC, which is also the API Lambda
+     * SnapStart uses. If enabled and a CRaC API ({@code org.crac} or {@code jdk.crac}) is available
+     * at runtime, then the client will drop its connections before a checkpoint and rebuild them
+     * after restore. Disabled by default.
+     *
+     * @param registerCheckpointRestoreHooks whether to register the hooks
+     * @return This builder for method chaining.
+     * @see Java11AsyncHttpClient#beforeCheckpoint()
+     * @see Java11AsyncHttpClient#afterRestore()
+     */
+    Builder registerCheckpointRestoreHooks(Boolean registerCheckpointRestoreHooks);
+
+    /**
+     * Sets the endpoints to which the client should open connections after a restore, so that
+     * restored functions serve their first requests at warm latency. Each endpoint receives a
+     * {@code HEAD} request whose response is discarded.
+     *
+     * @param prewarmEndpoints the endpoints to prewarm
+     * @return This builder for method chaining.
+     * @see Java11AsyncHttpClient#afterRestore()
+     */
+    Builder prewarmEndpoints(Collection<URI> prewarmEndpoints);
   }
 
   private static final class DefaultBuilder implements Builder {
@@ -238,6 +763,28 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
       protocol(protocol);
     }
 
+    @Override
+    public Builder protocolNegotiation(ProtocolNegotiation protocolNegotiation) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.PROTOCOL_NEGOTIATION,
+          protocolNegotiation);
+      return this;
+    }
+
+    public void setProtocolNegotiation(ProtocolNegotiation protocolNegotiation) {
+      protocolNegotiation(protocolNegotiation);
+    }
+
+    @Override
+    public Builder protocolRoutingTable(ProtocolRoutingTable protocolRoutingTable) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.PROTOCOL_ROUTING_TABLE,
+          protocolRoutingTable);
+      return this;
+    }
+
+    public void setProtocolRoutingTable(ProtocolRoutingTable protocolRoutingTable) {
+      protocolRoutingTable(protocolRoutingTable);
+    }
+
     @Override
     public Builder sslParameters(SSLParameters sslParameters) {
       standardOptions.put(Java11SdkHttpConfigurationOption.SSL_PARAMETERS, sslParameters);
@@ -263,6 +810,189 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
       responseTimeout(responseTimeout);
     }
 
+    @Override
+    public Builder expectContinueThresholdInBytes(Long expectContinueThresholdInBytes) {
+      if (expectContinueThresholdInBytes != null) {
+        Validate.isNotNegative(expectContinueThresholdInBytes, "expectContinueThresholdInBytes");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.EXPECT_CONTINUE_THRESHOLD_IN_BYTES,
+          expectContinueThresholdInBytes);
+      return this;
+    }
+
+    public void setExpectContinueThresholdInBytes(Long expectContinueThresholdInBytes) {
+      expectContinueThresholdInBytes(expectContinueThresholdInBytes);
+    }
+
+    @Override
+    public Builder requestBodyPrefetch(Integer requestBodyPrefetch) {
+      if (requestBodyPrefetch != null) {
+        Validate.isPositive(requestBodyPrefetch, "requestBodyPrefetch");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.REQUEST_BODY_PREFETCH,
+          requestBodyPrefetch);
+      return this;
+    }
+
+    public void setRequestBodyPrefetch(Integer requestBodyPrefetch) {
+      requestBodyPrefetch(requestBodyPrefetch);
+    }
+
+    @Override
+    public Builder requestBodyCoalesceSizeInBytes(Integer requestBodyCoalesceSizeInBytes) {
+      if (requestBodyCoalesceSizeInBytes != null) {
+        Validate.isNotNegative(requestBodyCoalesceSizeInBytes, "requestBodyCoalesceSizeInBytes");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.REQUEST_BODY_COALESCE_SIZE_IN_BYTES,
+          requestBodyCoalesceSizeInBytes);
+      return this;
+    }
+
+    public void setRequestBodyCoalesceSizeInBytes(Integer requestBodyCoalesceSizeInBytes) {
+      requestBodyCoalesceSizeInBytes(requestBodyCoalesceSizeInBytes);
+    }
+
+    @Override
+    public Builder smallRequestBodyThresholdInBytes(Integer smallRequestBodyThresholdInBytes) {
+      if (smallRequestBodyThresholdInBytes != null) {
+        Validate.isNotNegative(smallRequestBodyThresholdInBytes,
+            "smallRequestBodyThresholdInBytes");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES,
+          smallRequestBodyThresholdInBytes);
+      return this;
+    }
+
+    public void setSmallRequestBodyThresholdInBytes(Integer smallRequestBodyThresholdInBytes) {
+      smallRequestBodyThresholdInBytes(smallRequestBodyThresholdInBytes);
+    }
+
+    @Override
+    public Builder smallResponseBodyThresholdInBytes(Integer smallResponseBodyThresholdInBytes) {
+      if (smallResponseBodyThresholdInBytes != null) {
+        Validate.isNotNegative(smallResponseBodyThresholdInBytes,
+            "smallResponseBodyThresholdInBytes");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.SMALL_RESPONSE_BODY_THRESHOLD_IN_BYTES,
+          smallResponseBodyThresholdInBytes);
+      return this;
+    }
+
+    public void setSmallResponseBodyThresholdInBytes(Integer smallResponseBodyThresholdInBytes) {
+      smallResponseBodyThresholdInBytes(smallResponseBodyThresholdInBytes);
+    }
+
+    @Override
+    public Builder maxBufferedResponseBytes(Long maxBufferedResponseBytes) {
+      if (maxBufferedResponseBytes != null) {
+        Validate.isPositive(maxBufferedResponseBytes, "maxBufferedResponseBytes");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.MAX_BUFFERED_RESPONSE_BYTES,
+          maxBufferedResponseBytes);
+      return this;
+    }
+
+    public void setMaxBufferedResponseBytes(Long maxBufferedResponseBytes) {
+      maxBufferedResponseBytes(maxBufferedResponseBytes);
+    }
+
+    @Override
+    public Builder maxResponseSizeInBytes(Long maxResponseSizeInBytes) {
+      if (maxResponseSizeInBytes != null) {
+        Validate.isNotNegative(maxResponseSizeInBytes, "maxResponseSizeInBytes");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.MAX_RESPONSE_SIZE_IN_BYTES,
+          maxResponseSizeInBytes);
+      return this;
+    }
+
+    public void setMaxResponseSizeInBytes(Long maxResponseSizeInBytes) {
+      maxResponseSizeInBytes(maxResponseSizeInBytes);
+    }
+
+    @Override
+    public Builder responseSpillThresholdInBytes(Long responseSpillThresholdInBytes) {
+      if (responseSpillThresholdInBytes != null) {
+        Validate.isNotNegative(responseSpillThresholdInBytes, "responseSpillThresholdInBytes");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.RESPONSE_SPILL_THRESHOLD_IN_BYTES,
+          responseSpillThresholdInBytes);
+      return this;
+    }
+
+    public void setResponseSpillThresholdInBytes(Long responseSpillThresholdInBytes) {
+      responseSpillThresholdInBytes(responseSpillThresholdInBytes);
+    }
+
+    @Override
+    public Builder responseSpillDirectory(Path responseSpillDirectory) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.RESPONSE_SPILL_DIRECTORY,
+          responseSpillDirectory);
+      return this;
+    }
+
+    public void setResponseSpillDirectory(Path responseSpillDirectory) {
+      responseSpillDirectory(responseSpillDirectory);
+    }
+
+    @Override
+    public Builder responseDrainThresholdInBytes(Long responseDrainThresholdInBytes) {
+      if (responseDrainThresholdInBytes != null) {
+        Validate.isNotNegative(responseDrainThresholdInBytes, "responseDrainThresholdInBytes");
+      }
+      standardOptions.put(Java11SdkHttpConfigurationOption.RESPONSE_DRAIN_THRESHOLD_IN_BYTES,
+          responseDrainThresholdInBytes);
+      return this;
+    }
+
+    public void setResponseDrainThresholdInBytes(Long responseDrainThresholdInBytes) {
+      responseDrainThresholdInBytes(responseDrainThresholdInBytes);
+    }
+
+    @Override
+    public Builder decompressResponses(Boolean decompressResponses) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.DECOMPRESS_RESPONSES,
+          decompressResponses);
+      return this;
+    }
+
+    public void setDecompressResponses(Boolean decompressResponses) {
+      decompressResponses(decompressResponses);
+    }
+
+    @Override
+    public Builder recordLatencyHistograms(Boolean recordLatencyHistograms) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.RECORD_LATENCY_HISTOGRAMS,
+          recordLatencyHistograms);
+      return this;
+    }
+
+    public void setRecordLatencyHistograms(Boolean recordLatencyHistograms) {
+      recordLatencyHistograms(recordLatencyHistograms);
+    }
+
+    @Override
+    public Builder exchangeListenerFactory(ExchangeListener.Factory exchangeListenerFactory) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.EXCHANGE_LISTENER_FACTORY,
+          exchangeListenerFactory);
+      return this;
+    }
+
+    public void setExchangeListenerFactory(ExchangeListener.Factory exchangeListenerFactory) {
+      exchangeListenerFactory(exchangeListenerFactory);
+    }
+
+    @Override
+    public Builder requestCompression(RequestCompression requestCompression) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.REQUEST_COMPRESSION,
+          requestCompression);
+      return this;
+    }
+
+    public void setRequestCompression(RequestCompression requestCompression) {
+      requestCompression(requestCompression);
+    }
+
     /**
      * If customers use this method then we should not close the executor when the client is
      * closed.
@@ -323,6 +1053,49 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
       proxyConfiguration(proxyConfiguration);
     }
 
+    @Override
+    public Builder dnsCacheConfiguration(DnsCacheConfiguration dnsCacheConfiguration) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.DNS_CACHE_CONFIGURATION,
+          dnsCacheConfiguration);
+      return this;
+    }
+
+    public void setDnsCacheConfiguration(DnsCacheConfiguration dnsCacheConfiguration) {
+      dnsCacheConfiguration(dnsCacheConfiguration);
+    }
+
+    @Override
+    public Builder hedgingPolicy(HedgingPolicy hedgingPolicy) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.HEDGING_POLICY, hedgingPolicy);
+      return this;
+    }
+
+    public void setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+      hedgingPolicy(hedgingPolicy);
+    }
+
+    @Override
+    public Builder registerCheckpointRestoreHooks(Boolean registerCheckpointRestoreHooks) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.CHECKPOINT_RESTORE_HOOKS,
+          registerCheckpointRestoreHooks);
+      return this;
+    }
+
+    public void setRegisterCheckpointRestoreHooks(Boolean registerCheckpointRestoreHooks) {
+      registerCheckpointRestoreHooks(registerCheckpointRestoreHooks);
+    }
+
+    @Override
+    public Builder prewarmEndpoints(Collection<URI> prewarmEndpoints) {
+      standardOptions.put(Java11SdkHttpConfigurationOption.PREWARM_ENDPOINTS,
+          prewarmEndpoints != null ? unmodifiableList(new ArrayList<>(prewarmEndpoints)) : null);
+      return this;
+    }
+
+    public void setPrewarmEndpoints(Collection<URI> prewarmEndpoints) {
+      prewarmEndpoints(prewarmEndpoints);
+    }
+
     @Override
     public SdkAsyncHttpClient buildWithDefaults(AttributeMap serviceDefaults) {
       return new Java11AsyncHttpClient(this, standardOptions.build().merge(serviceDefaults)
@@ -335,6 +1108,70 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
     return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.RESPONSE_TIMEOUT);
   }
 
+  // EXPECT CONTINUE /////////////////////////////////////////////////////////
+
+  private static long getExpectContinueThresholdInBytes(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.EXPECT_CONTINUE_THRESHOLD_IN_BYTES);
+  }
+
+  // REQUEST BODY //////////////////////////////////////////////////////////////
+
+  private static int getRequestBodyPrefetch(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.REQUEST_BODY_PREFETCH);
+  }
+
+  private static int getRequestBodyCoalesceSizeInBytes(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.REQUEST_BODY_COALESCE_SIZE_IN_BYTES);
+  }
+
+  private static int getSmallRequestBodyThresholdInBytes(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES);
+  }
+
+  // RESPONSE BODY /////////////////////////////////////////////////////////////
+
+  private static int getSmallResponseBodyThresholdInBytes(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.SMALL_RESPONSE_BODY_THRESHOLD_IN_BYTES);
+  }
+
+  private static long getMaxBufferedResponseBytes(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.MAX_BUFFERED_RESPONSE_BYTES);
+  }
+
+  private static long getMaxResponseSizeInBytes(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.MAX_RESPONSE_SIZE_IN_BYTES);
+  }
+
+  private static long getResponseSpillThresholdInBytes(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.RESPONSE_SPILL_THRESHOLD_IN_BYTES);
+  }
+
+  /**
+   * @return the directory for spill files, or null for the default temporary directory
+   */
+  private static Path getResponseSpillDirectory(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.RESPONSE_SPILL_DIRECTORY);
+  }
+
+  private static long getResponseDrainThresholdInBytes(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.RESPONSE_DRAIN_THRESHOLD_IN_BYTES);
+  }
+
+  private static boolean getDecompressResponses(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.DECOMPRESS_RESPONSES);
+  }
+
+  // REQUEST COMPRESSION ///////////////////////////////////////////////////////
+
+  /**
+   * @return which request bodies to compress, or null if none
+   */
+  private static RequestCompression getRequestCompression(AttributeMap serviceDefaultsMap) {
+    RequestCompression result = serviceDefaultsMap.get(
+        Java11SdkHttpConfigurationOption.REQUEST_COMPRESSION);
+    return result.isEmpty() ? null : result;
+  }
+
   // REQUEST EXECUTOR //////////////////////////////////////////////////////////
   private static Executor getRequestExecutor(AttributeMap serviceDefaultsMap) {
     return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.REQUEST_EXECUTOR_PROVIDER)
@@ -342,36 +1179,63 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
   }
 
   // PROXY CONFIGURATION ///////////////////////////////////////////////////////
-  private static ProxySelector getProxySelector(AttributeMap serviceDefaultsMap) {
+
+  /**
+   * @return a selector for the configured proxies, or null if there are none
+   */
+  private static FailoverProxySelector getFailoverProxySelector(AttributeMap serviceDefaultsMap) {
     ProxyConfiguration proxyConfiguration = serviceDefaultsMap.get(
         Java11SdkHttpConfigurationOption.PROXY_CONFIGURATION);
     if (proxyConfiguration == null || proxyConfiguration.host() == null) {
-      return ProxySelector.getDefault();
+      return null;
     }
-    return new DefaultProxySelector(new Proxy(Proxy.Type.HTTP,
-        InetSocketAddress.createUnresolved(proxyConfiguration.host(), proxyConfiguration.port())),
-        proxyConfiguration.nonProxyHosts());
+    List<Proxy> proxies = new ArrayList<>();
+    proxies.add(new Proxy(Proxy.Type.HTTP,
+        InetSocketAddress.createUnresolved(proxyConfiguration.host(), proxyConfiguration.port())));
+    for (URI endpoint : proxyConfiguration.failoverEndpoints()) {
+      int port = endpoint.getPort() != -1 ? endpoint.getPort()
+          : "https".equalsIgnoreCase(endpoint.getScheme()) ? 443 : 80;
+      proxies.add(new Proxy(Proxy.Type.HTTP,
+          InetSocketAddress.createUnresolved(endpoint.getHost(), port)));
+    }
+    return new FailoverProxySelector(proxies, proxyConfiguration.nonProxyHosts(),
+        proxyConfiguration.proxyEjectionDuration(), proxyConfiguration.maxProxyEjectionDuration(),
+        proxyConfiguration.proxyHealthCheckInterval());
   }
 
-  private static class DefaultProxySelector extends ProxySelector {
+  // DNS CACHE /////////////////////////////////////////////////////////////////
 
-    private final Proxy proxy;
-    private final Set<String> nonProxyHosts;
+  private static DnsCacheConfiguration getDnsCacheConfiguration(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.DNS_CACHE_CONFIGURATION);
+  }
 
-    public DefaultProxySelector(Proxy proxy, Set<String> nonProxyHosts) {
-      this.proxy = requireNonNull(proxy);
-      this.nonProxyHosts = unmodifiableSet(nonProxyHosts);
-    }
+  // HEDGING ///////////////////////////////////////////////////////////////////
 
-    @Override
-    public List<Proxy> select(URI uri) {
-      return singletonList(nonProxyHosts.contains(uri.getHost()) ? Proxy.NO_PROXY : proxy);
-    }
+  private static HedgingPolicy getHedgingPolicy(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.HEDGING_POLICY);
+  }
 
-    @Override
-    public void connectFailed(URI uri, SocketAddress address, IOException e) {
-      log.warn(() -> "Failed to connect to proxy " + address, e);
-    }
+  // LATENCY HISTOGRAMS ////////////////////////////////////////////////////////
+
+  private static boolean getRecordLatencyHistograms(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.RECORD_LATENCY_HISTOGRAMS);
+  }
+
+  // EXCHANGE LISTENER /////////////////////////////////////////////////////////
+
+  private static ExchangeListener.Factory getExchangeListenerFactory(
+      AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.EXCHANGE_LISTENER_FACTORY);
+  }
+
+  // CHECKPOINT/RESTORE ////////////////////////////////////////////////////////
+
+  private static boolean getCheckpointRestoreHooks(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.CHECKPOINT_RESTORE_HOOKS);
+  }
+
+  private static List<URI> getPrewarmEndpoints(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.PREWARM_ENDPOINTS);
   }
 
   // CONNECT TIMEOUT //////////////////////////////////////////////////////////
@@ -383,6 +1247,11 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
   // VERSION //////////////////////////////////////////////////////////////////
 
   private static HttpClient.Version getVersion(AttributeMap serviceDefaultsMap) {
+    if (getProtocolNegotiation(serviceDefaultsMap) == ProtocolNegotiation.ALPN) {
+      // Prefer HTTP/2. The HttpClient falls back to HTTP/1.1 for endpoints that don't support it.
+      return HttpClient.Version.HTTP_2;
+    }
+
     HttpClient.Version result;
 
     Protocol protocol = serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.PROTOCOL);
@@ -399,6 +1268,14 @@ public final class Java11AsyncHttpClient implements SdkAsyncHttpClient {
     return result;
   }
 
+  private static ProtocolNegotiation getProtocolNegotiation(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.PROTOCOL_NEGOTIATION);
+  }
+
+  private static ProtocolRoutingTable getProtocolRoutingTable(AttributeMap serviceDefaultsMap) {
+    return serviceDefaultsMap.get(Java11SdkHttpConfigurationOption.PROTOCOL_ROUTING_TABLE);
+  }
+
   // SSL PARAMETERS ///////////////////////////////////////////////////////////
 
   private static SSLParameters getSslParameters(AttributeMap serviceDefaultsMap) {
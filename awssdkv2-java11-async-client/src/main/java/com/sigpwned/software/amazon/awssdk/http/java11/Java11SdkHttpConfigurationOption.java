@@ -1,6 +1,10 @@
 package com.sigpwned.software.amazon.awssdk.http.java11;
 
+import java.net.URI;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
 import javax.net.ssl.SSLParameters;
 import software.amazon.awssdk.annotations.SdkProtectedApi;
 import software.amazon.awssdk.http.Protocol;
@@ -47,6 +51,18 @@ public final class Java11SdkHttpConfigurationOption<T> extends AttributeMap.Key<
    */
   public static final SdkHttpConfigurationOption<Protocol> PROTOCOL = SdkHttpConfigurationOption.PROTOCOL;
 
+  /**
+   * How the client decides which HTTP protocol to use with each endpoint.
+   */
+  public static final Java11SdkHttpConfigurationOption<ProtocolNegotiation> PROTOCOL_NEGOTIATION = new Java11SdkHttpConfigurationOption<>(
+      "ProtocolNegotiation", ProtocolNegotiation.class);
+
+  /**
+   * Per-request protocol overrides.
+   */
+  public static final Java11SdkHttpConfigurationOption<ProtocolRoutingTable> PROTOCOL_ROUTING_TABLE = new Java11SdkHttpConfigurationOption<>(
+      "ProtocolRoutingTable", ProtocolRoutingTable.class);
+
   /**
    * Timeout for establishing a connection to a remote service.
    */
@@ -64,6 +80,88 @@ public final class Java11SdkHttpConfigurationOption<T> extends AttributeMap.Key<
   public static final Java11SdkHttpConfigurationOption<Duration> RESPONSE_TIMEOUT = new Java11SdkHttpConfigurationOption<>(
       "ResponseTimeout", Duration.class);
 
+  /**
+   * The minimum request body size, in bytes, for which the client honors an
+   * {@code Expect: 100-continue} request header. Smaller bodies are sent without waiting for the
+   * server to accept them first. Bodies of unknown length are always treated as large.
+   */
+  public static final Java11SdkHttpConfigurationOption<Long> EXPECT_CONTINUE_THRESHOLD_IN_BYTES = new Java11SdkHttpConfigurationOption<>(
+      "ExpectContinueThresholdInBytes", Long.class);
+
+  /**
+   * How many buffers of a request body the client requests from the SDK ahead of writing them.
+   */
+  public static final Java11SdkHttpConfigurationOption<Integer> REQUEST_BODY_PREFETCH = new Java11SdkHttpConfigurationOption<>(
+      "RequestBodyPrefetch", Integer.class);
+
+  /**
+   * The largest buffer, in bytes, into which the client merges small request body buffers that are
+   * waiting to be written. Zero disables merging.
+   */
+  public static final Java11SdkHttpConfigurationOption<Integer> REQUEST_BODY_COALESCE_SIZE_IN_BYTES = new Java11SdkHttpConfigurationOption<>(
+      "RequestBodyCoalesceSizeInBytes", Integer.class);
+
+  /**
+   * The largest request body, in bytes, that the client reads into memory up front and sends as a
+   * single array rather than streaming it. Zero disables the fast path.
+   */
+  public static final Java11SdkHttpConfigurationOption<Integer> SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES = new Java11SdkHttpConfigurationOption<>(
+      "SmallRequestBodyThresholdInBytes", Integer.class);
+
+  /**
+   * The largest response body of known length, in bytes, that the client reads into a single buffer
+   * rather than streaming it. Zero disables the single-buffer path.
+   */
+  public static final Java11SdkHttpConfigurationOption<Integer> SMALL_RESPONSE_BODY_THRESHOLD_IN_BYTES = new Java11SdkHttpConfigurationOption<>(
+      "SmallResponseBodyThresholdInBytes", Integer.class);
+
+  /**
+   * The budget, in bytes, for response bytes received but not yet handed to the SDK, across all
+   * responses of a client. Responses stop reading from the network while the budget is used up.
+   */
+  public static final Java11SdkHttpConfigurationOption<Long> MAX_BUFFERED_RESPONSE_BYTES = new Java11SdkHttpConfigurationOption<>(
+      "MaxBufferedResponseBytes", Long.class);
+
+  /**
+   * The largest response body, in bytes, that the client will accept. Zero means no limit.
+   */
+  public static final Java11SdkHttpConfigurationOption<Long> MAX_RESPONSE_SIZE_IN_BYTES = new Java11SdkHttpConfigurationOption<>(
+      "MaxResponseSizeInBytes", Long.class);
+
+  /**
+   * How many bytes each response may hold in memory before the rest of its body spills to a
+   * temporary file. Zero disables spilling.
+   */
+  public static final Java11SdkHttpConfigurationOption<Long> RESPONSE_SPILL_THRESHOLD_IN_BYTES = new Java11SdkHttpConfigurationOption<>(
+      "ResponseSpillThresholdInBytes", Long.class);
+
+  /**
+   * The directory for the temporary files of spilled response bodies. If not set, the system's
+   * default temporary directory is used.
+   */
+  public static final Java11SdkHttpConfigurationOption<Path> RESPONSE_SPILL_DIRECTORY = new Java11SdkHttpConfigurationOption<>(
+      "ResponseSpillDirectory", Path.class);
+
+  /**
+   * The most of a cancelled response body, in bytes, that the client will read and discard so that
+   * its connection can be reused. Zero means always abort.
+   */
+  public static final Java11SdkHttpConfigurationOption<Long> RESPONSE_DRAIN_THRESHOLD_IN_BYTES = new Java11SdkHttpConfigurationOption<>(
+      "ResponseDrainThresholdInBytes", Long.class);
+
+  /**
+   * Whether the client should ask for compressed responses, and decode gzip and deflate response
+   * bodies as they stream in.
+   */
+  public static final Java11SdkHttpConfigurationOption<Boolean> DECOMPRESS_RESPONSES = new Java11SdkHttpConfigurationOption<>(
+      "DecompressResponses", Boolean.class);
+
+  /**
+   * Which request bodies the client should gzip before sending.
+   */
+  public static final Java11SdkHttpConfigurationOption<RequestCompression> REQUEST_COMPRESSION = new Java11SdkHttpConfigurationOption<>(
+      "RequestCompression", RequestCompression.class);
+
   /**
    * The {@link ExecutorProvider} that will be used by the HTTP client when executing requests. If
    * the provider returns null, the client will use the default executor.
@@ -77,16 +175,94 @@ public final class Java11SdkHttpConfigurationOption<T> extends AttributeMap.Key<
   public static final Java11SdkHttpConfigurationOption<ProxyConfiguration> PROXY_CONFIGURATION = new Java11SdkHttpConfigurationOption<>(
       "ProxyConfiguration", ProxyConfiguration.class);
 
+  /**
+   * How the process-wide resolver should cache endpoint host names, on Java 18 and later
+   */
+  public static final Java11SdkHttpConfigurationOption<DnsCacheConfiguration> DNS_CACHE_CONFIGURATION = new Java11SdkHttpConfigurationOption<>(
+      "DnsCacheConfiguration", DnsCacheConfiguration.class);
+
+  /**
+   * Which idempotent requests the client should hedge, and when
+   */
+  public static final Java11SdkHttpConfigurationOption<HedgingPolicy> HEDGING_POLICY = new Java11SdkHttpConfigurationOption<>(
+      "HedgingPolicy", HedgingPolicy.class);
+
+  /**
+   * Whether the client should record latency histograms by host and status class
+   */
+  public static final Java11SdkHttpConfigurationOption<Boolean> RECORD_LATENCY_HISTOGRAMS = new Java11SdkHttpConfigurationOption<>(
+      "RecordLatencyHistograms", Boolean.class);
+
+  /**
+   * Creates a listener for the phases of each exchange
+   */
+  public static final Java11SdkHttpConfigurationOption<ExchangeListener.Factory> EXCHANGE_LISTENER_FACTORY = new Java11SdkHttpConfigurationOption<>(
+      "ExchangeListenerFactory", ExchangeListener.Factory.class);
+
+  /**
+   * Whether the client should register checkpoint/restore hooks with CRaC (or Lambda SnapStart)
+   * when a CRaC API is available on the classpath.
+   */
+  public static final Java11SdkHttpConfigurationOption<Boolean> CHECKPOINT_RESTORE_HOOKS = new Java11SdkHttpConfigurationOption<>(
+      "CheckpointRestoreHooks", Boolean.class);
+
+  /**
+   * Endpoints to which the client should open connections eagerly after a restore.
+   */
+  public static final Java11SdkHttpConfigurationOption<List<URI>> PREWARM_ENDPOINTS = new Java11SdkHttpConfigurationOption<>(
+      "PrewarmEndpoints", new UnsafeValueType(List.class));
+
   private static final SSLParameters DEFAULT_SSL_PARAMETERS = new SSLParameters();
   private static final Duration DEFAULT_RESPONSE_TIMEOUT = Duration.ofSeconds(30);
+  private static final Long DEFAULT_EXPECT_CONTINUE_THRESHOLD_IN_BYTES = 0L;
+  private static final Integer DEFAULT_REQUEST_BODY_PREFETCH = 8;
+  private static final Integer DEFAULT_REQUEST_BODY_COALESCE_SIZE_IN_BYTES = 32 * 1024;
+  private static final Integer DEFAULT_SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES = 16 * 1024;
+  private static final Integer DEFAULT_SMALL_RESPONSE_BODY_THRESHOLD_IN_BYTES = 16 * 1024;
+  private static final Long DEFAULT_MAX_BUFFERED_RESPONSE_BYTES = 64L * 1024L * 1024L;
+  private static final Long DEFAULT_MAX_RESPONSE_SIZE_IN_BYTES = 0L;
+  private static final Long DEFAULT_RESPONSE_SPILL_THRESHOLD_IN_BYTES = 0L;
+  private static final Long DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES = 64L * 1024L;
+  private static final Boolean DEFAULT_DECOMPRESS_RESPONSES = Boolean.FALSE;
+  private static final RequestCompression DEFAULT_REQUEST_COMPRESSION = RequestCompression.builder()
+      .build();
   private static final ExecutorProvider DEFAULT_REQUEST_EXECUTOR_PROVIDER = () -> null;
   private static final ProxyConfiguration DEFAULT_PROXY_CONFIGURATION = ProxyConfiguration.builder()
       .build();
+  private static final DnsCacheConfiguration DEFAULT_DNS_CACHE_CONFIGURATION = DnsCacheConfiguration.builder()
+      .build();
+  private static final HedgingPolicy DEFAULT_HEDGING_POLICY = HedgingPolicy.none();
+  private static final Boolean DEFAULT_RECORD_LATENCY_HISTOGRAMS = Boolean.FALSE;
+  private static final ExchangeListener.Factory DEFAULT_EXCHANGE_LISTENER_FACTORY = ExchangeListener.noListeners();
+  private static final ProtocolNegotiation DEFAULT_PROTOCOL_NEGOTIATION = ProtocolNegotiation.ASSUME_PROTOCOL;
+  private static final ProtocolRoutingTable DEFAULT_PROTOCOL_ROUTING_TABLE = ProtocolRoutingTable.builder()
+      .build();
+  private static final Boolean DEFAULT_CHECKPOINT_RESTORE_HOOKS = Boolean.FALSE;
+  private static final List<URI> DEFAULT_PREWARM_ENDPOINTS = Collections.emptyList();
 
   public static final AttributeMap GLOBAL_HTTP_DEFAULTS = AttributeMap.builder()
       .put(SSL_PARAMETERS, DEFAULT_SSL_PARAMETERS).put(RESPONSE_TIMEOUT, DEFAULT_RESPONSE_TIMEOUT)
+      .put(EXPECT_CONTINUE_THRESHOLD_IN_BYTES, DEFAULT_EXPECT_CONTINUE_THRESHOLD_IN_BYTES)
+      .put(REQUEST_BODY_PREFETCH, DEFAULT_REQUEST_BODY_PREFETCH)
+      .put(REQUEST_BODY_COALESCE_SIZE_IN_BYTES, DEFAULT_REQUEST_BODY_COALESCE_SIZE_IN_BYTES)
+      .put(SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES, DEFAULT_SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES)
+      .put(SMALL_RESPONSE_BODY_THRESHOLD_IN_BYTES, DEFAULT_SMALL_RESPONSE_BODY_THRESHOLD_IN_BYTES)
+      .put(MAX_BUFFERED_RESPONSE_BYTES, DEFAULT_MAX_BUFFERED_RESPONSE_BYTES)
+      .put(MAX_RESPONSE_SIZE_IN_BYTES, DEFAULT_MAX_RESPONSE_SIZE_IN_BYTES)
+      .put(RESPONSE_SPILL_THRESHOLD_IN_BYTES, DEFAULT_RESPONSE_SPILL_THRESHOLD_IN_BYTES)
+      .put(RESPONSE_DRAIN_THRESHOLD_IN_BYTES, DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES)
+      .put(DECOMPRESS_RESPONSES, DEFAULT_DECOMPRESS_RESPONSES)
+      .put(REQUEST_COMPRESSION, DEFAULT_REQUEST_COMPRESSION)
       .put(REQUEST_EXECUTOR_PROVIDER, DEFAULT_REQUEST_EXECUTOR_PROVIDER)
-      .put(PROXY_CONFIGURATION, DEFAULT_PROXY_CONFIGURATION).build()
+      .put(PROXY_CONFIGURATION, DEFAULT_PROXY_CONFIGURATION)
+      .put(DNS_CACHE_CONFIGURATION, DEFAULT_DNS_CACHE_CONFIGURATION)
+      .put(HEDGING_POLICY, DEFAULT_HEDGING_POLICY)
+      .put(RECORD_LATENCY_HISTOGRAMS, DEFAULT_RECORD_LATENCY_HISTOGRAMS)
+      .put(EXCHANGE_LISTENER_FACTORY, DEFAULT_EXCHANGE_LISTENER_FACTORY)
+      .put(PROTOCOL_NEGOTIATION, DEFAULT_PROTOCOL_NEGOTIATION)
+      .put(PROTOCOL_ROUTING_TABLE, DEFAULT_PROTOCOL_ROUTING_TABLE)
+      .put(CHECKPOINT_RESTORE_HOOKS, DEFAULT_CHECKPOINT_RESTORE_HOOKS)
+      .put(PREWARM_ENDPOINTS, DEFAULT_PREWARM_ENDPOINTS).build()
       .merge(SdkHttpConfigurationOption.GLOBAL_HTTP_DEFAULTS);
 
   private final String name;
@@ -96,6 +272,11 @@ public final class Java11SdkHttpConfigurationOption<T> extends AttributeMap.Key<
     this.name = name;
   }
 
+  private Java11SdkHttpConfigurationOption(String name, UnsafeValueType unsafeValueType) {
+    super(unsafeValueType);
+    this.name = name;
+  }
+
   public String name() {
     return name;
   }
@@ -0,0 +1,95 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import java.time.Duration;
+import java.util.Arrays;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * A snapshot of how one phase of a client's exchanges was distributed over time. Latencies are
+ * grouped into buckets about 6% wide, and each is reported as the top of its bucket, so reported
+ * latencies are never lower than the true ones.
+ *
+ * @see EndpointLatencyStatistics
+ */
+@SdkPublicApi
+public final class LatencyDistribution {
+
+  private static final LatencyDistribution EMPTY = new LatencyDistribution(new long[0],
+      new long[0]);
+
+  /**
+   * @return a distribution with no latencies in it
+   */
+  public static LatencyDistribution empty() {
+    return EMPTY;
+  }
+
+  /**
+   * @param latencyNanos the distinct latencies, in nanoseconds, in ascending order
+   * @param counts       how many times each latency was observed
+   */
+  public static LatencyDistribution create(long[] latencyNanos, long[] counts) {
+    Validate.isTrue(latencyNanos.length == counts.length,
+        "latencyNanos and counts must have the same length");
+    return new LatencyDistribution(latencyNanos.clone(), counts.clone());
+  }
+
+  private final long[] latencyNanos;
+  private final long[] counts;
+  private final long count;
+
+  private LatencyDistribution(long[] latencyNanos, long[] counts) {
+    this.latencyNanos = latencyNanos;
+    this.counts = counts;
+    this.count = Arrays.stream(counts).sum();
+  }
+
+  /**
+   * @return how many latencies were observed
+   */
+  public long count() {
+    return count;
+  }
+
+  /**
+   * @param percentile the percentile, from 0 to 100
+   * @return the latency at the given percentile, or zero if there are no latencies
+   */
+  public Duration percentile(double percentile) {
+    Validate.isTrue(percentile >= 0.0 && percentile <= 100.0,
+        "percentile must be between 0 and 100");
+    if (count == 0L) {
+      return Duration.ZERO;
+    }
+    long rank = Math.max((long) Math.ceil(count * percentile / 100.0), 1L);
+    long seen = 0L;
+    for (int i = 0; i < counts.length; i++) {
+      seen = seen + counts[i];
+      if (seen >= rank) {
+        return Duration.ofNanos(latencyNanos[i]);
+      }
+    }
+    return max();
+  }
+
+  /**
+   * @return the highest latency, or zero if there are no latencies
+   */
+  public Duration max() {
+    return count == 0L ? Duration.ZERO : Duration.ofNanos(latencyNanos[latencyNanos.length - 1]);
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("LatencyDistribution")
+        .add("count", count)
+        .add("p50", percentile(50.0))
+        .add("p90", percentile(90.0))
+        .add("p99", percentile(99.0))
+        .add("p999", percentile(99.9))
+        .add("max", max())
+        .build();
+  }
+}
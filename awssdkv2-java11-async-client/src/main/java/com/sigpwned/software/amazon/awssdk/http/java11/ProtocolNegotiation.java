@@ -0,0 +1,25 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.Protocol;
+
+/**
+ * How the client decides which HTTP protocol to use with each endpoint.
+ *
+ * @see Java11AsyncHttpClient.Builder#protocolNegotiation(ProtocolNegotiation)
+ */
+@SdkPublicApi
+public enum ProtocolNegotiation {
+  /**
+   * Use the configured {@link Protocol} for every endpoint. This is the default.
+   */
+  ASSUME_PROTOCOL,
+
+  /**
+   * Prefer HTTP/2, and fall back to HTTP/1.1 for endpoints that do not support it. Over TLS, the
+   * protocol is negotiated using ALPN. Over cleartext, the client attempts an upgrade. Either way,
+   * the client remembers the protocol each endpoint actually used, so endpoints that only speak
+   * HTTP/1.1 do not pay for a failed upgrade on every new connection.
+   */
+  ALPN;
+}
@@ -0,0 +1,111 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.Protocol;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.utils.ToString;
+
+/**
+ * Overrides the HTTP protocol for individual requests. Each route pairs a {@link RequestPattern}
+ * with the {@link Protocol} matching requests should use. Routes are evaluated in the order they
+ * were added, and the first match wins. Requests that match no route use the client's protocol.
+ *
+ * <p>
+ * This allows one client to, for example, send large S3 transfers over many pooled HTTP/1.1
+ * connections while multiplexing small RPC-style calls over HTTP/2, without keeping a separate
+ * client and connection pool for each protocol.
+ * </p>
+ *
+ * @see Java11AsyncHttpClient.Builder#protocolRoutingTable(ProtocolRoutingTable)
+ */
+@SdkPublicApi
+public final class ProtocolRoutingTable {
+
+  private final List<Route> routes;
+
+  private ProtocolRoutingTable(DefaultBuilder builder) {
+    this.routes = unmodifiableList(new ArrayList<>(builder.routes));
+  }
+
+  /**
+   * @return the protocol the first matching route gives for the request, or empty if no route
+   * matches
+   */
+  public Optional<Protocol> route(SdkHttpRequest request) {
+    for (Route route : routes) {
+      if (route.pattern.matches(request)) {
+        return Optional.of(route.protocol);
+      }
+    }
+    return Optional.empty();
+  }
+
+  public boolean isEmpty() {
+    return routes.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("ProtocolRoutingTable").add("routes", routes).build();
+  }
+
+  /**
+   * Create a {@link Builder}, used to create a {@link ProtocolRoutingTable}.
+   */
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  /**
+   * A builder for {@link ProtocolRoutingTable}.
+   *
+   * <p>All implementations of this interface are mutable and not thread safe.</p>
+   */
+  public interface Builder {
+
+    /**
+     * Add a route sending requests that match the given pattern over the given protocol.
+     */
+    Builder route(RequestPattern pattern, Protocol protocol);
+
+    ProtocolRoutingTable build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private final List<Route> routes = new ArrayList<>();
+
+    @Override
+    public Builder route(RequestPattern pattern, Protocol protocol) {
+      routes.add(new Route(pattern, protocol));
+      return this;
+    }
+
+    @Override
+    public ProtocolRoutingTable build() {
+      return new ProtocolRoutingTable(this);
+    }
+  }
+
+  private static final class Route {
+
+    private final RequestPattern pattern;
+    private final Protocol protocol;
+
+    public Route(RequestPattern pattern, Protocol protocol) {
+      this.pattern = requireNonNull(pattern);
+      this.protocol = requireNonNull(protocol);
+    }
+
+    @Override
+    public String toString() {
+      return ToString.builder("Route").add("pattern", pattern).add("protocol", protocol).build();
+    }
+  }
+}
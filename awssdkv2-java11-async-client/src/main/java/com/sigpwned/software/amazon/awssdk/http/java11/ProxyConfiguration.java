@@ -3,8 +3,11 @@ package com.sigpwned.software.amazon.awssdk.http.java11;
 import static software.amazon.awssdk.utils.StringUtils.isEmpty;
 
 import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import software.amazon.awssdk.annotations.SdkPublicApi;
 import software.amazon.awssdk.utils.ProxyConfigProvider;
@@ -25,7 +28,15 @@ import software.amazon.awssdk.utils.builder.ToCopyableBuilder;
 public final class ProxyConfiguration implements
     ToCopyableBuilder<ProxyConfiguration.Builder, ProxyConfiguration> {
 
+  public static final Duration DEFAULT_PROXY_EJECTION_DURATION = Duration.ofSeconds(5);
+
+  public static final Duration DEFAULT_MAX_PROXY_EJECTION_DURATION = Duration.ofMinutes(5);
+
   private final URI endpoint;
+  private final List<URI> failoverEndpoints;
+  private final Duration proxyEjectionDuration;
+  private final Duration maxProxyEjectionDuration;
+  private final Duration proxyHealthCheckInterval;
   private final Set<String> nonProxyHosts;
   private final String host;
   private final int port;
@@ -56,6 +67,11 @@ public final class ProxyConfiguration implements
       this.port = proxyConfigProvider != null ? proxyConfigProvider.port() : 0;
     }
     this.useEnvironmentVariablesValues = builder.useEnvironmentVariablesValues;
+    this.failoverEndpoints = Collections.unmodifiableList(
+        new ArrayList<>(builder.failoverEndpoints));
+    this.proxyEjectionDuration = builder.proxyEjectionDuration;
+    this.maxProxyEjectionDuration = builder.maxProxyEjectionDuration;
+    this.proxyHealthCheckInterval = builder.proxyHealthCheckInterval;
   }
 
   private String resolveScheme(DefaultClientProxyConfigurationBuilder builder) {
@@ -111,10 +127,50 @@ public final class ProxyConfiguration implements
         nonProxyHosts != null ? nonProxyHosts : Collections.emptySet());
   }
 
+  /**
+   * The proxies to fail over to, in order, when the proxies before them are unhealthy.
+   *
+   * @see Builder#failoverEndpoints(List)
+   */
+  public List<URI> failoverEndpoints() {
+    return failoverEndpoints;
+  }
+
+  /**
+   * How long a proxy is ejected after its first connection failure.
+   *
+   * @see Builder#proxyEjectionDuration(Duration)
+   */
+  public Duration proxyEjectionDuration() {
+    return proxyEjectionDuration;
+  }
+
+  /**
+   * The longest a proxy is ejected after repeated connection failures.
+   *
+   * @see Builder#maxProxyEjectionDuration(Duration)
+   */
+  public Duration maxProxyEjectionDuration() {
+    return maxProxyEjectionDuration;
+  }
+
+  /**
+   * How often ejected proxies are checked, or zero if they are not.
+   *
+   * @see Builder#proxyHealthCheckInterval(Duration)
+   */
+  public Duration proxyHealthCheckInterval() {
+    return proxyHealthCheckInterval;
+  }
+
   @Override
   public Builder toBuilder() {
     return builder()
         .endpoint(endpoint)
+        .failoverEndpoints(failoverEndpoints)
+        .proxyEjectionDuration(proxyEjectionDuration)
+        .maxProxyEjectionDuration(maxProxyEjectionDuration)
+        .proxyHealthCheckInterval(proxyHealthCheckInterval)
         .nonProxyHosts(nonProxyHosts)
         .useSystemPropertyValues(useSystemPropertyValues)
         .scheme(scheme)
@@ -132,6 +188,7 @@ public final class ProxyConfiguration implements
   public String toString() {
     return ToString.builder("ProxyConfiguration")
         .add("endpoint", endpoint)
+        .add("failoverEndpoints", failoverEndpoints)
         .add("nonProxyHosts", nonProxyHosts)
         .build();
   }
@@ -154,8 +211,40 @@ public final class ProxyConfiguration implements
      */
     Builder endpoint(URI endpoint);
 
+    /**
+     * Configure more proxy servers to fail over to, in order. The client sends requests through
+     * the first healthy proxy, starting with the {@link #endpoint(URI) endpoint}. A proxy that fails
+     * to connect is ejected for a while, and the next healthy proxy is used instead, so an outage
+     * costs one connect timeout rather than one per request. If every proxy is ejected, the one due
+     * back soonest is used. Each endpoint has the same restrictions as the endpoint.
+     */
+    Builder failoverEndpoints(List<URI> failoverEndpoints);
+
+    /**
+     * Configure how long a proxy is ejected after its first connection failure. Each further
+     * failure without a success in between doubles the time, up to the
+     * {@link #maxProxyEjectionDuration(Duration) maximum}. The default is 5 seconds.
+     */
+    Builder proxyEjectionDuration(Duration proxyEjectionDuration);
+
+    /**
+     * Configure the longest a proxy is ejected after repeated connection failures. The default is 5
+     * minutes.
+     */
+    Builder maxProxyEjectionDuration(Duration maxProxyEjectionDuration);
+
+    /**
+     * Configure how often to check whether ejected proxies accept connections again, so that they
+     * come back as soon as they recover rather than when their ejection ends. The default is zero,
+     * which disables these checks.
+     */
+    Builder proxyHealthCheckInterval(Duration proxyHealthCheckInterval);
+
     /**
      * Configure the hosts that the client is allowed to access without going through the proxy.
+     * Besides exact host names, entries may be wildcard patterns like {@code *.amazonaws.com},
+     * {@code .internal}, or {@code 10.*}, CIDR blocks like {@code 10.0.0.0/8}, which match hosts
+     * given as IP addresses, or {@code *}, which bypasses the proxy for every host.
      */
     Builder nonProxyHosts(Set<String> nonProxyHosts);
 
@@ -210,6 +299,10 @@ public final class ProxyConfiguration implements
   private static final class DefaultClientProxyConfigurationBuilder implements Builder {
 
     private URI endpoint;
+    private List<URI> failoverEndpoints = Collections.emptyList();
+    private Duration proxyEjectionDuration = DEFAULT_PROXY_EJECTION_DURATION;
+    private Duration maxProxyEjectionDuration = DEFAULT_MAX_PROXY_EJECTION_DURATION;
+    private Duration proxyHealthCheckInterval = Duration.ZERO;
     private String scheme = "http";
     private Set<String> nonProxyHosts;
     private Boolean useSystemPropertyValues = Boolean.TRUE;
@@ -218,12 +311,7 @@ public final class ProxyConfiguration implements
     @Override
     public Builder endpoint(URI endpoint) {
       if (endpoint != null) {
-        Validate.isTrue(isEmpty(endpoint.getUserInfo()),
-            "Proxy endpoint user info is not supported.");
-        Validate.isTrue(isEmpty(endpoint.getPath()), "Proxy endpoint path is not supported.");
-        Validate.isTrue(isEmpty(endpoint.getQuery()), "Proxy endpoint query is not supported.");
-        Validate.isTrue(isEmpty(endpoint.getFragment()),
-            "Proxy endpoint fragment is not supported.");
+        validateEndpoint(endpoint);
       }
 
       this.endpoint = endpoint;
@@ -234,6 +322,63 @@ public final class ProxyConfiguration implements
       endpoint(endpoint);
     }
 
+    @Override
+    public Builder failoverEndpoints(List<URI> failoverEndpoints) {
+      if (failoverEndpoints != null) {
+        failoverEndpoints.forEach(DefaultClientProxyConfigurationBuilder::validateEndpoint);
+        this.failoverEndpoints = new ArrayList<>(failoverEndpoints);
+      } else {
+        this.failoverEndpoints = Collections.emptyList();
+      }
+      return this;
+    }
+
+    public void setFailoverEndpoints(List<URI> failoverEndpoints) {
+      failoverEndpoints(failoverEndpoints);
+    }
+
+    @Override
+    public Builder proxyEjectionDuration(Duration proxyEjectionDuration) {
+      this.proxyEjectionDuration = Validate.isPositive(proxyEjectionDuration,
+          "proxyEjectionDuration");
+      return this;
+    }
+
+    public void setProxyEjectionDuration(Duration proxyEjectionDuration) {
+      proxyEjectionDuration(proxyEjectionDuration);
+    }
+
+    @Override
+    public Builder maxProxyEjectionDuration(Duration maxProxyEjectionDuration) {
+      this.maxProxyEjectionDuration = Validate.isPositive(maxProxyEjectionDuration,
+          "maxProxyEjectionDuration");
+      return this;
+    }
+
+    public void setMaxProxyEjectionDuration(Duration maxProxyEjectionDuration) {
+      maxProxyEjectionDuration(maxProxyEjectionDuration);
+    }
+
+    @Override
+    public Builder proxyHealthCheckInterval(Duration proxyHealthCheckInterval) {
+      this.proxyHealthCheckInterval = Validate.isNotNegative(proxyHealthCheckInterval,
+          "proxyHealthCheckInterval");
+      return this;
+    }
+
+    public void setProxyHealthCheckInterval(Duration proxyHealthCheckInterval) {
+      proxyHealthCheckInterval(proxyHealthCheckInterval);
+    }
+
+    private static void validateEndpoint(URI endpoint) {
+      Validate.isTrue(isEmpty(endpoint.getUserInfo()),
+          "Proxy endpoint user info is not supported.");
+      Validate.isTrue(isEmpty(endpoint.getPath()), "Proxy endpoint path is not supported.");
+      Validate.isTrue(isEmpty(endpoint.getQuery()), "Proxy endpoint query is not supported.");
+      Validate.isTrue(isEmpty(endpoint.getFragment()),
+          "Proxy endpoint fragment is not supported.");
+    }
+
     @Override
     public Builder nonProxyHosts(Set<String> nonProxyHosts) {
       this.nonProxyHosts = nonProxyHosts != null ? new HashSet<>(nonProxyHosts) : null;
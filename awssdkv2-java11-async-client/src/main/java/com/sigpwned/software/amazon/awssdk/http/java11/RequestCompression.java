@@ -0,0 +1,157 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Chooses which request bodies the client gzips on their way out. A request body is compressed if
+ * the request matches any of the configured {@link RequestPattern}s, its body is at least the
+ * minimum size (bodies of unknown length always qualify), and it does not already have a
+ * {@code Content-Encoding}.
+ *
+ * <p>
+ * Requests signed with AWS Signature Version 4 are never compressed, because the signature covers
+ * the body and its length. Compressing the body after signing would invalidate the signature. Use
+ * the SDK's own request compression for signed operations that support it, like CloudWatch
+ * {@code PutMetricData}, which compresses before signing. This is for unsigned endpoints, e.g.,
+ * services behind API Gateway or other custom endpoints that accept gzip bodies.
+ * </p>
+ *
+ * @see Java11AsyncHttpClient.Builder#requestCompression(RequestCompression)
+ */
+@SdkPublicApi
+public final class RequestCompression {
+
+  public static final long DEFAULT_MINIMUM_SIZE_IN_BYTES = 1024L;
+
+  private final List<RequestPattern> patterns;
+  private final long minimumSizeInBytes;
+  private final int level;
+
+  private RequestCompression(DefaultBuilder builder) {
+    this.patterns = unmodifiableList(new ArrayList<>(builder.patterns));
+    this.minimumSizeInBytes = builder.minimumSizeInBytes;
+    this.level = builder.level;
+  }
+
+  /**
+   * @return true if the request matches any pattern, regardless of its body
+   */
+  public boolean matches(SdkHttpRequest request) {
+    for (RequestPattern pattern : patterns) {
+      if (pattern.matches(request)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean isEmpty() {
+    return patterns.isEmpty();
+  }
+
+  public long minimumSizeInBytes() {
+    return minimumSizeInBytes;
+  }
+
+  /**
+   * @return the {@link Deflater} compression level
+   */
+  public int level() {
+    return level;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("RequestCompression")
+        .add("patterns", patterns)
+        .add("minimumSizeInBytes", minimumSizeInBytes)
+        .add("level", level)
+        .build();
+  }
+
+  /**
+   * Create a {@link Builder}, used to create a {@link RequestCompression}.
+   */
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  /**
+   * A builder for {@link RequestCompression}.
+   *
+   * <p>All implementations of this interface are mutable and not thread safe.</p>
+   */
+  public interface Builder {
+
+    /**
+     * Compress the bodies of requests that match the given pattern. May be given multiple times.
+     */
+    Builder compress(RequestPattern pattern);
+
+    /**
+     * Don't compress bodies of known length smaller than this, since the gzip framing and CPU cost
+     * outweigh the savings. The default is 1 KiB.
+     */
+    Builder minimumSizeInBytes(long minimumSizeInBytes);
+
+    /**
+     * Sets the {@link Deflater} compression level, from {@link Deflater#BEST_SPEED} to
+     * {@link Deflater#BEST_COMPRESSION}. The default is {@link Deflater#DEFAULT_COMPRESSION}. Lower
+     * levels trade bytes on the wire for CPU.
+     */
+    Builder level(int level);
+
+    RequestCompression build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private final List<RequestPattern> patterns = new ArrayList<>();
+    private long minimumSizeInBytes = DEFAULT_MINIMUM_SIZE_IN_BYTES;
+    private int level = Deflater.DEFAULT_COMPRESSION;
+
+    @Override
+    public Builder compress(RequestPattern pattern) {
+      patterns.add(requireNonNull(pattern));
+      return this;
+    }
+
+    @Override
+    public Builder minimumSizeInBytes(long minimumSizeInBytes) {
+      this.minimumSizeInBytes = Validate.isNotNegative(minimumSizeInBytes, "minimumSizeInBytes");
+      return this;
+    }
+
+    public void setMinimumSizeInBytes(long minimumSizeInBytes) {
+      minimumSizeInBytes(minimumSizeInBytes);
+    }
+
+    @Override
+    public Builder level(int level) {
+      if (level != Deflater.DEFAULT_COMPRESSION) {
+        Validate.inclusiveBetween(Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION, level,
+            "level");
+      }
+      this.level = level;
+      return this;
+    }
+
+    public void setLevel(int level) {
+      level(level);
+    }
+
+    @Override
+    public RequestCompression build() {
+      return new RequestCompression(this);
+    }
+  }
+}
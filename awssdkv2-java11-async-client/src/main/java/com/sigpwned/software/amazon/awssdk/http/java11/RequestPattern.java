@@ -0,0 +1,176 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static java.util.Collections.unmodifiableMap;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Matches SDK requests by endpoint and operation. A pattern matches a request if all of its
+ * configured criteria match. A pattern with no criteria matches every request.
+ *
+ * <p>
+ * Operations are identified however the service's protocol identifies them. For example, JSON
+ * services like DynamoDB and Kinesis name the operation in the {@code X-Amz-Target} header, so
+ * {@code header("X-Amz-Target", "DynamoDB_20120810\\.GetItem")} matches DynamoDB GetItem calls,
+ * while REST services like S3 are best matched by method and path.
+ * </p>
+ */
+@SdkPublicApi
+public final class RequestPattern {
+
+  private final String host;
+  private final SdkHttpMethod method;
+  private final Pattern path;
+  private final Map<String, Pattern> headers;
+
+  private RequestPattern(DefaultBuilder builder) {
+    this.host = builder.host;
+    this.method = builder.method;
+    this.path = builder.path;
+    this.headers = unmodifiableMap(new LinkedHashMap<>(builder.headers));
+  }
+
+  /**
+   * @return true if the given request matches this pattern, or false otherwise
+   */
+  public boolean matches(SdkHttpRequest request) {
+    if (host != null && !matchesHost(request.host())) {
+      return false;
+    }
+    if (method != null && method != request.method()) {
+      return false;
+    }
+    if (path != null && !path.matcher(request.encodedPath()).matches()) {
+      return false;
+    }
+    for (Map.Entry<String, Pattern> header : headers.entrySet()) {
+      String value = request.firstMatchingHeader(header.getKey()).orElse(null);
+      if (value == null || !header.getValue().matcher(value).matches()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean matchesHost(String requestHost) {
+    if (requestHost == null) {
+      return false;
+    }
+    if (host.equals("*")) {
+      return true;
+    }
+    String normalizedHost = requestHost.toLowerCase(Locale.ROOT);
+    if (host.startsWith("*.")) {
+      return normalizedHost.endsWith(host.substring(1));
+    }
+    return normalizedHost.equals(host);
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("RequestPattern")
+        .add("host", host)
+        .add("method", method)
+        .add("path", path)
+        .add("headers", headers)
+        .build();
+  }
+
+  /**
+   * Create a {@link Builder}, used to create a {@link RequestPattern}.
+   */
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  /**
+   * A builder for {@link RequestPattern}.
+   *
+   * <p>All implementations of this interface are mutable and not thread safe.</p>
+   */
+  public interface Builder {
+
+    /**
+     * Match requests to the given host. The host may be an exact host name, a wildcard suffix like
+     * {@code *.amazonaws.com}, or {@code *} to match all hosts. Matching is case-insensitive.
+     */
+    Builder host(String host);
+
+    /**
+     * Match requests with the given HTTP method.
+     */
+    Builder method(SdkHttpMethod method);
+
+    /**
+     * Match requests whose entire encoded path matches the given regular expression.
+     */
+    Builder path(String pathRegex);
+
+    /**
+     * Match requests that have the given header, and whose first value for it matches the given
+     * regular expression in its entirety. May be given multiple times to match multiple headers.
+     */
+    Builder header(String name, String valueRegex);
+
+    RequestPattern build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private String host;
+    private SdkHttpMethod method;
+    private Pattern path;
+    private final Map<String, Pattern> headers = new LinkedHashMap<>();
+
+    @Override
+    public Builder host(String host) {
+      this.host = host != null ? host.toLowerCase(Locale.ROOT) : null;
+      return this;
+    }
+
+    public void setHost(String host) {
+      host(host);
+    }
+
+    @Override
+    public Builder method(SdkHttpMethod method) {
+      this.method = method;
+      return this;
+    }
+
+    public void setMethod(SdkHttpMethod method) {
+      method(method);
+    }
+
+    @Override
+    public Builder path(String pathRegex) {
+      this.path = pathRegex != null ? Pattern.compile(pathRegex) : null;
+      return this;
+    }
+
+    public void setPath(String pathRegex) {
+      path(pathRegex);
+    }
+
+    @Override
+    public Builder header(String name, String valueRegex) {
+      Validate.paramNotBlank(name, "name");
+      Validate.paramNotNull(valueRegex, "valueRegex");
+      headers.put(name, Pattern.compile(valueRegex));
+      return this;
+    }
+
+    @Override
+    public RequestPattern build() {
+      return new RequestPattern(this);
+    }
+  }
+}
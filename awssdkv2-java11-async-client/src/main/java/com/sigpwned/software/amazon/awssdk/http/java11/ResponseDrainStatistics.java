@@ -0,0 +1,67 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+
+/**
+ * A snapshot of what a client has done with responses whose consumers cancelled before reading the
+ * whole body. The client drains and discards the rest of such a body when it is short enough, so
+ * the connection can be reused, and aborts the response otherwise, which closes the connection.
+ * Comparing the two counts, and the bytes drained, shows whether the drain threshold is well
+ * tuned.
+ *
+ * @see Java11AsyncHttpClient#responseDrainStatistics()
+ * @see Java11AsyncHttpClient.Builder#responseDrainThresholdInBytes(Long)
+ */
+@SdkPublicApi
+public final class ResponseDrainStatistics {
+
+  public static ResponseDrainStatistics create(long drainedResponses, long drainedBytes,
+      long abortedResponses) {
+    return new ResponseDrainStatistics(drainedResponses, drainedBytes, abortedResponses);
+  }
+
+  private final long drainedResponses;
+  private final long drainedBytes;
+  private final long abortedResponses;
+
+  private ResponseDrainStatistics(long drainedResponses, long drainedBytes,
+      long abortedResponses) {
+    this.drainedResponses = drainedResponses;
+    this.drainedBytes = drainedBytes;
+    this.abortedResponses = abortedResponses;
+  }
+
+  /**
+   * @return how many cancelled responses were drained to the end, leaving their connections
+   *     reusable
+   */
+  public long drainedResponses() {
+    return drainedResponses;
+  }
+
+  /**
+   * @return how many bytes were read and discarded while draining cancelled responses
+   */
+  public long drainedBytes() {
+    return drainedBytes;
+  }
+
+  /**
+   * @return how many cancelled responses were aborted, either immediately because too much of the
+   *     body remained, or partway through draining because the body turned out to be too long or
+   *     failed
+   */
+  public long abortedResponses() {
+    return abortedResponses;
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("ResponseDrainStatistics")
+        .add("drainedResponses", drainedResponses)
+        .add("drainedBytes", drainedBytes)
+        .add("abortedResponses", abortedResponses)
+        .build();
+  }
+}
@@ -0,0 +1,29 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import java.io.IOException;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+
+/**
+ * Thrown when a response body is larger than the client's configured maximum response size. The
+ * client aborts such responses as soon as it knows, which is before reading any of the body if the
+ * response declares its length.
+ */
+@SdkPublicApi
+public class ResponseTooLargeException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long maxResponseSizeInBytes;
+
+  public ResponseTooLargeException(long maxResponseSizeInBytes, String message) {
+    super(message);
+    this.maxResponseSizeInBytes = maxResponseSizeInBytes;
+  }
+
+  /**
+   * @return the maximum response size in effect when the response was aborted
+   */
+  public long maxResponseSizeInBytes() {
+    return maxResponseSizeInBytes;
+  }
+}
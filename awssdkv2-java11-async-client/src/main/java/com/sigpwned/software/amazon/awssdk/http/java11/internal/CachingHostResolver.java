@@ -0,0 +1,227 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.DnsCacheConfiguration;
+import com.sigpwned.software.amazon.awssdk.http.java11.DnsCacheStatistics;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Caches host name lookups in front of a slower resolver. Addresses are kept for the configured
+ * time to live, and resolved again in the background shortly before they expire, so a busy host
+ * is normally never a miss after its first lookup. Failures are kept for a shorter time, so a
+ * missing host doesn't cost a resolver round trip on every connection attempt. Each lookup of a
+ * host with several addresses starts from the next address, spreading connections across them.
+ * The cache is bounded. When it is full, an arbitrary entry is evicted.
+ */
+@SdkInternalApi
+public final class CachingHostResolver {
+
+  private static final Logger log = Logger.loggerFor(CachingHostResolver.class);
+
+  /**
+   * The resolver behind the cache
+   */
+  @FunctionalInterface
+  public interface Backend {
+
+    /**
+     * @return the host's addresses, never empty
+     * @throws UnknownHostException if the host cannot be resolved
+     */
+    InetAddress[] resolve(String host) throws UnknownHostException;
+  }
+
+  private final Backend backend;
+
+  private final Executor refreshExecutor;
+
+  private final LongSupplier nanoClock;
+
+  private final long ttlNanos;
+
+  private final long negativeTtlNanos;
+
+  private final long refreshAheadNanos;
+
+  private final int maximumSize;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder negativeHits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+
+  public CachingHostResolver(DnsCacheConfiguration configuration, Backend backend,
+      Executor refreshExecutor) {
+    this(configuration, backend, refreshExecutor, System::nanoTime);
+  }
+
+  /**
+   * @param nanoClock the current time, in nanoseconds, like {@link System#nanoTime()}
+   */
+  public CachingHostResolver(DnsCacheConfiguration configuration, Backend backend,
+      Executor refreshExecutor, LongSupplier nanoClock) {
+    this.backend = requireNonNull(backend);
+    this.refreshExecutor = requireNonNull(refreshExecutor);
+    this.nanoClock = requireNonNull(nanoClock);
+    this.ttlNanos = configuration.ttl().toNanos();
+    this.negativeTtlNanos = configuration.negativeTtl().toNanos();
+    this.refreshAheadNanos = Math.min(configuration.refreshAhead().toNanos(), ttlNanos / 2L);
+    this.maximumSize = configuration.maximumSize();
+  }
+
+  /**
+   * @return the host's addresses, rotated so that each lookup starts from the next one
+   * @throws UnknownHostException if the host cannot be resolved, or failed to resolve recently
+   */
+  public InetAddress[] resolve(String host) throws UnknownHostException {
+    final String key = host.toLowerCase(Locale.ROOT);
+    final long now = nanoClock.getAsLong();
+
+    final Entry entry = entries.get(key);
+    if (entry != null && now - entry.expiresAt < 0L) {
+      if (entry.addresses == null) {
+        negativeHits.increment();
+        throw new UnknownHostException(entry.failure);
+      }
+      hits.increment();
+      if (now - entry.refreshAt >= 0L && entry.refreshing.compareAndSet(false, true)) {
+        refresh(host, key, entry);
+      }
+      return entry.next();
+    }
+
+    misses.increment();
+
+    final InetAddress[] addresses;
+    try {
+      addresses = resolveNow(host);
+    } catch (UnknownHostException e) {
+      failures.increment();
+      if (negativeTtlNanos > 0L) {
+        put(key, new Entry(null, String.valueOf(e.getMessage()), now + negativeTtlNanos,
+            now + negativeTtlNanos), now);
+      }
+      throw e;
+    }
+
+    final Entry loaded = new Entry(addresses, null, now + ttlNanos,
+        now + ttlNanos - refreshAheadNanos);
+    put(key, loaded, now);
+
+    return loaded.next();
+  }
+
+  public DnsCacheStatistics statistics() {
+    return DnsCacheStatistics.create(hits.sum(), negativeHits.sum(), misses.sum(),
+        refreshes.sum(), failures.sum());
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Resolves the host again in the background, and replaces the given entry with the result. If
+   * that fails, the entry is left to expire, and the next lookup after that will be a miss.
+   */
+  private void refresh(String host, String key, Entry entry) {
+    refreshes.increment();
+    try {
+      refreshExecutor.execute(() -> {
+        final InetAddress[] addresses;
+        try {
+          addresses = resolveNow(host);
+        } catch (UnknownHostException | RuntimeException e) {
+          failures.increment();
+          log.debug(() -> "Failed to refresh addresses of " + host, e);
+          return;
+        }
+        final long now = nanoClock.getAsLong();
+        entries.replace(key, entry,
+            new Entry(addresses, null, now + ttlNanos, now + ttlNanos - refreshAheadNanos));
+      });
+    } catch (RejectedExecutionException e) {
+      // Try again on the next hit
+      entry.refreshing.set(false);
+    }
+  }
+
+  private InetAddress[] resolveNow(String host) throws UnknownHostException {
+    final InetAddress[] result = backend.resolve(host);
+    if (result == null || result.length == 0) {
+      throw new UnknownHostException(host);
+    }
+    return result;
+  }
+
+  private void put(String key, Entry entry, long now) {
+    if (entries.size() >= maximumSize && !entries.containsKey(key)) {
+      entries.values().removeIf(e -> now - e.expiresAt >= 0L);
+      if (entries.size() >= maximumSize) {
+        Iterator<String> iterator = entries.keySet().iterator();
+        if (iterator.hasNext()) {
+          iterator.next();
+          iterator.remove();
+        }
+      }
+    }
+    entries.put(key, entry);
+  }
+
+  private static final class Entry {
+
+    /**
+     * The host's addresses, or null if it failed to resolve
+     */
+    public final InetAddress[] addresses;
+
+    /**
+     * Why the host failed to resolve, if it did
+     */
+    public final String failure;
+
+    public final long expiresAt;
+
+    public final long refreshAt;
+
+    public final AtomicBoolean refreshing = new AtomicBoolean(false);
+
+    private final AtomicInteger cursor = new AtomicInteger(0);
+
+    public Entry(InetAddress[] addresses, String failure, long expiresAt, long refreshAt) {
+      this.addresses = addresses;
+      this.failure = failure;
+      this.expiresAt = expiresAt;
+      this.refreshAt = refreshAt;
+    }
+
+    /**
+     * @return a copy of the addresses, starting from the next one in turn
+     */
+    public InetAddress[] next() {
+      final int length = addresses.length;
+      final InetAddress[] result = new InetAddress[length];
+      final int start = Math.floorMod(cursor.getAndIncrement(), length);
+      System.arraycopy(addresses, start, result, 0, length - start);
+      System.arraycopy(addresses, 0, result, length - start, start);
+      return result;
+    }
+  }
+}
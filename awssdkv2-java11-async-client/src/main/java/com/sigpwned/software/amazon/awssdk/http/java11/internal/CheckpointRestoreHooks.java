@@ -0,0 +1,139 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Registers checkpoint/restore callbacks with a CRaC implementation, if one is available. Both the
+ * {@code org.crac} compatibility library (which is what Lambda SnapStart uses) and the
+ * {@code jdk.crac} API are supported. We bind to them reflectively so that neither is a required
+ * dependency of this library.
+ */
+@SdkInternalApi
+public final class CheckpointRestoreHooks {
+
+  private static final Logger log = Logger.loggerFor(CheckpointRestoreHooks.class);
+
+  private static final String[] CRAC_PACKAGES = {"org.crac", "jdk.crac"};
+
+  private CheckpointRestoreHooks() {
+  }
+
+  /**
+   * Registers the given callbacks with the global CRaC context.
+   *
+   * <p>
+   * CRaC only holds weak references to registered resources, so the caller must hold a strong
+   * reference to the returned registration for as long as the callbacks should remain registered.
+   * Neither CRaC API can unregister a resource, so {@link Registration#deregister()} cuts the
+   * resource off from the callbacks instead, in case the context holds on to it.
+   * </p>
+   *
+   * @param beforeCheckpoint called before a checkpoint is taken
+   * @param afterRestore     called after the process is restored from a checkpoint
+   * @return the registration, or empty if no CRaC implementation is available
+   */
+  public static Optional<Registration> register(Runnable beforeCheckpoint,
+      Runnable afterRestore) {
+    requireNonNull(beforeCheckpoint);
+    requireNonNull(afterRestore);
+
+    for (String cracPackage : CRAC_PACKAGES) {
+      try {
+        Class<?> coreClass = Class.forName(cracPackage + ".Core");
+        Class<?> contextClass = Class.forName(cracPackage + ".Context");
+        Class<?> resourceClass = Class.forName(cracPackage + ".Resource");
+
+        Object context = coreClass.getMethod("getGlobalContext").invoke(null);
+        ResourceHandler handler = new ResourceHandler(beforeCheckpoint, afterRestore);
+        Object resource = Proxy.newProxyInstance(resourceClass.getClassLoader(),
+            new Class<?>[]{resourceClass}, handler);
+        contextClass.getMethod("register", resourceClass).invoke(context, resource);
+
+        log.debug(() -> "Registered checkpoint/restore hooks with " + cracPackage);
+
+        return Optional.of(new Registration(resource, handler));
+      } catch (ClassNotFoundException e) {
+        // This CRaC API is not available. Try the next one.
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        log.warn(() -> "Failed to register checkpoint/restore hooks with " + cracPackage, e);
+      }
+    }
+
+    log.debug(() -> "No CRaC implementation available, so not registering checkpoint/restore hooks");
+
+    return Optional.empty();
+  }
+
+  /**
+   * Callbacks registered with CRaC. Holding this keeps them registered.
+   */
+  public static final class Registration {
+
+    /**
+     * CRaC only holds this weakly, so we hold it for as long as we are registered
+     */
+    private final Object resource;
+
+    private final ResourceHandler handler;
+
+    private Registration(Object resource, ResourceHandler handler) {
+      this.resource = resource;
+      this.handler = handler;
+    }
+
+    /**
+     * Drops the callbacks, so that they are never called again, and whatever they refer to is not
+     * kept reachable by the CRaC context.
+     */
+    public void deregister() {
+      handler.beforeCheckpoint = null;
+      handler.afterRestore = null;
+    }
+  }
+
+  private static final class ResourceHandler implements InvocationHandler {
+
+    private volatile Runnable beforeCheckpoint;
+    private volatile Runnable afterRestore;
+
+    public ResourceHandler(Runnable beforeCheckpoint, Runnable afterRestore) {
+      this.beforeCheckpoint = beforeCheckpoint;
+      this.afterRestore = afterRestore;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      switch (method.getName()) {
+        case "beforeCheckpoint": {
+          Runnable callback = beforeCheckpoint;
+          if (callback != null) {
+            callback.run();
+          }
+          return null;
+        }
+        case "afterRestore": {
+          Runnable callback = afterRestore;
+          if (callback != null) {
+            callback.run();
+          }
+          return null;
+        }
+        case "equals":
+          return proxy == args[0];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "toString":
+          return "CheckpointRestoreHooks@" + Integer.toHexString(System.identityHashCode(proxy));
+        default:
+          throw new UnsupportedOperationException(method.getName());
+      }
+    }
+  }
+}
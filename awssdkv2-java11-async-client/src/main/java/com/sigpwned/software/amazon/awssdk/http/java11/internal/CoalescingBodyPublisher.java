@@ -0,0 +1,201 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Bridges an SDK request body to the HTTP client. Unlike a plain adapter, this keeps up to
+ * {@code prefetch} buffers requested from the SDK ahead of the client's demand, and merges runs of
+ * small buffers that are already waiting into one buffer of up to {@code coalesceSizeInBytes}, so
+ * the client writes fewer, larger buffers and signals demand less often. The bytes and their order
+ * are unchanged, so content length and any in-band framing such as {@code aws-chunked} chunks are
+ * unaffected. We never wait for more buffers just to fill a merged buffer, so coalescing only
+ * happens when the SDK is producing faster than the client is writing.
+ */
+@SdkInternalApi
+final class CoalescingBodyPublisher implements Flow.Publisher<ByteBuffer> {
+
+  private final Publisher<ByteBuffer> upstream;
+  private final int prefetch;
+  private final int coalesceSizeInBytes;
+
+  /**
+   * @param prefetch            how many buffers to keep requested from the upstream
+   * @param coalesceSizeInBytes the largest merged buffer, or 0 to never merge buffers
+   */
+  public CoalescingBodyPublisher(Publisher<ByteBuffer> upstream, int prefetch,
+      int coalesceSizeInBytes) {
+    this.upstream = requireNonNull(upstream);
+    this.prefetch = Validate.isPositive(prefetch, "prefetch");
+    this.coalesceSizeInBytes = Validate.isNotNegative(coalesceSizeInBytes, "coalesceSizeInBytes");
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    upstream.subscribe(new Bridge(requireNonNull(subscriber)));
+  }
+
+  private final class Bridge implements Subscriber<ByteBuffer>, Flow.Subscription {
+
+    private final Flow.Subscriber<? super ByteBuffer> downstream;
+    private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger(0);
+    private final AtomicLong outstanding = new AtomicLong(0L);
+    private final AtomicLong demand = new AtomicLong(0L);
+    private final AtomicInteger wip = new AtomicInteger(0);
+    private volatile Subscription subscription;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    // Only accessed from within the drain loop, which is serialized by wip
+    private boolean done;
+
+    public Bridge(Flow.Subscriber<? super ByteBuffer> downstream) {
+      this.downstream = downstream;
+    }
+
+    // UPSTREAM ////////////////////////////////////////////////////////////////
+
+    @Override
+    public void onSubscribe(Subscription s) {
+      if (subscription != null) {
+        s.cancel();
+        return;
+      }
+      subscription = s;
+      downstream.onSubscribe(this);
+      drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer buffer) {
+      outstanding.decrementAndGet();
+      if (buffer.hasRemaining()) {
+        queue.add(buffer);
+        queued.incrementAndGet();
+      }
+      drain();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      error = t;
+      upstreamDone = true;
+      drain();
+    }
+
+    @Override
+    public void onComplete() {
+      upstreamDone = true;
+      drain();
+    }
+
+    // DOWNSTREAM //////////////////////////////////////////////////////////////
+
+    @Override
+    public void request(long n) {
+      if (n <= 0L) {
+        subscription.cancel();
+        error = new IllegalArgumentException("Demand must be positive");
+        upstreamDone = true;
+      } else {
+        demand.getAndAccumulate(n, (a, b) -> a + b < 0L ? Long.MAX_VALUE : a + b);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      subscription.cancel();
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+
+      do {
+        if (done) {
+          continue;
+        }
+        if (cancelled) {
+          done = true;
+          queue.clear();
+          continue;
+        }
+
+        while (demand.get() > 0L && !queue.isEmpty()) {
+          demand.decrementAndGet();
+          downstream.onNext(next());
+        }
+
+        if (upstreamDone && (queue.isEmpty() || error != null)) {
+          done = true;
+          queue.clear();
+          if (error != null) {
+            downstream.onError(error);
+          } else {
+            downstream.onComplete();
+          }
+          continue;
+        }
+
+        if (!upstreamDone) {
+          long wanted = prefetch - queued.get() - outstanding.get();
+          if (wanted > 0L) {
+            outstanding.addAndGet(wanted);
+            subscription.request(wanted);
+          }
+        }
+      } while (wip.decrementAndGet() != 0);
+    }
+
+    /**
+     * Takes the next buffer to write off the queue, merging it with any small buffers behind it.
+     */
+    private ByteBuffer next() {
+      final ByteBuffer first = queue.poll();
+      queued.decrementAndGet();
+
+      ByteBuffer second = queue.peek();
+      if (second == null
+          || first.remaining() + second.remaining() > coalesceSizeInBytes) {
+        return first;
+      }
+
+      int size = first.remaining();
+      int count = 0;
+      for (ByteBuffer b : queue) {
+        if (size + b.remaining() > coalesceSizeInBytes) {
+          break;
+        }
+        size = size + b.remaining();
+        count = count + 1;
+      }
+
+      final ByteBuffer result = ByteBuffer.allocate(size);
+      result.put(first);
+      for (int i = 0; i < count; i++) {
+        result.put(queue.poll());
+        queued.decrementAndGet();
+      }
+      result.flip();
+
+      return result;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Gzips a request body on its way to the wire. Only compresses as much as the HTTP client has asked
+ * for, and only asks the SDK for more of the body when it needs more input to do so, so
+ * backpressure passes straight through and the body is never buffered whole. The compressed length
+ * isn't known until the end, so the body is always of unknown length. Each subscription compresses
+ * the body from scratch, so the HTTP client may resend it.
+ */
+@SdkInternalApi
+final class CompressingBodyPublisher implements Flow.Publisher<ByteBuffer> {
+
+  private final Flow.Publisher<ByteBuffer> upstream;
+
+  private final DeflaterPool pool;
+
+  public CompressingBodyPublisher(Flow.Publisher<ByteBuffer> upstream, DeflaterPool pool) {
+    this.upstream = requireNonNull(upstream);
+    this.pool = requireNonNull(pool);
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    upstream.subscribe(new CompressingSubscription(requireNonNull(subscriber), pool));
+  }
+
+  private static final class CompressingSubscription implements Flow.Subscriber<ByteBuffer>,
+      Flow.Subscription {
+
+    private final Flow.Subscriber<? super ByteBuffer> downstream;
+
+    private final DeflaterPool pool;
+
+    /**
+     * Buffers that have arrived, but that we have not started compressing yet
+     */
+    private final Queue<ByteBuffer> inputs = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong demand = new AtomicLong(0L);
+
+    private final AtomicInteger wip = new AtomicInteger(0);
+
+    private volatile Flow.Subscription upstream;
+
+    private volatile boolean upstreamRequested;
+
+    private volatile boolean upstreamDone;
+
+    private volatile boolean cancelled;
+
+    private volatile Throwable error;
+
+    // Only accessed from within the drain loop, which is serialized by wip
+    private GzipEncoder encoder;
+    private boolean done;
+    private ByteBuffer input;
+
+    public CompressingSubscription(Flow.Subscriber<? super ByteBuffer> downstream,
+        DeflaterPool pool) {
+      this.downstream = downstream;
+      this.pool = pool;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      if (upstream != null) {
+        subscription.cancel();
+        return;
+      }
+      upstream = subscription;
+      downstream.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+      upstreamRequested = false;
+      inputs.add(item);
+      drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      upstreamDone = true;
+      drain();
+    }
+
+    @Override
+    public void onComplete() {
+      upstreamDone = true;
+      drain();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0L) {
+        if (error == null) {
+          error = new IllegalArgumentException("Demand must be positive");
+        }
+        cancelled = true;
+      } else {
+        demand.getAndAccumulate(n, (a, b) -> a + b < 0L ? Long.MAX_VALUE : a + b);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      do {
+        if (!done) {
+          try {
+            drainOnce();
+          } catch (RuntimeException e) {
+            error = e;
+            cancelled = true;
+            cancelNow();
+          }
+        }
+      } while (wip.decrementAndGet() != 0);
+    }
+
+    private void drainOnce() {
+      if (cancelled) {
+        cancelNow();
+        return;
+      }
+
+      if (error != null) {
+        terminate();
+        downstream.onError(error);
+        return;
+      }
+
+      if (encoder == null) {
+        encoder = new GzipEncoder(pool);
+      }
+
+      while (demand.get() > 0L) {
+        if (input == null) {
+          input = inputs.poll();
+        }
+        ByteBuffer output = input != null ? encoder.encode(input) : null;
+        if (output == null && input == null && upstreamDone) {
+          output = encoder.finish();
+          if (output == null) {
+            terminate();
+            downstream.onComplete();
+            return;
+          }
+        }
+        if (output != null) {
+          demand.decrementAndGet();
+          downstream.onNext(output);
+          if (cancelled) {
+            return;
+          }
+          continue;
+        }
+        if (input != null) {
+          // The encoder used up this input without filling a buffer, so try the next one
+          input = null;
+          continue;
+        }
+        requestUpstream();
+        return;
+      }
+    }
+
+    private void cancelNow() {
+      terminate();
+      Flow.Subscription s = upstream;
+      if (s != null) {
+        s.cancel();
+      }
+      if (error != null) {
+        downstream.onError(error);
+      }
+    }
+
+    private void requestUpstream() {
+      final Flow.Subscription s = upstream;
+      if (s == null || upstreamDone || upstreamRequested) {
+        return;
+      }
+      upstreamRequested = true;
+      s.request(1L);
+    }
+
+    private void terminate() {
+      done = true;
+      input = null;
+      inputs.clear();
+      if (encoder != null) {
+        encoder.release();
+      }
+    }
+  }
+}
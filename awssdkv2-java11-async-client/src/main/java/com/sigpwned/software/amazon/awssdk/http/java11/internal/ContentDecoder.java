@@ -0,0 +1,396 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Incrementally decodes a gzip or deflate response body. Input is fed in as it arrives, and output
+ * is produced one buffer at a time, so the caller controls exactly how much is decoded. Handles
+ * gzip streams with multiple members, and both zlib-wrapped and raw deflate data, since servers
+ * disagree about what {@code deflate} means. Not thread safe.
+ */
+@SdkInternalApi
+final class ContentDecoder {
+
+  /**
+   * The size of each decoded buffer
+   */
+  static final int OUTPUT_SIZE = 64 * 1024;
+
+  private static final int GZIP_MAGIC_1 = 0x1f;
+  private static final int GZIP_MAGIC_2 = 0x8b;
+  private static final int GZIP_CM_DEFLATE = 8;
+  private static final int FHCRC = 2;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+
+  private enum Format {
+    GZIP, DEFLATE
+  }
+
+  private enum State {
+    /**
+     * Reading a gzip member header
+     */
+    HEADER,
+
+    /**
+     * Deciding whether deflate data has a zlib wrapper
+     */
+    SNIFF,
+
+    BODY,
+
+    /**
+     * Reading a gzip member trailer
+     */
+    TRAILER,
+
+    DONE
+  }
+
+  /**
+   * @return a decoder for the given {@code Content-Encoding}, or empty if it is not one we decode
+   */
+  public static Optional<ContentDecoder> forContentEncoding(String contentEncoding) {
+    switch (contentEncoding.trim().toLowerCase(Locale.ROOT)) {
+      case "gzip":
+      case "x-gzip":
+        return Optional.of(new ContentDecoder(Format.GZIP, InflaterPool.INSTANCE));
+      case "deflate":
+        return Optional.of(new ContentDecoder(Format.DEFLATE, InflaterPool.INSTANCE));
+      default:
+        return Optional.empty();
+    }
+  }
+
+  private final Format format;
+
+  private final InflaterPool pool;
+
+  private final CRC32 crc = new CRC32();
+
+  private State state;
+
+  private Inflater inflater;
+
+  private boolean nowrap;
+
+  /**
+   * An output buffer that we allocated but did not fill, if any
+   */
+  private ByteBuffer spare;
+
+  // Gzip header and trailer parsing state
+  private int headerStep;
+  private int flags;
+  private int fieldRemaining;
+  private final byte[] trailer = new byte[8];
+  private int trailerLength;
+  private int membersCompleted;
+
+  private ContentDecoder(Format format, InflaterPool pool) {
+    this.format = format;
+    this.pool = pool;
+    this.state = format == Format.GZIP ? State.HEADER : State.SNIFF;
+  }
+
+  /**
+   * Decodes the next buffer of output from the given input, consuming as much input as needed.
+   *
+   * @return the next decoded buffer, or null if all the given input has been consumed without
+   *     producing any more output
+   * @throws IOException if the data is not validly encoded
+   */
+  public ByteBuffer decode(ByteBuffer input) throws IOException {
+    while (true) {
+      switch (state) {
+        case HEADER:
+          if (!input.hasRemaining()) {
+            return null;
+          }
+          if (readHeader(input)) {
+            startInflater(true);
+            state = State.BODY;
+          }
+          break;
+        case SNIFF:
+          if (!input.hasRemaining()) {
+            return null;
+          }
+          // A zlib header is a deflate method byte and a flags byte whose checksum is a multiple of
+          // 31. Raw deflate data can't start like that, so we only need to see the first two bytes.
+          if (input.remaining() < 2) {
+            startInflater(false);
+          } else {
+            int cmf = input.get(input.position()) & 0xff;
+            int flg = input.get(input.position() + 1) & 0xff;
+            startInflater(!((cmf & 0x0f) == GZIP_CM_DEFLATE && ((cmf << 8) | flg) % 31 == 0));
+          }
+          state = State.BODY;
+          break;
+        case BODY:
+          ByteBuffer output = inflate(input);
+          if (output != null) {
+            return output;
+          }
+          if (!inflater.finished()) {
+            return null;
+          }
+          if (format == Format.GZIP) {
+            trailerLength = 0;
+            state = State.TRAILER;
+          } else {
+            release();
+            state = State.DONE;
+          }
+          break;
+        case TRAILER:
+          if (!input.hasRemaining()) {
+            return null;
+          }
+          if (readTrailer(input)) {
+            membersCompleted = membersCompleted + 1;
+            // Another member may follow
+            headerStep = 0;
+            state = State.HEADER;
+          }
+          break;
+        case DONE:
+          // Ignore any trailing garbage, just as most decoders do
+          input.position(input.limit());
+          return null;
+        default:
+          throw new IllegalStateException("unrecognized state " + state);
+      }
+    }
+  }
+
+  /**
+   * @return true if the input so far is a complete encoded body, so it is fine for it to end here
+   */
+  public boolean isComplete() {
+    if (state == State.DONE) {
+      return true;
+    }
+    return format == Format.GZIP && state == State.HEADER && headerStep == 0
+        && membersCompleted > 0;
+  }
+
+  /**
+   * Returns any pooled resources. Idempotent. The decoder must not be used afterwards.
+   */
+  public void release() {
+    if (inflater != null) {
+      pool.release(inflater, nowrap);
+      inflater = null;
+    }
+  }
+
+  private void startInflater(boolean nowrap) {
+    if (inflater == null || this.nowrap != nowrap) {
+      release();
+      this.nowrap = nowrap;
+      this.inflater = pool.acquire(nowrap);
+    } else {
+      inflater.reset();
+    }
+    crc.reset();
+  }
+
+  private ByteBuffer inflate(ByteBuffer input) throws IOException {
+    while (true) {
+      if (inflater.needsInput()) {
+        if (!input.hasRemaining()) {
+          return null;
+        }
+        inflater.setInput(input);
+      }
+      ByteBuffer output = spare != null ? spare : ByteBuffer.allocate(OUTPUT_SIZE);
+      spare = null;
+      int n;
+      try {
+        n = inflater.inflate(output);
+      } catch (DataFormatException e) {
+        throw new ZipException("Invalid compressed response body: " + e.getMessage());
+      }
+      if (n == 0) {
+        // Don't waste the allocation
+        spare = output;
+      } else {
+        output.flip();
+        if (format == Format.GZIP) {
+          crc.update(output.duplicate());
+        }
+        return output;
+      }
+      if (inflater.finished()) {
+        return null;
+      }
+      if (inflater.needsDictionary()) {
+        throw new ZipException("Compressed response body requires a preset dictionary");
+      }
+      if (!inflater.needsInput()) {
+        throw new ZipException("Compressed response body made no progress");
+      }
+    }
+  }
+
+  /**
+   * Parses the gzip member header incrementally, one byte at a time
+   *
+   * @return true once the header is complete
+   */
+  private boolean readHeader(ByteBuffer input) throws IOException {
+    while (input.hasRemaining()) {
+      int b = input.get() & 0xff;
+      switch (headerStep) {
+        case 0:
+          if (b != GZIP_MAGIC_1) {
+            throw new ZipException("Not in gzip format");
+          }
+          headerStep = 1;
+          break;
+        case 1:
+          if (b != GZIP_MAGIC_2) {
+            throw new ZipException("Not in gzip format");
+          }
+          headerStep = 2;
+          break;
+        case 2:
+          if (b != GZIP_CM_DEFLATE) {
+            throw new ZipException("Unsupported gzip compression method " + b);
+          }
+          headerStep = 3;
+          break;
+        case 3:
+          flags = b;
+          // Skip MTIME, XFL, and OS
+          fieldRemaining = 6;
+          headerStep = 4;
+          break;
+        case 4:
+          fieldRemaining = fieldRemaining - 1;
+          if (fieldRemaining == 0) {
+            headerStep = 5;
+            if (afterFixedHeader()) {
+              return true;
+            }
+          }
+          break;
+        case 5:
+          // First byte of XLEN
+          fieldRemaining = b;
+          headerStep = 6;
+          break;
+        case 6:
+          // Second byte of XLEN
+          fieldRemaining = fieldRemaining | (b << 8);
+          headerStep = 7;
+          if (fieldRemaining == 0 && afterExtra()) {
+            return true;
+          }
+          break;
+        case 7:
+          fieldRemaining = fieldRemaining - 1;
+          if (fieldRemaining == 0 && afterExtra()) {
+            return true;
+          }
+          break;
+        case 8:
+          // FNAME
+          if (b == 0 && afterName()) {
+            return true;
+          }
+          break;
+        case 9:
+          // FCOMMENT
+          if (b == 0 && afterComment()) {
+            return true;
+          }
+          break;
+        case 10:
+          // FHCRC, which we do not bother to check
+          fieldRemaining = fieldRemaining - 1;
+          if (fieldRemaining == 0) {
+            return true;
+          }
+          break;
+        default:
+          throw new IllegalStateException("unrecognized header step " + headerStep);
+      }
+    }
+    return false;
+  }
+
+  private boolean afterFixedHeader() {
+    if ((flags & FEXTRA) != 0) {
+      headerStep = 5;
+      return false;
+    }
+    return afterExtra();
+  }
+
+  private boolean afterExtra() {
+    if ((flags & FNAME) != 0) {
+      headerStep = 8;
+      return false;
+    }
+    return afterName();
+  }
+
+  private boolean afterName() {
+    if ((flags & FCOMMENT) != 0) {
+      headerStep = 9;
+      return false;
+    }
+    return afterComment();
+  }
+
+  private boolean afterComment() {
+    if ((flags & FHCRC) != 0) {
+      fieldRemaining = 2;
+      headerStep = 10;
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Reads and checks the gzip member trailer incrementally
+   *
+   * @return true once the trailer is complete
+   */
+  private boolean readTrailer(ByteBuffer input) throws IOException {
+    // The inflater may have over-read the end of the deflate data, in which case the start of the
+    // trailer is still in the input buffer, just past the position.
+    int n = Math.min(trailer.length - trailerLength, input.remaining());
+    input.get(trailer, trailerLength, n);
+    trailerLength = trailerLength + n;
+    if (trailerLength < trailer.length) {
+      return false;
+    }
+    long expectedCrc = littleEndianInt(0);
+    long expectedSize = littleEndianInt(4);
+    if (expectedCrc != crc.getValue()) {
+      throw new ZipException("Corrupt gzip response body: CRC mismatch");
+    }
+    if (expectedSize != (inflater.getBytesWritten() & 0xffffffffL)) {
+      throw new ZipException("Corrupt gzip response body: size mismatch");
+    }
+    return true;
+  }
+
+  private long littleEndianInt(int offset) {
+    return (trailer[offset] & 0xffL) | ((trailer[offset + 1] & 0xffL) << 8)
+        | ((trailer[offset + 2] & 0xffL) << 16) | ((trailer[offset + 3] & 0xffL) << 24);
+  }
+}
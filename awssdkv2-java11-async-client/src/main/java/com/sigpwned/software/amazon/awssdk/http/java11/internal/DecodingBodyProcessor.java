@@ -0,0 +1,231 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Decompresses a response body on its way to the SDK. Only decodes as much as the SDK has asked
+ * for, and only asks upstream for more of the encoded body when it needs more input to do so, so
+ * the body is never buffered whole, and backpressure passes straight through.
+ */
+@SdkInternalApi
+final class DecodingBodyProcessor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+
+  private final ContentDecoder decoder;
+
+  /**
+   * Encoded buffers that have arrived, but that we have not started decoding yet
+   */
+  private final Queue<ByteBuffer> inputs = new ConcurrentLinkedQueue<>();
+
+  private final AtomicLong demand = new AtomicLong(0L);
+
+  private final AtomicInteger wip = new AtomicInteger(0);
+
+  private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+  private volatile Flow.Subscription upstream;
+
+  private volatile Flow.Subscriber<? super ByteBuffer> downstream;
+
+  private volatile boolean upstreamRequested;
+
+  private volatile boolean upstreamDone;
+
+  private volatile boolean cancelled;
+
+  private volatile Throwable error;
+
+  // Only accessed from within the drain loop, which is serialized by wip
+  private boolean done;
+  private ByteBuffer input;
+  private boolean sawInput;
+
+  public DecodingBodyProcessor(ContentDecoder decoder) {
+    this.decoder = requireNonNull(decoder);
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (upstream != null) {
+      subscription.cancel();
+      return;
+    }
+    upstream = subscription;
+    drain();
+  }
+
+  @Override
+  public void onNext(ByteBuffer item) {
+    upstreamRequested = false;
+    inputs.add(item);
+    drain();
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    error = throwable;
+    upstreamDone = true;
+    drain();
+  }
+
+  @Override
+  public void onComplete() {
+    upstreamDone = true;
+    drain();
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    requireNonNull(subscriber);
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("Response body can only be subscribed once"));
+      return;
+    }
+    subscriber.onSubscribe(new Flow.Subscription() {
+      @Override
+      public void request(long n) {
+        if (n <= 0L) {
+          if (error == null) {
+            error = new IllegalArgumentException("Demand must be positive");
+          }
+          cancelled = true;
+        } else {
+          demand.getAndAccumulate(n, (a, b) -> a + b < 0L ? Long.MAX_VALUE : a + b);
+        }
+        drain();
+      }
+
+      @Override
+      public void cancel() {
+        cancelled = true;
+        drain();
+      }
+    });
+    downstream = subscriber;
+    drain();
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    do {
+      if (!done) {
+        try {
+          drainOnce();
+        } catch (IOException | RuntimeException e) {
+          error = e;
+          cancelled = true;
+          cancelNow();
+        }
+      }
+    } while (wip.decrementAndGet() != 0);
+  }
+
+  private void drainOnce() throws IOException {
+    final Flow.Subscriber<? super ByteBuffer> subscriber = downstream;
+
+    if (cancelled) {
+      cancelNow();
+      return;
+    }
+
+    if (subscriber == null) {
+      return;
+    }
+
+    if (error != null) {
+      terminate();
+      subscriber.onError(error);
+      return;
+    }
+
+    while (demand.get() > 0L) {
+      if (input == null) {
+        input = inputs.poll();
+        if (input != null) {
+          sawInput = true;
+        }
+      }
+      final ByteBuffer output = input != null ? decoder.decode(input) : null;
+      if (output != null) {
+        demand.decrementAndGet();
+        subscriber.onNext(output);
+        if (cancelled) {
+          return;
+        }
+        continue;
+      }
+      if (input != null) {
+        // The decoder used up this input without producing anything more, so try the next one
+        input = null;
+        continue;
+      }
+      if (upstreamDone) {
+        terminate();
+        if (error != null) {
+          subscriber.onError(error);
+        } else if (decoder.isComplete() || !sawInput) {
+          subscriber.onComplete();
+        } else {
+          subscriber.onError(new EOFException("Compressed response body ended prematurely"));
+        }
+        return;
+      }
+      requestUpstream();
+      return;
+    }
+  }
+
+  /**
+   * Stops decoding, and passes the cancellation on. Upstream decides what to do with the rest of
+   * the encoded body.
+   */
+  private void cancelNow() {
+    terminate();
+    Flow.Subscription s = upstream;
+    if (s != null) {
+      s.cancel();
+    }
+    Flow.Subscriber<? super ByteBuffer> subscriber = downstream;
+    if (error != null && subscriber != null) {
+      subscriber.onError(error);
+    }
+  }
+
+  private void requestUpstream() {
+    final Flow.Subscription s = upstream;
+    if (s == null || upstreamDone || upstreamRequested) {
+      return;
+    }
+    upstreamRequested = true;
+    s.request(1L);
+  }
+
+  private void terminate() {
+    done = true;
+    input = null;
+    inputs.clear();
+    decoder.release();
+  }
+}
@@ -0,0 +1,52 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * A bounded pool of raw {@link Deflater}s at one compression level. Like inflaters, deflaters hold
+ * native memory until they are ended, and a deflater's memory is several times larger, so reusing
+ * them matters even more. Deflaters are reset when returned. Surplus deflaters are ended rather
+ * than pooled.
+ */
+@SdkInternalApi
+final class DeflaterPool {
+
+  private final int level;
+
+  private final int maximumSize;
+
+  private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger(0);
+
+  DeflaterPool(int level, int maximumSize) {
+    this.level = level;
+    this.maximumSize = maximumSize;
+  }
+
+  public Deflater acquire() {
+    Deflater result = deflaters.poll();
+    if (result == null) {
+      return new Deflater(level, true);
+    }
+    size.decrementAndGet();
+    return result;
+  }
+
+  /**
+   * Returns the given deflater, which must have come from {@link #acquire()}, to the pool. The
+   * caller must not use it afterwards.
+   */
+  public void release(Deflater deflater) {
+    if (size.incrementAndGet() > maximumSize) {
+      size.decrementAndGet();
+      deflater.end();
+      return;
+    }
+    deflater.reset();
+    deflaters.add(deflater);
+  }
+}
@@ -0,0 +1,37 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * The body of a response that has no body, e.g., the response to a HEAD request. Completes each
+ * subscriber immediately.
+ */
+@SdkInternalApi
+final class EmptyBodyPublisher implements Publisher<ByteBuffer> {
+
+  public static final EmptyBodyPublisher INSTANCE = new EmptyBodyPublisher();
+
+  private EmptyBodyPublisher() {
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+    requireNonNull(subscriber);
+    subscriber.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+    subscriber.onComplete();
+  }
+}
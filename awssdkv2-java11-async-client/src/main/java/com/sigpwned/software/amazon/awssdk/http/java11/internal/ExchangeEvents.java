@@ -0,0 +1,342 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Emits Java Flight Recorder events for one exchange, so that its phases show up in recordings
+ * alongside GC, safepoints, and thread activity:
+ *
+ * <ul>
+ *   <li>{@link RequestDispatchedEvent} when the request is handed to the HTTP client</li>
+ *   <li>{@link ResponseHeadersEvent} when the response headers arrive</li>
+ *   <li>{@link ResponseFirstByteEvent} when the first byte of the response body arrives</li>
+ *   <li>{@link ResponseCompletedEvent} when the whole response body has arrived</li>
+ *   <li>{@link ExchangeCancelledEvent} when the response body is cancelled before it ends</li>
+ *   <li>{@link ExchangeTimedOutEvent} when the exchange times out</li>
+ * </ul>
+ *
+ * <p>
+ * Every event but the first spans from dispatch to when it happened, so its duration is the
+ * latency of that phase. The executor only starts an exchange's events if {@link #isEnabled() a
+ * recording has any of them enabled}, so otherwise the only cost is a few reads of the events'
+ * enabled flags per exchange. On a runtime without the {@code jdk.jfr} module, the executor never
+ * touches this class at all.
+ * </p>
+ *
+ * <p>
+ * The response adapter wraps the response body subscriber in this, and the subscription in turn,
+ * to see body bytes and cancellation.
+ * </p>
+ */
+@SdkInternalApi
+public final class ExchangeEvents implements BodySubscriber<Void>, Flow.Subscription {
+
+  private static final EventType[] EVENT_TYPES = {
+      EventType.getEventType(RequestDispatchedEvent.class),
+      EventType.getEventType(ResponseHeadersEvent.class),
+      EventType.getEventType(ResponseFirstByteEvent.class),
+      EventType.getEventType(ResponseCompletedEvent.class),
+      EventType.getEventType(ExchangeCancelledEvent.class),
+      EventType.getEventType(ExchangeTimedOutEvent.class)};
+
+  /**
+   * @return true if any recording has any exchange event enabled
+   */
+  public static boolean isEnabled() {
+    for (EventType eventType : EVENT_TYPES) {
+      if (eventType.isEnabled()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Emits the dispatch event for a new exchange, and starts timing the rest.
+   *
+   * @param requestBytes the length of the request body, or -1 if unknown
+   */
+  public static ExchangeEvents start(String host, String method, long requestBytes) {
+    final RequestDispatchedEvent dispatched = new RequestDispatchedEvent();
+    if (dispatched.shouldCommit()) {
+      dispatched.host = host;
+      dispatched.method = method;
+      dispatched.requestBytes = requestBytes;
+      dispatched.commit();
+    }
+    return new ExchangeEvents(host, method);
+  }
+
+  private final String host;
+
+  private final String method;
+
+  private final ResponseHeadersEvent headers = new ResponseHeadersEvent();
+
+  private final ResponseFirstByteEvent firstByte = new ResponseFirstByteEvent();
+
+  private final ResponseCompletedEvent completed = new ResponseCompletedEvent();
+
+  private final ExchangeCancelledEvent cancelled = new ExchangeCancelledEvent();
+
+  private final ExchangeTimedOutEvent timedOut = new ExchangeTimedOutEvent();
+
+  /**
+   * Whether the exchange has completed, been cancelled, or failed
+   */
+  private final AtomicBoolean finished = new AtomicBoolean(false);
+
+  private volatile int status;
+
+  private volatile long responseBytes;
+
+  private BodySubscriber<Void> delegate;
+
+  private Flow.Subscription subscription;
+
+  private ExchangeEvents(String host, String method) {
+    this.host = host;
+    this.method = requireNonNull(method);
+    headers.begin();
+    firstByte.begin();
+    completed.begin();
+    cancelled.begin();
+    timedOut.begin();
+  }
+
+  /**
+   * @param contentLength the length of the response body, or -1 if unknown
+   */
+  public void headersReceived(int statusCode, long contentLength) {
+    status = statusCode;
+    if (headers.shouldCommit()) {
+      headers.host = host;
+      headers.method = method;
+      headers.status = statusCode;
+      headers.contentLength = contentLength;
+      headers.commit();
+    }
+  }
+
+  /**
+   * @return a body subscriber that reports on the given one
+   */
+  public BodySubscriber<Void> wrap(BodySubscriber<Void> subscriber) {
+    this.delegate = requireNonNull(subscriber);
+    return this;
+  }
+
+  /**
+   * Reports that the exchange timed out, unless it has already finished.
+   */
+  public void timedOut() {
+    if (finished.compareAndSet(false, true) && timedOut.shouldCommit()) {
+      timedOut.host = host;
+      timedOut.method = method;
+      timedOut.status = status;
+      timedOut.responseBytes = responseBytes;
+      timedOut.commit();
+    }
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    delegate.onSubscribe(this);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> item) {
+    long bytes = 0L;
+    for (int i = 0; i < item.size(); i++) {
+      bytes = bytes + item.get(i).remaining();
+    }
+    if (bytes > 0L && responseBytes == 0L && firstByte.shouldCommit()) {
+      firstByte.host = host;
+      firstByte.method = method;
+      firstByte.status = status;
+      firstByte.commit();
+    }
+    responseBytes = responseBytes + bytes;
+    delegate.onNext(item);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    finished.set(true);
+    delegate.onError(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    if (finished.compareAndSet(false, true) && completed.shouldCommit()) {
+      completed.host = host;
+      completed.method = method;
+      completed.status = status;
+      completed.responseBytes = responseBytes;
+      completed.commit();
+    }
+    delegate.onComplete();
+  }
+
+  @Override
+  public CompletionStage<Void> getBody() {
+    return delegate.getBody();
+  }
+
+  @Override
+  public void request(long n) {
+    subscription.request(n);
+  }
+
+  @Override
+  public void cancel() {
+    if (finished.compareAndSet(false, true) && cancelled.shouldCommit()) {
+      cancelled.host = host;
+      cancelled.method = method;
+      cancelled.status = status;
+      cancelled.responseBytes = responseBytes;
+      cancelled.commit();
+    }
+    subscription.cancel();
+  }
+
+  @Name("com.sigpwned.awssdk.http.java11.RequestDispatched")
+  @Label("Request Dispatched")
+  @Description("The client handed a request to the HTTP client")
+  @Category({"AWS SDK", "Java 11 HTTP Client"})
+  @StackTrace(false)
+  public static final class RequestDispatchedEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Request Bytes")
+    @Description("The length of the request body, or -1 if unknown")
+    @DataAmount
+    public long requestBytes;
+  }
+
+  @Name("com.sigpwned.awssdk.http.java11.ResponseHeaders")
+  @Label("Response Headers")
+  @Description("Response headers arrived, timed from dispatch")
+  @Category({"AWS SDK", "Java 11 HTTP Client"})
+  @StackTrace(false)
+  public static final class ResponseHeadersEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Content Length")
+    @Description("The length of the response body, or -1 if unknown")
+    @DataAmount
+    public long contentLength;
+  }
+
+  @Name("com.sigpwned.awssdk.http.java11.ResponseFirstByte")
+  @Label("Response First Byte")
+  @Description("The first byte of the response body arrived, timed from dispatch")
+  @Category({"AWS SDK", "Java 11 HTTP Client"})
+  @StackTrace(false)
+  public static final class ResponseFirstByteEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Status")
+    public int status;
+  }
+
+  @Name("com.sigpwned.awssdk.http.java11.ResponseCompleted")
+  @Label("Response Completed")
+  @Description("The whole response body arrived, timed from dispatch")
+  @Category({"AWS SDK", "Java 11 HTTP Client"})
+  @StackTrace(false)
+  public static final class ResponseCompletedEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+  }
+
+  @Name("com.sigpwned.awssdk.http.java11.ExchangeCancelled")
+  @Label("Exchange Cancelled")
+  @Description("The response body was cancelled before it ended, timed from dispatch")
+  @Category({"AWS SDK", "Java 11 HTTP Client"})
+  @StackTrace(false)
+  public static final class ExchangeCancelledEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Status")
+    public int status;
+
+    @Label("Response Bytes")
+    @Description("How much of the response body arrived before it was cancelled")
+    @DataAmount
+    public long responseBytes;
+  }
+
+  @Name("com.sigpwned.awssdk.http.java11.ExchangeTimedOut")
+  @Label("Exchange Timed Out")
+  @Description("The exchange timed out, timed from dispatch")
+  @Category({"AWS SDK", "Java 11 HTTP Client"})
+  @StackTrace(false)
+  public static final class ExchangeTimedOutEvent extends Event {
+
+    @Label("Host")
+    public String host;
+
+    @Label("Method")
+    public String method;
+
+    @Label("Status")
+    @Description("The response status, or 0 if no response arrived")
+    public int status;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+  }
+}
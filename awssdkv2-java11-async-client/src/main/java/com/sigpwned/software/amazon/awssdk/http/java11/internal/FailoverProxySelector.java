@@ -0,0 +1,293 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Logger;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+import software.amazon.awssdk.utils.ThreadFactoryBuilder;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Selects among an ordered list of proxies, always preferring the first healthy one. A proxy that
+ * fails to connect is ejected for a while, and each further failure without a success in between
+ * doubles the ejection, up to a maximum. An ejected proxy comes back when its ejection ends, or
+ * sooner if active health checks are enabled and it accepts a connection. If every proxy is
+ * ejected, the one due back soonest goes first, so requests are never refused outright.
+ *
+ * <p>
+ * The JDK's HTTP client neither reports connection failures to its proxy selector nor tries more
+ * than the first proxy it is given. So the request executor reports the outcome of each proxied
+ * request here, and the next request goes to the next healthy proxy. The client selects a proxy
+ * synchronously, on the sending thread, so the executor learns which proxy it chose from
+ * {@link #takeSelected()}.
+ * </p>
+ */
+@SdkInternalApi
+public final class FailoverProxySelector extends ProxySelector implements SdkAutoCloseable {
+
+  private static final Logger log = Logger.loggerFor(FailoverProxySelector.class);
+
+  private static final List<Proxy> NOT_PROXIED = singletonList(Proxy.NO_PROXY);
+
+  /**
+   * The longest to wait for an ejected proxy to accept a connection during a health check
+   */
+  private static final int HEALTH_CHECK_TIMEOUT_MILLIS = 2000;
+
+  private final List<ProxyState> proxies;
+
+  /**
+   * All proxies, in order, for when none are ejected
+   */
+  private final List<Proxy> preferred;
+
+  private final NonProxyHostsMatcher nonProxyHosts;
+
+  private final long ejectionNanos;
+
+  private final long maxEjectionNanos;
+
+  private final LongSupplier nanoClock;
+
+  /**
+   * How many proxies are ejected, or were and have not connected successfully since. While zero,
+   * selection needs no clock reads or sorting.
+   */
+  private final AtomicInteger ejected = new AtomicInteger(0);
+
+  private final ScheduledExecutorService healthChecker;
+
+  /**
+   * The proxy each thread's last selection put first
+   */
+  private final ThreadLocal<Proxy> selected = new ThreadLocal<>();
+
+  public FailoverProxySelector(List<Proxy> proxies, Collection<String> nonProxyHosts,
+      Duration ejectionDuration, Duration maxEjectionDuration, Duration healthCheckInterval) {
+    this(proxies, nonProxyHosts, ejectionDuration, maxEjectionDuration, healthCheckInterval,
+        System::nanoTime);
+  }
+
+  /**
+   * @param nanoClock the current time, in nanoseconds, like {@link System#nanoTime()}
+   */
+  public FailoverProxySelector(List<Proxy> proxies, Collection<String> nonProxyHosts,
+      Duration ejectionDuration, Duration maxEjectionDuration, Duration healthCheckInterval,
+      LongSupplier nanoClock) {
+    Validate.notEmpty(proxies, "proxies");
+    List<ProxyState> states = new ArrayList<>(proxies.size());
+    for (Proxy proxy : proxies) {
+      states.add(new ProxyState(requireNonNull(proxy)));
+    }
+    this.proxies = unmodifiableList(states);
+    this.preferred = unmodifiableList(new ArrayList<>(proxies));
+    this.nonProxyHosts = new NonProxyHostsMatcher(nonProxyHosts);
+    this.ejectionNanos = ejectionDuration.toNanos();
+    this.maxEjectionNanos = Math.max(maxEjectionDuration.toNanos(), ejectionNanos);
+    this.nanoClock = requireNonNull(nanoClock);
+
+    if (!healthCheckInterval.isZero()) {
+      this.healthChecker = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+          .threadNamePrefix("java11-proxy-health").daemonThreads(true).build());
+      long intervalMillis = Math.max(healthCheckInterval.toMillis(), 1L);
+      this.healthChecker.scheduleWithFixedDelay(this::checkEjected, intervalMillis,
+          intervalMillis, TimeUnit.MILLISECONDS);
+    } else {
+      this.healthChecker = null;
+    }
+  }
+
+  @Override
+  public List<Proxy> select(URI uri) {
+    final List<Proxy> result = choose(uri);
+    selected.set(result.get(0));
+    return result;
+  }
+
+  /**
+   * @return the proxy the last selection on this thread chose, or null if it chose to go direct
+   *     or there has been no selection since the last call. Call this right after sending a
+   *     request, on the same thread, to learn which proxy the HTTP client chose for it.
+   */
+  public Proxy takeSelected() {
+    final Proxy result = selected.get();
+    selected.remove();
+    return result != null && result.type() != Proxy.Type.DIRECT ? result : null;
+  }
+
+  private List<Proxy> choose(URI uri) {
+    if (nonProxyHosts.matches(uri.getHost())) {
+      return NOT_PROXIED;
+    }
+    if (ejected.get() == 0) {
+      return preferred;
+    }
+
+    final long now = nanoClock.getAsLong();
+    List<Proxy> result = new ArrayList<>(proxies.size());
+    List<ProxyState> unhealthy = new ArrayList<>();
+    for (ProxyState state : proxies) {
+      if (state.isEjected(now)) {
+        unhealthy.add(state);
+      } else {
+        result.add(state.proxy);
+      }
+    }
+    unhealthy.sort(Comparator.comparingLong(s -> s.ejectedUntil - now));
+    for (ProxyState state : unhealthy) {
+      result.add(state.proxy);
+    }
+    return result;
+  }
+
+  /**
+   * Ejects the proxy with the given address.
+   */
+  @Override
+  public void connectFailed(URI uri, SocketAddress address, IOException e) {
+    ProxyState state = find(address);
+    if (state == null) {
+      return;
+    }
+    long ejection = state.failed(nanoClock.getAsLong(), ejectionNanos, maxEjectionNanos);
+    if (state.markUnhealthy()) {
+      ejected.incrementAndGet();
+    }
+    log.warn(() -> "Failed to connect to proxy " + address + ", so ejecting it for "
+        + Duration.ofNanos(ejection), e);
+  }
+
+  /**
+   * Records that the given proxy carried a request, which ends any backoff.
+   */
+  public void connectSucceeded(Proxy proxy) {
+    ProxyState state = find(proxy.address());
+    if (state != null && state.markHealthy()) {
+      ejected.decrementAndGet();
+      log.info(() -> "Proxy " + proxy.address() + " is healthy again");
+    }
+  }
+
+  @Override
+  public void close() {
+    if (healthChecker != null) {
+      healthChecker.shutdownNow();
+    }
+  }
+
+  /**
+   * Lets ejected proxies that accept connections again back in early. Their backoff remains until
+   * they carry a request, so if they fail again right away, they are ejected for longer.
+   */
+  private void checkEjected() {
+    for (ProxyState state : proxies) {
+      if (!state.isEjected(nanoClock.getAsLong())) {
+        continue;
+      }
+      InetSocketAddress address = (InetSocketAddress) state.proxy.address();
+      try (Socket socket = new Socket()) {
+        socket.connect(new InetSocketAddress(address.getHostString(), address.getPort()),
+            HEALTH_CHECK_TIMEOUT_MILLIS);
+        state.reinstate();
+        log.debug(() -> "Proxy " + address + " accepts connections again");
+      } catch (IOException | RuntimeException e) {
+        log.debug(() -> "Proxy " + address + " still does not accept connections", e);
+      }
+    }
+  }
+
+  private ProxyState find(SocketAddress address) {
+    for (ProxyState state : proxies) {
+      if (state.proxy.address().equals(address)) {
+        return state;
+      }
+    }
+    return null;
+  }
+
+  private static final class ProxyState {
+
+    public final Proxy proxy;
+
+    /**
+     * How many times in a row the proxy has failed
+     */
+    private int failures;
+
+    /**
+     * Whether the proxy has failed since it last succeeded
+     */
+    private boolean unhealthy;
+
+    public volatile long ejectedUntil;
+
+    private volatile boolean ejected;
+
+    public ProxyState(Proxy proxy) {
+      this.proxy = proxy;
+    }
+
+    public boolean isEjected(long now) {
+      return ejected && now - ejectedUntil < 0L;
+    }
+
+    /**
+     * @return how long the proxy is now ejected for
+     */
+    public synchronized long failed(long now, long ejectionNanos, long maxEjectionNanos) {
+      failures = failures + 1;
+      long ejection = ejectionNanos;
+      for (int i = 1; i < failures && ejection < maxEjectionNanos; i++) {
+        ejection = ejection * 2L;
+      }
+      ejection = Math.min(ejection, maxEjectionNanos);
+      ejectedUntil = now + ejection;
+      ejected = true;
+      return ejection;
+    }
+
+    public synchronized void reinstate() {
+      ejected = false;
+    }
+
+    /**
+     * @return true if the proxy was healthy before
+     */
+    public synchronized boolean markUnhealthy() {
+      boolean result = !unhealthy;
+      unhealthy = true;
+      return result;
+    }
+
+    /**
+     * @return true if the proxy was unhealthy before
+     */
+    public synchronized boolean markHealthy() {
+      boolean result = unhealthy;
+      unhealthy = false;
+      failures = 0;
+      ejected = false;
+      return result;
+    }
+  }
+}
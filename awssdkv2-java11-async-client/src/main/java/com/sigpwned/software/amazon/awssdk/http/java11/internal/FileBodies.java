@@ -0,0 +1,139 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.FileContentPublisher;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Identifies request bodies that are backed by a region of a local file, so that we can send them
+ * straight from the file.
+ *
+ * <p>
+ * The SDK wraps the {@code AsyncRequestBody} a user gives it in an internal adapter before handing
+ * it to the HTTP client, and neither class is part of the SDK's public API, so we have to find the
+ * file reflectively. We only recognize the exact adapter and file body classes, so any wrapper that
+ * transforms the body (e.g., for checksums or chunked signing) is left alone. If anything about
+ * those classes changes, then we quietly fall back to the general path.
+ * </p>
+ */
+@SdkInternalApi
+final class FileBodies {
+
+  private static final Logger log = Logger.loggerFor(FileBodies.class);
+
+  private static final String ADAPTER_CLASS_NAME =
+      "software.amazon.awssdk.core.internal.http.pipeline.stages.MakeAsyncHttpRequestStage$SdkHttpContentPublisherAdapter";
+
+  private static final String FILE_BODY_CLASS_NAME =
+      "software.amazon.awssdk.core.internal.async.FileAsyncRequestBody";
+
+  /**
+   * Reflective handles for the SDK's file body, or null if not available. These are resolved the
+   * first time we see the SDK's adapter, since the SDK's classes are not necessarily visible to
+   * ours at class initialization time.
+   */
+  private static volatile SdkFileBodyAccessor sdkFileBodyAccessor;
+
+  private static volatile boolean sdkFileBodyAccessorFailed;
+
+  private FileBodies() {
+  }
+
+  /**
+   * @return the file region backing the given body, or empty if the body is not backed by a file
+   */
+  public static Optional<FileContentPublisher> fileRegion(SdkHttpContentPublisher publisher) {
+    FileContentPublisher result = null;
+    if (publisher instanceof FileContentPublisher) {
+      result = (FileContentPublisher) publisher;
+    } else if (publisher != null && publisher.getClass().getName().equals(ADAPTER_CLASS_NAME)) {
+      result = sdkFileRegion(publisher);
+    }
+
+    if (result == null) {
+      return Optional.empty();
+    }
+
+    // Make sure the file region is what the SDK thinks the body is. If not, something's odd, so
+    // let the general path deal with it.
+    long length = result.length();
+    if (publisher.contentLength().map(n -> n != length).orElse(false)) {
+      return Optional.empty();
+    }
+    if (!isRegionOfRegularFile(result)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(result);
+  }
+
+  private static FileContentPublisher sdkFileRegion(SdkHttpContentPublisher adapter) {
+    SdkFileBodyAccessor accessor = sdkFileBodyAccessor(adapter.getClass());
+    if (accessor == null) {
+      return null;
+    }
+    try {
+      return accessor.fileRegion(adapter);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.debug(() -> "Failed to inspect SDK request body", e);
+      return null;
+    }
+  }
+
+  private static SdkFileBodyAccessor sdkFileBodyAccessor(Class<?> adapterClass) {
+    SdkFileBodyAccessor result = sdkFileBodyAccessor;
+    if (result == null && !sdkFileBodyAccessorFailed) {
+      try {
+        result = sdkFileBodyAccessor = new SdkFileBodyAccessor(adapterClass);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        log.debug(() -> "SDK file request bodies are not recognized in this SDK version", e);
+        sdkFileBodyAccessorFailed = true;
+      }
+    }
+    return result;
+  }
+
+  private static boolean isRegionOfRegularFile(FileContentPublisher region) {
+    try {
+      Path path = region.path();
+      return Files.isRegularFile(path)
+          && region.position() + region.length() <= Files.size(path);
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private static final class SdkFileBodyAccessor {
+
+    private final Field asyncRequestBody;
+    private final Class<?> fileBodyClass;
+    private final Method path;
+    private final Method position;
+    private final Method numBytesToRead;
+
+    public SdkFileBodyAccessor(Class<?> adapterClass) throws ReflectiveOperationException {
+      this.asyncRequestBody = adapterClass.getDeclaredField("asyncRequestBody");
+      this.asyncRequestBody.setAccessible(true);
+      this.fileBodyClass = Class.forName(FILE_BODY_CLASS_NAME, false,
+          adapterClass.getClassLoader());
+      this.path = fileBodyClass.getMethod("path");
+      this.position = fileBodyClass.getMethod("position");
+      this.numBytesToRead = fileBodyClass.getMethod("numBytesToRead");
+    }
+
+    public FileContentPublisher fileRegion(Object adapter) throws ReflectiveOperationException {
+      Object body = asyncRequestBody.get(adapter);
+      if (body == null || body.getClass() != fileBodyClass) {
+        return null;
+      }
+      return FileContentPublisher.create((Path) path.invoke(body), (Long) position.invoke(body),
+          (Long) numBytesToRead.invoke(body));
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Writes a response body straight into a file from the HTTP client's delivery thread, without
+ * copying the client's buffers or handing them off to another thread first.
+ */
+@SdkInternalApi
+final class FileChannelBodySubscriber implements BodySubscriber<Void> {
+
+  private final FileResponseWriter writer;
+  private final CompletableFuture<Void> body = new CompletableFuture<>();
+  private Subscription subscription;
+
+  public FileChannelBodySubscriber(FileResponseWriter writer) {
+    this.writer = requireNonNull(writer);
+  }
+
+  @Override
+  public CompletionStage<Void> getBody() {
+    return body;
+  }
+
+  @Override
+  public void onSubscribe(Subscription newSubscription) {
+    if (subscription != null) {
+      newSubscription.cancel();
+    } else {
+      subscription = newSubscription;
+      subscription.request(1L);
+    }
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> item) {
+    try {
+      for (ByteBuffer buffer : item) {
+        writer.write(buffer);
+      }
+    } catch (IOException e) {
+      subscription.cancel();
+      onError(e);
+      return;
+    }
+    subscription.request(1L);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    writer.abort(throwable);
+    body.completeExceptionally(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    writer.complete();
+    writer.future().whenComplete((n, e) -> {
+      if (e != null) {
+        body.completeExceptionally(e);
+      } else {
+        body.complete(null);
+      }
+    });
+  }
+}
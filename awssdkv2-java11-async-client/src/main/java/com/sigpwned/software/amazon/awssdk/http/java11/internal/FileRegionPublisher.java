@@ -0,0 +1,186 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Publishes a region of a file by memory-mapping it. The region is mapped one window at a time, so
+ * arbitrarily large regions can be published with bounded address space, and published as slices
+ * of the mapped window, so the bytes are never copied onto the heap. Each subscription reads the
+ * region independently, so the publisher may be subscribed to multiple times, e.g., for retries.
+ *
+ * <p>
+ * Like the SDK's own file bodies, a subscription fails if the file's size or last-modified time
+ * changes while it is read. The size is also checked before each window is mapped, so a file that
+ * has been truncated is never mapped past its end. If the file is truncated under a window that is
+ * already mapped, then reading that window throws an {@link InternalError}. If that happens while
+ * we publish, the subscription fails like it would for any other error, instead of hanging.
+ * </p>
+ */
+@SdkInternalApi
+public final class FileRegionPublisher implements Flow.Publisher<ByteBuffer> {
+
+  /**
+   * How much of the file to map at once.
+   */
+  private static final long WINDOW_SIZE = 64L * 1024L * 1024L;
+
+  /**
+   * How large each published buffer is.
+   */
+  private static final int CHUNK_SIZE = 256 * 1024;
+
+  private final Path path;
+  private final long position;
+  private final long length;
+
+  public FileRegionPublisher(Path path, long position, long length) {
+    this.path = requireNonNull(path);
+    this.position = Validate.isNotNegative(position, "position");
+    this.length = Validate.isNotNegative(length, "length");
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    requireNonNull(subscriber);
+    subscriber.onSubscribe(new RegionSubscription(subscriber));
+  }
+
+  private final class RegionSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super ByteBuffer> subscriber;
+    private final AtomicLong demand = new AtomicLong(0L);
+    private final AtomicInteger wip = new AtomicInteger(0);
+    private volatile boolean cancelled;
+    private volatile Throwable pendingError;
+
+    // These are only accessed from within the drain loop, which is serialized by wip
+    private boolean done;
+    private FileChannel channel;
+    private MappedByteBuffer window;
+    private long published;
+    private long sizeAtStart;
+    private FileTime modifiedTimeAtStart;
+
+    public RegionSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0L) {
+        pendingError = new IllegalArgumentException("Demand must be positive");
+      } else {
+        demand.getAndAccumulate(n, (a, b) -> a + b < 0L ? Long.MAX_VALUE : a + b);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      do {
+        try {
+          while (!done) {
+            if (cancelled) {
+              done = true;
+            } else if (pendingError != null) {
+              done = true;
+              subscriber.onError(pendingError);
+            } else if (published == length) {
+              done = true;
+              checkUnchanged();
+              subscriber.onComplete();
+            } else if (demand.get() > 0L) {
+              ByteBuffer chunk = nextChunk();
+              demand.decrementAndGet();
+              subscriber.onNext(chunk);
+            } else {
+              break;
+            }
+          }
+        } catch (Throwable e) {
+          // This includes the InternalError from reading a mapped window of a truncated file
+          done = true;
+          subscriber.onError(e);
+        }
+        if (done) {
+          closeChannel();
+        }
+      } while (wip.decrementAndGet() != 0);
+    }
+
+    private ByteBuffer nextChunk() throws IOException {
+      if (window == null || !window.hasRemaining()) {
+        if (channel == null) {
+          channel = FileChannel.open(path, StandardOpenOption.READ);
+          sizeAtStart = channel.size();
+          modifiedTimeAtStart = Files.getLastModifiedTime(path);
+        }
+        long windowSize = Math.min(WINDOW_SIZE, length - published);
+        if (channel.size() != sizeAtStart) {
+          throw new IOException("File size changed after reading started: " + path);
+        }
+        if (position + published + windowSize > sizeAtStart) {
+          throw new IOException("File is shorter than the region to read: " + path);
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position + published, windowSize);
+      }
+      int chunkSize = Math.min(CHUNK_SIZE, window.remaining());
+      ByteBuffer chunk = window.slice();
+      chunk.limit(chunkSize);
+      window.position(window.position() + chunkSize);
+      published = published + chunkSize;
+      return chunk;
+    }
+
+    /**
+     * Fails if the file has changed since we started reading it, since then what we sent may not
+     * be what is in the file.
+     */
+    private void checkUnchanged() throws IOException {
+      if (channel == null) {
+        // We never read anything, since the region is empty
+        return;
+      }
+      if (channel.size() != sizeAtStart) {
+        throw new IOException("File size changed after reading started: " + path);
+      }
+      if (!Files.getLastModifiedTime(path).equals(modifiedTimeAtStart)) {
+        throw new IOException("File last-modified time changed after reading started: " + path);
+      }
+    }
+
+    private void closeChannel() {
+      window = null;
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException e) {
+          // We're done with the file either way, so there's nothing to do here.
+        }
+        channel = null;
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.FsyncPolicy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Writes a response body into a file with positional writes. Calls must be serialized, which the
+ * reactive streams contract guarantees for the subscribers that use this class.
+ */
+@SdkInternalApi
+public final class FileResponseWriter {
+
+  private final Path path;
+  private final long position;
+  private final boolean truncateExisting;
+  private final FsyncPolicy fsyncPolicy;
+  private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+  private FileChannel channel;
+  private long written;
+
+  public FileResponseWriter(Path path, long position, boolean truncateExisting,
+      FsyncPolicy fsyncPolicy) {
+    this.path = requireNonNull(path);
+    this.position = position;
+    this.truncateExisting = truncateExisting;
+    this.fsyncPolicy = requireNonNull(fsyncPolicy);
+  }
+
+  public void write(ByteBuffer buffer) throws IOException {
+    if (channel == null) {
+      open();
+    }
+    while (buffer.hasRemaining()) {
+      written = written + channel.write(buffer, position + written);
+    }
+  }
+
+  /**
+   * Finishes writing the file, forcing it to storage according to our policy, and completes our
+   * future with the number of bytes written. If the body was empty, then the file is still created,
+   * or truncated if so configured.
+   */
+  public void complete() {
+    try {
+      if (channel == null) {
+        open();
+      }
+      switch (fsyncPolicy) {
+        case DATA:
+          channel.force(false);
+          break;
+        case DATA_AND_METADATA:
+          channel.force(true);
+          break;
+        case NONE:
+        default:
+          break;
+      }
+      channel.close();
+      future.complete(written);
+    } catch (IOException e) {
+      abort(e);
+    }
+  }
+
+  /**
+   * Completes our future with 0 without touching the file, for a response whose body does not
+   * belong in it.
+   */
+  public void skip() {
+    future.complete(0L);
+  }
+
+  public void abort(Throwable cause) {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        cause.addSuppressed(e);
+      }
+    }
+    future.completeExceptionally(cause);
+  }
+
+  private void open() throws IOException {
+    Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE);
+    if (truncateExisting) {
+      options.add(StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    channel = FileChannel.open(path, options);
+  }
+
+  /**
+   * @return a future that completes with the number of bytes written once the file is complete
+   */
+  public CompletableFuture<Long> future() {
+    return future;
+  }
+
+  public long written() {
+    return written;
+  }
+}
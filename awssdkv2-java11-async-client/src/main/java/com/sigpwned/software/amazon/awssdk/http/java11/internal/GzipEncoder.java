@@ -0,0 +1,159 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Incrementally gzips a request body. Input is fed in as it becomes available, and output comes
+ * out in full buffers, except for the last, so the body isn't chopped up into tiny writes. Not
+ * thread safe.
+ */
+@SdkInternalApi
+final class GzipEncoder {
+
+  /**
+   * The size of each encoded buffer
+   */
+  static final int OUTPUT_SIZE = 32 * 1024;
+
+  /**
+   * A minimal gzip member header: magic, deflate, no flags, no mtime, no extra flags, unknown OS
+   */
+  private static final byte[] HEADER = {0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private static final int TRAILER_SIZE = 8;
+
+  /**
+   * Gzips the given content all at once
+   */
+  public static byte[] encode(byte[] content, DeflaterPool pool) {
+    final GzipEncoder encoder = new GzipEncoder(pool);
+    try {
+      final ByteArrayOutputStream result = new ByteArrayOutputStream(content.length / 4 + 64);
+      final ByteBuffer input = ByteBuffer.wrap(content);
+      for (ByteBuffer b = encoder.encode(input); b != null; b = encoder.encode(input)) {
+        result.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+      }
+      for (ByteBuffer b = encoder.finish(); b != null; b = encoder.finish()) {
+        result.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+      }
+      return result.toByteArray();
+    } finally {
+      encoder.release();
+    }
+  }
+
+  private final DeflaterPool pool;
+
+  private final CRC32 crc = new CRC32();
+
+  private Deflater deflater;
+
+  private ByteBuffer output;
+
+  private boolean headerWritten;
+
+  private boolean finished;
+
+  public GzipEncoder(DeflaterPool pool) {
+    this.pool = pool;
+    this.deflater = pool.acquire();
+  }
+
+  /**
+   * Compresses as much of the given input as fits in the next output buffer.
+   *
+   * @return the next full output buffer, or null if all the given input has been consumed without
+   *     filling one
+   */
+  public ByteBuffer encode(ByteBuffer input) {
+    if (deflater.needsInput()) {
+      if (!input.hasRemaining()) {
+        return null;
+      }
+      crc.update(input.duplicate());
+      deflater.setInput(input);
+    }
+    while (true) {
+      ensureOutput();
+      deflater.deflate(output, Deflater.NO_FLUSH);
+      if (!output.hasRemaining()) {
+        return takeOutput();
+      }
+      if (deflater.needsInput()) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * Flushes the rest of the compressed data, and the gzip trailer. Call repeatedly until it
+   * returns null.
+   *
+   * @return the next output buffer, or null if there is nothing more
+   */
+  public ByteBuffer finish() {
+    if (finished) {
+      return null;
+    }
+    if (!deflater.finished()) {
+      deflater.finish();
+      while (true) {
+        ensureOutput();
+        deflater.deflate(output, Deflater.NO_FLUSH);
+        if (deflater.finished()) {
+          break;
+        }
+        if (!output.hasRemaining()) {
+          return takeOutput();
+        }
+      }
+    }
+    ensureOutput();
+    if (output.remaining() < TRAILER_SIZE) {
+      return takeOutput();
+    }
+    putLittleEndianInt(output, crc.getValue());
+    putLittleEndianInt(output, deflater.getBytesRead());
+    finished = true;
+    release();
+    return takeOutput();
+  }
+
+  /**
+   * Returns any pooled resources. Idempotent. The encoder must not be used afterwards.
+   */
+  public void release() {
+    if (deflater != null) {
+      pool.release(deflater);
+      deflater = null;
+    }
+  }
+
+  private void ensureOutput() {
+    if (output == null) {
+      output = ByteBuffer.allocate(OUTPUT_SIZE);
+      if (!headerWritten) {
+        output.put(HEADER);
+        headerWritten = true;
+      }
+    }
+  }
+
+  private ByteBuffer takeOutput() {
+    ByteBuffer result = output;
+    output = null;
+    result.flip();
+    return result;
+  }
+
+  private static void putLittleEndianInt(ByteBuffer buffer, long value) {
+    buffer.put((byte) value);
+    buffer.put((byte) (value >>> 8));
+    buffer.put((byte) (value >>> 16));
+    buffer.put((byte) (value >>> 24));
+  }
+}
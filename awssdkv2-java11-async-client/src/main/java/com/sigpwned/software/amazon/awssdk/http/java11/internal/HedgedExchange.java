@@ -0,0 +1,233 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Sends one request, and sends it again if it has not received response headers by the hedge
+ * delay. Whichever attempt receives headers first wins: only its response goes to the SDK, and the
+ * other attempt is cancelled. If the loser receives headers anyway, its body is drained when it is
+ * short enough to keep the connection, and aborted otherwise.
+ *
+ * <p>
+ * The request must be replayable, since the same {@link HttpRequest} is sent twice. The exchange
+ * fails only if every attempt fails before either receives headers, or if the winner fails.
+ * </p>
+ */
+@SdkInternalApi
+final class HedgedExchange {
+
+  private static final Logger log = Logger.loggerFor(HedgedExchange.class);
+
+  private static final int NO_WINNER = -1;
+
+  private static final int PRIMARY = 0;
+
+  private static final int HEDGE = 1;
+
+  private final BiFunction<HttpRequest, BodyHandler<Void>, CompletableFuture<HttpResponse<Void>>>
+      sender;
+
+  private final HttpRequest javaRequest;
+
+  private final BodyHandler<Void> responseHandler;
+
+  private final RequestHedger hedger;
+
+  private final URI uri;
+
+  private final long drainThresholdInBytes;
+
+  private final CompletableFuture<HttpResponse<Void>> result = new CompletableFuture<>();
+
+  private final AtomicInteger winner = new AtomicInteger(NO_WINNER);
+
+  /**
+   * How many attempts have been sent and not yet completed. Once this reaches zero without a
+   * winner, the exchange has failed, and no hedge may be sent.
+   */
+  private final AtomicInteger pending = new AtomicInteger(1);
+
+  private final AtomicReferenceArray<CompletableFuture<HttpResponse<Void>>> attempts =
+      new AtomicReferenceArray<>(2);
+
+  private volatile ScheduledFuture<?> hedgeTimer;
+
+  /**
+   * Why the most recent attempt failed, if one has
+   */
+  private volatile Throwable failure;
+
+  private long sentNanos;
+
+  /**
+   * @param sender sends one attempt, like {@link HttpClient#sendAsync(HttpRequest, BodyHandler)}
+   */
+  public HedgedExchange(
+      BiFunction<HttpRequest, BodyHandler<Void>, CompletableFuture<HttpResponse<Void>>> sender,
+      HttpRequest javaRequest, BodyHandler<Void> responseHandler, RequestHedger hedger,
+      long drainThresholdInBytes) {
+    this.sender = requireNonNull(sender);
+    this.javaRequest = requireNonNull(javaRequest);
+    this.responseHandler = requireNonNull(responseHandler);
+    this.hedger = requireNonNull(hedger);
+    this.uri = javaRequest.uri();
+    this.drainThresholdInBytes = drainThresholdInBytes;
+  }
+
+  public CompletableFuture<HttpResponse<Void>> send() {
+    long delayNanos = hedger.admit(uri);
+    sentNanos = System.nanoTime();
+    attempt(PRIMARY);
+    if (winner.get() == NO_WINNER && !result.isDone()) {
+      hedgeTimer = hedger.schedule(this::hedge, delayNanos);
+    }
+    return result;
+  }
+
+  private void hedge() {
+    if (winner.get() != NO_WINNER || result.isDone()) {
+      return;
+    }
+    // Don't hedge an exchange that has already failed. Holding a place in pending keeps the
+    // primary from failing the exchange while the budget is checked.
+    if (pending.getAndUpdate(n -> n > 0 ? n + 1 : n) == 0) {
+      return;
+    }
+    // Only spend from the budget if the hedge is really going to be sent
+    if (winner.get() != NO_WINNER || !hedger.tryHedge()) {
+      attemptAbandoned();
+      return;
+    }
+    log.debug(() -> "Hedging request to " + uri);
+    attempt(HEDGE);
+  }
+
+  private void attempt(int attempt) {
+    CompletableFuture<HttpResponse<Void>> future = sender.apply(javaRequest,
+        responseInfo -> onHeaders(attempt, responseInfo));
+    attempts.set(attempt, future);
+    future.whenComplete((response, e) -> attemptCompleted(attempt, response, e));
+  }
+
+  private BodySubscriber<Void> onHeaders(int attempt, ResponseInfo responseInfo) {
+    if (!winner.compareAndSet(NO_WINNER, attempt)) {
+      return loser(responseInfo);
+    }
+
+    hedger.recordTimeToHeaders(uri, System.nanoTime() - sentNanos);
+    if (attempt == HEDGE) {
+      hedger.hedgeWon();
+    }
+    cancelHedgeTimer();
+    cancel(1 - attempt);
+
+    return responseHandler.apply(responseInfo);
+  }
+
+  private void attemptCompleted(int attempt, HttpResponse<Void> response, Throwable e) {
+    if (e != null) {
+      failure = e;
+    }
+    int remaining = pending.decrementAndGet();
+    int won = winner.get();
+    if (won == attempt) {
+      if (response != null) {
+        result.complete(response);
+      } else {
+        result.completeExceptionally(e);
+      }
+    } else if (won == NO_WINNER && remaining == 0) {
+      cancelHedgeTimer();
+      result.completeExceptionally(e);
+    }
+  }
+
+  /**
+   * Gives back the place in pending held for a hedge that was not sent after all. If the primary
+   * failed meanwhile, the exchange has failed with it.
+   */
+  private void attemptAbandoned() {
+    if (pending.decrementAndGet() == 0 && winner.get() == NO_WINNER) {
+      result.completeExceptionally(failure);
+    }
+  }
+
+  private void cancelHedgeTimer() {
+    ScheduledFuture<?> timer = hedgeTimer;
+    if (timer != null) {
+      timer.cancel(false);
+    }
+  }
+
+  /**
+   * Cancels the given attempt, if it has been sent. On Java 16 and later, this aborts the exchange.
+   * On earlier versions, it does nothing, and the attempt is aborted if it receives headers.
+   */
+  private void cancel(int attempt) {
+    CompletableFuture<HttpResponse<Void>> future = attempts.get(attempt);
+    if (future != null) {
+      future.cancel(true);
+    }
+  }
+
+  /**
+   * Drains a losing response if that is cheaper than a new connection, or aborts it otherwise.
+   */
+  private BodySubscriber<Void> loser(ResponseInfo responseInfo) {
+    long contentLength = responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1L);
+    if (contentLength >= 0L && contentLength <= drainThresholdInBytes) {
+      return BodySubscribers.replacing(null);
+    }
+    return new AbortingBodySubscriber();
+  }
+
+  private static final class AbortingBodySubscriber implements BodySubscriber<Void> {
+
+    private final CompletableFuture<Void> body = new CompletableFuture<>();
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.cancel();
+      body.complete(null);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      body.complete(null);
+    }
+
+    @Override
+    public void onComplete() {
+      body.complete(null);
+    }
+
+    @Override
+    public CompletionStage<Void> getBody() {
+      return body;
+    }
+  }
+}
@@ -0,0 +1,287 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.InFlightExchange;
+import com.sigpwned.software.amazon.awssdk.http.java11.InFlightStatistics;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Keeps track of a client's exchanges in flight, so that a snapshot of them can be taken at any
+ * time. Shared by all requests of a client.
+ *
+ * <p>
+ * Exchanges are kept in fixed-size tables of slots, split into stripes by thread like
+ * {@link StripedLatencyHistogram}. Registering an exchange claims a free slot with one
+ * compare-and-set, starting from where the stripe last found one, and finishing it frees the slot
+ * with another. Nothing else is shared between exchanges. If a stripe is so full that a few probes
+ * find no free slot, the exchange is kept in an overflow set instead, which costs more but still
+ * works.
+ * </p>
+ *
+ * <p>
+ * Taking a snapshot reads every slot, so it costs time in proportion to the size of the tables,
+ * not the number of exchanges, but it never blocks the exchanges.
+ * </p>
+ */
+@SdkInternalApi
+public final class InFlightRegistry {
+
+  public static final int DEFAULT_SLOTS_PER_STRIPE = 256;
+
+  /**
+   * How many slots to try before giving up on a stripe
+   */
+  private static final int MAX_PROBES = 8;
+
+  private final Stripe[] stripes;
+
+  private final int mask;
+
+  private final Set<Exchange> overflow = ConcurrentHashMap.newKeySet();
+
+  public InFlightRegistry() {
+    this(StripedLatencyHistogram.DEFAULT_STRIPES, DEFAULT_SLOTS_PER_STRIPE);
+  }
+
+  /**
+   * @param stripes        the number of stripes, which must be a power of two
+   * @param slotsPerStripe the number of slots in each stripe, which must be a power of two
+   */
+  public InFlightRegistry(int stripes, int slotsPerStripe) {
+    if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+      throw new IllegalArgumentException("stripes must be a power of two");
+    }
+    if (slotsPerStripe <= 0 || Integer.bitCount(slotsPerStripe) != 1) {
+      throw new IllegalArgumentException("slotsPerStripe must be a power of two");
+    }
+    this.stripes = new Stripe[stripes];
+    for (int i = 0; i < stripes; i++) {
+      this.stripes[i] = new Stripe(slotsPerStripe);
+    }
+    this.mask = stripes - 1;
+  }
+
+  /**
+   * Registers a new exchange, in flight as of now.
+   *
+   * @param path the encoded path of the request, without its query string
+   */
+  public Exchange register(String method, String host, String path) {
+    final Exchange result = new Exchange(this, method, host, path, System.nanoTime());
+    final Stripe stripe = stripes[(int) Thread.currentThread().getId() & mask];
+    if (!stripe.add(result)) {
+      overflow.add(result);
+    }
+    return result;
+  }
+
+  /**
+   * @param bufferedResponseBytes how many response bytes the client has buffered
+   * @param slowestExchanges      how many of the exchanges in flight longest to list
+   * @return a snapshot of the exchanges in flight now
+   */
+  public InFlightStatistics snapshot(long bufferedResponseBytes, int slowestExchanges) {
+    final long now = System.nanoTime();
+
+    List<Exchange> exchanges = new ArrayList<>();
+    for (Stripe stripe : stripes) {
+      for (int i = 0; i < stripe.slots.length(); i++) {
+        Exchange exchange = stripe.slots.get(i);
+        if (exchange != null) {
+          exchanges.add(exchange);
+        }
+      }
+    }
+    exchanges.addAll(overflow);
+
+    Map<String, Integer> inFlightRequestsByHost = new TreeMap<>();
+    int awaitingHeaders = 0;
+    int streamingBodies = 0;
+    long oldestNanos = 0L;
+    for (Exchange exchange : exchanges) {
+      inFlightRequestsByHost.merge(exchange.host, 1, Integer::sum);
+      if (exchange.streaming) {
+        streamingBodies = streamingBodies + 1;
+      } else {
+        awaitingHeaders = awaitingHeaders + 1;
+      }
+      oldestNanos = Math.max(oldestNanos, exchange.elapsedNanos(now));
+    }
+
+    List<InFlightExchange> slowest = new ArrayList<>();
+    if (slowestExchanges > 0) {
+      exchanges.sort(Comparator.comparingLong((Exchange e) -> e.elapsedNanos(now)).reversed());
+      for (Exchange exchange : exchanges.subList(0,
+          Math.min(slowestExchanges, exchanges.size()))) {
+        slowest.add(InFlightExchange.create(exchange.method, exchange.host, exchange.path,
+            exchange.streaming ? InFlightExchange.Phase.STREAMING_BODY
+                : InFlightExchange.Phase.AWAITING_HEADERS,
+            Duration.ofNanos(exchange.elapsedNanos(now)), exchange.responseBytes));
+      }
+    }
+
+    return InFlightStatistics.create(inFlightRequestsByHost, awaitingHeaders, streamingBodies,
+        Duration.ofNanos(oldestNanos), bufferedResponseBytes, slowest);
+  }
+
+  private static final class Stripe {
+
+    public final AtomicReferenceArray<Exchange> slots;
+
+    /**
+     * Where to start looking for a free slot. Races on this are harmless, since it is only a hint.
+     */
+    private int next;
+
+    public Stripe(int slots) {
+      this.slots = new AtomicReferenceArray<>(slots);
+    }
+
+    public boolean add(Exchange exchange) {
+      final int start = next;
+      final int mask = slots.length() - 1;
+      for (int probe = 0; probe < MAX_PROBES; probe++) {
+        final int index = (start + probe) & mask;
+        if (slots.get(index) == null) {
+          exchange.stripe = this;
+          exchange.slot = index;
+          if (slots.compareAndSet(index, null, exchange)) {
+            next = index + 1;
+            return true;
+          }
+        }
+      }
+      exchange.stripe = null;
+      return false;
+    }
+  }
+
+  /**
+   * One exchange in flight. The response adapter reports when headers arrive, and wraps the
+   * response body subscriber in this, and the subscription in turn, which notices the body arrive,
+   * end, or be cancelled. The executor reports failures, in case the exchange fails before there is
+   * a body. Finishing more than once is harmless.
+   */
+  public static final class Exchange implements BodySubscriber<Void>, Flow.Subscription {
+
+    private final InFlightRegistry registry;
+
+    private final String method;
+
+    private final String host;
+
+    private final String path;
+
+    private final long startNanos;
+
+    /**
+     * The stripe and slot this is in, or null if it is in the overflow set. These are written
+     * before the exchange is handed to the HTTP client, which publishes them.
+     */
+    private Stripe stripe;
+
+    private int slot;
+
+    private volatile boolean streaming;
+
+    private volatile long responseBytes;
+
+    private BodySubscriber<Void> delegate;
+
+    private Flow.Subscription subscription;
+
+    private Exchange(InFlightRegistry registry, String method, String host, String path,
+        long startNanos) {
+      this.registry = registry;
+      this.method = requireNonNull(method);
+      this.host = host != null ? host : "";
+      this.path = requireNonNull(path);
+      this.startNanos = startNanos;
+    }
+
+    public void headersReceived() {
+      streaming = true;
+    }
+
+    /**
+     * @return a body subscriber that reports on the given one
+     */
+    public BodySubscriber<Void> wrap(BodySubscriber<Void> subscriber) {
+      this.delegate = requireNonNull(subscriber);
+      return this;
+    }
+
+    /**
+     * Removes the exchange from the registry, if it is still there.
+     */
+    public void finish() {
+      if (stripe != null) {
+        stripe.slots.compareAndSet(slot, this, null);
+      } else {
+        registry.overflow.remove(this);
+      }
+    }
+
+    private long elapsedNanos(long now) {
+      return Math.max(now - startNanos, 0L);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      delegate.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+      long bytes = 0L;
+      for (int i = 0; i < item.size(); i++) {
+        bytes = bytes + item.get(i).remaining();
+      }
+      responseBytes = responseBytes + bytes;
+      delegate.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      finish();
+      delegate.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      finish();
+      delegate.onComplete();
+    }
+
+    @Override
+    public CompletionStage<Void> getBody() {
+      return delegate.getBody();
+    }
+
+    @Override
+    public void request(long n) {
+      subscription.request(n);
+    }
+
+    @Override
+    public void cancel() {
+      finish();
+      subscription.cancel();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Inflater;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * A bounded pool of {@link Inflater}s. Each inflater holds native memory that is only freed when it
+ * is ended, so reusing them is much cheaper than creating one per response. Inflaters are reset
+ * when returned. Surplus inflaters are ended rather than pooled.
+ */
+@SdkInternalApi
+final class InflaterPool {
+
+  public static final InflaterPool INSTANCE = new InflaterPool(32);
+
+  private final int maximumSize;
+
+  /**
+   * Inflaters for raw deflate data, i.e., for gzip and headerless deflate
+   */
+  private final Queue<Inflater> nowrap = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger nowrapSize = new AtomicInteger(0);
+
+  /**
+   * Inflaters for zlib-wrapped deflate data
+   */
+  private final Queue<Inflater> wrapped = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wrappedSize = new AtomicInteger(0);
+
+  InflaterPool(int maximumSize) {
+    this.maximumSize = maximumSize;
+  }
+
+  public Inflater acquire(boolean nowrap) {
+    Inflater result = queue(nowrap).poll();
+    if (result == null) {
+      return new Inflater(nowrap);
+    }
+    size(nowrap).decrementAndGet();
+    return result;
+  }
+
+  /**
+   * Returns the given inflater, which must have come from {@link #acquire(boolean)} with the same
+   * argument, to the pool. The caller must not use it afterwards.
+   */
+  public void release(Inflater inflater, boolean nowrap) {
+    if (size(nowrap).incrementAndGet() > maximumSize) {
+      size(nowrap).decrementAndGet();
+      inflater.end();
+      return;
+    }
+    inflater.reset();
+    queue(nowrap).add(inflater);
+  }
+
+  private Queue<Inflater> queue(boolean nowrap) {
+    return nowrap ? this.nowrap : this.wrapped;
+  }
+
+  private AtomicInteger size(boolean nowrap) {
+    return nowrap ? nowrapSize : wrappedSize;
+  }
+}
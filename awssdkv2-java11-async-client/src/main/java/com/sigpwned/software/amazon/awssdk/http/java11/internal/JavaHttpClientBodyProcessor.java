@@ -1,53 +1,493 @@
 package com.sigpwned.software.amazon.awssdk.http.java11.internal;
 
-import com.sigpwned.software.amazon.awssdk.http.java11.util.ByteBuffers;
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ResponseTooLargeException;
+import java.io.IOException;
+import java.net.http.HttpResponse.BodySubscriber;
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
 import java.util.concurrent.Flow.Processor;
 import java.util.concurrent.Flow.Subscription;
-import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import software.amazon.awssdk.annotations.SdkInternalApi;
 import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
 
 /**
- * A {@link Processor} that converts a {@link List} of {@link ByteBuffer}s to a single
- * {@link ByteBuffer}. Exists solely to correct the impedence mismatch between the SDK's
- * {@link SdkAsyncHttpResponseHandler} and the Java 11 HTTP client's
- * {@link java.net.http.HttpRequest.BodyPublisher} publish and subscribe types.
+ * A {@link Processor} that republishes the {@link List}s of {@link ByteBuffer}s the Java 11 HTTP
+ * client delivers as individual {@link ByteBuffer}s. Exists solely to correct the impedence
+ * mismatch between the SDK's {@link SdkAsyncHttpResponseHandler} and the Java 11 HTTP client's
+ * {@link BodySubscriber} publish and subscribe types.
+ *
+ * <p>
+ * The processor only asks the network for more of the body while it has fewer than
+ * {@link #READ_AHEAD_IN_BYTES} bytes waiting for the SDK, and while the client's
+ * {@link ResponseBufferBudget} has room, so a slow consumer holds back its own response rather than
+ * filling the heap. To guarantee progress, a response with nothing buffered may always read once,
+ * whatever the budget. Received bytes are counted against the budget until they are handed to the
+ * SDK.
+ * </p>
+ *
+ * <p>
+ * If the policy enables spilling, then the processor never holds back the network. Instead, once a
+ * response holds more than the spill threshold in memory, or the budget is used up, the rest of
+ * the body goes to a {@link ResponseSpillFile} and is read back in order as the consumer asks for
+ * it. This lets the connection go as soon as the body has arrived, however slow the consumer.
+ * </p>
+ *
+ * <p>
+ * If the SDK cancels partway through the body, and no more than the policy's drain threshold of
+ * the body remains, then the processor reads and discards the rest, so the connection goes back to
+ * the pool instead of being closed. If more remains, or the length is unknown and the body turns
+ * out to be longer than the threshold, then the processor aborts the response. Both outcomes are
+ * counted in the policy's {@link ResponseDrainCounters}.
+ * </p>
  */
 @SdkInternalApi
-class JavaHttpClientBodyProcessor extends SubmissionPublisher<ByteBuffer> implements
+class JavaHttpClientBodyProcessor implements BodySubscriber<Void>,
     Processor<List<ByteBuffer>, ByteBuffer> {
 
-  private Subscription subscription;
+  /**
+   * How many bytes each response may buffer ahead of its consumer
+   */
+  static final long READ_AHEAD_IN_BYTES = 1024L * 1024L;
+
+  private final ResponseBodyPolicy policy;
+
+  /**
+   * The declared length of the body, or -1 if unknown
+   */
+  private final long contentLength;
+
+  /**
+   * Completes when the whole body has been received, or exceptionally if it could not be
+   */
+  private final CompletableFuture<Void> body = new CompletableFuture<>();
+
+  private final Queue<ByteBuffer> queue = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Where to put the bytes that don't fit in memory, or null if not spilling
+   */
+  private final ResponseSpillFile spill;
+
+  /**
+   * The number of bytes in the queue
+   */
+  private final AtomicLong buffered = new AtomicLong(0L);
+
+  private final AtomicLong demand = new AtomicLong(0L);
+
+  private final AtomicInteger wip = new AtomicInteger(0);
+
+  private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+  private final AtomicBoolean awaitingBudget = new AtomicBoolean(false);
+
+  private volatile Subscription upstream;
+
+  private volatile Flow.Subscriber<? super ByteBuffer> downstream;
+
+  /**
+   * True while we have asked upstream for a batch, and not received it yet
+   */
+  private volatile boolean upstreamRequested;
+
+  private volatile boolean upstreamDone;
+
+  private volatile boolean cancelled;
+
+  private volatile Throwable error;
+
+  /**
+   * True once the SDK has cancelled and we've decided to read and discard the rest of the body
+   */
+  private volatile boolean draining;
+
+  // Only written from onNext, which upstream serializes
+  private volatile long received;
+
+  // Only written from onNext, which upstream serializes
+  private volatile long drainedBytes;
+
+  // Only accessed from within the drain loop, which is serialized by wip
+  private boolean done;
+
+  JavaHttpClientBodyProcessor() {
+    this(ResponseBodyPolicy.defaults(), -1L);
+  }
+
+  JavaHttpClientBodyProcessor(ResponseBodyPolicy policy, long contentLength) {
+    this.policy = requireNonNull(policy);
+    this.contentLength = contentLength;
+    this.spill = policy.isSpillEnabled() ? new ResponseSpillFile(policy.getResponseSpillDirectory())
+        : null;
+  }
+
+  // BODY SUBSCRIBER ///////////////////////////////////////////////////////////
+
+  @Override
+  public CompletionStage<Void> getBody() {
+    return body;
+  }
 
   @Override
   public void onSubscribe(Subscription newSubscription) {
-    if (subscription != null) {
+    if (upstream != null) {
+      newSubscription.cancel();
+      return;
+    }
+    upstream = newSubscription;
+    if (upstreamDone) {
+      // The SDK cancelled before the body even started, and we decided not to drain it
       newSubscription.cancel();
-    } else {
-      subscription = newSubscription;
-      subscription.request(1L);
+    } else if (policy.isTooLarge(contentLength)) {
+      // Don't bother reading any of it
+      abort(tooLarge());
     }
+    drain();
   }
 
   @Override
   public void onNext(List<ByteBuffer> item) {
-    // It's too bad that we have to do a copy here, but because of the semantics of reactive
-    // streams, we have to make one onNext() call for each onNext() call we receive.
-    submit(ByteBuffers.concat(item));
-    if (subscription != null) {
-      subscription.request(1L);
+    upstreamRequested = false;
+    if (upstreamDone) {
+      return;
+    }
+    if (draining) {
+      long n = 0L;
+      for (ByteBuffer buffer : item) {
+        n = n + buffer.remaining();
+      }
+      received = received + n;
+      drainedBytes = drainedBytes + n;
+      if (drainedBytes > policy.getResponseDrainThresholdInBytes()) {
+        // The body was longer than we bargained for. Cut our losses.
+        abortDrain();
+        return;
+      }
+      drain();
+      return;
+    }
+    for (ByteBuffer buffer : item) {
+      int n = buffer.remaining();
+      if (n == 0) {
+        continue;
+      }
+      received = received + n;
+      if (isSpilling(n)) {
+        try {
+          spill.append(buffer);
+        } catch (IOException e) {
+          abort(e);
+          break;
+        }
+      } else {
+        queue.add(buffer);
+        buffered.addAndGet(n);
+        policy.getBudget().add(n);
+      }
     }
+    if (policy.isTooLarge(received)) {
+      abort(tooLarge());
+    }
+    drain();
   }
 
   @Override
   public void onError(Throwable throwable) {
-    closeExceptionally(throwable);
+    if (error == null) {
+      error = throwable;
+    }
+    upstreamDone = true;
+    if (draining) {
+      policy.getDrainCounters().aborted(drainedBytes);
+    }
+    // Errors jump the queue, so give back its budget before anyone hears the exchange failed
+    clearQueue();
+    body.completeExceptionally(throwable);
+    drain();
   }
 
   @Override
   public void onComplete() {
-    close();
+    upstreamDone = true;
+    if (draining) {
+      policy.getDrainCounters().drained(drainedBytes);
+    }
+    body.complete(null);
+    drain();
+  }
+
+  // PUBLISHER /////////////////////////////////////////////////////////////////
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+    requireNonNull(subscriber);
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("Response body can only be subscribed once"));
+      return;
+    }
+    subscriber.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+        if (n <= 0L) {
+          abort(new IllegalArgumentException("Demand must be positive"));
+        } else {
+          demand.getAndAccumulate(n, (a, b) -> a + b < 0L ? Long.MAX_VALUE : a + b);
+        }
+        drain();
+      }
+
+      @Override
+      public void cancel() {
+        cancelled = true;
+        drain();
+      }
+    });
+    downstream = subscriber;
+    drain();
+  }
+
+  /**
+   * @return the number of bytes received but not yet handed to the SDK
+   */
+  long bufferedBytes() {
+    return buffered.get();
+  }
+
+  /**
+   * Stops reading the body and fails it with the given error
+   */
+  private void abort(Throwable t) {
+    if (error == null) {
+      error = t;
+    }
+    if (!upstreamDone) {
+      upstreamDone = true;
+      Subscription s = upstream;
+      if (s != null) {
+        s.cancel();
+      }
+    }
+    // Errors jump the queue, so give back its budget before anyone hears the exchange failed
+    clearQueue();
+    body.completeExceptionally(t);
+  }
+
+  /**
+   * @return true if the next buffer, of the given size, should go to disk
+   */
+  private boolean isSpilling(int n) {
+    if (spill == null) {
+      return false;
+    }
+    // Once we start spilling, we keep spilling, so that the body is read back in order.
+    return spill.isActive() || buffered.get() + n > policy.getResponseSpillThresholdInBytes()
+        || !policy.getBudget().hasRoom();
+  }
+
+  private ResponseTooLargeException tooLarge() {
+    long maxResponseSizeInBytes = policy.getMaxResponseSizeInBytes();
+    return new ResponseTooLargeException(maxResponseSizeInBytes,
+        "Response body is larger than the maximum response size " + maxResponseSizeInBytes);
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    do {
+      if (!done) {
+        drainOnce();
+      } else {
+        // Anything that arrived after we finished is of no use to anyone
+        clearQueue();
+        if (draining) {
+          requestDrain();
+        }
+      }
+    } while (wip.decrementAndGet() != 0);
+  }
+
+  private void drainOnce() {
+    final Flow.Subscriber<? super ByteBuffer> subscriber = downstream;
+
+    if (cancelled) {
+      done = true;
+      clearQueue();
+      closeSpill();
+      if (!upstreamDone) {
+        // An unknown length counts as short, but we'll give up if it turns out not to be.
+        final long threshold = policy.getResponseDrainThresholdInBytes();
+        final long remaining = contentLength >= 0L ? contentLength - received : -1L;
+        if (threshold > 0L && remaining <= threshold) {
+          draining = true;
+          requestDrain();
+        } else {
+          upstreamDone = true;
+          Subscription s = upstream;
+          if (s != null) {
+            s.cancel();
+          }
+          policy.getDrainCounters().aborted(0L);
+          body.complete(null);
+        }
+      }
+      return;
+    }
+
+    if (error != null) {
+      // Errors jump the queue. Whatever is still buffered is useless now.
+      clearQueue();
+      if (subscriber != null) {
+        done = true;
+        closeSpill();
+        subscriber.onError(error);
+      }
+      return;
+    }
+
+    if (subscriber != null) {
+      while (demand.get() > 0L) {
+        ByteBuffer buffer;
+        try {
+          buffer = poll();
+        } catch (IOException e) {
+          abort(e);
+          return;
+        }
+        if (buffer == null) {
+          break;
+        }
+        demand.decrementAndGet();
+        subscriber.onNext(buffer);
+        if (cancelled || error != null) {
+          return;
+        }
+      }
+
+      // Check upstreamDone first, so we don't miss any bytes that arrive in between
+      if (upstreamDone && queue.isEmpty() && !hasUnreadSpill()) {
+        done = true;
+        closeSpill();
+        subscriber.onComplete();
+        return;
+      }
+    }
+
+    requestUpstream();
+  }
+
+  /**
+   * Asks upstream for the next batch, if we have room for it
+   */
+  private void requestUpstream() {
+    final Subscription s = upstream;
+    if (s == null || upstreamDone || upstreamRequested) {
+      return;
+    }
+    if (spill != null) {
+      // Whatever doesn't fit in memory goes to disk, so there's no reason to hold back.
+      upstreamRequested = true;
+      s.request(1L);
+      return;
+    }
+    final long queued = buffered.get();
+    if (queued >= READ_AHEAD_IN_BYTES) {
+      return;
+    }
+    if (queued > 0L && !policy.getBudget().hasRoom()) {
+      if (awaitingBudget.compareAndSet(false, true)) {
+        policy.getBudget().awaitRoom(() -> {
+          awaitingBudget.set(false);
+          drain();
+        });
+      }
+      return;
+    }
+    upstreamRequested = true;
+    s.request(1L);
+  }
+
+  /**
+   * Asks upstream for the next batch to discard
+   */
+  private void requestDrain() {
+    final Subscription s = upstream;
+    if (s == null || upstreamDone || upstreamRequested) {
+      return;
+    }
+    upstreamRequested = true;
+    s.request(1L);
+  }
+
+  /**
+   * Gives up on draining the body, and closes the connection instead
+   */
+  private void abortDrain() {
+    upstreamDone = true;
+    Subscription s = upstream;
+    if (s != null) {
+      s.cancel();
+    }
+    policy.getDrainCounters().aborted(drainedBytes);
+    body.complete(null);
+  }
+
+  /**
+   * @return the next buffer of the body, from memory or else from disk, or null if there is none
+   *     available right now
+   */
+  private ByteBuffer poll() throws IOException {
+    // Read the write position before looking in memory. Anything in memory was queued before
+    // anything was spilled, so this way we never read spilled bytes ahead of in-memory ones.
+    final long writePosition = spill != null ? spill.writePosition() : 0L;
+    final ByteBuffer buffer = queue.poll();
+    if (buffer != null) {
+      release(buffer.remaining());
+      return buffer;
+    }
+    if (spill != null && spill.hasUnread(writePosition)) {
+      return spill.read(writePosition);
+    }
+    return null;
+  }
+
+  private boolean hasUnreadSpill() {
+    return spill != null && spill.hasUnread(spill.writePosition());
+  }
+
+  private void closeSpill() {
+    if (spill != null) {
+      spill.close();
+    }
+  }
+
+  private void release(long n) {
+    buffered.addAndGet(-n);
+    policy.getBudget().release(n);
+  }
+
+  private void clearQueue() {
+    for (ByteBuffer buffer = queue.poll(); buffer != null; buffer = queue.poll()) {
+      release(buffer.remaining());
+    }
   }
 }
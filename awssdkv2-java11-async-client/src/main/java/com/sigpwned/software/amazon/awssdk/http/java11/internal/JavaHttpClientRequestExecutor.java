@@ -2,19 +2,31 @@ package com.sigpwned.software.amazon.awssdk.http.java11.internal;
 
 import static java.util.Objects.requireNonNull;
 
+import com.sigpwned.software.amazon.awssdk.http.java11.ExchangeListener;
 import com.sigpwned.software.amazon.awssdk.http.java11.Java11AsyncHttpClient;
+import com.sigpwned.software.amazon.awssdk.http.java11.ProtocolRoutingTable;
 import com.sigpwned.software.amazon.awssdk.http.java11.util.MoreHttpHeaders;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.Proxy;
+import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
 import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandler;
 import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import software.amazon.awssdk.annotations.SdkProtectedApi;
+import software.amazon.awssdk.http.Protocol;
+import software.amazon.awssdk.http.SdkHttpRequest;
 import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
 
 /**
  * Internal implementation of request execution. The {@link Java11AsyncHttpClient} will
@@ -24,13 +36,71 @@ import software.amazon.awssdk.http.async.AsyncExecuteRequest;
 @SdkProtectedApi
 public class JavaHttpClientRequestExecutor {
 
+  /**
+   * Whether this runtime has Flight Recorder. A runtime built with jlink may leave it out, and then
+   * {@link ExchangeEvents} cannot even be initialized, so we must never touch it.
+   */
+  private static final boolean FLIGHT_RECORDER_AVAILABLE =
+      ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
   private final HttpClient javaClient;
 
-  private final Duration responseTimeout;
+  private final JavaHttpClientRequestMapper requestMapper;
+
+  /**
+   * The protocols each endpoint has negotiated so far, if the client is negotiating protocols per
+   * endpoint, or null otherwise.
+   */
+  private final NegotiatedProtocolCache negotiatedProtocols;
+
+  /**
+   * Per-request protocol overrides, or null if there are none.
+   */
+  private final ProtocolRoutingTable protocolRoutingTable;
+
+  private final ResponseBodyPolicy responseBodyPolicy;
+
+  /**
+   * The client's proxy selector, which tracks proxy health, or null if not proxying.
+   */
+  private final FailoverProxySelector proxySelector;
+
+  /**
+   * The client's request hedger, or null if not hedging.
+   */
+  private final RequestHedger hedger;
+
+  /**
+   * The client's latency histograms, or null if not recording latencies.
+   */
+  private final LatencyRecorder latencyRecorder;
+
+  /**
+   * Creates a listener for each exchange, or null if there are none.
+   */
+  private final ExchangeListener.Factory listenerFactory;
+
+  /**
+   * Keeps track of the client's exchanges in flight, or null if they are not tracked.
+   */
+  private final InFlightRegistry inFlightRegistry;
 
   public JavaHttpClientRequestExecutor(HttpClient javaClient, Duration responseTimeout) {
-    this.javaClient = requireNonNull(javaClient);
-    this.responseTimeout = responseTimeout;
+    this(new DefaultBuilder(javaClient, new JavaHttpClientRequestMapper(responseTimeout)));
+  }
+
+  private JavaHttpClientRequestExecutor(DefaultBuilder builder) {
+    this.javaClient = requireNonNull(builder.javaClient);
+    this.requestMapper = requireNonNull(builder.requestMapper);
+    this.negotiatedProtocols = builder.negotiatedProtocols;
+    this.protocolRoutingTable = builder.protocolRoutingTable;
+    this.responseBodyPolicy = builder.responseBodyPolicy != null ? builder.responseBodyPolicy
+        : ResponseBodyPolicy.defaults();
+    this.proxySelector = builder.proxySelector;
+    this.hedger = builder.hedger;
+    this.latencyRecorder = builder.latencyRecorder;
+    this.listenerFactory = builder.listenerFactory;
+    this.inFlightRegistry = builder.inFlightRegistry;
   }
 
   public CompletableFuture<HttpResponse<Void>> execute(AsyncExecuteRequest sdkRequest) {
@@ -54,20 +124,370 @@ public class JavaHttpClientRequestExecutor {
           }
         });
 
-    HttpRequest javaRequest = new JavaHttpClientRequestMapper(
-        getResponseTimeout()).toJavaHttpClientRequest(sdkRequest);
+    final URI uri = sdkRequest.request().getUri();
+
+    final Protocol route = route(sdkRequest.request());
+    final HttpClient.Version version = route != null ? toVersion(route) : negotiatedVersion(uri);
+
+    final ExchangeListener listener =
+        listenerFactory != null ? listenerFactory.newListener(sdkRequest.request()) : null;
+    final ListeningExchange listening = listener != null ? new ListeningExchange(listener) : null;
+    if (listening != null) {
+      listening.started();
+    }
+
+    final InFlightRegistry.Exchange inFlight = inFlightRegistry != null
+        ? inFlightRegistry.register(sdkRequest.request().method().name(), uri.getHost(),
+        sdkRequest.request().encodedPath()) : null;
+    try {
+      return send(sdkRequest, uri, version, route != null, listening, inFlight);
+    } catch (RuntimeException e) {
+      // Nothing else will hear of a failure to even start sending, e.g., an invalid header
+      if (inFlight != null) {
+        inFlight.finish();
+      }
+      if (listening != null) {
+        listening.failed(e);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Sends the request, reporting to the given listener and registry entry, if any. If this throws,
+   * then the caller must fail the listener and remove the exchange from the registry, since nothing
+   * else will.
+   */
+  private CompletableFuture<HttpResponse<Void>> send(AsyncExecuteRequest sdkRequest, URI uri,
+      HttpClient.Version version, boolean routed, ListeningExchange listening,
+      InFlightRegistry.Exchange inFlight) {
+    final LatencyRecorder.Exchange latencies =
+        latencyRecorder != null ? latencyRecorder.start(uri) : null;
+
+    final ExchangeEvents events = FLIGHT_RECORDER_AVAILABLE && ExchangeEvents.isEnabled()
+        ? ExchangeEvents.start(uri.getHost(), sdkRequest.request().method().name(),
+        requestBytes(sdkRequest)) : null;
 
     BodyHandler<Void> javaResponseHandler = new JavaHttpClientResponseAdapter(
-        sdkRequest.responseHandler());
+        sdkRequest.responseHandler(), sdkRequest.request().method(), responseBodyPolicy,
+        getRequestMapper().isAskingForEncodedResponse(sdkRequest.request()), latencies, events,
+        listening, inFlight);
+
+    CompletableFuture<HttpRequest> mapped;
+    if (listening != null) {
+      mapped = getRequestMapper().toJavaHttpClientRequestAsync(sdkRequest, version,
+          listening::wrapRequestBody).thenApply(listening::mapped);
+    } else {
+      mapped = getRequestMapper().toJavaHttpClientRequestAsync(sdkRequest, version);
+    }
+
+    CompletableFuture<HttpResponse<Void>> result;
+    if (isHedged(sdkRequest)) {
+      final long drainThresholdInBytes = responseBodyPolicy.getResponseDrainThresholdInBytes();
+      result = mapped.thenCompose(javaRequest -> new HedgedExchange(this::sendAsync, javaRequest,
+          javaResponseHandler, hedger, drainThresholdInBytes).send());
+    } else {
+      result = mapped.thenCompose(javaRequest -> sendAsync(javaRequest, javaResponseHandler));
+    }
+
+    if (inFlight != null) {
+      result = result.whenComplete((response, e) -> {
+        if (e != null) {
+          inFlight.finish();
+        }
+      });
+    }
+
+    if (listening != null) {
+      result = result.whenComplete((response, e) -> {
+        if (e != null) {
+          listening.failed(unwrap(e));
+        }
+      });
+    }
+
+    if (latencies != null) {
+      result = result.whenComplete((response, e) -> {
+        if (e != null) {
+          latencies.failed();
+        }
+      });
+    }
+
+    if (events != null) {
+      result = result.whenComplete((response, e) -> {
+        if (unwrap(e) instanceof HttpTimeoutException) {
+          events.timedOut();
+        }
+      });
+    }
+
+    // A routed request's version says what the route asked for, not what the endpoint speaks
+    if (negotiatedProtocols != null && !routed) {
+      result = result.whenComplete((response, e) -> {
+        if (response != null) {
+          negotiatedProtocols.put(uri, response.version());
+        }
+      });
+    }
+
+    return result;
+  }
+
+  /**
+   * Sends one attempt at the given request. The HTTP client never tells the proxy selector how a
+   * proxy did, so we do. The client selects the proxy on this thread as it sends, so we ask the
+   * selector which proxy it chose right after, rather than guessing beforehand.
+   */
+  private CompletableFuture<HttpResponse<Void>> sendAsync(HttpRequest javaRequest,
+      BodyHandler<Void> responseHandler) {
+    if (proxySelector == null) {
+      return getJavaClient().sendAsync(javaRequest, responseHandler);
+    }
+
+    // Forget any selection the client made on this thread without us asking
+    proxySelector.takeSelected();
+    final CompletableFuture<HttpResponse<Void>> result = getJavaClient().sendAsync(javaRequest,
+        responseHandler);
+    final Proxy proxy = proxySelector.takeSelected();
+    if (proxy != null) {
+      // Return the client's own future rather than a dependent one, so that when a hedged exchange
+      // cancels this attempt, the client aborts it
+      result.whenComplete((response, e) -> {
+        if (response != null) {
+          proxySelector.connectSucceeded(proxy);
+        } else if (isConnectFailure(e)) {
+          proxySelector.connectFailed(javaRequest.uri(), proxy.address(), (IOException) unwrap(e));
+        }
+      });
+    }
+    return result;
+  }
+
+  /**
+   * @return the length of the request body, or -1 if unknown
+   */
+  private static long requestBytes(AsyncExecuteRequest sdkRequest) {
+    if (!sdkRequest.fullDuplex()) {
+      return 0L;
+    }
+    return Optional.ofNullable(sdkRequest.requestContentPublisher())
+        .flatMap(SdkHttpContentPublisher::contentLength).orElse(-1L);
+  }
+
+  /**
+   * A request may only be hedged if it is idempotent, and if it can be sent twice.
+   */
+  private boolean isHedged(AsyncExecuteRequest sdkRequest) {
+    return hedger != null && hedger.isHedgeable(sdkRequest.request())
+        && getRequestMapper().isReplayable(sdkRequest);
+  }
+
+  /**
+   * Connection failures, whether refused or timed out, mean we never reached the proxy. Anything
+   * else happened after we did.
+   */
+  private static boolean isConnectFailure(Throwable e) {
+    Throwable cause = unwrap(e);
+    return cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException;
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    Throwable result = e;
+    while (result instanceof CompletionException && result.getCause() != null) {
+      result = result.getCause();
+    }
+    return result;
+  }
 
-    return getJavaClient().sendAsync(javaRequest, javaResponseHandler);
+  /**
+   * @return the protocol an explicit route chooses for the given request, or null if no route
+   *     applies
+   */
+  private Protocol route(SdkHttpRequest request) {
+    return protocolRoutingTable != null ? protocolRoutingTable.route(request).orElse(null) : null;
+  }
+
+  /**
+   * If we already know which protocol the given endpoint speaks, then ask for it directly.
+   *
+   * @return the version to use, or null to use the client's version
+   */
+  private HttpClient.Version negotiatedVersion(URI uri) {
+    return negotiatedProtocols != null ? negotiatedProtocols.get(uri) : null;
+  }
+
+  private static HttpClient.Version toVersion(Protocol protocol) {
+    switch (protocol) {
+      case HTTP1_1:
+        return HttpClient.Version.HTTP_1_1;
+      case HTTP2:
+        return HttpClient.Version.HTTP_2;
+      default:
+        throw new IllegalArgumentException("Unrecognized protocol: " + protocol);
+    }
   }
 
   private HttpClient getJavaClient() {
     return javaClient;
   }
 
+  private JavaHttpClientRequestMapper getRequestMapper() {
+    return requestMapper;
+  }
+
   public Duration getResponseTimeout() {
-    return responseTimeout;
+    return getRequestMapper().getResponseTimeout();
+  }
+
+  /**
+   * Create a {@link Builder}, used to create a {@link JavaHttpClientRequestExecutor}. The Java client
+   * and request mapper are required. Everything else is optional, and leaving it out turns the
+   * feature it supports off.
+   */
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  /**
+   * A builder for {@link JavaHttpClientRequestExecutor}.
+   *
+   * <p>All implementations of this interface are mutable and not thread safe.</p>
+   */
+  public interface Builder {
+
+    Builder javaClient(HttpClient javaClient);
+
+    Builder requestMapper(JavaHttpClientRequestMapper requestMapper);
+
+    /**
+     * Sets the protocols each endpoint has negotiated so far, if the client is negotiating
+     * protocols per endpoint.
+     */
+    Builder negotiatedProtocols(NegotiatedProtocolCache negotiatedProtocols);
+
+    /**
+     * Sets the per-request protocol overrides.
+     */
+    Builder protocolRoutingTable(ProtocolRoutingTable protocolRoutingTable);
+
+    /**
+     * Sets how to handle response bodies. The default is {@link ResponseBodyPolicy#defaults()}.
+     */
+    Builder responseBodyPolicy(ResponseBodyPolicy responseBodyPolicy);
+
+    /**
+     * Sets the client's proxy selector, which tracks proxy health.
+     */
+    Builder proxySelector(FailoverProxySelector proxySelector);
+
+    /**
+     * Sets the client's request hedger.
+     */
+    Builder hedger(RequestHedger hedger);
+
+    /**
+     * Sets the client's latency histograms.
+     */
+    Builder latencyRecorder(LatencyRecorder latencyRecorder);
+
+    /**
+     * Sets the factory that creates a listener for each exchange.
+     */
+    Builder listenerFactory(ExchangeListener.Factory listenerFactory);
+
+    /**
+     * Sets the registry that keeps track of the client's exchanges in flight.
+     */
+    Builder inFlightRegistry(InFlightRegistry inFlightRegistry);
+
+    JavaHttpClientRequestExecutor build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private HttpClient javaClient;
+    private JavaHttpClientRequestMapper requestMapper;
+    private NegotiatedProtocolCache negotiatedProtocols;
+    private ProtocolRoutingTable protocolRoutingTable;
+    private ResponseBodyPolicy responseBodyPolicy;
+    private FailoverProxySelector proxySelector;
+    private RequestHedger hedger;
+    private LatencyRecorder latencyRecorder;
+    private ExchangeListener.Factory listenerFactory;
+    private InFlightRegistry inFlightRegistry;
+
+    private DefaultBuilder() {
+    }
+
+    private DefaultBuilder(HttpClient javaClient, JavaHttpClientRequestMapper requestMapper) {
+      this.javaClient = javaClient;
+      this.requestMapper = requestMapper;
+    }
+
+    @Override
+    public Builder javaClient(HttpClient javaClient) {
+      this.javaClient = javaClient;
+      return this;
+    }
+
+    @Override
+    public Builder requestMapper(JavaHttpClientRequestMapper requestMapper) {
+      this.requestMapper = requestMapper;
+      return this;
+    }
+
+    @Override
+    public Builder negotiatedProtocols(NegotiatedProtocolCache negotiatedProtocols) {
+      this.negotiatedProtocols = negotiatedProtocols;
+      return this;
+    }
+
+    @Override
+    public Builder protocolRoutingTable(ProtocolRoutingTable protocolRoutingTable) {
+      this.protocolRoutingTable = protocolRoutingTable;
+      return this;
+    }
+
+    @Override
+    public Builder responseBodyPolicy(ResponseBodyPolicy responseBodyPolicy) {
+      this.responseBodyPolicy = responseBodyPolicy;
+      return this;
+    }
+
+    @Override
+    public Builder proxySelector(FailoverProxySelector proxySelector) {
+      this.proxySelector = proxySelector;
+      return this;
+    }
+
+    @Override
+    public Builder hedger(RequestHedger hedger) {
+      this.hedger = hedger;
+      return this;
+    }
+
+    @Override
+    public Builder latencyRecorder(LatencyRecorder latencyRecorder) {
+      this.latencyRecorder = latencyRecorder;
+      return this;
+    }
+
+    @Override
+    public Builder listenerFactory(ExchangeListener.Factory listenerFactory) {
+      this.listenerFactory = listenerFactory;
+      return this;
+    }
+
+    @Override
+    public Builder inFlightRegistry(InFlightRegistry inFlightRegistry) {
+      this.inFlightRegistry = inFlightRegistry;
+      return this;
+    }
+
+    @Override
+    public JavaHttpClientRequestExecutor build() {
+      return new JavaHttpClientRequestExecutor(this);
+    }
   }
 }
@@ -2,6 +2,9 @@ package com.sigpwned.software.amazon.awssdk.http.java11.internal;
 
 import static java.util.Objects.requireNonNull;
 
+import com.sigpwned.software.amazon.awssdk.http.java11.FileContentPublisher;
+import com.sigpwned.software.amazon.awssdk.http.java11.RequestCompression;
+import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpRequest.BodyPublisher;
 import java.net.http.HttpRequest.BodyPublishers;
@@ -9,8 +12,9 @@ import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Flow;
-import org.reactivestreams.FlowAdapters;
+import java.util.function.UnaryOperator;
 import software.amazon.awssdk.annotations.SdkInternalApi;
 import software.amazon.awssdk.http.SdkHttpMethod;
 import software.amazon.awssdk.http.SdkHttpRequest;
@@ -18,15 +22,76 @@ import software.amazon.awssdk.http.async.AsyncExecuteRequest;
 import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
 
 /**
- * Maps an SDK request to a Java 11 HttpRequest.
+ * Maps an SDK request to a Java 11 HttpRequest. Instances are immutable, so one mapper may be
+ * shared by all requests of a client.
  */
 @SdkInternalApi
-final class JavaHttpClientRequestMapper {
+public final class JavaHttpClientRequestMapper {
+
+  public static final int DEFAULT_REQUEST_BODY_PREFETCH = 8;
+
+  public static final int DEFAULT_REQUEST_BODY_COALESCE_SIZE_IN_BYTES = 32 * 1024;
+
+  public static final int DEFAULT_SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES = 16 * 1024;
+
+  /**
+   * The encodings we can decode, in order of preference
+   */
+  private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+  /**
+   * The most idle deflaters to keep for compressing request bodies
+   */
+  private static final int DEFLATER_POOL_SIZE = 32;
 
   private final Duration responseTimeout;
 
+  private final long expectContinueThresholdInBytes;
+
+  private final int requestBodyPrefetch;
+
+  private final int requestBodyCoalesceSizeInBytes;
+
+  private final int smallRequestBodyThresholdInBytes;
+
+  private final boolean decompressResponses;
+
+  private final RequestCompression requestCompression;
+
+  private final DeflaterPool deflaterPool;
+
   public JavaHttpClientRequestMapper(Duration responseTimeout) {
+    this(responseTimeout, 0L, DEFAULT_REQUEST_BODY_PREFETCH,
+        DEFAULT_REQUEST_BODY_COALESCE_SIZE_IN_BYTES, DEFAULT_SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES,
+        false, null);
+  }
+
+  /**
+   * @param expectContinueThresholdInBytes   honor {@code Expect: 100-continue} only for request
+   *                                         bodies at least this long, or of unknown length
+   * @param requestBodyPrefetch              how many request body buffers to request ahead
+   * @param requestBodyCoalesceSizeInBytes   the size to coalesce small request body buffers into
+   * @param smallRequestBodyThresholdInBytes read request bodies of known length up to this size
+   *                                         into memory before sending, or 0 never to
+   * @param decompressResponses              if true, then ask for compressed responses on requests
+   *                                         that don't express a preference already, since we can
+   *                                         decode them
+   * @param requestCompression               which request bodies to gzip, or null to send all
+   *                                         bodies as-is
+   */
+  public JavaHttpClientRequestMapper(Duration responseTimeout,
+      long expectContinueThresholdInBytes, int requestBodyPrefetch,
+      int requestBodyCoalesceSizeInBytes, int smallRequestBodyThresholdInBytes,
+      boolean decompressResponses, RequestCompression requestCompression) {
     this.responseTimeout = requireNonNull(responseTimeout);
+    this.expectContinueThresholdInBytes = expectContinueThresholdInBytes;
+    this.requestBodyPrefetch = requestBodyPrefetch;
+    this.requestBodyCoalesceSizeInBytes = requestBodyCoalesceSizeInBytes;
+    this.smallRequestBodyThresholdInBytes = smallRequestBodyThresholdInBytes;
+    this.decompressResponses = decompressResponses;
+    this.requestCompression = requestCompression;
+    this.deflaterPool = requestCompression != null ? new DeflaterPool(requestCompression.level(),
+        DEFLATER_POOL_SIZE) : null;
   }
 
 
@@ -37,13 +102,122 @@ final class JavaHttpClientRequestMapper {
    * @return HttpRequest object
    */
   public HttpRequest toJavaHttpClientRequest(AsyncExecuteRequest sdkExecuteRequest) {
+    return toJavaHttpClientRequest(sdkExecuteRequest, null);
+  }
+
+  /**
+   * Creates the Java 11 HttpRequest with HttpRequest.Builder according to the configurations in the
+   * AsyncExecuteRequest, using the given HTTP version for this request only.
+   *
+   * @param version the HTTP version to use, or null to use the client's version
+   * @return HttpRequest object
+   */
+  public HttpRequest toJavaHttpClientRequest(AsyncExecuteRequest sdkExecuteRequest,
+      HttpClient.Version version) {
+    return toJavaHttpClientRequest(sdkExecuteRequest, version, null);
+  }
+
+  private HttpRequest toJavaHttpClientRequest(AsyncExecuteRequest sdkExecuteRequest,
+      HttpClient.Version version, UnaryOperator<BodyPublisher> bodyDecorator) {
+    final boolean compressed = isCompressed(sdkExecuteRequest);
+    return toJavaHttpClientRequest(sdkExecuteRequest, version,
+        bodyPublisher(sdkExecuteRequest, compressed), compressed, bodyDecorator);
+  }
+
+  /**
+   * Creates the Java 11 HttpRequest like {@link #toJavaHttpClientRequest(AsyncExecuteRequest,
+   * HttpClient.Version)}, except that small bodies of known length are read into memory first and
+   * sent as a single array, which skips the reactive plumbing entirely. If the SDK has already
+   * materialized the body, then its array is used directly and the result is available immediately.
+   *
+   * @param version the HTTP version to use, or null to use the client's version
+   * @return a future HttpRequest object
+   */
+  public CompletableFuture<HttpRequest> toJavaHttpClientRequestAsync(
+      AsyncExecuteRequest sdkExecuteRequest, HttpClient.Version version) {
+    return toJavaHttpClientRequestAsync(sdkExecuteRequest, version, null);
+  }
+
+  /**
+   * Creates the Java 11 HttpRequest like {@link #toJavaHttpClientRequestAsync(AsyncExecuteRequest,
+   * HttpClient.Version)}, with its body publisher wrapped by the given decorator, if any.
+   *
+   * @param version       the HTTP version to use, or null to use the client's version
+   * @param bodyDecorator wraps the request body publisher, or null to leave it as is
+   * @return a future HttpRequest object
+   */
+  public CompletableFuture<HttpRequest> toJavaHttpClientRequestAsync(
+      AsyncExecuteRequest sdkExecuteRequest, HttpClient.Version version,
+      UnaryOperator<BodyPublisher> bodyDecorator) {
+    final SdkHttpContentPublisher sdkHttpContentPublisher = sdkExecuteRequest.requestContentPublisher();
+    final long contentLength = Optional.ofNullable(sdkHttpContentPublisher)
+        .flatMap(SdkHttpContentPublisher::contentLength).orElse(-1L);
+    if (!sdkExecuteRequest.fullDuplex() || contentLength <= 0L
+        || contentLength > getSmallRequestBodyThresholdInBytes()) {
+      return CompletableFuture.completedFuture(
+          toJavaHttpClientRequest(sdkExecuteRequest, version, bodyDecorator));
+    }
+
+    // Small bodies are compressed all at once, so they keep a known length
+    final boolean compressed = isCompressed(sdkExecuteRequest);
+
+    final byte[] materialized = SmallBodies.materializedBytes(sdkHttpContentPublisher)
+        .orElse(null);
+    if (materialized != null) {
+      return CompletableFuture.completedFuture(toJavaHttpClientRequest(sdkExecuteRequest, version,
+          BodyPublishers.ofByteArray(compressed ? gzip(materialized) : materialized),
+          compressed, bodyDecorator));
+    }
+
+    return SmallBodies.drain(sdkHttpContentPublisher, (int) contentLength).thenApply(
+        content -> toJavaHttpClientRequest(sdkExecuteRequest, version,
+            BodyPublishers.ofByteArray(compressed ? gzip(content) : content), compressed,
+            bodyDecorator));
+  }
+
+  /**
+   * Whether the request {@link #toJavaHttpClientRequestAsync(AsyncExecuteRequest,
+   * HttpClient.Version)} creates for the given SDK request can be sent more than once. That is true
+   * if it has no body, or if its body is small enough to be held in memory.
+   */
+  public boolean isReplayable(AsyncExecuteRequest sdkExecuteRequest) {
+    if (!sdkExecuteRequest.fullDuplex()) {
+      return true;
+    }
+    final long contentLength = Optional.ofNullable(sdkExecuteRequest.requestContentPublisher())
+        .flatMap(SdkHttpContentPublisher::contentLength).orElse(-1L);
+    return contentLength >= 0L && contentLength <= getSmallRequestBodyThresholdInBytes();
+  }
+
+  /**
+   * Whether the request {@link #toJavaHttpClientRequestAsync(AsyncExecuteRequest,
+   * HttpClient.Version)} creates for the given SDK request asks for a compressed response on the
+   * caller's behalf. Only such responses may be decoded before the SDK sees them. If the caller
+   * set its own {@code Accept-Encoding}, then the SDK must see the bytes exactly as sent, even if
+   * they are encoded, like an S3 object stored with a {@code Content-Encoding}.
+   */
+  public boolean isAskingForEncodedResponse(SdkHttpRequest sdkRequest) {
+    return isDecompressResponses() && sdkRequest.firstMatchingHeader("Accept-Encoding").isEmpty();
+  }
+
+  private HttpRequest toJavaHttpClientRequest(AsyncExecuteRequest sdkExecuteRequest,
+      HttpClient.Version version, BodyPublisher body, boolean compressed,
+      UnaryOperator<BodyPublisher> bodyDecorator) {
     final SdkHttpRequest sdkRequest = sdkExecuteRequest.request();
 
+    final BodyPublisher httpEntity = bodyDecorator != null ? bodyDecorator.apply(body) : body;
+
     final String httpMethod = requestMethod(sdkRequest.method());
-    final BodyPublisher httpEntity = bodyPublisher(sdkExecuteRequest);
 
     final HttpRequest.Builder httpRequestBuilder = HttpRequest.newBuilder().uri(sdkRequest.getUri())
         .method(httpMethod, httpEntity).timeout(getResponseTimeout());
+    if (version != null) {
+      httpRequestBuilder.version(version);
+    }
+    if (isExpectContinue(sdkRequest, httpEntity)) {
+      // The Expect header is restricted, so we have to ask the client to handle it for us.
+      httpRequestBuilder.expectContinue(true);
+    }
 
     // Set all non-restricted headers
     sdkRequest.headers().entrySet().stream()
@@ -51,6 +225,14 @@ final class JavaHttpClientRequestMapper {
         .filter(e -> !isRestrictedHeader(e.getKey()))
         .forEach(e -> httpRequestBuilder.header(e.getKey(), e.getValue()));
 
+    if (compressed) {
+      httpRequestBuilder.header("Content-Encoding", "gzip");
+    }
+
+    if (isAskingForEncodedResponse(sdkRequest)) {
+      httpRequestBuilder.header("Accept-Encoding", ACCEPT_ENCODING);
+    }
+
     return httpRequestBuilder.build();
   }
 
@@ -58,7 +240,8 @@ final class JavaHttpClientRequestMapper {
     return sdkhttpmethod.name();
   }
 
-  private static HttpRequest.BodyPublisher bodyPublisher(AsyncExecuteRequest sdkExecuteRequest) {
+  private HttpRequest.BodyPublisher bodyPublisher(AsyncExecuteRequest sdkExecuteRequest,
+      boolean compressed) {
     final SdkHttpContentPublisher sdkHttpContentPublisher = sdkExecuteRequest.requestContentPublisher();
     final Optional<Long> maybeContentLength = Optional.ofNullable(sdkHttpContentPublisher)
         .flatMap(SdkHttpContentPublisher::contentLength);
@@ -67,8 +250,27 @@ final class JavaHttpClientRequestMapper {
       return BodyPublishers.noBody();
     }
 
-    final Flow.Publisher<ByteBuffer> flowPublisher = FlowAdapters.toFlowPublisher(
-        sdkHttpContentPublisher);
+    // If the body is a local file, then send it straight from the file.
+    final FileContentPublisher fileRegion = FileBodies.fileRegion(sdkHttpContentPublisher)
+        .orElse(null);
+    if (fileRegion != null) {
+      final FileRegionPublisher filePublisher = new FileRegionPublisher(fileRegion.path(),
+          fileRegion.position(), fileRegion.length());
+      if (compressed) {
+        return BodyPublishers.fromPublisher(
+            new CompressingBodyPublisher(filePublisher, deflaterPool));
+      }
+      return BodyPublishers.fromPublisher(filePublisher, fileRegion.length());
+    }
+
+    final Flow.Publisher<ByteBuffer> flowPublisher = new CoalescingBodyPublisher(
+        sdkHttpContentPublisher, getRequestBodyPrefetch(), getRequestBodyCoalesceSizeInBytes());
+
+    if (compressed) {
+      // We won't know how long the compressed body is until we're done, so send it chunked
+      return BodyPublishers.fromPublisher(
+          new CompressingBodyPublisher(flowPublisher, deflaterPool));
+    }
 
     if (maybeContentLength.isPresent()) {
       // TODO Address the issue of actual content is longer than the content length
@@ -79,6 +281,59 @@ final class JavaHttpClientRequestMapper {
     }
   }
 
+  /**
+   * Determines whether to gzip the request body. We never compress requests signed with SigV4,
+   * since the signature covers the body and its length, and never encode a body twice.
+   */
+  private boolean isCompressed(AsyncExecuteRequest sdkExecuteRequest) {
+    if (requestCompression == null || !sdkExecuteRequest.fullDuplex()) {
+      return false;
+    }
+    final SdkHttpRequest sdkRequest = sdkExecuteRequest.request();
+    final long contentLength = Optional.ofNullable(sdkExecuteRequest.requestContentPublisher())
+        .flatMap(SdkHttpContentPublisher::contentLength).orElse(-1L);
+    if (contentLength == 0L
+        || (contentLength > 0L && contentLength < requestCompression.minimumSizeInBytes())) {
+      return false;
+    }
+    if (sdkRequest.firstMatchingHeader("Content-Encoding").isPresent()) {
+      return false;
+    }
+    if (isSigV4Signed(sdkRequest)) {
+      return false;
+    }
+    return requestCompression.matches(sdkRequest);
+  }
+
+  private static boolean isSigV4Signed(SdkHttpRequest sdkRequest) {
+    boolean signedHeader = sdkRequest.firstMatchingHeader("Authorization")
+        .filter(v -> v.startsWith("AWS4-")).isPresent();
+    return signedHeader || sdkRequest.firstMatchingRawQueryParameter("X-Amz-Signature")
+        .isPresent();
+  }
+
+  private byte[] gzip(byte[] content) {
+    return GzipEncoder.encode(content, deflaterPool);
+  }
+
+  /**
+   * Determines whether to wait for the server to accept the request before sending its body. We
+   * only bother when the SDK asked for it, and the body is big enough to be worth the round trip.
+   * Bodies of unknown length might be arbitrarily large, so those always qualify.
+   */
+  private boolean isExpectContinue(SdkHttpRequest sdkRequest, BodyPublisher httpEntity) {
+    boolean requested = sdkRequest.firstMatchingHeader("Expect")
+        .filter(v -> v.trim().equalsIgnoreCase("100-continue")).isPresent();
+    if (!requested) {
+      return false;
+    }
+    long contentLength = httpEntity.contentLength();
+    if (contentLength == 0L) {
+      return false;
+    }
+    return contentLength < 0L || contentLength >= getExpectContinueThresholdInBytes();
+  }
+
   /**
    * In Jdk 11, these headers filtered below are restricted and not allowed to be customized
    */
@@ -88,7 +343,27 @@ final class JavaHttpClientRequestMapper {
         || headerName.equalsIgnoreCase("Expect");
   }
 
-  private Duration getResponseTimeout() {
+  public Duration getResponseTimeout() {
     return responseTimeout;
   }
+
+  private long getExpectContinueThresholdInBytes() {
+    return expectContinueThresholdInBytes;
+  }
+
+  private int getRequestBodyPrefetch() {
+    return requestBodyPrefetch;
+  }
+
+  private int getRequestBodyCoalesceSizeInBytes() {
+    return requestBodyCoalesceSizeInBytes;
+  }
+
+  private int getSmallRequestBodyThresholdInBytes() {
+    return smallRequestBodyThresholdInBytes;
+  }
+
+  private boolean isDecompressResponses() {
+    return decompressResponses;
+  }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.sigpwned.software.amazon.awssdk.http.java11.internal;
 
 import static java.util.Objects.requireNonNull;
 
+import com.sigpwned.software.amazon.awssdk.http.java11.FileResponseHandler;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandler;
 import java.net.http.HttpResponse.BodySubscriber;
@@ -9,6 +10,7 @@ import java.net.http.HttpResponse.ResponseInfo;
 import org.reactivestreams.FlowAdapters;
 import software.amazon.awssdk.annotations.SdkInternalApi;
 import software.amazon.awssdk.http.SdkHttpFullResponse;
+import software.amazon.awssdk.http.SdkHttpMethod;
 import software.amazon.awssdk.http.SdkHttpResponse;
 import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
 
@@ -20,28 +22,165 @@ final class JavaHttpClientResponseAdapter implements BodyHandler<Void> {
 
   private final SdkAsyncHttpResponseHandler responseHandler;
 
+  /**
+   * The method of the request, or null if unknown
+   */
+  private final SdkHttpMethod requestMethod;
+
+  private final ResponseBodyPolicy policy;
+
+  /**
+   * Whether the client asked for an encoded response on the caller's behalf, and so must decode it
+   */
+  private final boolean decodeResponse;
+
+  /**
+   * Times this exchange, or null if the client is not recording latencies
+   */
+  private final LatencyRecorder.Exchange latencies;
+
+  /**
+   * Flight Recorder events for this exchange, or null if none are enabled
+   */
+  private final ExchangeEvents events;
+
+  /**
+   * Tells this exchange's listener about it, or null if it has no listener
+   */
+  private final ListeningExchange listening;
+
+  /**
+   * Keeps this exchange in the client's registry of exchanges in flight, or null if there is none
+   */
+  private final InFlightRegistry.Exchange inFlight;
+
   public JavaHttpClientResponseAdapter(SdkAsyncHttpResponseHandler responseHandler) {
+    this(responseHandler, null, ResponseBodyPolicy.defaults());
+  }
+
+  public JavaHttpClientResponseAdapter(SdkAsyncHttpResponseHandler responseHandler,
+      SdkHttpMethod requestMethod, ResponseBodyPolicy policy) {
+    this(responseHandler, requestMethod, policy, false, null, null, null, null);
+  }
+
+  public JavaHttpClientResponseAdapter(SdkAsyncHttpResponseHandler responseHandler,
+      SdkHttpMethod requestMethod, ResponseBodyPolicy policy, boolean decodeResponse,
+      LatencyRecorder.Exchange latencies, ExchangeEvents events, ListeningExchange listening,
+      InFlightRegistry.Exchange inFlight) {
     this.responseHandler = requireNonNull(responseHandler);
+    this.requestMethod = requestMethod;
+    this.policy = requireNonNull(policy);
+    this.decodeResponse = decodeResponse;
+    this.latencies = latencies;
+    this.events = events;
+    this.listening = listening;
+    this.inFlight = inFlight;
   }
 
   @Override
   public BodySubscriber<Void> apply(ResponseInfo responseInfo) {
+    if (inFlight != null) {
+      inFlight.headersReceived();
+    }
+    if (latencies != null) {
+      latencies.headersReceived(responseInfo.statusCode());
+    }
+    if (events != null) {
+      events.headersReceived(responseInfo.statusCode(),
+          responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1L));
+    }
+    if (listening != null) {
+      listening.headersReceived(responseInfo.statusCode());
+    }
+
+    BodySubscriber<Void> result = bodySubscriber(responseInfo);
+    if (inFlight != null) {
+      result = inFlight.wrap(result);
+    }
+    if (listening != null) {
+      result = listening.wrap(result);
+    }
+    if (events != null) {
+      result = events.wrap(result);
+    }
+    if (latencies != null) {
+      result = latencies.wrap(result);
+    }
+    return result;
+  }
+
+  private BodySubscriber<Void> bodySubscriber(ResponseInfo responseInfo) {
+    final boolean bodiless = isBodiless(responseInfo.statusCode());
+
+    // If we're decoding the body, then the SDK must see the headers of the decoded body
+    final ContentDecoder decoder = decodeResponse && !bodiless
+        ? responseInfo.headers().firstValue("Content-Encoding")
+        .flatMap(ContentDecoder::forContentEncoding).orElse(null) : null;
+
     // get the headers from responseInfo
-    final SdkHttpResponse head = SdkHttpFullResponse.builder().statusCode(responseInfo.statusCode())
-        .headers(responseInfo.headers().map()).build();
+    final SdkHttpFullResponse.Builder headBuilder = SdkHttpFullResponse.builder()
+        .statusCode(responseInfo.statusCode()).headers(responseInfo.headers().map());
+    if (decoder != null) {
+      headBuilder.removeHeader("Content-Encoding").removeHeader("Content-Length");
+    }
+    final SdkHttpResponse head = headBuilder.build();
 
     getResponseHandler().onHeaders(head);
 
-    final JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor();
+    if (decoder == null && head.isSuccessful()
+        && getResponseHandler() instanceof FileResponseHandler) {
+      // Write the body straight into the file from the delivery thread. Service clients wrap
+      // their response handlers, so this only applies to direct callers of execute().
+      return new FileChannelBodySubscriber(
+          ((FileResponseHandler) getResponseHandler()).writer());
+    }
 
-    final BodySubscriber<Void> result = HttpResponse.BodySubscribers.fromSubscriber(processor);
+    final long contentLength = responseInfo.headers().firstValueAsLong("Content-Length")
+        .orElse(-1L);
 
-    getResponseHandler().onStream(FlowAdapters.toPublisher(processor));
+    if (bodiless || contentLength == 0L) {
+      // There is nothing to stream, so don't bother setting up the machinery to stream it.
+      getResponseHandler().onStream(EmptyBodyPublisher.INSTANCE);
+      return HttpResponse.BodySubscribers.replacing(null);
+    }
 
-    return result;
+    if (decoder == null && contentLength > 0L
+        && contentLength <= getPolicy().getSmallResponseBodyThresholdInBytes()
+        && !getPolicy().isTooLarge(contentLength)) {
+      final SingleBufferBodySubscriber subscriber = new SingleBufferBodySubscriber(
+          (int) contentLength, getPolicy().getBudget());
+      getResponseHandler().onStream(subscriber);
+      return subscriber;
+    }
+
+    final JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(getPolicy(),
+        contentLength);
+
+    if (decoder != null) {
+      final DecodingBodyProcessor decoding = new DecodingBodyProcessor(decoder);
+      processor.subscribe(decoding);
+      getResponseHandler().onStream(FlowAdapters.toPublisher(decoding));
+    } else {
+      getResponseHandler().onStream(FlowAdapters.toPublisher(processor));
+    }
+
+    return processor;
+  }
+
+  /**
+   * Responses to HEAD requests, and 1xx, 204, and 304 responses never have a body, whatever their
+   * headers say.
+   */
+  private boolean isBodiless(int statusCode) {
+    return requestMethod == SdkHttpMethod.HEAD || statusCode / 100 == 1 || statusCode == 204
+        || statusCode == 304;
   }
 
   public SdkAsyncHttpResponseHandler getResponseHandler() {
     return responseHandler;
   }
-}
\ No newline at end of file
+
+  private ResponseBodyPolicy getPolicy() {
+    return policy;
+  }
+}
@@ -0,0 +1,106 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * A lock-free histogram of non-negative values, like latencies in nanoseconds. Buckets are
+ * log-linear: each power of two is split into {@value #SUB_BUCKETS} equal buckets, so any value is
+ * reported to within about 6% of its true value, and the whole range of a {@code long} fits in
+ * under a thousand counters. Recording a value is one atomic increment and never allocates.
+ *
+ * <p>
+ * Counts can be {@link #decay() halved} so that old values gradually lose their weight. Readers
+ * see a consistent enough view for percentiles, though not an atomic snapshot.
+ * </p>
+ */
+@SdkInternalApi
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  /**
+   * Values below {@link #SUB_BUCKETS} get a bucket each. Every power of two above that gets
+   * {@link #SUB_BUCKETS} buckets, up to 2^62.
+   */
+  public static final int BUCKETS = (Long.SIZE - 1 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  public void record(long value) {
+    counts.incrementAndGet(bucket(Math.max(value, 0L)));
+  }
+
+  /**
+   * @return how many values have been recorded, less any decayed away
+   */
+  public long count() {
+    long result = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      result = result + counts.get(i);
+    }
+    return result;
+  }
+
+  /**
+   * @param percentile the percentile, from 0 to 100
+   * @return the largest value in the bucket containing the given percentile, or 0 if empty
+   */
+  public long valueAtPercentile(double percentile) {
+    long total = count();
+    if (total == 0L) {
+      return 0L;
+    }
+    long rank = Math.max((long) Math.ceil(total * percentile / 100.0), 1L);
+    long seen = 0L;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen = seen + counts.get(i);
+      if (seen >= rank) {
+        return highestValue(i);
+      }
+    }
+    return highestValue(BUCKETS - 1);
+  }
+
+  /**
+   * Adds this histogram's counts to the given array, which must have {@link #BUCKETS} elements.
+   */
+  public void addTo(long[] totals) {
+    for (int i = 0; i < BUCKETS; i++) {
+      totals[i] = totals[i] + counts.get(i);
+    }
+  }
+
+  /**
+   * Halves every count, so that values recorded from now on outweigh those recorded before.
+   */
+  public void decay() {
+    for (int i = 0; i < BUCKETS; i++) {
+      long count;
+      do {
+        count = counts.get(i);
+      } while (count != 0L && !counts.compareAndSet(i, count, count >>> 1));
+    }
+  }
+
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  public static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    long lowest = (1L << exponent) + (bucket % SUB_BUCKETS) * width;
+    return lowest + width - 1L;
+  }
+}
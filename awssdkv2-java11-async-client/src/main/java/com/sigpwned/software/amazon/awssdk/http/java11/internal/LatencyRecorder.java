@@ -0,0 +1,232 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.EndpointLatencyStatistics;
+import java.net.URI;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Records how long each phase of a client's exchanges takes, by host and status class, into
+ * {@link StripedLatencyHistogram striped histograms}. Shared by all requests of a client.
+ *
+ * <p>
+ * Each exchange looks up its host once when it starts, and allocates one small object to track its
+ * phases. From then on, recording a phase is a clock read and an atomic increment. Histograms are
+ * only allocated the first time a host returns a status class. The map of hosts is bounded like
+ * {@link NegotiatedProtocolCache}, and histograms are never reset, so the statistics cover the
+ * life of the client.
+ * </p>
+ */
+@SdkInternalApi
+public final class LatencyRecorder {
+
+  public static final int DEFAULT_MAXIMUM_HOSTS = 256;
+
+  /**
+   * Status classes 1 through 5, plus 0 for exchanges that failed without a response
+   */
+  private static final int STATUS_CLASSES = 6;
+
+  private static final int NO_RESPONSE = 0;
+
+  private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+  private final int maximumHosts;
+
+  public LatencyRecorder() {
+    this(DEFAULT_MAXIMUM_HOSTS);
+  }
+
+  public LatencyRecorder(int maximumHosts) {
+    this.maximumHosts = Validate.isPositive(maximumHosts, "maximumHosts");
+  }
+
+  /**
+   * Starts timing an exchange with the given endpoint, as of now.
+   */
+  public Exchange start(URI uri) {
+    final long startNanos = System.nanoTime();
+    final String name = uri.getHost() != null ? uri.getHost() : "";
+    Host host = hosts.get(name);
+    if (host == null) {
+      if (hosts.size() >= maximumHosts) {
+        Iterator<String> iterator = hosts.keySet().iterator();
+        if (iterator.hasNext()) {
+          iterator.next();
+          iterator.remove();
+        }
+      }
+      host = hosts.computeIfAbsent(name, Host::new);
+    }
+    return new Exchange(host, startNanos);
+  }
+
+  /**
+   * @return the latencies recorded so far, by host and status class
+   */
+  public List<EndpointLatencyStatistics> snapshot() {
+    List<EndpointLatencyStatistics> result = new ArrayList<>();
+    for (Host host : hosts.values()) {
+      for (int statusClass = 0; statusClass < STATUS_CLASSES; statusClass++) {
+        Phases phases = host.statusClasses.get(statusClass);
+        if (phases != null) {
+          result.add(EndpointLatencyStatistics.create(host.name, statusClass,
+              phases.timeToHeaders.snapshot(), phases.timeToFirstByte.snapshot(),
+              phases.totalTime.snapshot()));
+        }
+      }
+    }
+    return result;
+  }
+
+  private static final class Host {
+
+    public final String name;
+
+    public final AtomicReferenceArray<Phases> statusClasses = new AtomicReferenceArray<>(
+        STATUS_CLASSES);
+
+    public Host(String name) {
+      this.name = name;
+    }
+
+    public Phases phases(int statusClass) {
+      Phases result = statusClasses.get(statusClass);
+      if (result == null) {
+        statusClasses.compareAndSet(statusClass, null, new Phases());
+        result = statusClasses.get(statusClass);
+      }
+      return result;
+    }
+  }
+
+  private static final class Phases {
+
+    public final StripedLatencyHistogram timeToHeaders = new StripedLatencyHistogram();
+
+    public final StripedLatencyHistogram timeToFirstByte = new StripedLatencyHistogram();
+
+    public final StripedLatencyHistogram totalTime = new StripedLatencyHistogram();
+  }
+
+  /**
+   * Times one exchange. The response adapter reports when headers arrive, and wraps the response
+   * body subscriber in this, and the subscription in turn, which notices the first byte and the
+   * end of the body, or its cancellation. The executor reports failures, in case the exchange fails
+   * before there is a body.
+   */
+  public static final class Exchange implements BodySubscriber<Void>, Flow.Subscription {
+
+    private final Host host;
+
+    private final long startNanos;
+
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+
+    private volatile Phases phases;
+
+    private BodySubscriber<Void> delegate;
+
+    private Flow.Subscription subscription;
+
+    private boolean firstByteReceived;
+
+    private Exchange(Host host, long startNanos) {
+      this.host = host;
+      this.startNanos = startNanos;
+    }
+
+    public void headersReceived(int statusCode) {
+      final long elapsed = System.nanoTime() - startNanos;
+      final int statusClass = statusCode / 100;
+      Phases result = host.phases(statusClass > 0 && statusClass < STATUS_CLASSES ? statusClass
+          : NO_RESPONSE);
+      result.timeToHeaders.record(elapsed);
+      phases = result;
+    }
+
+    /**
+     * @return a body subscriber that times the given one
+     */
+    public BodySubscriber<Void> wrap(BodySubscriber<Void> subscriber) {
+      this.delegate = requireNonNull(subscriber);
+      return this;
+    }
+
+    /**
+     * Records that the exchange failed, unless it has already finished.
+     */
+    public void failed() {
+      finish();
+    }
+
+    private void finish() {
+      if (finished.compareAndSet(false, true)) {
+        final long elapsed = System.nanoTime() - startNanos;
+        final Phases result = phases;
+        (result != null ? result : host.phases(NO_RESPONSE)).totalTime.record(elapsed);
+      }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      delegate.onSubscribe(this);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> item) {
+      if (!firstByteReceived) {
+        for (int i = 0; i < item.size(); i++) {
+          if (item.get(i).hasRemaining()) {
+            firstByteReceived = true;
+            phases.timeToFirstByte.record(System.nanoTime() - startNanos);
+            break;
+          }
+        }
+      }
+      delegate.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      finish();
+      delegate.onError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      finish();
+      delegate.onComplete();
+    }
+
+    @Override
+    public CompletionStage<Void> getBody() {
+      return delegate.getBody();
+    }
+
+    @Override
+    public void request(long n) {
+      subscription.request(n);
+    }
+
+    @Override
+    public void cancel() {
+      finish();
+      subscription.cancel();
+    }
+  }
+}
@@ -0,0 +1,226 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ExchangeListener;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Tells an {@link ExchangeListener} about the phases of one exchange. The executor reports when the
+ * exchange starts, when its request is mapped, and when it fails. The request mapper wraps the
+ * request body publisher in {@link #wrapRequestBody(BodyPublisher)} to see the request go out, and the
+ * response adapter wraps the response body subscriber in this, and the subscription in turn, to
+ * see the response come in and notice if it is cancelled.
+ *
+ * <p>
+ * Only exchanges with a listener get one of these, so exchanges without one allocate nothing.
+ * </p>
+ */
+@SdkInternalApi
+public final class ListeningExchange implements BodySubscriber<Void>, Flow.Subscription {
+
+  private static final Logger log = Logger.loggerFor(ListeningExchange.class);
+
+  private final ExchangeListener listener;
+
+  /**
+   * Whether the exchange has completed or failed
+   */
+  private final AtomicBoolean finished = new AtomicBoolean(false);
+
+  private BodySubscriber<Void> delegate;
+
+  private Flow.Subscription subscription;
+
+  public ListeningExchange(ExchangeListener listener) {
+    this.listener = requireNonNull(listener);
+  }
+
+  public void started() {
+    final long now = System.nanoTime();
+    try {
+      listener.started(now);
+    } catch (RuntimeException e) {
+      listenerFailed(e);
+    }
+  }
+
+  /**
+   * @return the given request, for chaining
+   */
+  public HttpRequest mapped(HttpRequest request) {
+    final long now = System.nanoTime();
+    try {
+      listener.requestMapped(now);
+    } catch (RuntimeException e) {
+      listenerFailed(e);
+    }
+    return request;
+  }
+
+  public void headersReceived(int statusCode) {
+    final long now = System.nanoTime();
+    try {
+      listener.responseHeadersReceived(now, statusCode);
+    } catch (RuntimeException e) {
+      listenerFailed(e);
+    }
+  }
+
+  /**
+   * Reports that the exchange failed, unless it has already finished.
+   */
+  public void failed(Throwable error) {
+    final long now = System.nanoTime();
+    if (finished.compareAndSet(false, true)) {
+      try {
+        listener.failed(now, error);
+      } catch (RuntimeException e) {
+        listenerFailed(e);
+      }
+    }
+  }
+
+  /**
+   * @return a request body publisher that reports on the given one
+   */
+  public BodyPublisher wrapRequestBody(BodyPublisher publisher) {
+    return new ListeningBodyPublisher(requireNonNull(publisher));
+  }
+
+  /**
+   * @return a response body subscriber that reports on the given one
+   */
+  public BodySubscriber<Void> wrap(BodySubscriber<Void> subscriber) {
+    this.delegate = requireNonNull(subscriber);
+    return this;
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    this.subscription = subscription;
+    delegate.onSubscribe(this);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> item) {
+    final long now = System.nanoTime();
+    long bytes = 0L;
+    for (int i = 0; i < item.size(); i++) {
+      bytes = bytes + item.get(i).remaining();
+    }
+    try {
+      listener.responseBodyReceived(now, bytes);
+    } catch (RuntimeException e) {
+      listenerFailed(e);
+    }
+    delegate.onNext(item);
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    failed(throwable);
+    delegate.onError(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    final long now = System.nanoTime();
+    if (finished.compareAndSet(false, true)) {
+      try {
+        listener.completed(now);
+      } catch (RuntimeException e) {
+        listenerFailed(e);
+      }
+    }
+    delegate.onComplete();
+  }
+
+  @Override
+  public CompletionStage<Void> getBody() {
+    return delegate.getBody();
+  }
+
+  @Override
+  public void request(long n) {
+    subscription.request(n);
+  }
+
+  @Override
+  public void cancel() {
+    failed(new CancellationException("response body cancelled"));
+    subscription.cancel();
+  }
+
+  private void listenerFailed(RuntimeException e) {
+    log.warn(() -> "Exchange listener " + listener + " failed", e);
+  }
+
+  /**
+   * The HTTP client subscribes to the request body once it has written the request headers, and
+   * the body has been sent once the client has taken all of it.
+   */
+  private final class ListeningBodyPublisher implements BodyPublisher {
+
+    private final BodyPublisher delegate;
+
+    public ListeningBodyPublisher(BodyPublisher delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public long contentLength() {
+      return delegate.contentLength();
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      final long now = System.nanoTime();
+      try {
+        listener.requestHeadersSent(now);
+      } catch (RuntimeException e) {
+        listenerFailed(e);
+      }
+      delegate.subscribe(new Flow.Subscriber<ByteBuffer>() {
+        private long bytes;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+          subscriber.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+          bytes = bytes + item.remaining();
+          subscriber.onNext(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          subscriber.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          final long now = System.nanoTime();
+          try {
+            listener.requestBodySent(now, bytes);
+          } catch (RuntimeException e) {
+            listenerFailed(e);
+          }
+          subscriber.onComplete();
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Remembers the HTTP version each authority (scheme, host, and port) actually used, so that later
+ * requests to the same authority can ask for it directly. The cache is bounded. When it is full, an
+ * arbitrary entry is evicted, which at worst costs that authority one more negotiation.
+ */
+@SdkInternalApi
+public final class NegotiatedProtocolCache {
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+  private final Map<String, HttpClient.Version> versions = new ConcurrentHashMap<>();
+
+  private final int maximumSize;
+
+  public NegotiatedProtocolCache() {
+    this(DEFAULT_MAXIMUM_SIZE);
+  }
+
+  public NegotiatedProtocolCache(int maximumSize) {
+    this.maximumSize = Validate.isPositive(maximumSize, "maximumSize");
+  }
+
+  /**
+   * @return the version the given endpoint's authority last used, or null if not known
+   */
+  public HttpClient.Version get(URI uri) {
+    return versions.get(authority(uri));
+  }
+
+  public void put(URI uri, HttpClient.Version version) {
+    String authority = authority(uri);
+    if (versions.get(authority) == version) {
+      return;
+    }
+    if (versions.size() >= maximumSize) {
+      Iterator<String> iterator = versions.keySet().iterator();
+      if (iterator.hasNext()) {
+        iterator.next();
+        iterator.remove();
+      }
+    }
+    versions.put(authority, version);
+  }
+
+  public int size() {
+    return versions.size();
+  }
+
+  static String authority(URI uri) {
+    int port = uri.getPort();
+    if (port == -1) {
+      port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+    }
+    return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+  }
+}
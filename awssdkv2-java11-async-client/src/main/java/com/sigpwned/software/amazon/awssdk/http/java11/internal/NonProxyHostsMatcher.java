@@ -0,0 +1,312 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Decides whether a host bypasses the proxy, given the non-proxy hosts in any of the forms users
+ * know from {@code http.nonProxyHosts} and {@code NO_PROXY}:
+ *
+ * <ul>
+ *   <li>{@code example.com}, which matches only that host</li>
+ *   <li>{@code *.example.com} or {@code .example.com}, which match any subdomain</li>
+ *   <li>{@code 10.*}, which matches any host starting with {@code 10.}</li>
+ *   <li>{@code 10.0.0.0/8} or {@code fd00::/8}, which match IP address literals in the block</li>
+ *   <li>{@code *}, which matches every host</li>
+ * </ul>
+ *
+ * <p>
+ * Patterns are compiled once. Names and suffixes go into a trie of reversed labels, so a lookup
+ * costs one step per label of the host, however many patterns there are. Any other wildcard
+ * patterns fall back to regular expressions. Decisions are cached per host, so repeat connections
+ * to the same host cost one map lookup. Host names are never resolved, so CIDR blocks only match
+ * hosts given as IP addresses. Matching is case-insensitive.
+ * </p>
+ *
+ * <p>
+ * When the non-proxy hosts come from {@code http.nonProxyHosts} or {@code NO_PROXY}, the SDK has
+ * already rewritten each {@code *} as the regular expression {@code .*?}, so we turn those back
+ * into wildcards before compiling. A leading {@code .*} is read the same way.
+ * </p>
+ */
+@SdkInternalApi
+public final class NonProxyHostsMatcher {
+
+  private static final Logger log = Logger.loggerFor(NonProxyHostsMatcher.class);
+
+  public static final int DEFAULT_CACHE_SIZE = 256;
+
+  private static final Pattern IPV4_LITERAL = Pattern.compile("\\d{1,3}(?:\\.\\d{1,3}){3}");
+
+  private static final Pattern IPV6_LITERAL = Pattern.compile("[0-9a-f]*:[0-9a-f:.]*");
+
+  private final Node root = new Node();
+
+  private final List<String> prefixes = new ArrayList<>();
+
+  private final List<CidrBlock> blocks = new ArrayList<>();
+
+  private final List<Pattern> patterns = new ArrayList<>();
+
+  private final boolean matchesAll;
+
+  private final int cacheSize;
+
+  private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+  public NonProxyHostsMatcher(Collection<String> nonProxyHosts) {
+    this(nonProxyHosts, DEFAULT_CACHE_SIZE);
+  }
+
+  public NonProxyHostsMatcher(Collection<String> nonProxyHosts, int cacheSize) {
+    boolean all = false;
+    for (String nonProxyHost : nonProxyHosts) {
+      String pattern = unregex(nonProxyHost.trim().toLowerCase(Locale.ROOT));
+      if (pattern.isEmpty()) {
+        continue;
+      }
+      if (pattern.equals("*")) {
+        all = true;
+      } else if (pattern.indexOf('/') != -1) {
+        CidrBlock block = CidrBlock.parse(pattern);
+        if (block != null) {
+          blocks.add(block);
+        } else {
+          log.warn(() -> "Ignoring invalid non-proxy CIDR block " + nonProxyHost);
+        }
+      } else if (pattern.startsWith("*.") && pattern.indexOf('*', 1) == -1) {
+        root.insert(pattern.substring(2)).subdomains = true;
+      } else if (pattern.startsWith(".") && pattern.indexOf('*') == -1) {
+        root.insert(pattern.substring(1)).subdomains = true;
+      } else if (pattern.indexOf('*') == -1) {
+        root.insert(unbracket(pattern)).exact = true;
+      } else if (pattern.endsWith("*") && pattern.indexOf('*') == pattern.length() - 1) {
+        prefixes.add(pattern.substring(0, pattern.length() - 1));
+      } else {
+        patterns.add(Pattern.compile(wildcardToRegex(pattern)));
+      }
+    }
+    this.matchesAll = all;
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * @return true if the given host should bypass the proxy
+   */
+  public boolean matches(String host) {
+    if (host == null) {
+      return false;
+    }
+    if (matchesAll) {
+      return true;
+    }
+
+    final String key = unbracket(host.toLowerCase(Locale.ROOT));
+    Boolean result = decisions.get(key);
+    if (result == null) {
+      result = compute(key);
+      if (decisions.size() >= cacheSize) {
+        // The set of hosts a client talks to is usually small, so this should be rare
+        decisions.clear();
+      }
+      decisions.put(key, result);
+    }
+    return result;
+  }
+
+  private boolean compute(String host) {
+    if (root.matches(host)) {
+      return true;
+    }
+    for (String prefix : prefixes) {
+      if (host.startsWith(prefix)) {
+        return true;
+      }
+    }
+    if (!blocks.isEmpty()) {
+      InetAddress address = ipLiteral(host);
+      if (address != null) {
+        for (CidrBlock block : blocks) {
+          if (block.contains(address)) {
+            return true;
+          }
+        }
+      }
+    }
+    for (Pattern pattern : patterns) {
+      if (pattern.matcher(host).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the address the given host spells out, or null if it is a name
+   */
+  private static InetAddress ipLiteral(String host) {
+    // InetAddress.getByName looks up anything it can't parse, like 999.1.1.1, in DNS. So parse
+    // IPv4 ourselves, and bracket IPv6, which makes the JDK reject it rather than look it up.
+    try {
+      if (IPV4_LITERAL.matcher(host).matches()) {
+        return ipv4Literal(host);
+      }
+      if (IPV6_LITERAL.matcher(host).matches()) {
+        return InetAddress.getByName("[" + host + "]");
+      }
+    } catch (UnknownHostException e) {
+      return null;
+    }
+    return null;
+  }
+
+  /**
+   * @return the address the given dotted quad spells out, or null if any part is out of range
+   */
+  private static InetAddress ipv4Literal(String host) throws UnknownHostException {
+    byte[] bytes = new byte[4];
+    int start = 0;
+    for (int i = 0; i < bytes.length; i++) {
+      int end = i < bytes.length - 1 ? host.indexOf('.', start) : host.length();
+      int octet = Integer.parseInt(host, start, end, 10);
+      if (octet > 255) {
+        return null;
+      }
+      bytes[i] = (byte) octet;
+      start = end + 1;
+    }
+    return InetAddress.getByAddress(bytes);
+  }
+
+  private static String unbracket(String host) {
+    if (host.length() >= 2 && host.charAt(0) == '[' && host.charAt(host.length() - 1) == ']') {
+      return host.substring(1, host.length() - 1);
+    }
+    return host;
+  }
+
+  /**
+   * Undoes the SDK's rewriting of {@code *} as {@code .*?}. A {@code .*} elsewhere than the start
+   * is left alone, since {@code 10.*} means the hosts starting with {@code 10.}.
+   */
+  private static String unregex(String pattern) {
+    String result = pattern.replace(".*?", "*");
+    if (result.startsWith(".*")) {
+      result = "*" + result.substring(2);
+    }
+    return result;
+  }
+
+  private static String wildcardToRegex(String pattern) {
+    String[] parts = pattern.split("\\*", -1);
+    StringBuilder result = new StringBuilder(Pattern.quote(parts[0]));
+    for (int i = 1; i < parts.length; i++) {
+      result.append(".*").append(Pattern.quote(parts[i]));
+    }
+    return result.toString();
+  }
+
+  /**
+   * A node in a trie of reversed host name labels, so {@code a.example.com} is stored under
+   * {@code com}, then {@code example}, then {@code a}.
+   */
+  private static final class Node {
+
+    private final Map<String, Node> children = new HashMap<>();
+
+    /**
+     * Whether the name ending at this node matches
+     */
+    public boolean exact;
+
+    /**
+     * Whether any name below this node matches
+     */
+    public boolean subdomains;
+
+    public Node insert(String name) {
+      Node node = this;
+      int end = name.length();
+      while (end > 0) {
+        int start = name.lastIndexOf('.', end - 1) + 1;
+        node = node.children.computeIfAbsent(name.substring(start, end), k -> new Node());
+        end = start - 1;
+      }
+      return node;
+    }
+
+    public boolean matches(String host) {
+      Node node = this;
+      int end = host.length();
+      while (end > 0) {
+        if (node.subdomains && node != this) {
+          return true;
+        }
+        int start = host.lastIndexOf('.', end - 1) + 1;
+        node = node.children.get(host.substring(start, end));
+        if (node == null) {
+          return false;
+        }
+        end = start - 1;
+      }
+      return node.exact;
+    }
+  }
+
+  private static final class CidrBlock {
+
+    public static CidrBlock parse(String cidr) {
+      int slash = cidr.indexOf('/');
+      InetAddress address = ipLiteral(unbracket(cidr.substring(0, slash)));
+      if (address == null) {
+        return null;
+      }
+      int prefixLength;
+      try {
+        prefixLength = Integer.parseInt(cidr.substring(slash + 1));
+      } catch (NumberFormatException e) {
+        return null;
+      }
+      int bits = address.getAddress().length * 8;
+      if (prefixLength < 0 || prefixLength > bits) {
+        return null;
+      }
+      return new CidrBlock(address.getAddress(), prefixLength);
+    }
+
+    private final byte[] network;
+
+    private final int prefixLength;
+
+    private CidrBlock(byte[] network, int prefixLength) {
+      this.network = network;
+      this.prefixLength = prefixLength;
+    }
+
+    public boolean contains(InetAddress address) {
+      byte[] bytes = address.getAddress();
+      if (bytes.length != network.length) {
+        return false;
+      }
+      int remaining = prefixLength;
+      for (int i = 0; remaining > 0; i++) {
+        int mask = (0xFF << (8 - Math.min(8, remaining))) & 0xFF;
+        if ((bytes[i] & mask) != (network[i] & mask)) {
+          return false;
+        }
+        remaining = remaining - 8;
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,204 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.HedgingPolicy;
+import com.sigpwned.software.amazon.awssdk.http.java11.HedgingStatistics;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+import software.amazon.awssdk.utils.ThreadFactoryBuilder;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Everything a client needs to hedge requests, shared by all of its requests: which requests to
+ * hedge, how long to wait before hedging each endpoint, how many hedges it may still send, and the
+ * timer that sends them.
+ *
+ * <p>
+ * Each authority (scheme, host, and port) gets a histogram of how long its requests took to receive
+ * response headers, and its hedge delay is the policy's percentile of that. The delay is recomputed
+ * every few requests rather than on every request, and the histogram decays, so the delay follows
+ * the endpoint as it speeds up or slows down. The map of authorities is bounded like
+ * {@link NegotiatedProtocolCache}.
+ * </p>
+ *
+ * <p>
+ * The budget is a token bucket. Every eligible request adds the policy's budget percentage of a
+ * hedge, every hedge spends a whole one, and at most {@value #MAXIMUM_SAVED_HEDGES} can be saved
+ * up. The bucket starts empty, so a new client does not hedge until it has earned it.
+ * </p>
+ */
+@SdkInternalApi
+public final class RequestHedger implements SdkAutoCloseable {
+
+  public static final int DEFAULT_MAXIMUM_ENDPOINTS = 256;
+
+  /**
+   * How many requests to an endpoint between recomputing its delay
+   */
+  private static final int RECOMPUTE_INTERVAL = 16;
+
+  /**
+   * How many requests to an endpoint between halving its histogram
+   */
+  private static final int DECAY_INTERVAL = 4096;
+
+  private static final long MAXIMUM_SAVED_HEDGES = 10L;
+
+  /**
+   * Budget is kept in thousandths of a hedge, so that fractions of a percent add up
+   */
+  private static final long HEDGE_COST = 1000L;
+
+  private final HedgingPolicy policy;
+
+  private final long initialDelayNanos;
+
+  private final long minimumDelayNanos;
+
+  private final long depositPerRequest;
+
+  private final AtomicLong budget = new AtomicLong(0L);
+
+  private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+  private final int maximumEndpoints;
+
+  private final ScheduledThreadPoolExecutor timer;
+
+  private final LongAdder eligibleRequests = new LongAdder();
+  private final LongAdder hedgesSent = new LongAdder();
+  private final LongAdder hedgesWon = new LongAdder();
+  private final LongAdder hedgesDenied = new LongAdder();
+
+  public RequestHedger(HedgingPolicy policy) {
+    this(policy, DEFAULT_MAXIMUM_ENDPOINTS);
+  }
+
+  public RequestHedger(HedgingPolicy policy, int maximumEndpoints) {
+    this.policy = requireNonNull(policy);
+    this.initialDelayNanos = policy.initialDelay().toNanos();
+    this.minimumDelayNanos = policy.minimumDelay().toNanos();
+    this.depositPerRequest = Math.max(Math.round(policy.budgetPercent() * HEDGE_COST / 100.0), 1L);
+    this.maximumEndpoints = Validate.isPositive(maximumEndpoints, "maximumEndpoints");
+    this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+        .threadNamePrefix("java11-hedge-timer").daemonThreads(true).build());
+    this.timer.setRemoveOnCancelPolicy(true);
+  }
+
+  /**
+   * @return true if the policy allows the given request to be hedged
+   */
+  public boolean isHedgeable(SdkHttpRequest request) {
+    return policy.matches(request);
+  }
+
+  /**
+   * Records that a hedgeable request to the given endpoint is being sent, which adds to the budget.
+   *
+   * @return how long to wait for its response headers before hedging it, in nanoseconds
+   */
+  public long admit(URI uri) {
+    eligibleRequests.increment();
+    long limit = MAXIMUM_SAVED_HEDGES * HEDGE_COST;
+    long current;
+    do {
+      current = budget.get();
+    } while (current < limit
+        && !budget.compareAndSet(current, Math.min(current + depositPerRequest, limit)));
+
+    Endpoint endpoint = endpoints.get(NegotiatedProtocolCache.authority(uri));
+    return endpoint != null ? endpoint.delayNanos : initialDelayNanos;
+  }
+
+  /**
+   * Spends a hedge from the budget, if one is left.
+   *
+   * @return true if a hedge may be sent, or false otherwise
+   */
+  public boolean tryHedge() {
+    long current;
+    do {
+      current = budget.get();
+      if (current < HEDGE_COST) {
+        hedgesDenied.increment();
+        return false;
+      }
+    } while (!budget.compareAndSet(current, current - HEDGE_COST));
+    hedgesSent.increment();
+    return true;
+  }
+
+  public void hedgeWon() {
+    hedgesWon.increment();
+  }
+
+  /**
+   * Records how long a request to the given endpoint took to receive its response headers,
+   * counting from when it was first sent, whichever attempt received them.
+   */
+  public void recordTimeToHeaders(URI uri, long nanos) {
+    String authority = NegotiatedProtocolCache.authority(uri);
+    Endpoint endpoint = endpoints.get(authority);
+    if (endpoint == null) {
+      if (endpoints.size() >= maximumEndpoints) {
+        Iterator<String> iterator = endpoints.keySet().iterator();
+        if (iterator.hasNext()) {
+          iterator.next();
+          iterator.remove();
+        }
+      }
+      endpoint = endpoints.computeIfAbsent(authority, k -> new Endpoint());
+    }
+    endpoint.record(nanos);
+  }
+
+  /**
+   * Runs the given task on the hedge timer after the given delay.
+   */
+  public ScheduledFuture<?> schedule(Runnable task, long delayNanos) {
+    return timer.schedule(task, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public HedgingStatistics snapshot() {
+    return HedgingStatistics.create(eligibleRequests.sum(), hedgesSent.sum(), hedgesWon.sum(),
+        hedgesDenied.sum());
+  }
+
+  @Override
+  public void close() {
+    timer.shutdownNow();
+  }
+
+  private final class Endpoint {
+
+    private final LatencyHistogram timeToHeaders = new LatencyHistogram();
+
+    private final AtomicLong samples = new AtomicLong(0L);
+
+    public volatile long delayNanos = initialDelayNanos;
+
+    public void record(long nanos) {
+      timeToHeaders.record(nanos);
+      long n = samples.incrementAndGet();
+      if (n % DECAY_INTERVAL == 0L) {
+        timeToHeaders.decay();
+      }
+      if (n == policy.minimumSamples()
+          || (n > policy.minimumSamples() && n % RECOMPUTE_INTERVAL == 0L)) {
+        delayNanos = Math.max(timeToHeaders.valueAtPercentile(policy.percentile()),
+            minimumDelayNanos);
+      }
+    }
+  }
+}
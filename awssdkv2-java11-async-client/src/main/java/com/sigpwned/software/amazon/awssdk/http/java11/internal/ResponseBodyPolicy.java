@@ -0,0 +1,122 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.file.Path;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * How a client handles response bodies. Instances are immutable, apart from the shared budget, so
+ * one policy may be shared by all requests of a client.
+ */
+@SdkInternalApi
+public final class ResponseBodyPolicy {
+
+  public static final int DEFAULT_SMALL_RESPONSE_BODY_THRESHOLD_IN_BYTES = 16 * 1024;
+
+  public static final long DEFAULT_MAX_BUFFERED_RESPONSE_BYTES = 64L * 1024L * 1024L;
+
+  public static final long DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES = 64L * 1024L;
+
+  /**
+   * Streams every body, with the default budget and no maximum size
+   */
+  public static ResponseBodyPolicy defaults() {
+    return new ResponseBodyPolicy(0, 0L,
+        new ResponseBufferBudget(DEFAULT_MAX_BUFFERED_RESPONSE_BYTES), 0L, null,
+        DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES, new ResponseDrainCounters());
+  }
+
+  private final int smallResponseBodyThresholdInBytes;
+
+  private final long maxResponseSizeInBytes;
+
+  private final ResponseBufferBudget budget;
+
+  private final long responseSpillThresholdInBytes;
+
+  private final Path responseSpillDirectory;
+
+  private final long responseDrainThresholdInBytes;
+
+  private final ResponseDrainCounters drainCounters;
+
+  /**
+   * @param smallResponseBodyThresholdInBytes the largest body of known length to read into a single
+   *                                          buffer, or 0 to always stream
+   * @param maxResponseSizeInBytes            the largest body to accept, or 0 for no limit
+   * @param budget                            the client-wide budget for buffered response bytes
+   * @param responseSpillThresholdInBytes     how many bytes each response may hold in memory before
+   *                                          spilling the rest to disk, or 0 never to spill
+   * @param responseSpillDirectory            where to create spill files, or null for the default
+   *                                          temporary directory
+   * @param responseDrainThresholdInBytes     the most of a cancelled body to drain so its
+   *                                          connection can be reused, or 0 always to abort
+   * @param drainCounters                     the client-wide counts of drained and aborted bodies
+   */
+  public ResponseBodyPolicy(int smallResponseBodyThresholdInBytes, long maxResponseSizeInBytes,
+      ResponseBufferBudget budget, long responseSpillThresholdInBytes,
+      Path responseSpillDirectory, long responseDrainThresholdInBytes,
+      ResponseDrainCounters drainCounters) {
+    this.smallResponseBodyThresholdInBytes = smallResponseBodyThresholdInBytes;
+    this.maxResponseSizeInBytes = maxResponseSizeInBytes;
+    this.budget = requireNonNull(budget);
+    this.responseSpillThresholdInBytes = responseSpillThresholdInBytes;
+    this.responseSpillDirectory = responseSpillDirectory;
+    this.responseDrainThresholdInBytes = responseDrainThresholdInBytes;
+    this.drainCounters = requireNonNull(drainCounters);
+  }
+
+  public int getSmallResponseBodyThresholdInBytes() {
+    return smallResponseBodyThresholdInBytes;
+  }
+
+  /**
+   * @return the largest body to accept, or 0 for no limit
+   */
+  public long getMaxResponseSizeInBytes() {
+    return maxResponseSizeInBytes;
+  }
+
+  /**
+   * @return true if a body of the given length is too large to accept
+   */
+  public boolean isTooLarge(long contentLength) {
+    return maxResponseSizeInBytes > 0L && contentLength > maxResponseSizeInBytes;
+  }
+
+  public ResponseBufferBudget getBudget() {
+    return budget;
+  }
+
+  /**
+   * @return how many bytes each response may hold in memory before spilling the rest to disk, or 0
+   *     never to spill
+   */
+  public long getResponseSpillThresholdInBytes() {
+    return responseSpillThresholdInBytes;
+  }
+
+  public boolean isSpillEnabled() {
+    return responseSpillThresholdInBytes > 0L;
+  }
+
+  /**
+   * @return where to create spill files, or null for the default temporary directory
+   */
+  public Path getResponseSpillDirectory() {
+    return responseSpillDirectory;
+  }
+
+  /**
+   * @return the most of a cancelled body to drain so its connection can be reused, or 0 always to
+   *     abort
+   */
+  public long getResponseDrainThresholdInBytes() {
+    return responseDrainThresholdInBytes;
+  }
+
+  public ResponseDrainCounters getDrainCounters() {
+    return drainCounters;
+  }
+}
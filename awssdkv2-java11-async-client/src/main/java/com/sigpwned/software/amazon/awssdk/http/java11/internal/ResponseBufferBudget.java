@@ -0,0 +1,80 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Counts the response bytes a client has received but not yet handed to the SDK, across all of its
+ * responses. When the count reaches the limit, responses stop asking the network for more until
+ * some bytes are released. The limit is soft: bytes already on their way are always accepted, so
+ * the count can exceed the limit by about one read per response.
+ */
+@SdkInternalApi
+public final class ResponseBufferBudget {
+
+  private final long limit;
+
+  private final AtomicLong used = new AtomicLong(0L);
+
+  /**
+   * Callbacks waiting for room in the budget. Each is run once, the next time bytes are released.
+   */
+  private final Queue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+
+  public ResponseBufferBudget(long limit) {
+    this.limit = Validate.isPositive(limit, "limit");
+  }
+
+  /**
+   * Records that the given number of bytes are now buffered.
+   */
+  public void add(long n) {
+    used.addAndGet(n);
+  }
+
+  /**
+   * Records that the given number of bytes are no longer buffered, and wakes up any waiters if that
+   * made room.
+   */
+  public void release(long n) {
+    if (used.addAndGet(-n) < limit) {
+      wakeWaiters();
+    }
+  }
+
+  public boolean hasRoom() {
+    return used.get() < limit;
+  }
+
+  /**
+   * Runs the given callback once, the next time there is room in the budget. If there is room now,
+   * then the callback runs immediately.
+   */
+  public void awaitRoom(Runnable callback) {
+    waiters.add(callback);
+    if (hasRoom()) {
+      // Bytes may have been released between the caller's check and our enqueue.
+      wakeWaiters();
+    }
+  }
+
+  private void wakeWaiters() {
+    for (Runnable waiter = waiters.poll(); waiter != null; waiter = waiters.poll()) {
+      waiter.run();
+    }
+  }
+
+  /**
+   * @return the number of response bytes currently buffered
+   */
+  public long used() {
+    return used.get();
+  }
+
+  public long limit() {
+    return limit;
+  }
+}
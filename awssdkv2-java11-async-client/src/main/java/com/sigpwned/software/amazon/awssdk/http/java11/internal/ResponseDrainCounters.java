@@ -0,0 +1,31 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ResponseDrainStatistics;
+import java.util.concurrent.atomic.LongAdder;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Counts what a client does with cancelled responses. Shared by all responses of a client.
+ */
+@SdkInternalApi
+public final class ResponseDrainCounters {
+
+  private final LongAdder drainedResponses = new LongAdder();
+  private final LongAdder drainedBytes = new LongAdder();
+  private final LongAdder abortedResponses = new LongAdder();
+
+  public void drained(long bytes) {
+    drainedResponses.increment();
+    drainedBytes.add(bytes);
+  }
+
+  public void aborted(long bytes) {
+    abortedResponses.increment();
+    drainedBytes.add(bytes);
+  }
+
+  public ResponseDrainStatistics snapshot() {
+    return ResponseDrainStatistics.create(drainedResponses.sum(), drainedBytes.sum(),
+        abortedResponses.sum());
+  }
+}
@@ -0,0 +1,131 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * An append-only temporary file that holds the part of a response body that its consumer has not
+ * caught up with yet. One thread appends, and another reads back in order. Both use positional
+ * I/O, so they never contend for the channel's position. The file is created on the first append
+ * and deleted when closed.
+ */
+@SdkInternalApi
+final class ResponseSpillFile {
+
+  /**
+   * The largest buffer we read back at once
+   */
+  static final int READ_SIZE = 64 * 1024;
+
+  /**
+   * The directory for the file, or null for the default temporary directory
+   */
+  private final Path directory;
+
+  private volatile FileChannel channel;
+
+  /**
+   * How many bytes have been appended. Written only by the appending thread, and only after the
+   * bytes are in the file, so readers never see a position past the data.
+   */
+  private volatile long writePosition;
+
+  // Only accessed by the reading thread
+  private long readPosition;
+
+  private volatile boolean closed;
+
+  public ResponseSpillFile(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Appends the given buffer to the file, consuming it.
+   */
+  public void append(ByteBuffer buffer) throws IOException {
+    FileChannel ch = channel;
+    if (ch == null) {
+      ch = channel = open();
+      if (closed) {
+        // We raced with close(), which may not have seen the channel, so close it ourselves. This
+        // is what deletes the file.
+        close();
+        throw new IOException("Response spill file is closed");
+      }
+    }
+    long position = writePosition;
+    while (buffer.hasRemaining()) {
+      position = position + ch.write(buffer, position);
+    }
+    writePosition = position;
+  }
+
+  /**
+   * @return true if anything has ever been appended. Once true, all later data must be appended
+   *     too, so that it is read back in order.
+   */
+  public boolean isActive() {
+    return channel != null;
+  }
+
+  /**
+   * @return how many bytes have been appended so far. Callers must read this before deciding there
+   *     is nothing in memory, so that they never read spilled bytes ahead of earlier in-memory ones.
+   */
+  public long writePosition() {
+    return writePosition;
+  }
+
+  public boolean hasUnread(long writePosition) {
+    return readPosition < writePosition;
+  }
+
+  /**
+   * Reads the next chunk of the file, up to but not past the given write position
+   */
+  public ByteBuffer read(long writePosition) throws IOException {
+    int size = (int) Math.min(READ_SIZE, writePosition - readPosition);
+    ByteBuffer result = ByteBuffer.allocate(size);
+    while (result.hasRemaining()) {
+      int n = channel.read(result, readPosition + result.position());
+      if (n < 0) {
+        throw new IOException("Response spill file is shorter than expected");
+      }
+    }
+    readPosition = readPosition + size;
+    result.flip();
+    return result;
+  }
+
+  /**
+   * Closes and deletes the file, if it was ever created. Idempotent, and safe to call from another
+   * thread while appending: we set {@code closed} before reading the channel, and the appender
+   * publishes the channel before reading {@code closed}, so at least one of us closes it.
+   */
+  public void close() {
+    closed = true;
+    FileChannel ch = channel;
+    if (ch != null) {
+      try {
+        ch.close();
+      } catch (IOException e) {
+        // The file is deleted on close, and we're done with it either way.
+      }
+    }
+  }
+
+  private FileChannel open() throws IOException {
+    if (closed) {
+      throw new IOException("Response spill file is closed");
+    }
+    Path file = directory != null ? Files.createTempFile(directory, "response", ".spill")
+        : Files.createTempFile("response", ".spill");
+    return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+        StandardOpenOption.DELETE_ON_CLOSE);
+  }
+}
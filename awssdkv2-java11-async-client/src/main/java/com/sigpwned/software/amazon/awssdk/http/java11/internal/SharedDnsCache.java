@@ -0,0 +1,86 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.DnsCacheConfiguration;
+import com.sigpwned.software.amazon.awssdk.http.java11.DnsCacheStatistics;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Logger;
+import software.amazon.awssdk.utils.ThreadFactoryBuilder;
+
+/**
+ * Holds the process-wide DNS cache. The JDK installs at most one resolver per process, on Java 18
+ * and later, and it is loaded by the JDK, not by us, so clients and the resolver meet here.
+ * Clients enable the cache, and the resolver creates it on first use, backed by the platform
+ * resolver. Until a client enables the cache, the resolver passes all lookups straight through.
+ */
+@SdkInternalApi
+public final class SharedDnsCache {
+
+  private static final Logger log = Logger.loggerFor(SharedDnsCache.class);
+
+  /**
+   * The first Java version that allows replacing the resolver
+   */
+  private static final int RESOLVER_SPI_VERSION = 18;
+
+  private static volatile DnsCacheConfiguration configuration;
+
+  private static volatile CachingHostResolver cache;
+
+  private SharedDnsCache() {
+  }
+
+  /**
+   * Enables the cache with the given configuration, unless it is already enabled, in which case the
+   * existing configuration is kept.
+   */
+  public static synchronized void enable(DnsCacheConfiguration configuration) {
+    requireNonNull(configuration);
+    if (Runtime.version().feature() < RESOLVER_SPI_VERSION) {
+      log.debug(() -> "DNS caching requires Java " + RESOLVER_SPI_VERSION + " or later, so it"
+          + " has no effect");
+    }
+    if (SharedDnsCache.configuration == null) {
+      SharedDnsCache.configuration = configuration;
+    } else if (SharedDnsCache.configuration != configuration) {
+      log.debug(() -> "DNS cache is already enabled, so ignoring configuration " + configuration);
+    }
+  }
+
+  /**
+   * Returns the cache, creating it in front of the given backend if necessary. The resolver calls
+   * this on every lookup, always with the same backend.
+   *
+   * @return the cache, or null if no client has enabled it
+   */
+  public static CachingHostResolver cache(CachingHostResolver.Backend backend) {
+    CachingHostResolver result = cache;
+    if (result == null && configuration != null) {
+      synchronized (SharedDnsCache.class) {
+        result = cache;
+        if (result == null) {
+          result = cache = new CachingHostResolver(configuration, backend, newRefreshExecutor());
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the cache's statistics, or empty if it has not been used
+   */
+  public static Optional<DnsCacheStatistics> statistics() {
+    return Optional.ofNullable(cache).map(CachingHostResolver::statistics);
+  }
+
+  private static ExecutorService newRefreshExecutor() {
+    // Refreshes run concurrently, so one slow lookup doesn't hold up the rest. There is at most one
+    // refresh per cached host at a time, so the number of threads is bounded by the cache size.
+    return Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+        .threadNamePrefix("java11-dns-refresh").daemonThreads(true).build());
+  }
+}
@@ -0,0 +1,171 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Reads a response body of known length into one exact-size buffer, and then publishes that buffer
+ * to the SDK as a single element. This avoids the per-chunk queueing and copying of the streaming
+ * path, which is all overhead for the small responses of most non-streaming operations.
+ */
+@SdkInternalApi
+final class SingleBufferBodySubscriber implements BodySubscriber<Void>, Publisher<ByteBuffer> {
+
+  private final byte[] content;
+
+  /**
+   * The buffer counts against this budget from allocation until it is handed to the SDK
+   */
+  private final ResponseBufferBudget budget;
+
+  private final AtomicBoolean released = new AtomicBoolean(false);
+
+  /**
+   * Completes with the body once all of it has arrived, or exceptionally if it could not be read.
+   */
+  private final CompletableFuture<ByteBuffer> body = new CompletableFuture<>();
+
+  private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+  private volatile Flow.Subscription upstream;
+
+  // Only accessed from the delivery thread of the Java client
+  private int position;
+
+  public SingleBufferBodySubscriber(int contentLength, ResponseBufferBudget budget) {
+    this.content = new byte[contentLength];
+    this.budget = requireNonNull(budget);
+    budget.add(contentLength);
+    body.whenComplete((b, e) -> {
+      if (e != null) {
+        release();
+      }
+    });
+  }
+
+  // BODY SUBSCRIBER ///////////////////////////////////////////////////////////
+
+  @Override
+  public CompletionStage<Void> getBody() {
+    return body.thenApply(b -> null);
+  }
+
+  @Override
+  public void onSubscribe(Flow.Subscription subscription) {
+    if (upstream != null) {
+      subscription.cancel();
+      return;
+    }
+    upstream = subscription;
+    // The body is bounded by its content length, so there's no reason to hold back.
+    subscription.request(Long.MAX_VALUE);
+  }
+
+  @Override
+  public void onNext(List<ByteBuffer> buffers) {
+    if (body.isDone()) {
+      return;
+    }
+    for (ByteBuffer buffer : buffers) {
+      int n = buffer.remaining();
+      if (n > content.length - position) {
+        upstream.cancel();
+        body.completeExceptionally(new IOException(
+            "Response body is longer than its content length " + content.length));
+        return;
+      }
+      buffer.get(content, position, n);
+      position = position + n;
+    }
+  }
+
+  @Override
+  public void onError(Throwable throwable) {
+    body.completeExceptionally(throwable);
+  }
+
+  @Override
+  public void onComplete() {
+    if (position != content.length) {
+      body.completeExceptionally(new IOException("Response body is " + position
+          + " bytes, but its content length is " + content.length));
+    } else {
+      body.complete(ByteBuffer.wrap(content));
+    }
+  }
+
+  // PUBLISHER /////////////////////////////////////////////////////////////////
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+    requireNonNull(subscriber);
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new NoOpSubscription());
+      subscriber.onError(new IllegalStateException("Response body can only be subscribed once"));
+      return;
+    }
+    subscriber.onSubscribe(new Subscription() {
+      private final AtomicBoolean requested = new AtomicBoolean(false);
+      private volatile boolean cancelled;
+
+      @Override
+      public void request(long n) {
+        if (n <= 0L) {
+          cancel();
+          subscriber.onError(new IllegalArgumentException("Demand must be positive"));
+          return;
+        }
+        if (requested.compareAndSet(false, true)) {
+          body.whenComplete((b, e) -> {
+            release();
+            if (cancelled) {
+              return;
+            }
+            if (e != null) {
+              subscriber.onError(e);
+            } else {
+              subscriber.onNext(b);
+              subscriber.onComplete();
+            }
+          });
+        }
+      }
+
+      @Override
+      public void cancel() {
+        // The body is small, so we let it finish arriving so the connection can be reused.
+        cancelled = true;
+        body.whenComplete((b, e) -> release());
+      }
+    });
+  }
+
+  private void release() {
+    if (released.compareAndSet(false, true)) {
+      budget.release(content.length);
+    }
+  }
+
+  private static final class NoOpSubscription implements Subscription {
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Gets small request bodies into a single byte array, so that they can be sent without any
+ * reactive plumbing.
+ *
+ * <p>
+ * For non-streaming operations, such as most DynamoDB, SQS, and SNS calls, the SDK has already
+ * marshalled the body into a byte array inside an internal publisher class. We pick up that array
+ * reflectively if we can, and fall back to draining the publisher if not.
+ * </p>
+ */
+@SdkInternalApi
+final class SmallBodies {
+
+  private static final Logger log = Logger.loggerFor(SmallBodies.class);
+
+  private static final String SIMPLE_PUBLISHER_CLASS_NAME =
+      "software.amazon.awssdk.core.internal.http.async.SimpleHttpContentPublisher";
+
+  /**
+   * The SDK publisher's array field, or null if not resolved yet.
+   */
+  private static volatile Field contentField;
+
+  private static volatile boolean contentFieldFailed;
+
+  private SmallBodies() {
+  }
+
+  /**
+   * @return the bytes of the given body, if the SDK has already materialized them in an array. The
+   *     array must not be modified.
+   */
+  public static Optional<byte[]> materializedBytes(SdkHttpContentPublisher publisher) {
+    if (publisher == null || !publisher.getClass().getName().equals(SIMPLE_PUBLISHER_CLASS_NAME)) {
+      return Optional.empty();
+    }
+
+    Field field = contentField(publisher.getClass());
+    if (field == null) {
+      return Optional.empty();
+    }
+
+    try {
+      byte[] content = (byte[]) field.get(publisher);
+      if (content == null || publisher.contentLength().map(n -> n != content.length)
+          .orElse(true)) {
+        return Optional.empty();
+      }
+      return Optional.of(content);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      log.debug(() -> "Failed to inspect SDK request body", e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Reads the given body, which must be exactly {@code length} bytes long, into an array.
+   */
+  public static CompletableFuture<byte[]> drain(SdkHttpContentPublisher publisher, int length) {
+    final CompletableFuture<byte[]> result = new CompletableFuture<>();
+    publisher.subscribe(new Subscriber<ByteBuffer>() {
+      private final byte[] content = new byte[length];
+      private int position;
+      private Subscription subscription;
+
+      @Override
+      public void onSubscribe(Subscription s) {
+        subscription = s;
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(ByteBuffer buffer) {
+        int n = buffer.remaining();
+        if (n > length - position) {
+          subscription.cancel();
+          onError(new IOException("Request body is longer than its content length " + length));
+          return;
+        }
+        buffer.get(content, position, n);
+        position = position + n;
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        result.completeExceptionally(t);
+      }
+
+      @Override
+      public void onComplete() {
+        if (position != length) {
+          result.completeExceptionally(new IOException(
+              "Request body is " + position + " bytes, but its content length is " + length));
+        } else {
+          result.complete(content);
+        }
+      }
+    });
+    return result;
+  }
+
+  private static Field contentField(Class<?> publisherClass) {
+    Field result = contentField;
+    if (result == null && !contentFieldFailed) {
+      try {
+        result = publisherClass.getDeclaredField("content");
+        result.setAccessible(true);
+        contentField = result;
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        log.debug(() -> "SDK request bodies are not recognized in this SDK version", e);
+        contentFieldFailed = true;
+        result = null;
+      }
+    }
+    return result;
+  }
+}
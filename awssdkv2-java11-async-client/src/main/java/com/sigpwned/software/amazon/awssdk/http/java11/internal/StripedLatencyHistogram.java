@@ -0,0 +1,81 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.LatencyDistribution;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * A {@link LatencyHistogram} split into stripes by thread, so that threads recording at the same
+ * time rarely contend for the same counters. Each stripe is created the first time a thread
+ * records into it. After that, recording is one array read and one atomic increment.
+ */
+@SdkInternalApi
+public final class StripedLatencyHistogram {
+
+  public static final int DEFAULT_STRIPES = Math.min(
+      Integer.highestOneBit(Math.max(Runtime.getRuntime().availableProcessors() * 2 - 1, 1)), 8);
+
+  private final AtomicReferenceArray<LatencyHistogram> stripes;
+
+  private final int mask;
+
+  public StripedLatencyHistogram() {
+    this(DEFAULT_STRIPES);
+  }
+
+  /**
+   * @param stripes the number of stripes, which must be a power of two
+   */
+  public StripedLatencyHistogram(int stripes) {
+    if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+      throw new IllegalArgumentException("stripes must be a power of two");
+    }
+    this.stripes = new AtomicReferenceArray<>(stripes);
+    this.mask = stripes - 1;
+  }
+
+  public void record(long nanos) {
+    int index = (int) Thread.currentThread().getId() & mask;
+    LatencyHistogram stripe = stripes.get(index);
+    if (stripe == null) {
+      stripes.compareAndSet(index, null, new LatencyHistogram());
+      stripe = stripes.get(index);
+    }
+    stripe.record(nanos);
+  }
+
+  /**
+   * @return the latencies recorded so far, across all stripes
+   */
+  public LatencyDistribution snapshot() {
+    long[] totals = new long[LatencyHistogram.BUCKETS];
+    boolean empty = true;
+    for (int i = 0; i < stripes.length(); i++) {
+      LatencyHistogram stripe = stripes.get(i);
+      if (stripe != null) {
+        stripe.addTo(totals);
+        empty = false;
+      }
+    }
+    if (empty) {
+      return LatencyDistribution.empty();
+    }
+
+    int buckets = 0;
+    for (long total : totals) {
+      if (total != 0L) {
+        buckets = buckets + 1;
+      }
+    }
+    long[] latencyNanos = new long[buckets];
+    long[] counts = new long[buckets];
+    for (int i = 0, j = 0; i < totals.length; i++) {
+      if (totals[i] != 0L) {
+        latencyNanos[j] = LatencyHistogram.highestValue(i);
+        counts[j] = totals[i];
+        j = j + 1;
+      }
+    }
+    return LatencyDistribution.create(latencyNanos, counts);
+  }
+}
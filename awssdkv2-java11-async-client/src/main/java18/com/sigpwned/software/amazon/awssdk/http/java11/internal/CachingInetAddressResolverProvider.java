@@ -0,0 +1,99 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.net.spi.InetAddressResolver;
+import java.net.spi.InetAddressResolver.LookupPolicy;
+import java.net.spi.InetAddressResolverProvider;
+import java.util.Arrays;
+import java.util.stream.Stream;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Installs the {@link SharedDnsCache} as the process-wide resolver on Java 18 and later. The JDK
+ * loads this provider itself, on the first lookup, whether or not any client uses the cache, so
+ * it passes lookups straight through to the platform resolver until a client enables the cache.
+ * Reverse lookups are never cached.
+ */
+@SdkInternalApi
+public final class CachingInetAddressResolverProvider extends InetAddressResolverProvider {
+
+  @Override
+  public InetAddressResolver get(Configuration configuration) {
+    return new CachingInetAddressResolver(configuration.builtinResolver());
+  }
+
+  @Override
+  public String name() {
+    return "java11-client-dns-cache";
+  }
+
+  private static final class CachingInetAddressResolver implements InetAddressResolver {
+
+    /**
+     * The cache holds all of a host's addresses, and each lookup picks the ones it wants
+     */
+    private static final LookupPolicy ALL_ADDRESSES = LookupPolicy.of(
+        LookupPolicy.IPV4 | LookupPolicy.IPV6);
+
+    private final InetAddressResolver builtinResolver;
+
+    private final CachingHostResolver.Backend backend;
+
+    public CachingInetAddressResolver(InetAddressResolver builtinResolver) {
+      this.builtinResolver = requireNonNull(builtinResolver);
+      this.backend = host -> builtinResolver.lookupByName(host, ALL_ADDRESSES)
+          .toArray(InetAddress[]::new);
+    }
+
+    @Override
+    public Stream<InetAddress> lookupByName(String host, LookupPolicy lookupPolicy)
+        throws UnknownHostException {
+      final CachingHostResolver cache = SharedDnsCache.cache(backend);
+      if (cache == null) {
+        return builtinResolver.lookupByName(host, lookupPolicy);
+      }
+      return select(host, cache.resolve(host), lookupPolicy.characteristics());
+    }
+
+    @Override
+    public String lookupByAddress(byte[] addr) throws UnknownHostException {
+      return builtinResolver.lookupByAddress(addr);
+    }
+
+    /**
+     * Keeps the addresses of the families the policy allows, in the order it asks for. Within each
+     * family, the cache's order is kept, so lookups still rotate through the addresses.
+     */
+    private static Stream<InetAddress> select(String host, InetAddress[] addresses,
+        int characteristics) throws UnknownHostException {
+      final boolean ipv4 = (characteristics & LookupPolicy.IPV4) != 0;
+      final boolean ipv6 = (characteristics & LookupPolicy.IPV6) != 0;
+
+      InetAddress[] result = Arrays.stream(addresses)
+          .filter(a -> a instanceof Inet4Address ? ipv4 : a instanceof Inet6Address && ipv6)
+          .toArray(InetAddress[]::new);
+      if (result.length == 0) {
+        throw new UnknownHostException(host);
+      }
+
+      if ((characteristics & LookupPolicy.IPV4_FIRST) != 0) {
+        result = Stream.concat(
+            Arrays.stream(result).filter(a -> a instanceof Inet4Address),
+            Arrays.stream(result).filter(a -> !(a instanceof Inet4Address)))
+            .toArray(InetAddress[]::new);
+      } else if ((characteristics & LookupPolicy.IPV6_FIRST) != 0) {
+        result = Stream.concat(
+            Arrays.stream(result).filter(a -> a instanceof Inet6Address),
+            Arrays.stream(result).filter(a -> !(a instanceof Inet6Address)))
+            .toArray(InetAddress[]::new);
+      }
+
+      return Arrays.stream(result);
+    }
+  }
+}
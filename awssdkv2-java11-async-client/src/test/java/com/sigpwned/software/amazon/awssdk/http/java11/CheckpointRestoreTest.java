@@ -0,0 +1,132 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.head;
+import static com.github.tomakehurst.wiremock.client.WireMock.headRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.lang.String.format;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import java.lang.ref.WeakReference;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReference;
+import org.crac.Core;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.http.async.SimpleSubscriber;
+
+/**
+ * Ensure that the client survives a checkpoint and restore, and prewarms endpoints on restore.
+ */
+public class CheckpointRestoreTest {
+
+  @Rule
+  public WireMockRule mockServer = new WireMockRule(wireMockConfig().dynamicPort());
+
+  @Test(timeout = 5000)
+  public void requestAfterCheckpointRebuildsClientTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody("Hello world!")));
+
+    Java11AsyncHttpClient client = (Java11AsyncHttpClient) Java11AsyncHttpClient.builder()
+        .build();
+
+    HttpClient before = client.getHttpClient();
+
+    client.beforeCheckpoint();
+
+    assertThat(sendGet(client).statusCode()).isEqualTo(200);
+    assertThat(client.getHttpClient()).isNotSameAs(before);
+  }
+
+  @Test(timeout = 5000)
+  public void afterRestorePrewarmsEndpointsTest() throws Exception {
+    mockServer.stubFor(head(urlPathEqualTo("/")).willReturn(ok()));
+
+    Java11AsyncHttpClient client = (Java11AsyncHttpClient) Java11AsyncHttpClient.builder()
+        .prewarmEndpoints(
+            singletonList(URI.create(format("http://localhost:%d/", mockServer.port()))))
+        .build();
+
+    client.beforeCheckpoint();
+    client.afterRestore();
+
+    while (mockServer.findAll(headRequestedFor(urlPathEqualTo("/"))).isEmpty()) {
+      Thread.sleep(10L);
+    }
+  }
+
+  @Test(timeout = 5000)
+  public void registeredHooksRunTest() throws Exception {
+    Java11AsyncHttpClient client = (Java11AsyncHttpClient) Java11AsyncHttpClient.builder()
+        .registerCheckpointRestoreHooks(true).build();
+    try {
+      HttpClient before = client.getHttpClient();
+
+      Core.getGlobalContext().beforeCheckpoint(null);
+
+      assertThat(client.getHttpClient()).isNotSameAs(before);
+    } finally {
+      client.close();
+    }
+  }
+
+  /**
+   * A closed client must not be touched by checkpoints, nor kept alive by the hooks it registered.
+   */
+  @Test(timeout = 5000)
+  public void closedClientIsDeregisteredTest() throws Exception {
+    Java11AsyncHttpClient client = (Java11AsyncHttpClient) Java11AsyncHttpClient.builder()
+        .registerCheckpointRestoreHooks(true).build();
+    HttpClient before = client.getHttpClient();
+
+    client.close();
+    Core.getGlobalContext().beforeCheckpoint(null);
+    client.beforeCheckpoint();
+
+    assertThat(client.getHttpClient()).isSameAs(before);
+
+    WeakReference<Java11AsyncHttpClient> reference = new WeakReference<>(client);
+    client = null;
+    while (reference.get() != null) {
+      System.gc();
+      Thread.sleep(10L);
+    }
+  }
+
+  private SdkHttpResponse sendGet(Java11AsyncHttpClient client) throws Exception {
+    final AtomicReference<SdkHttpResponse> responseBuffer = new AtomicReference<>();
+    client.execute(AsyncExecuteRequest.builder().request(SdkHttpRequest.builder()
+            .uri(URI.create(format("http://localhost:%d/my/resource", mockServer.port())))
+            .method(SdkHttpMethod.GET).build()).fullDuplex(false)
+        .responseHandler(new SdkAsyncHttpResponseHandler() {
+          @Override
+          public void onHeaders(SdkHttpResponse hs) {
+            responseBuffer.set(hs);
+          }
+
+          @Override
+          public void onStream(Publisher<ByteBuffer> stream) {
+            stream.subscribe(new SimpleSubscriber(byteBuffer -> {
+            }));
+          }
+
+          @Override
+          public void onError(Throwable error) {
+            error.printStackTrace(System.err);
+          }
+        }).build()).get();
+    return responseBuffer.get();
+  }
+}
@@ -13,7 +13,9 @@ import java.net.URI;
 import java.net.http.HttpConnectTimeoutException;
 import java.nio.ByteBuffer;
 import java.time.Duration;
+import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -26,6 +28,8 @@ import org.eclipse.jetty.server.handler.ErrorHandler;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 import software.amazon.awssdk.http.AbortableInputStream;
 import software.amazon.awssdk.http.HttpExecuteResponse;
 import software.amazon.awssdk.http.SdkHttpMethod;
@@ -34,6 +38,7 @@ import software.amazon.awssdk.http.SdkHttpResponse;
 import software.amazon.awssdk.http.async.AsyncExecuteRequest;
 import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
 import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
 import software.amazon.awssdk.http.async.SimpleSubscriber;
 import software.amazon.awssdk.utils.SdkAutoCloseable;
 
@@ -237,6 +242,66 @@ public class Expect100ContinueTest {
     }
   }
 
+  /**
+   * When the server rejects a large upload based on its headers alone, the client should not send
+   * the body at all.
+   */
+  @Test
+  public void expect100ContinueRejectedUploadDoesNotSendBody() throws Exception {
+    Handler handler = new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+          HttpServletResponse response)
+          throws IOException {
+        // Reject the request without reading the body
+        response.setStatus(403);
+        response.setContentLength(0);
+        response.flushBuffer();
+      }
+    };
+
+    CountingSdkHttpContentPublisher body = new CountingSdkHttpContentPublisher(
+        UPLOAD_SIZE_IN_BYTES);
+    try (SdkAsyncHttpClient client = createClient();
+        EmbeddedServer server = new EmbeddedServer(handler)) {
+      HttpExecuteResponse response = sendRequest(client, server, body);
+      assertThat(response.httpResponse().statusCode()).isEqualTo(403);
+      assertThat(body.publishedBytes()).isEqualTo(0L);
+    }
+  }
+
+  /**
+   * Bodies smaller than the threshold should not wait for the server to accept them.
+   */
+  @Test
+  public void expect100ContinueBelowThresholdSendsBody() throws Exception {
+    Handler handler = new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+          HttpServletResponse response)
+          throws IOException {
+        request.getInputStream().readAllBytes();
+        response.setStatus(200);
+        response.setContentLength(0);
+        response.flushBuffer();
+      }
+    };
+
+    CountingSdkHttpContentPublisher body = new CountingSdkHttpContentPublisher(
+        UPLOAD_SIZE_IN_BYTES);
+    try (SdkAsyncHttpClient client = Java11AsyncHttpClient.builder()
+        .connectionTimeout(Duration.ofSeconds(5L))
+        .expectContinueThresholdInBytes(UPLOAD_SIZE_IN_BYTES + 1L)
+        .build();
+        EmbeddedServer server = new EmbeddedServer(handler)) {
+      HttpExecuteResponse response = sendRequest(client, server, body);
+      assertThat(response.httpResponse().statusCode()).isEqualTo(200);
+      assertThat(body.publishedBytes()).isEqualTo(UPLOAD_SIZE_IN_BYTES);
+    }
+  }
+
+  private static final long UPLOAD_SIZE_IN_BYTES = 8L * 1024L * 1024L;
+
   private HttpExecuteResponse sendRequest(SdkAsyncHttpClient client, EmbeddedServer server)
       throws IOException {
     return sendRequest(client, server, false);
@@ -245,6 +310,12 @@ public class Expect100ContinueTest {
   private HttpExecuteResponse sendRequest(SdkAsyncHttpClient client, EmbeddedServer server,
       boolean chunked)
       throws IOException {
+    return sendRequest(client, server, new SimpleSdkHttpContentPublisher(new byte[0], !chunked));
+  }
+
+  private HttpExecuteResponse sendRequest(SdkAsyncHttpClient client, EmbeddedServer server,
+      SdkHttpContentPublisher body)
+      throws IOException {
     final AtomicReference<SdkHttpResponse> responseBuffer = new AtomicReference<>();
     final ByteArrayOutputStream bodyBuffer = new ByteArrayOutputStream();
     final URI serverUri = server.uri();
@@ -257,7 +328,7 @@ public class Expect100ContinueTest {
       client.execute(AsyncExecuteRequest.builder()
               .request(requestBuilder.build())
               .fullDuplex(true)
-              .requestContentPublisher(new SimpleSdkHttpContentPublisher(new byte[0], !chunked))
+              .requestContentPublisher(body)
               .responseHandler(new SdkAsyncHttpResponseHandler() {
                 @Override
                 public void onHeaders(SdkHttpResponse headers) {
@@ -315,6 +386,59 @@ public class Expect100ContinueTest {
         .build();
   }
 
+  /**
+   * Publishes the given number of zero bytes in chunks as requested, and counts how many bytes were
+   * actually published.
+   */
+  private static class CountingSdkHttpContentPublisher implements SdkHttpContentPublisher {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final long contentLength;
+    private final AtomicLong publishedBytes = new AtomicLong(0L);
+
+    public CountingSdkHttpContentPublisher(long contentLength) {
+      this.contentLength = contentLength;
+    }
+
+    @Override
+    public Optional<Long> contentLength() {
+      return Optional.of(contentLength);
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+      subscriber.onSubscribe(new Subscription() {
+        private long remaining = contentLength;
+        private boolean done;
+
+        @Override
+        public synchronized void request(long n) {
+          for (long i = 0; i < n && !done; i++) {
+            if (remaining == 0L) {
+              done = true;
+              subscriber.onComplete();
+            } else {
+              int size = (int) Math.min(CHUNK_SIZE, remaining);
+              remaining = remaining - size;
+              publishedBytes.addAndGet(size);
+              subscriber.onNext(ByteBuffer.allocate(size));
+            }
+          }
+        }
+
+        @Override
+        public synchronized void cancel() {
+          done = true;
+        }
+      });
+    }
+
+    public long publishedBytes() {
+      return publishedBytes.get();
+    }
+  }
+
   private static class EmbeddedServer implements SdkAutoCloseable {
     // TODO It might be nice to refactor this to use WireMock?
 
@@ -0,0 +1,137 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.lang.String.format;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.SubmissionPublisher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reactivestreams.FlowAdapters;
+import software.amazon.awssdk.http.SdkHttpFullResponse;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+
+/**
+ * Ensure that response bodies are written into files correctly, both by the client directly and
+ * through the generic stream interface.
+ */
+public class FileResponseHandlerTest {
+
+  @Rule
+  public WireMockRule mockServer = new WireMockRule(wireMockConfig().dynamicPort());
+
+  private Path file;
+
+  @Before
+  public void setupFileResponseHandlerTest() throws Exception {
+    file = Files.createTempFile("FileResponseHandlerTest", ".txt");
+  }
+
+  @After
+  public void cleanupFileResponseHandlerTest() throws Exception {
+    Files.deleteIfExists(file);
+  }
+
+  @Test(timeout = 5000)
+  public void successfulResponseIsWrittenAtPositionTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody("world")));
+
+    Files.write(file, "hello      !".getBytes(StandardCharsets.UTF_8));
+
+    FileResponseHandler handler = FileResponseHandler.builder().path(file).position(6L)
+        .truncateExisting(false).fsyncPolicy(FsyncPolicy.DATA).build();
+
+    send(handler);
+
+    assertThat(handler.future().get()).isEqualTo(5L);
+    assertThat(handler.response().statusCode()).isEqualTo(200);
+    assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo(
+        "hello world!");
+  }
+
+  @Test(timeout = 5000)
+  public void emptyResponseTruncatesFileTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok()));
+
+    Files.write(file, "original".getBytes(StandardCharsets.UTF_8));
+
+    FileResponseHandler handler = FileResponseHandler.builder().path(file).build();
+
+    send(handler);
+
+    assertThat(handler.future().get()).isEqualTo(0L);
+    assertThat(handler.response().statusCode()).isEqualTo(200);
+    assertThat(Files.size(file)).isEqualTo(0L);
+  }
+
+  @Test(timeout = 5000)
+  public void emptyResponseCreatesFileTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok()));
+
+    Files.delete(file);
+
+    FileResponseHandler handler = FileResponseHandler.builder().path(file).build();
+
+    send(handler);
+
+    assertThat(handler.future().get()).isEqualTo(0L);
+    assertThat(file).exists();
+    assertThat(Files.size(file)).isEqualTo(0L);
+  }
+
+  @Test(timeout = 5000)
+  public void unsuccessfulResponseIsNotWrittenTest() throws Exception {
+    mockServer.stubFor(
+        get("/my/resource").willReturn(aResponse().withStatus(404).withBody("Not found")));
+
+    Files.write(file, "original".getBytes(StandardCharsets.UTF_8));
+
+    FileResponseHandler handler = FileResponseHandler.builder().path(file).build();
+
+    send(handler);
+
+    assertThat(handler.future().get()).isEqualTo(0L);
+    assertThat(handler.response().statusCode()).isEqualTo(404);
+    assertThat(new String(handler.errorBody(), StandardCharsets.UTF_8)).isEqualTo("Not found");
+    assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo(
+        "original");
+  }
+
+  @Test(timeout = 5000)
+  public void streamIsWrittenTest() throws Exception {
+    FileResponseHandler handler = FileResponseHandler.builder().path(file).build();
+
+    handler.onHeaders(SdkHttpFullResponse.builder().statusCode(200).build());
+    try (SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>()) {
+      handler.onStream(FlowAdapters.toPublisher(publisher));
+      publisher.submit(ByteBuffer.wrap("hello ".getBytes(StandardCharsets.UTF_8)));
+      publisher.submit(ByteBuffer.wrap("world".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    assertThat(handler.future().get()).isEqualTo(11L);
+    assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo(
+        "hello world");
+  }
+
+  private void send(FileResponseHandler handler) throws Exception {
+    SdkAsyncHttpClient client = Java11AsyncHttpClient.builder().build();
+    client.execute(AsyncExecuteRequest.builder().request(SdkHttpRequest.builder()
+            .uri(URI.create(format("http://localhost:%d/my/resource", mockServer.port())))
+            .method(SdkHttpMethod.GET).build()).fullDuplex(false).responseHandler(handler).build())
+        .get();
+  }
+}
@@ -29,6 +29,8 @@ import java.net.URI;
 import java.net.http.HttpTimeoutException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -950,5 +952,58 @@ public class Java11AsyncHttpClientWireMockTest {
     assertThat(errors).isEqualTo(0);
   }
 
+  /**
+   * We should be able to send a region of a file as an entity
+   */
+  @Test(timeout = 5000)
+  public void requestBodyFromFileTest() throws Exception {
+    // Setup the WireMock mapping stub for the test
+    final String requestBody = "example";
+    stubFor(post("/my/resource").withRequestBody(equalTo(requestBody))
+        .withHeader("Content-Length", equalTo("7")).willReturn(
+            ok().withHeader("Content-Type", "application/json")
+                .withBody("{\"message\":\"Hello world!\"}")));
+
+    mockServer.start();
 
+    final Path file = Files.createTempFile("requestBodyFromFileTest", ".txt");
+    try {
+      Files.write(file, ("an " + requestBody + " file").getBytes(StandardCharsets.UTF_8));
+
+      // Set up request (with HTTP Client embedded in Java 11+)
+      SdkAsyncHttpClient client = Java11AsyncHttpClient.builder()
+          .tlsTrustManagersProvider(() -> new TrustManager[]{new TrustAllTrustManager()}).build();
+
+      final AtomicReference<SdkHttpResponse> responseBuffer = new AtomicReference<>();
+      CompletableFuture<Void> future = client.execute(AsyncExecuteRequest.builder().request(
+              SdkHttpRequest.builder().protocol("https").uri(URI.create(mockServer.url("/my/resource")))
+                  .method(SdkHttpMethod.POST).build()).fullDuplex(true)
+          .requestContentPublisher(FileContentPublisher.create(file, 3L, 7L))
+          .responseHandler(new SdkAsyncHttpResponseHandler() {
+            @Override
+            public void onHeaders(SdkHttpResponse hs) {
+              responseBuffer.set(hs);
+            }
+
+            @Override
+            public void onStream(Publisher<ByteBuffer> stream) {
+              stream.subscribe(new SimpleSubscriber(byteBuffer -> {
+              }));
+            }
+
+            @Override
+            public void onError(Throwable error) {
+              error.printStackTrace(System.err);
+            }
+          }).build());
+
+      // Wait for the response to complete
+      future.get();
+
+      // Make sure everything looks right
+      assertThat(responseBuffer.get().statusCode()).isEqualTo(200);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
 }
@@ -0,0 +1,139 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.lang.String.format;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import software.amazon.awssdk.http.Protocol;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.http.async.SimpleSubscriber;
+
+/**
+ * Ensure that the client remembers which protocol each endpoint speaks when negotiating, and that
+ * per-request protocol routes are honored.
+ */
+public class ProtocolNegotiationTest {
+
+  @Rule
+  public WireMockRule mockServer = new WireMockRule(wireMockConfig().dynamicPort());
+
+  /**
+   * The mock server only speaks HTTP/1.1 in cleartext, so the first request should attempt an
+   * upgrade to HTTP/2, and later requests should not.
+   */
+  @Test(timeout = 5000)
+  public void alpnRemembersHttp11EndpointsTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody("Hello world!")));
+
+    SdkAsyncHttpClient client = Java11AsyncHttpClient.builder()
+        .protocolNegotiation(ProtocolNegotiation.ALPN).build();
+
+    sendGet(client);
+    sendGet(client);
+
+    List<LoggedRequest> requests = mockServer.getAllServeEvents().stream()
+        .map(e -> e.getRequest())
+        .sorted(Comparator.comparing(LoggedRequest::getLoggedDate))
+        .collect(Collectors.toList());
+    assertThat(requests).hasSize(2);
+    assertThat(requests.get(0).containsHeader("Upgrade")).isTrue();
+    assertThat(requests.get(1).containsHeader("Upgrade")).isFalse();
+  }
+
+  /**
+   * Routes should override the client's protocol for matching requests only.
+   */
+  @Test(timeout = 5000)
+  public void routingTableOverridesProtocolTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody("Hello world!")));
+    mockServer.stubFor(get("/my/other/resource").willReturn(ok().withBody("Hello world!")));
+
+    SdkAsyncHttpClient client = Java11AsyncHttpClient.builder().protocol(Protocol.HTTP2)
+        .protocolRoutingTable(ProtocolRoutingTable.builder()
+            .route(RequestPattern.builder().path("/my/other/.*").build(), Protocol.HTTP1_1)
+            .build())
+        .build();
+
+    sendGet(client, "/my/other/resource");
+    sendGet(client, "/my/resource");
+
+    List<LoggedRequest> requests = mockServer.getAllServeEvents().stream()
+        .map(e -> e.getRequest())
+        .sorted(Comparator.comparing(LoggedRequest::getLoggedDate))
+        .collect(Collectors.toList());
+    assertThat(requests).hasSize(2);
+    assertThat(requests.get(0).containsHeader("Upgrade")).isFalse();
+    assertThat(requests.get(1).containsHeader("Upgrade")).isTrue();
+  }
+
+  /**
+   * A route that forces a protocol on one request says nothing about what the endpoint speaks, so
+   * it must not pin later unrouted requests to the same endpoint.
+   */
+  @Test(timeout = 5000)
+  public void routedResponsesAreNotRememberedTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody("Hello world!")));
+    mockServer.stubFor(get("/my/other/resource").willReturn(ok().withBody("Hello world!")));
+
+    SdkAsyncHttpClient client = Java11AsyncHttpClient.builder()
+        .protocolNegotiation(ProtocolNegotiation.ALPN)
+        .protocolRoutingTable(ProtocolRoutingTable.builder()
+            .route(RequestPattern.builder().path("/my/other/.*").build(), Protocol.HTTP1_1)
+            .build())
+        .build();
+
+    sendGet(client, "/my/other/resource");
+    sendGet(client, "/my/resource");
+
+    List<LoggedRequest> requests = mockServer.getAllServeEvents().stream()
+        .map(e -> e.getRequest())
+        .sorted(Comparator.comparing(LoggedRequest::getLoggedDate))
+        .collect(Collectors.toList());
+    assertThat(requests).hasSize(2);
+    assertThat(requests.get(0).containsHeader("Upgrade")).isFalse();
+    assertThat(requests.get(1).containsHeader("Upgrade")).isTrue();
+  }
+
+  private void sendGet(SdkAsyncHttpClient client) throws Exception {
+    sendGet(client, "/my/resource");
+  }
+
+  private void sendGet(SdkAsyncHttpClient client, String path) throws Exception {
+    client.execute(AsyncExecuteRequest.builder().request(SdkHttpRequest.builder()
+            .uri(URI.create(format("http://localhost:%d%s", mockServer.port(), path)))
+            .method(SdkHttpMethod.GET).build()).fullDuplex(false)
+        .responseHandler(new SdkAsyncHttpResponseHandler() {
+          @Override
+          public void onHeaders(SdkHttpResponse hs) {
+          }
+
+          @Override
+          public void onStream(Publisher<ByteBuffer> stream) {
+            stream.subscribe(new SimpleSubscriber(byteBuffer -> {
+            }));
+          }
+
+          @Override
+          public void onError(Throwable error) {
+            error.printStackTrace(System.err);
+          }
+        }).build()).get();
+  }
+}
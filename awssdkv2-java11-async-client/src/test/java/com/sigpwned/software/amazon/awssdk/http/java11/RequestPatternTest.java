@@ -0,0 +1,53 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import org.junit.Test;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+
+public class RequestPatternTest {
+
+  private static final SdkHttpRequest GET_ITEM = SdkHttpRequest.builder()
+      .uri(URI.create("https://dynamodb.us-east-1.amazonaws.com/"))
+      .method(SdkHttpMethod.POST)
+      .putHeader("X-Amz-Target", "DynamoDB_20120810.GetItem")
+      .build();
+
+  @Test
+  public void emptyPatternMatchesEverythingTest() {
+    assertThat(RequestPattern.builder().build().matches(GET_ITEM)).isTrue();
+  }
+
+  @Test
+  public void hostPatternTest() {
+    assertThat(RequestPattern.builder().host("*.AMAZONAWS.com").build().matches(GET_ITEM))
+        .isTrue();
+    assertThat(RequestPattern.builder().host("dynamodb.us-east-1.amazonaws.com").build()
+        .matches(GET_ITEM)).isTrue();
+    assertThat(RequestPattern.builder().host("*.example.com").build().matches(GET_ITEM))
+        .isFalse();
+    assertThat(RequestPattern.builder().host("amazonaws.com").build().matches(GET_ITEM))
+        .isFalse();
+  }
+
+  @Test
+  public void methodAndPathPatternTest() {
+    assertThat(RequestPattern.builder().method(SdkHttpMethod.POST).path("/").build()
+        .matches(GET_ITEM)).isTrue();
+    assertThat(RequestPattern.builder().method(SdkHttpMethod.GET).build().matches(GET_ITEM))
+        .isFalse();
+    assertThat(RequestPattern.builder().path("/tables/.*").build().matches(GET_ITEM)).isFalse();
+  }
+
+  @Test
+  public void headerPatternTest() {
+    assertThat(RequestPattern.builder().header("x-amz-target", "DynamoDB_\\d+\\.GetItem").build()
+        .matches(GET_ITEM)).isTrue();
+    assertThat(RequestPattern.builder().header("X-Amz-Target", "DynamoDB_\\d+\\.Query").build()
+        .matches(GET_ITEM)).isFalse();
+    assertThat(RequestPattern.builder().header("X-Missing", ".*").build().matches(GET_ITEM))
+        .isFalse();
+  }
+}
@@ -0,0 +1,232 @@
+package com.sigpwned.software.amazon.awssdk.http.java11;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.head;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static java.lang.String.format;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+
+/**
+ * Ensure that small and bodiless responses take the fast paths, and that everything else still
+ * streams correctly.
+ */
+public class ResponseBodyFastPathTest {
+
+  @Rule
+  public WireMockRule mockServer = new WireMockRule(wireMockConfig().dynamicPort());
+
+  @Test(timeout = 5000)
+  public void smallBodyIsPublishedAsOneBufferTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody("{\"message\":\"Hello\"}")));
+
+    RecordingHandler handler = send(Java11AsyncHttpClient.builder().build(), SdkHttpMethod.GET);
+
+    assertThat(new String(handler.body.get(), StandardCharsets.UTF_8)).isEqualTo(
+        "{\"message\":\"Hello\"}");
+    assertThat(handler.buffers.get()).isEqualTo(1);
+  }
+
+  @Test(timeout = 5000)
+  public void largeBodyIsStreamedTest() throws Exception {
+    byte[] content = new byte[256 * 1024];
+    Arrays.fill(content, (byte) 'x');
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody(content)));
+
+    RecordingHandler handler = send(
+        Java11AsyncHttpClient.builder().smallResponseBodyThresholdInBytes(1024).build(),
+        SdkHttpMethod.GET);
+
+    assertThat(handler.body.get()).isEqualTo(content);
+    assertThat(handler.buffers.get()).isGreaterThan(1);
+  }
+
+  @Test(timeout = 5000)
+  public void spilledBodyIsReceivedTest() throws Exception {
+    byte[] content = new byte[256 * 1024];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody(content)));
+
+    RecordingHandler handler = send(
+        Java11AsyncHttpClient.builder().responseSpillThresholdInBytes(1024L).build(),
+        SdkHttpMethod.GET);
+
+    assertThat(handler.body.get()).isEqualTo(content);
+  }
+
+  @Test(timeout = 5000)
+  public void compressedBodyIsDecodedTest() throws Exception {
+    byte[] content = new byte[256 * 1024];
+    Arrays.fill(content, (byte) 'x');
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(encoded)) {
+      out.write(content);
+    }
+    mockServer.stubFor(get("/my/resource").willReturn(
+        ok().withHeader("Content-Encoding", "gzip").withBody(encoded.toByteArray())));
+
+    RecordingHandler handler = send(
+        Java11AsyncHttpClient.builder().decompressResponses(true).build(), SdkHttpMethod.GET);
+
+    assertThat(handler.body.get()).isEqualTo(content);
+    assertThat(handler.response.firstMatchingHeader("Content-Encoding")).isEmpty();
+    assertThat(handler.response.firstMatchingHeader("Content-Length")).isEmpty();
+    mockServer.verify(getRequestedFor(urlEqualTo("/my/resource")).withHeader("Accept-Encoding",
+        equalTo("gzip, deflate")));
+  }
+
+  /**
+   * S3 serves an object stored with a {@code Content-Encoding} as it is, whatever the request asked
+   * for. The SDK must see exactly the bytes that were stored, or its checksums will not match.
+   */
+  @Test(timeout = 5000)
+  public void objectStoredEncodedIsNotDecodedTest() throws Exception {
+    byte[] content = new byte[256 * 1024];
+    Arrays.fill(content, (byte) 'x');
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(encoded)) {
+      out.write(content);
+    }
+    mockServer.stubFor(get("/my/resource").willReturn(
+        ok().withHeader("Content-Encoding", "gzip").withBody(encoded.toByteArray())));
+
+    RecordingHandler handler = send(
+        Java11AsyncHttpClient.builder().decompressResponses(true).build(), SdkHttpRequest.builder()
+            .uri(URI.create(format("http://localhost:%d/my/resource", mockServer.port())))
+            .putHeader("Accept-Encoding", "identity").method(SdkHttpMethod.GET).build());
+
+    assertThat(handler.body.get()).isEqualTo(encoded.toByteArray());
+    assertThat(handler.response.firstMatchingHeader("Content-Encoding")).hasValue("gzip");
+    mockServer.verify(getRequestedFor(urlEqualTo("/my/resource")).withHeader("Accept-Encoding",
+        equalTo("identity")));
+  }
+
+  @Test(timeout = 5000)
+  public void oversizedBodyFailsTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(ok().withBody(new byte[64 * 1024])));
+
+    Java11AsyncHttpClient client = (Java11AsyncHttpClient) Java11AsyncHttpClient.builder()
+        .maxResponseSizeInBytes(1024L).build();
+
+    assertThatThrownBy(() -> send(client, SdkHttpMethod.GET))
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(ResponseTooLargeException.class);
+    assertThat(client.bufferedResponseBytes()).isEqualTo(0L);
+  }
+
+  @Test(timeout = 5000)
+  public void headResponseIsEmptyTest() throws Exception {
+    mockServer.stubFor(
+        head(urlEqualTo("/my/resource")).willReturn(ok().withHeader("Content-Length", "1234")));
+
+    RecordingHandler handler = send(Java11AsyncHttpClient.builder().build(), SdkHttpMethod.HEAD);
+
+    assertThat(handler.response.statusCode()).isEqualTo(200);
+    assertThat(handler.body.get()).isEmpty();
+    assertThat(handler.buffers.get()).isEqualTo(0);
+  }
+
+  @Test(timeout = 5000)
+  public void noContentResponseIsEmptyTest() throws Exception {
+    mockServer.stubFor(get("/my/resource").willReturn(aResponse().withStatus(204)));
+
+    RecordingHandler handler = send(Java11AsyncHttpClient.builder().build(), SdkHttpMethod.GET);
+
+    assertThat(handler.response.statusCode()).isEqualTo(204);
+    assertThat(handler.body.get()).isEmpty();
+    assertThat(handler.buffers.get()).isEqualTo(0);
+  }
+
+  private RecordingHandler send(SdkAsyncHttpClient client, SdkHttpMethod method)
+      throws Exception {
+    return send(client, SdkHttpRequest.builder()
+        .uri(URI.create(format("http://localhost:%d/my/resource", mockServer.port())))
+        .method(method).build());
+  }
+
+  private RecordingHandler send(SdkAsyncHttpClient client, SdkHttpRequest request)
+      throws Exception {
+    RecordingHandler handler = new RecordingHandler();
+    client.execute(AsyncExecuteRequest.builder().request(request).fullDuplex(false)
+        .responseHandler(handler).build()).get();
+    return handler;
+  }
+
+  /**
+   * Collects the body, and counts how many buffers it arrived in
+   */
+  private static class RecordingHandler implements SdkAsyncHttpResponseHandler {
+
+    public volatile SdkHttpResponse response;
+    public final AtomicInteger buffers = new AtomicInteger(0);
+    public final CompletableFuture<byte[]> body = new CompletableFuture<>();
+
+    @Override
+    public void onHeaders(SdkHttpResponse headers) {
+      response = headers;
+    }
+
+    @Override
+    public void onStream(Publisher<ByteBuffer> stream) {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      stream.subscribe(new Subscriber<ByteBuffer>() {
+        @Override
+        public void onSubscribe(Subscription s) {
+          s.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ByteBuffer b) {
+          buffers.incrementAndGet();
+          byte[] bytes = new byte[b.remaining()];
+          b.get(bytes);
+          buffer.write(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+          body.completeExceptionally(t);
+        }
+
+        @Override
+        public void onComplete() {
+          body.complete(buffer.toByteArray());
+        }
+      });
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      body.completeExceptionally(error);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.DnsCacheConfiguration;
+import com.sigpwned.software.amazon.awssdk.http.java11.DnsCacheStatistics;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CachingHostResolverTest {
+
+  private static final DnsCacheConfiguration CONFIGURATION = DnsCacheConfiguration.builder()
+      .ttl(Duration.ofSeconds(60)).negativeTtl(Duration.ofSeconds(5))
+      .refreshAhead(Duration.ofSeconds(10)).maximumSize(2).build();
+
+  private FakeBackend backend;
+
+  private List<Runnable> refreshes;
+
+  private long now;
+
+  private CachingHostResolver resolver;
+
+  @Before
+  public void setupResolverTest() {
+    backend = new FakeBackend();
+    refreshes = new ArrayList<>();
+    now = 0L;
+    resolver = new CachingHostResolver(CONFIGURATION, backend, refreshes::add, () -> now);
+  }
+
+  @Test
+  public void hitTest() throws Exception {
+    backend.addresses.put("example.com", new InetAddress[]{address(1)});
+
+    assertThat(resolver.resolve("example.com")).containsExactly(address(1));
+    assertThat(resolver.resolve("EXAMPLE.com")).containsExactly(address(1));
+
+    assertThat(backend.lookups).isEqualTo(1);
+    assertStatistics(resolver.statistics(), 1L, 0L, 1L, 0L, 0L);
+  }
+
+  @Test
+  public void expiryTest() throws Exception {
+    backend.addresses.put("example.com", new InetAddress[]{address(1)});
+
+    resolver.resolve("example.com");
+    now = Duration.ofSeconds(60).toNanos();
+    resolver.resolve("example.com");
+
+    assertThat(backend.lookups).isEqualTo(2);
+    assertStatistics(resolver.statistics(), 0L, 0L, 2L, 0L, 0L);
+  }
+
+  @Test
+  public void refreshTest() throws Exception {
+    backend.addresses.put("example.com", new InetAddress[]{address(1)});
+
+    resolver.resolve("example.com");
+
+    now = Duration.ofSeconds(50).toNanos();
+    backend.addresses.put("example.com", new InetAddress[]{address(2)});
+    assertThat(resolver.resolve("example.com")).containsExactly(address(1));
+    assertThat(resolver.resolve("example.com")).containsExactly(address(1));
+    assertThat(refreshes).hasSize(1);
+
+    refreshes.get(0).run();
+    assertThat(resolver.resolve("example.com")).containsExactly(address(2));
+
+    // The refreshed addresses live for a full TTL from the refresh
+    now = Duration.ofSeconds(90).toNanos();
+    assertThat(resolver.resolve("example.com")).containsExactly(address(2));
+
+    assertThat(backend.lookups).isEqualTo(2);
+    assertStatistics(resolver.statistics(), 4L, 0L, 1L, 1L, 0L);
+  }
+
+  @Test
+  public void failedRefreshTest() throws Exception {
+    backend.addresses.put("example.com", new InetAddress[]{address(1)});
+
+    resolver.resolve("example.com");
+
+    now = Duration.ofSeconds(50).toNanos();
+    backend.addresses.remove("example.com");
+    resolver.resolve("example.com");
+    refreshes.get(0).run();
+
+    // The old addresses are still good until they expire, and we don't try again before then
+    assertThat(resolver.resolve("example.com")).containsExactly(address(1));
+    assertThat(refreshes).hasSize(1);
+    assertStatistics(resolver.statistics(), 2L, 0L, 1L, 1L, 1L);
+  }
+
+  @Test
+  public void negativeTest() {
+    assertThatThrownBy(() -> resolver.resolve("missing.example.com"))
+        .isInstanceOf(UnknownHostException.class);
+    assertThatThrownBy(() -> resolver.resolve("missing.example.com"))
+        .isInstanceOf(UnknownHostException.class);
+    assertThat(backend.lookups).isEqualTo(1);
+
+    now = Duration.ofSeconds(5).toNanos();
+    assertThatThrownBy(() -> resolver.resolve("missing.example.com"))
+        .isInstanceOf(UnknownHostException.class);
+    assertThat(backend.lookups).isEqualTo(2);
+
+    assertStatistics(resolver.statistics(), 0L, 1L, 2L, 0L, 2L);
+  }
+
+  @Test
+  public void roundRobinTest() throws Exception {
+    backend.addresses.put("example.com",
+        new InetAddress[]{address(1), address(2), address(3)});
+
+    assertThat(resolver.resolve("example.com")).containsExactly(address(1), address(2),
+        address(3));
+    assertThat(resolver.resolve("example.com")).containsExactly(address(2), address(3),
+        address(1));
+    assertThat(resolver.resolve("example.com")).containsExactly(address(3), address(1),
+        address(2));
+    assertThat(resolver.resolve("example.com")).containsExactly(address(1), address(2),
+        address(3));
+  }
+
+  @Test
+  public void maximumSizeTest() throws Exception {
+    backend.addresses.put("a.example.com", new InetAddress[]{address(1)});
+    backend.addresses.put("b.example.com", new InetAddress[]{address(2)});
+    backend.addresses.put("c.example.com", new InetAddress[]{address(3)});
+
+    resolver.resolve("a.example.com");
+    resolver.resolve("b.example.com");
+    resolver.resolve("c.example.com");
+
+    assertThat(resolver.size()).isEqualTo(2);
+  }
+
+  private static void assertStatistics(DnsCacheStatistics statistics, long hits,
+      long negativeHits, long misses, long refreshes, long failures) {
+    assertThat(statistics.hits()).isEqualTo(hits);
+    assertThat(statistics.negativeHits()).isEqualTo(negativeHits);
+    assertThat(statistics.misses()).isEqualTo(misses);
+    assertThat(statistics.refreshes()).isEqualTo(refreshes);
+    assertThat(statistics.failures()).isEqualTo(failures);
+  }
+
+  private static InetAddress address(int n) throws UnknownHostException {
+    return InetAddress.getByAddress(new byte[]{10, 0, 0, (byte) n});
+  }
+
+  private static class FakeBackend implements CachingHostResolver.Backend {
+
+    public final Map<String, InetAddress[]> addresses = new HashMap<>();
+
+    public int lookups;
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+      lookups = lookups + 1;
+      InetAddress[] result = addresses.get(host);
+      if (result == null) {
+        throw new UnknownHostException(host);
+      }
+      return result;
+    }
+  }
+}
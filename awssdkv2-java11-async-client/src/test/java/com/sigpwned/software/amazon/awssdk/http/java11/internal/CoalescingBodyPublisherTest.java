@@ -0,0 +1,183 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+public class CoalescingBodyPublisherTest {
+
+  @Test
+  public void smallBuffersAreMergedTest() throws Exception {
+    // 100 buffers of 100 bytes each, all available immediately
+    final ListPublisher upstream = new ListPublisher(buffers(100, 100));
+
+    final List<ByteBuffer> written = collect(new CoalescingBodyPublisher(upstream, 100, 1000), 1);
+
+    assertThat(written).hasSize(10).allSatisfy(b -> assertThat(b.remaining()).isEqualTo(1000));
+    assertThat(concat(written)).isEqualTo(concat(buffers(100, 100)));
+  }
+
+  @Test
+  public void largeBuffersArePassedThroughTest() throws Exception {
+    final List<ByteBuffer> buffers = buffers(4, 5000);
+    final ListPublisher upstream = new ListPublisher(buffers);
+
+    final List<ByteBuffer> written = collect(new CoalescingBodyPublisher(upstream, 8, 1000),
+        Long.MAX_VALUE);
+
+    assertThat(written).hasSize(4).allSatisfy(b -> assertThat(b.remaining()).isEqualTo(5000));
+    assertThat(concat(written)).isEqualTo(concat(buffers));
+  }
+
+  @Test
+  public void coalescingCanBeDisabledTest() throws Exception {
+    final ListPublisher upstream = new ListPublisher(buffers(10, 100));
+
+    final List<ByteBuffer> written = collect(new CoalescingBodyPublisher(upstream, 100, 0), 1);
+
+    assertThat(written).hasSize(10);
+  }
+
+  @Test
+  public void upstreamDemandIsBoundedByPrefetchTest() {
+    final ListPublisher upstream = new ListPublisher(buffers(100, 100));
+
+    new CoalescingBodyPublisher(upstream, 4, 1000).subscribe(new Flow.Subscriber<ByteBuffer>() {
+      @Override
+      public void onSubscribe(Flow.Subscription subscription) {
+        // Never request anything
+      }
+
+      @Override
+      public void onNext(ByteBuffer item) {
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+      }
+
+      @Override
+      public void onComplete() {
+      }
+    });
+
+    assertThat(upstream.requested()).isEqualTo(4L);
+  }
+
+  private static List<ByteBuffer> collect(Flow.Publisher<ByteBuffer> publisher, long batch)
+      throws Exception {
+    final List<ByteBuffer> result = new ArrayList<>();
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+    publisher.subscribe(new Flow.Subscriber<ByteBuffer>() {
+      private Flow.Subscription subscription;
+
+      @Override
+      public void onSubscribe(Flow.Subscription s) {
+        subscription = s;
+        subscription.request(batch);
+      }
+
+      @Override
+      public void onNext(ByteBuffer item) {
+        result.add(item);
+        if (batch != Long.MAX_VALUE) {
+          subscription.request(batch);
+        }
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        done.completeExceptionally(throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        done.complete(null);
+      }
+    });
+    done.get();
+    return result;
+  }
+
+  private static List<ByteBuffer> buffers(int count, int size) {
+    final List<ByteBuffer> result = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      final byte[] bytes = new byte[size];
+      for (int j = 0; j < size; j++) {
+        bytes[j] = (byte) (i * size + j);
+      }
+      result.add(ByteBuffer.wrap(bytes));
+    }
+    return result;
+  }
+
+  private static byte[] concat(List<ByteBuffer> buffers) {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    for (ByteBuffer b : buffers) {
+      final ByteBuffer view = b.duplicate();
+      final byte[] bytes = new byte[view.remaining()];
+      view.get(bytes);
+      result.writeBytes(bytes);
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Publishes the given buffers synchronously as they are requested, and counts demand.
+   */
+  private static class ListPublisher implements Publisher<ByteBuffer> {
+
+    private final List<ByteBuffer> buffers;
+    private final AtomicLong requested = new AtomicLong(0L);
+
+    public ListPublisher(List<ByteBuffer> buffers) {
+      this.buffers = buffers;
+    }
+
+    public long requested() {
+      return requested.get();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+      subscriber.onSubscribe(new Subscription() {
+        private int next;
+        private long demand;
+        private boolean emitting;
+
+        @Override
+        public void request(long n) {
+          requested.addAndGet(n);
+          demand = demand + n;
+          if (emitting) {
+            return;
+          }
+          emitting = true;
+          while (demand > 0L && next < buffers.size()) {
+            demand = demand - 1L;
+            subscriber.onNext(buffers.get(next++).duplicate());
+          }
+          emitting = false;
+          if (next == buffers.size()) {
+            next = next + 1;
+            subscriber.onComplete();
+          }
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+    }
+  }
+}
@@ -0,0 +1,251 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.RequestCompression;
+import com.sigpwned.software.amazon.awssdk.http.java11.RequestPattern;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Flow;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+
+public class CompressingBodyPublisherTest {
+
+  private static final byte[] CONTENT = content(1024 * 1024);
+
+  @Test
+  public void streamedBodyIsGzippedTest() throws IOException {
+    List<ByteBuffer> chunks = new ArrayList<>();
+    for (int offset = 0; offset < CONTENT.length; offset = offset + 1000) {
+      chunks.add(ByteBuffer.wrap(CONTENT, offset, Math.min(1000, CONTENT.length - offset)));
+    }
+
+    Collector collector = new Collector();
+    new CompressingBodyPublisher(new ListPublisher(chunks), pool()).subscribe(collector);
+
+    assertThat(collector.completed).isTrue();
+    assertThat(collector.buffers).isGreaterThan(1);
+    assertThat(collector.bytes.size()).isLessThan(CONTENT.length / 2);
+    assertThat(gunzip(collector.bytes.toByteArray())).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void emptyBodyIsGzippedTest() throws IOException {
+    Collector collector = new Collector();
+    new CompressingBodyPublisher(new ListPublisher(List.of()), pool()).subscribe(collector);
+
+    assertThat(collector.completed).isTrue();
+    assertThat(gunzip(collector.bytes.toByteArray())).isEmpty();
+  }
+
+  @Test
+  public void smallBodyIsGzippedAllAtOnceTest() throws IOException {
+    byte[] content = content(100);
+
+    assertThat(gunzip(GzipEncoder.encode(content, pool()))).isEqualTo(content);
+  }
+
+  @Test
+  public void matchingRequestIsCompressedTest() {
+    HttpRequest request = mapper().toJavaHttpClientRequest(executeRequest(
+        SdkHttpRequest.builder().method(SdkHttpMethod.POST)
+            .uri(URI.create("http://localhost/metrics")).build()));
+
+    assertThat(request.headers().firstValue("Content-Encoding")).hasValue("gzip");
+    assertThat(request.bodyPublisher()).hasValueSatisfying(
+        p -> assertThat(p.contentLength()).isLessThan(0L));
+  }
+
+  @Test
+  public void signedRequestIsNotCompressedTest() {
+    HttpRequest request = mapper().toJavaHttpClientRequest(executeRequest(
+        SdkHttpRequest.builder().method(SdkHttpMethod.POST)
+            .uri(URI.create("http://localhost/metrics"))
+            .putHeader("Authorization", "AWS4-HMAC-SHA256 Credential=...").build()));
+
+    assertThat(request.headers().firstValue("Content-Encoding")).isEmpty();
+    assertThat(request.bodyPublisher()).hasValueSatisfying(
+        p -> assertThat(p.contentLength()).isEqualTo(CONTENT.length));
+  }
+
+  @Test
+  public void encodedRequestIsNotCompressedTest() {
+    HttpRequest request = mapper().toJavaHttpClientRequest(executeRequest(
+        SdkHttpRequest.builder().method(SdkHttpMethod.POST)
+            .uri(URI.create("http://localhost/metrics"))
+            .putHeader("Content-Encoding", "br").build()));
+
+    assertThat(request.headers().allValues("Content-Encoding")).containsExactly("br");
+  }
+
+  @Test
+  public void otherRequestIsNotCompressedTest() {
+    HttpRequest request = mapper().toJavaHttpClientRequest(executeRequest(
+        SdkHttpRequest.builder().method(SdkHttpMethod.POST)
+            .uri(URI.create("http://localhost/other")).build()));
+
+    assertThat(request.headers().firstValue("Content-Encoding")).isEmpty();
+  }
+
+  private static JavaHttpClientRequestMapper mapper() {
+    return new JavaHttpClientRequestMapper(Duration.ofSeconds(30), 0L,
+        JavaHttpClientRequestMapper.DEFAULT_REQUEST_BODY_PREFETCH,
+        JavaHttpClientRequestMapper.DEFAULT_REQUEST_BODY_COALESCE_SIZE_IN_BYTES,
+        JavaHttpClientRequestMapper.DEFAULT_SMALL_REQUEST_BODY_THRESHOLD_IN_BYTES, false,
+        RequestCompression.builder().compress(RequestPattern.builder().path("/metrics").build())
+            .build());
+  }
+
+  private static AsyncExecuteRequest executeRequest(SdkHttpRequest request) {
+    return AsyncExecuteRequest.builder().request(request)
+        .requestContentPublisher(new SdkHttpContentPublisher() {
+          @Override
+          public Optional<Long> contentLength() {
+            return Optional.of((long) CONTENT.length);
+          }
+
+          @Override
+          public void subscribe(Subscriber<? super ByteBuffer> s) {
+            s.onSubscribe(new Subscription() {
+              @Override
+              public void request(long n) {
+              }
+
+              @Override
+              public void cancel() {
+              }
+            });
+          }
+        }).responseHandler(new SdkAsyncHttpResponseHandler() {
+          @Override
+          public void onHeaders(SdkHttpResponse headers) {
+          }
+
+          @Override
+          public void onStream(Publisher<ByteBuffer> stream) {
+          }
+
+          @Override
+          public void onError(Throwable error) {
+          }
+        }).fullDuplex(true).build();
+  }
+
+  private static DeflaterPool pool() {
+    return new DeflaterPool(Deflater.DEFAULT_COMPRESSION, 1);
+  }
+
+  private static byte[] gunzip(byte[] encoded) throws IOException {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(encoded))) {
+      return in.readAllBytes();
+    }
+  }
+
+  /**
+   * Repetitive content with varying values, like JSON metrics
+   */
+  private static byte[] content(int length) {
+    Random random = new Random(0L);
+    StringBuilder result = new StringBuilder();
+    while (result.length() < length) {
+      result.append("{\"metric\":\"latency\",\"value\":").append(random.nextInt(100000))
+          .append(",\"unit\":\"ms\"},");
+    }
+    return result.substring(0, length).getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Publishes the given buffers synchronously, on demand
+   */
+  private static class ListPublisher implements Flow.Publisher<ByteBuffer> {
+
+    private final List<ByteBuffer> buffers;
+
+    public ListPublisher(List<ByteBuffer> buffers) {
+      this.buffers = buffers;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+      final Iterator<ByteBuffer> iterator = buffers.iterator();
+      subscriber.onSubscribe(new Flow.Subscription() {
+        private boolean done;
+
+        @Override
+        public void request(long n) {
+          for (long i = 0; i < n && !done; i++) {
+            if (iterator.hasNext()) {
+              subscriber.onNext(iterator.next().duplicate());
+            } else {
+              done = true;
+              subscriber.onComplete();
+            }
+          }
+        }
+
+        @Override
+        public void cancel() {
+          done = true;
+        }
+      });
+    }
+  }
+
+  /**
+   * Collects the body, asking for one buffer at a time
+   */
+  private static class Collector implements Flow.Subscriber<ByteBuffer> {
+
+    public final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    public int buffers;
+    public boolean completed;
+    private Flow.Subscription subscription;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(1L);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+      buffers = buffers + 1;
+      byte[] b = new byte[item.remaining()];
+      item.get(b);
+      bytes.write(b, 0, b.length);
+      subscription.request(1L);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      throw new AssertionError(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+import org.junit.Test;
+
+public class ContentDecoderTest {
+
+  private static final byte[] CONTENT = content();
+
+  @Test
+  public void gzipTest() throws IOException {
+    assertThat(decodeAll("gzip", gzip(CONTENT), Integer.MAX_VALUE)).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void gzipSplitInputTest() throws IOException {
+    assertThat(decodeAll("gzip", gzip(CONTENT), 1)).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void gzipMultipleMembersTest() throws IOException {
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+    encoded.write(gzip(CONTENT));
+    encoded.write(gzip(CONTENT));
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    expected.write(CONTENT);
+    expected.write(CONTENT);
+
+    assertThat(decodeAll("x-gzip", encoded.toByteArray(), 7)).isEqualTo(
+        expected.toByteArray());
+  }
+
+  @Test
+  public void zlibDeflateTest() throws IOException {
+    assertThat(decodeAll("deflate", deflate(CONTENT, false), 3)).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void rawDeflateTest() throws IOException {
+    assertThat(decodeAll("deflate", deflate(CONTENT, true), 3)).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void corruptGzipFailsTest() throws IOException {
+    byte[] encoded = gzip(CONTENT);
+    // Break the CRC in the trailer
+    encoded[encoded.length - 8] = (byte) (encoded[encoded.length - 8] ^ 0xff);
+
+    assertThatThrownBy(() -> decodeAll("gzip", encoded, Integer.MAX_VALUE)).isInstanceOf(
+        ZipException.class);
+  }
+
+  @Test
+  public void truncatedGzipIsIncompleteTest() throws IOException {
+    byte[] encoded = gzip(CONTENT);
+    ContentDecoder decoder = ContentDecoder.forContentEncoding("gzip").get();
+    ByteBuffer input = ByteBuffer.wrap(encoded, 0, encoded.length - 4);
+    while (decoder.decode(input) != null) {
+      // Keep going
+    }
+
+    assertThat(decoder.isComplete()).isFalse();
+    decoder.release();
+  }
+
+  @Test
+  public void unknownEncodingIsNotDecodedTest() {
+    assertThat(ContentDecoder.forContentEncoding("br")).isEmpty();
+    assertThat(ContentDecoder.forContentEncoding("identity")).isEmpty();
+  }
+
+  /**
+   * Feeds the encoded body to a decoder in chunks of the given size, and collects the output
+   */
+  private static byte[] decodeAll(String contentEncoding, byte[] encoded, int chunkSize)
+      throws IOException {
+    ContentDecoder decoder = ContentDecoder.forContentEncoding(contentEncoding).get();
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try {
+      for (int offset = 0; offset < encoded.length; offset = offset + chunkSize) {
+        ByteBuffer input = ByteBuffer.wrap(encoded, offset,
+            Math.min(chunkSize, encoded.length - offset));
+        for (ByteBuffer output = decoder.decode(input); output != null;
+            output = decoder.decode(input)) {
+          assertThat(output.remaining()).isLessThanOrEqualTo(ContentDecoder.OUTPUT_SIZE);
+          byte[] bytes = new byte[output.remaining()];
+          output.get(bytes);
+          result.write(bytes);
+        }
+        assertThat(input.hasRemaining()).isFalse();
+      }
+      assertThat(decoder.isComplete()).isTrue();
+    } finally {
+      decoder.release();
+    }
+    return result.toByteArray();
+  }
+
+  private static byte[] gzip(byte[] content) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(result)) {
+      out.write(content);
+    }
+    return result.toByteArray();
+  }
+
+  private static byte[] deflate(byte[] content, boolean nowrap) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap);
+    try (DeflaterOutputStream out = new DeflaterOutputStream(result, deflater)) {
+      out.write(content);
+    } finally {
+      deflater.end();
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Somewhat compressible content, big enough to need several output buffers
+   */
+  private static byte[] content() {
+    Random random = new Random(0L);
+    byte[] result = new byte[200 * 1024];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return result;
+  }
+}
@@ -0,0 +1,104 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+public class ExchangeEventsTest {
+
+  private static final String PREFIX = "com.sigpwned.awssdk.http.java11.";
+
+  @Test
+  public void disabledTest() {
+    assertThat(ExchangeEvents.isEnabled()).isFalse();
+  }
+
+  @Test
+  public void completedTest() throws Exception {
+    List<RecordedEvent> events = record(() -> {
+      ExchangeEvents exchange = ExchangeEvents.start("s3.amazonaws.com", "GET", 0L);
+      exchange.headersReceived(200, 3L);
+      BodySubscriber<Void> subscriber = exchange.wrap(BodySubscribers.replacing(null));
+      subscriber.onSubscribe(new NoopSubscription());
+      subscriber.onNext(List.of(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+      subscriber.onComplete();
+    });
+
+    assertThat(names(events)).containsExactly("RequestDispatched", "ResponseHeaders",
+        "ResponseFirstByte", "ResponseCompleted");
+    RecordedEvent completed = events.get(3);
+    assertThat(completed.getString("host")).isEqualTo("s3.amazonaws.com");
+    assertThat(completed.getString("method")).isEqualTo("GET");
+    assertThat(completed.getInt("status")).isEqualTo(200);
+    assertThat(completed.getLong("responseBytes")).isEqualTo(3L);
+  }
+
+  @Test
+  public void cancelledTest() throws Exception {
+    List<RecordedEvent> events = record(() -> {
+      ExchangeEvents exchange = ExchangeEvents.start("s3.amazonaws.com", "GET", 0L);
+      exchange.headersReceived(200, 100L);
+      exchange.wrap(BodySubscribers.replacing(null)).onSubscribe(new NoopSubscription());
+      exchange.cancel();
+      exchange.timedOut();
+    });
+
+    assertThat(names(events)).containsExactly("RequestDispatched", "ResponseHeaders",
+        "ExchangeCancelled");
+  }
+
+  @Test
+  public void timedOutTest() throws Exception {
+    List<RecordedEvent> events = record(
+        () -> ExchangeEvents.start("sqs.amazonaws.com", "POST", 10L).timedOut());
+
+    assertThat(names(events)).containsExactly("RequestDispatched", "ExchangeTimedOut");
+    assertThat(events.get(0).getLong("requestBytes")).isEqualTo(10L);
+    assertThat(events.get(1).getInt("status")).isEqualTo(0);
+  }
+
+  private static List<RecordedEvent> record(Runnable exchange) throws Exception {
+    Path file = Files.createTempFile("exchange-events", ".jfr");
+    try (Recording recording = new Recording()) {
+      for (String name : List.of("RequestDispatched", "ResponseHeaders", "ResponseFirstByte",
+          "ResponseCompleted", "ExchangeCancelled", "ExchangeTimedOut")) {
+        recording.enable(PREFIX + name);
+      }
+      recording.start();
+      assertThat(ExchangeEvents.isEnabled()).isTrue();
+      exchange.run();
+      recording.stop();
+      recording.dump(file);
+      return RecordingFile.readAllEvents(file);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  private static List<String> names(List<RecordedEvent> events) {
+    return events.stream().map(e -> e.getEventType().getName().substring(PREFIX.length()))
+        .collect(Collectors.toList());
+  }
+
+  private static final class NoopSubscription implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FailoverProxySelectorTest {
+
+  private static final URI TARGET = URI.create("https://sqs.us-east-1.amazonaws.com/");
+
+  private static final Proxy FIRST = proxy("first.example.com", 3128);
+
+  private static final Proxy SECOND = proxy("second.example.com", 3128);
+
+  private static final Proxy THIRD = proxy("third.example.com", 3128);
+
+  private long now;
+
+  private FailoverProxySelector selector;
+
+  @Before
+  public void setupSelectorTest() {
+    now = 0L;
+    selector = new FailoverProxySelector(List.of(FIRST, SECOND, THIRD), Set.of("*.internal"),
+        Duration.ofSeconds(5), Duration.ofSeconds(30), Duration.ZERO, () -> now);
+  }
+
+  @Test
+  public void healthyTest() {
+    assertThat(selector.select(TARGET)).containsExactly(FIRST, SECOND, THIRD);
+  }
+
+  @Test
+  public void nonProxyHostTest() {
+    assertThat(selector.select(URI.create("http://service.internal/")))
+        .containsExactly(Proxy.NO_PROXY);
+  }
+
+  /**
+   * The executor credits the proxy the client actually selected, even if health changed since.
+   */
+  @Test
+  public void takeSelectedTest() {
+    assertThat(selector.takeSelected()).isNull();
+
+    selector.select(TARGET);
+    fail(FIRST);
+
+    assertThat(selector.takeSelected()).isEqualTo(FIRST);
+    assertThat(selector.takeSelected()).isNull();
+
+    selector.select(TARGET);
+    assertThat(selector.takeSelected()).isEqualTo(SECOND);
+
+    selector.select(URI.create("http://service.internal/"));
+    assertThat(selector.takeSelected()).isNull();
+  }
+
+  @Test
+  public void ejectionTest() {
+    fail(FIRST);
+
+    assertThat(selector.select(TARGET)).containsExactly(SECOND, THIRD, FIRST);
+
+    now = Duration.ofSeconds(5).toNanos();
+    assertThat(selector.select(TARGET)).containsExactly(FIRST, SECOND, THIRD);
+  }
+
+  @Test
+  public void backoffTest() {
+    fail(FIRST);
+    now = Duration.ofSeconds(5).toNanos();
+    fail(FIRST);
+
+    now = Duration.ofSeconds(14).toNanos();
+    assertThat(first(selector)).isEqualTo(SECOND);
+    now = Duration.ofSeconds(15).toNanos();
+    assertThat(first(selector)).isEqualTo(FIRST);
+
+    // A success ends the backoff
+    selector.connectSucceeded(FIRST);
+    fail(FIRST);
+    now = Duration.ofSeconds(20).toNanos();
+    assertThat(first(selector)).isEqualTo(FIRST);
+  }
+
+  @Test
+  public void maxEjectionTest() {
+    for (int i = 0; i < 10; i++) {
+      fail(FIRST);
+    }
+
+    now = Duration.ofSeconds(30).toNanos();
+    assertThat(first(selector)).isEqualTo(FIRST);
+  }
+
+  @Test
+  public void allEjectedTest() {
+    fail(FIRST);
+    now = Duration.ofSeconds(1).toNanos();
+    fail(SECOND);
+    now = Duration.ofSeconds(2).toNanos();
+    fail(THIRD);
+
+    assertThat(selector.select(TARGET)).containsExactly(FIRST, SECOND, THIRD);
+  }
+
+  @Test
+  public void healthCheckTest() throws Exception {
+    try (ServerSocket server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+      Proxy local = proxy("127.0.0.1", server.getLocalPort());
+      FailoverProxySelector checked = new FailoverProxySelector(List.of(local, SECOND), Set.of(),
+          Duration.ofMinutes(5), Duration.ofMinutes(5), Duration.ofMillis(50));
+      try {
+        checked.connectFailed(TARGET, local.address(), new ConnectException("refused"));
+        assertThat(first(checked)).isEqualTo(SECOND);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (first(checked) != local && System.nanoTime() - deadline < 0L) {
+          Thread.sleep(10L);
+        }
+
+        assertThat(first(checked)).isEqualTo(local);
+      } finally {
+        checked.close();
+      }
+    }
+  }
+
+  /**
+   * @return the proxy a request to the target goes through now
+   */
+  private static Proxy first(FailoverProxySelector selector) {
+    return selector.select(TARGET).get(0);
+  }
+
+  private void fail(Proxy proxy) {
+    selector.connectFailed(TARGET, proxy.address(), new IOException("refused"));
+  }
+
+  private static Proxy proxy(String host, int port) {
+    return new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(host, port));
+  }
+}
@@ -0,0 +1,73 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.FileContentPublisher;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+
+public class FileBodiesTest {
+
+  private Path file;
+
+  @Before
+  public void setupFileBodiesTest() throws Exception {
+    file = Files.createTempFile("FileBodiesTest", ".bin");
+    Files.write(file, new byte[1024]);
+  }
+
+  @After
+  public void cleanupFileBodiesTest() throws Exception {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void fileContentPublisherIsRecognizedTest() {
+    FileContentPublisher publisher = FileContentPublisher.create(file, 16L, 32L);
+    assertThat(FileBodies.fileRegion(publisher)).containsSame(publisher);
+  }
+
+  @Test
+  public void regionPastEndOfFileIsNotRecognizedTest() {
+    FileContentPublisher publisher = FileContentPublisher.create(file, 1000L, 32L);
+    assertThat(FileBodies.fileRegion(publisher)).isEmpty();
+  }
+
+  /**
+   * Make sure we can see through the SDK's own wrapping of file bodies in this SDK version.
+   */
+  @Test
+  public void sdkFileBodyIsRecognizedTest() throws Exception {
+    Class<?> adapterClass = Class.forName(
+        "software.amazon.awssdk.core.internal.http.pipeline.stages.MakeAsyncHttpRequestStage$SdkHttpContentPublisherAdapter");
+    Constructor<?> constructor = adapterClass.getDeclaredConstructor(AsyncRequestBody.class);
+    constructor.setAccessible(true);
+    SdkHttpContentPublisher adapter = (SdkHttpContentPublisher) constructor.newInstance(
+        AsyncRequestBody.fromFile(file));
+
+    FileContentPublisher region = FileBodies.fileRegion(adapter).orElse(null);
+
+    assertThat(region).isNotNull();
+    assertThat(region.path()).isEqualTo(file);
+    assertThat(region.position()).isEqualTo(0L);
+    assertThat(region.length()).isEqualTo(1024L);
+  }
+
+  @Test
+  public void otherSdkBodyIsNotRecognizedTest() throws Exception {
+    Class<?> adapterClass = Class.forName(
+        "software.amazon.awssdk.core.internal.http.pipeline.stages.MakeAsyncHttpRequestStage$SdkHttpContentPublisherAdapter");
+    Constructor<?> constructor = adapterClass.getDeclaredConstructor(AsyncRequestBody.class);
+    constructor.setAccessible(true);
+    SdkHttpContentPublisher adapter = (SdkHttpContentPublisher) constructor.newInstance(
+        AsyncRequestBody.fromString("Hello world!"));
+
+    assertThat(FileBodies.fileRegion(adapter)).isEmpty();
+  }
+}
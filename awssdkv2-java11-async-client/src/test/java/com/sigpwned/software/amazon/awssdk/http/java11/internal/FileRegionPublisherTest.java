@@ -0,0 +1,142 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileRegionPublisherTest {
+
+  private static final int LENGTH = 1024 * 1024;
+
+  private Path file;
+  private byte[] content;
+
+  @Before
+  public void setupFileRegionPublisherTest() throws Exception {
+    file = Files.createTempFile("FileRegionPublisherTest", ".bin");
+    content = new byte[LENGTH];
+    new Random(LENGTH).nextBytes(content);
+    Files.write(file, content);
+  }
+
+  @After
+  public void cleanupFileRegionPublisherTest() throws Exception {
+    Files.deleteIfExists(file);
+  }
+
+  @Test
+  public void readRegionTest() throws Exception {
+    CollectingSubscriber subscriber = new CollectingSubscriber();
+    new FileRegionPublisher(file, 16L, LENGTH - 32L).subscribe(subscriber);
+    subscriber.request(Long.MAX_VALUE);
+
+    byte[] expected = new byte[LENGTH - 32];
+    System.arraycopy(content, 16, expected, 0, expected.length);
+    assertThat(subscriber.body.get()).isEqualTo(expected);
+  }
+
+  @Test
+  public void modifiedFileFailsTest() throws Exception {
+    CollectingSubscriber subscriber = new CollectingSubscriber();
+    new FileRegionPublisher(file, 0L, LENGTH).subscribe(subscriber);
+    subscriber.request(1L);
+
+    Files.setLastModifiedTime(file, FileTime.fromMillis(
+        Files.getLastModifiedTime(file).toMillis() + 10000L));
+    subscriber.request(Long.MAX_VALUE);
+
+    assertFailed(subscriber, "last-modified time changed");
+  }
+
+  @Test
+  public void truncatedFileFailsTest() throws Exception {
+    CollectingSubscriber subscriber = new CollectingSubscriber();
+    new FileRegionPublisher(file, 0L, LENGTH).subscribe(subscriber);
+
+    try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+      f.setLength(LENGTH / 2);
+    }
+    subscriber.request(Long.MAX_VALUE);
+
+    assertFailed(subscriber, "shorter than the region");
+  }
+
+  /**
+   * Reading a mapped window of a file truncated under it throws an error, not an exception. It must
+   * still fail the subscription, or the request would hang.
+   */
+  @Test
+  public void fileTruncatedUnderWindowFailsTest() throws Exception {
+    CollectingSubscriber subscriber = new CollectingSubscriber();
+    new FileRegionPublisher(file, 0L, LENGTH).subscribe(subscriber);
+    subscriber.request(1L);
+
+    try (RandomAccessFile f = new RandomAccessFile(file.toFile(), "rw")) {
+      f.setLength(0L);
+    }
+    subscriber.request(Long.MAX_VALUE);
+
+    try {
+      subscriber.body.get();
+      throw new AssertionError("publisher should have failed");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(InternalError.class);
+    }
+  }
+
+  private static void assertFailed(CollectingSubscriber subscriber, String message)
+      throws InterruptedException {
+    try {
+      subscriber.body.get();
+      throw new AssertionError("publisher should have failed");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(IOException.class).hasMessageContaining(message);
+    }
+  }
+
+  private static class CollectingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+    public final CompletableFuture<byte[]> body = new CompletableFuture<>();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private Flow.Subscription subscription;
+
+    public void request(long n) {
+      subscription.request(n);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+      byte[] chunk = new byte[item.remaining()];
+      item.get(chunk);
+      bytes.write(chunk, 0, chunk.length);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      body.complete(bytes.toByteArray());
+    }
+  }
+}
@@ -0,0 +1,224 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.HedgingPolicy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLSession;
+import org.junit.After;
+import org.junit.Test;
+
+public class HedgedExchangeTest {
+
+  private static final URI ENDPOINT = URI.create("https://dynamodb.us-east-1.amazonaws.com/");
+
+  private static final HttpRequest REQUEST = HttpRequest.newBuilder(ENDPOINT).GET().build();
+
+  private final List<Attempt> attempts = new CopyOnWriteArrayList<>();
+
+  private final List<ResponseInfo> delivered = new CopyOnWriteArrayList<>();
+
+  private RequestHedger hedger;
+
+  @After
+  public void cleanupHedgedExchangeTest() {
+    if (hedger != null) {
+      hedger.close();
+    }
+  }
+
+  @Test(timeout = 5000)
+  public void hedgeWinsTest() throws Exception {
+    hedger = newHedger(100.0);
+    CompletableFuture<HttpResponse<Void>> result = send();
+    awaitAttempts(2);
+
+    Attempt primary = attempts.get(0);
+    Attempt hedge = attempts.get(1);
+    hedge.respond(200);
+
+    assertThat(result.get(1, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+    assertThat(delivered).hasSize(1);
+    assertThat(delivered.get(0).statusCode()).isEqualTo(200);
+    assertThat(primary.future).isCancelled();
+    assertThat(hedger.snapshot().hedgesSent()).isEqualTo(1L);
+    assertThat(hedger.snapshot().hedgesWon()).isEqualTo(1L);
+  }
+
+  @Test(timeout = 5000)
+  public void loserIsNotDeliveredTest() throws Exception {
+    hedger = newHedger(100.0);
+    CompletableFuture<HttpResponse<Void>> result = send();
+    awaitAttempts(2);
+
+    Attempt primary = attempts.get(0);
+    Attempt hedge = attempts.get(1);
+    primary.respond(200);
+    assertThat(hedge.future).isCancelled();
+    // On Java 15 and earlier, cancelling does not abort the hedge, so it may still get headers
+    hedge.respond(503);
+
+    assertThat(result.get(1, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+    assertThat(delivered).hasSize(1);
+    assertThat(delivered.get(0).statusCode()).isEqualTo(200);
+    assertThat(hedger.snapshot().hedgesWon()).isEqualTo(0L);
+  }
+
+  @Test(timeout = 5000)
+  public void budgetExhaustedTest() throws Exception {
+    hedger = newHedger(1.0);
+    CompletableFuture<HttpResponse<Void>> result = send();
+    while (hedger.snapshot().hedgesDenied() == 0L) {
+      Thread.sleep(5L);
+    }
+
+    assertThat(attempts).hasSize(1);
+    attempts.get(0).respond(200);
+
+    assertThat(result.get(1, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+    assertThat(hedger.snapshot().hedgesSent()).isEqualTo(0L);
+  }
+
+  @Test(timeout = 5000)
+  public void budgetExhaustedPrimaryFailsTest() throws Exception {
+    hedger = newHedger(1.0);
+    CompletableFuture<HttpResponse<Void>> result = send();
+    while (hedger.snapshot().hedgesDenied() == 0L) {
+      Thread.sleep(5L);
+    }
+
+    IllegalStateException failure = new IllegalStateException("connection reset");
+    attempts.get(0).future.completeExceptionally(failure);
+
+    assertThat(result).isCompletedExceptionally();
+    assertThat(attempts).hasSize(1);
+  }
+
+  private RequestHedger newHedger(double budgetPercent) {
+    return new RequestHedger(HedgingPolicy.builder().initialDelay(Duration.ofMillis(10))
+        .minimumDelay(Duration.ofMillis(1)).budgetPercent(budgetPercent).build());
+  }
+
+  private CompletableFuture<HttpResponse<Void>> send() {
+    BodyHandler<Void> responseHandler = responseInfo -> {
+      delivered.add(responseInfo);
+      return BodySubscribers.replacing(null);
+    };
+    return new HedgedExchange((request, handler) -> {
+      Attempt attempt = new Attempt(handler);
+      attempts.add(attempt);
+      return attempt.future;
+    }, REQUEST, responseHandler, hedger, 0L).send();
+  }
+
+  private void awaitAttempts(int count) throws InterruptedException {
+    while (attempts.size() < count) {
+      Thread.sleep(5L);
+    }
+  }
+
+  /**
+   * One attempt sent by the exchange, which the test answers in place of a server
+   */
+  private static final class Attempt {
+
+    public final BodyHandler<Void> handler;
+
+    public final CompletableFuture<HttpResponse<Void>> future = new CompletableFuture<>();
+
+    public Attempt(BodyHandler<Void> handler) {
+      this.handler = handler;
+    }
+
+    /**
+     * Receives headers with the given status, and completes with an empty body
+     */
+    public void respond(int statusCode) {
+      HttpHeaders headers = HttpHeaders.of(Collections.singletonMap("Content-Length",
+          Collections.singletonList("0")), (name, value) -> true);
+      handler.apply(new ResponseInfo() {
+        @Override
+        public int statusCode() {
+          return statusCode;
+        }
+
+        @Override
+        public HttpHeaders headers() {
+          return headers;
+        }
+
+        @Override
+        public HttpClient.Version version() {
+          return HttpClient.Version.HTTP_1_1;
+        }
+      });
+      future.complete(new StubResponse(statusCode, headers));
+    }
+  }
+
+  private static final class StubResponse implements HttpResponse<Void> {
+
+    private final int statusCode;
+
+    private final HttpHeaders headers;
+
+    public StubResponse(int statusCode, HttpHeaders headers) {
+      this.statusCode = statusCode;
+      this.headers = headers;
+    }
+
+    @Override
+    public int statusCode() {
+      return statusCode;
+    }
+
+    @Override
+    public HttpRequest request() {
+      return REQUEST;
+    }
+
+    @Override
+    public Optional<HttpResponse<Void>> previousResponse() {
+      return Optional.empty();
+    }
+
+    @Override
+    public HttpHeaders headers() {
+      return headers;
+    }
+
+    @Override
+    public Void body() {
+      return null;
+    }
+
+    @Override
+    public Optional<SSLSession> sslSession() {
+      return Optional.empty();
+    }
+
+    @Override
+    public URI uri() {
+      return ENDPOINT;
+    }
+
+    @Override
+    public HttpClient.Version version() {
+      return HttpClient.Version.HTTP_1_1;
+    }
+  }
+}
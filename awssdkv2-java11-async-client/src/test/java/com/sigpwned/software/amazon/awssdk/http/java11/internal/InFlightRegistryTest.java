@@ -0,0 +1,133 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.InFlightExchange;
+import com.sigpwned.software.amazon.awssdk.http.java11.InFlightStatistics;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Flow;
+import org.junit.Before;
+import org.junit.Test;
+
+public class InFlightRegistryTest {
+
+  public InFlightRegistry registry;
+
+  @Before
+  public void setupInFlightRegistryTest() {
+    registry = new InFlightRegistry(1, 4);
+  }
+
+  @Test
+  public void emptyTest() {
+    InFlightStatistics statistics = registry.snapshot(0L, 10);
+
+    assertThat(statistics.inFlightRequests()).isEqualTo(0);
+    assertThat(statistics.inFlightRequestsByHost()).isEmpty();
+    assertThat(statistics.oldestAge()).isEqualTo(Duration.ZERO);
+    assertThat(statistics.slowestExchanges()).isEmpty();
+  }
+
+  @Test
+  public void snapshotTest() throws Exception {
+    InFlightRegistry.Exchange first = registry.register("GET", "s3.amazonaws.com", "/a");
+    Thread.sleep(5L);
+    InFlightRegistry.Exchange second = registry.register("PUT", "s3.amazonaws.com", "/b");
+    registry.register("POST", "sqs.amazonaws.com", "/");
+
+    first.headersReceived();
+    BodySubscriber<Void> subscriber = first.wrap(BodySubscribers.replacing(null));
+    subscriber.onSubscribe(new NoopSubscription());
+    subscriber.onNext(List.of(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+
+    InFlightStatistics statistics = registry.snapshot(100L, 2);
+
+    assertThat(statistics.inFlightRequests()).isEqualTo(3);
+    assertThat(statistics.inFlightRequestsByHost()).isEqualTo(
+        Map.of("s3.amazonaws.com", 2, "sqs.amazonaws.com", 1));
+    assertThat(statistics.awaitingHeaders()).isEqualTo(2);
+    assertThat(statistics.streamingBodies()).isEqualTo(1);
+    assertThat(statistics.oldestAge()).isGreaterThanOrEqualTo(Duration.ofMillis(5L));
+    assertThat(statistics.bufferedResponseBytes()).isEqualTo(100L);
+
+    List<InFlightExchange> slowest = statistics.slowestExchanges();
+    assertThat(slowest).hasSize(2);
+    assertThat(slowest.get(0).method()).isEqualTo("GET");
+    assertThat(slowest.get(0).path()).isEqualTo("/a");
+    assertThat(slowest.get(0).phase()).isEqualTo(InFlightExchange.Phase.STREAMING_BODY);
+    assertThat(slowest.get(0).responseBytes()).isEqualTo(3L);
+    assertThat(slowest.get(0).elapsed()).isEqualTo(statistics.oldestAge());
+    assertThat(slowest.get(1).phase()).isEqualTo(InFlightExchange.Phase.AWAITING_HEADERS);
+
+    subscriber.onComplete();
+    second.finish();
+    second.finish();
+
+    assertThat(registry.snapshot(0L, 0).inFlightRequestsByHost()).isEqualTo(
+        Map.of("sqs.amazonaws.com", 1));
+  }
+
+  @Test
+  public void cancelTest() {
+    InFlightRegistry.Exchange exchange = registry.register("GET", "s3.amazonaws.com", "/");
+    exchange.headersReceived();
+    exchange.wrap(BodySubscribers.replacing(null)).onSubscribe(new NoopSubscription());
+    exchange.cancel();
+
+    assertThat(registry.snapshot(0L, 0).inFlightRequests()).isEqualTo(0);
+  }
+
+  @Test
+  public void overflowTest() {
+    List<InFlightRegistry.Exchange> exchanges = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      exchanges.add(registry.register("GET", "s3.amazonaws.com", "/" + i));
+    }
+
+    assertThat(registry.snapshot(0L, 0).inFlightRequests()).isEqualTo(10);
+
+    for (InFlightRegistry.Exchange exchange : exchanges) {
+      exchange.finish();
+    }
+
+    assertThat(registry.snapshot(0L, 0).inFlightRequests()).isEqualTo(0);
+  }
+
+  @Test
+  public void concurrentTest() throws Exception {
+    InFlightRegistry concurrent = new InFlightRegistry();
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      threads.add(new Thread(() -> {
+        for (int i = 0; i < 10000; i++) {
+          concurrent.register("GET", "s3.amazonaws.com", "/").finish();
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(concurrent.snapshot(0L, 0).inFlightRequests()).isEqualTo(0);
+  }
+
+  private static class NoopSubscription implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+  }
+}
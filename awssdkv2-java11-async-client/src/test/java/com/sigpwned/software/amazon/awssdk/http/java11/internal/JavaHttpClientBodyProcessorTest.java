@@ -0,0 +1,284 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static com.sigpwned.software.amazon.awssdk.http.java11.internal.ResponseBodyPolicy.DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ResponseTooLargeException;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class JavaHttpClientBodyProcessorTest {
+
+  @Test
+  public void buffersAreDeliveredOnlyOnDemandTest() {
+    ResponseBufferBudget budget = new ResponseBufferBudget(1024L * 1024L);
+    JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(
+        new ResponseBodyPolicy(0, 0L, budget, 0L, null,
+            DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES, new ResponseDrainCounters()), -1L);
+    Upstream upstream = new Upstream();
+    Downstream downstream = new Downstream();
+
+    processor.onSubscribe(upstream);
+    processor.subscribe(downstream);
+    processor.onNext(List.of(ByteBuffer.allocate(10), ByteBuffer.allocate(20)));
+
+    assertThat(downstream.received).isEmpty();
+    assertThat(budget.used()).isEqualTo(30L);
+
+    downstream.subscription.request(1L);
+
+    assertThat(downstream.received).containsExactly(10);
+    assertThat(budget.used()).isEqualTo(20L);
+
+    downstream.subscription.request(1L);
+    processor.onComplete();
+
+    assertThat(downstream.received).containsExactly(10, 20);
+    assertThat(downstream.completed).isTrue();
+    assertThat(budget.used()).isEqualTo(0L);
+  }
+
+  @Test
+  public void exhaustedBudgetPausesUpstreamTest() {
+    ResponseBufferBudget budget = new ResponseBufferBudget(100L);
+    JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(
+        new ResponseBodyPolicy(0, 0L, budget, 0L, null,
+            DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES, new ResponseDrainCounters()), -1L);
+    Upstream upstream = new Upstream();
+    Downstream downstream = new Downstream();
+
+    processor.onSubscribe(upstream);
+    processor.subscribe(downstream);
+
+    // A response with nothing buffered may always read
+    assertThat(upstream.requested.get()).isEqualTo(1L);
+
+    processor.onNext(List.of(ByteBuffer.allocate(150)));
+
+    assertThat(upstream.requested.get()).isEqualTo(1L);
+
+    downstream.subscription.request(1L);
+
+    assertThat(budget.used()).isEqualTo(0L);
+    assertThat(upstream.requested.get()).isEqualTo(2L);
+  }
+
+  @Test
+  public void declaredOversizedBodyIsNotReadTest() {
+    JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(
+        new ResponseBodyPolicy(0, 100L, new ResponseBufferBudget(1024L), 0L, null,
+            DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES, new ResponseDrainCounters()), 101L);
+    Upstream upstream = new Upstream();
+    Downstream downstream = new Downstream();
+
+    processor.onSubscribe(upstream);
+    processor.subscribe(downstream);
+
+    assertThat(upstream.requested.get()).isEqualTo(0L);
+    assertThat(upstream.cancelled).isTrue();
+    assertThat(downstream.error).isInstanceOf(ResponseTooLargeException.class);
+    assertThatThrownBy(() -> processor.getBody().toCompletableFuture().get())
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(ResponseTooLargeException.class);
+  }
+
+  @Test
+  public void streamedOversizedBodyIsAbortedTest() {
+    ResponseBufferBudget budget = new ResponseBufferBudget(1024L);
+    JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(
+        new ResponseBodyPolicy(0, 100L, budget, 0L, null,
+            DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES, new ResponseDrainCounters()), -1L);
+    Upstream upstream = new Upstream();
+    Downstream downstream = new Downstream();
+
+    processor.onSubscribe(upstream);
+    processor.subscribe(downstream);
+    downstream.subscription.request(Long.MAX_VALUE);
+    processor.onNext(List.of(ByteBuffer.allocate(60)));
+    processor.onNext(List.of(ByteBuffer.allocate(60)));
+
+    assertThat(downstream.received).containsExactly(60);
+    assertThat(upstream.cancelled).isTrue();
+    assertThat(downstream.error).isInstanceOf(ResponseTooLargeException.class);
+    assertThat(budget.used()).isEqualTo(0L);
+  }
+
+  @Test
+  public void spilledBodyIsReplayedInOrderTest() throws Exception {
+    Path directory = Files.createTempDirectory("JavaHttpClientBodyProcessorTest");
+    try {
+      ResponseBufferBudget budget = new ResponseBufferBudget(1024L);
+      JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(
+          new ResponseBodyPolicy(0, 0L, budget, 16L, directory,
+              DEFAULT_RESPONSE_DRAIN_THRESHOLD_IN_BYTES, new ResponseDrainCounters()), -1L);
+      Upstream upstream = new Upstream();
+      BytesDownstream downstream = new BytesDownstream();
+
+      processor.onSubscribe(upstream);
+      processor.subscribe(downstream);
+      for (int i = 0; i < 10; i++) {
+        byte[] chunk = new byte[10];
+        Arrays.fill(chunk, (byte) i);
+        processor.onNext(List.of(ByteBuffer.wrap(chunk)));
+      }
+      processor.onComplete();
+
+      // The consumer hasn't asked for anything, but we kept reading anyway
+      assertThat(upstream.requested.get()).isEqualTo(11L);
+      assertThat(processor.getBody().toCompletableFuture().isDone()).isTrue();
+      assertThat(budget.used()).isEqualTo(10L);
+
+      downstream.subscription.request(Long.MAX_VALUE);
+
+      byte[] expected = new byte[100];
+      for (int i = 0; i < 100; i++) {
+        expected[i] = (byte) (i / 10);
+      }
+      assertThat(downstream.bytes.toByteArray()).isEqualTo(expected);
+      assertThat(downstream.completed).isTrue();
+      assertThat(budget.used()).isEqualTo(0L);
+      try (Stream<Path> files = Files.list(directory)) {
+        assertThat(files.count()).isEqualTo(0L);
+      }
+    } finally {
+      Files.deleteIfExists(directory);
+    }
+  }
+
+  @Test
+  public void shortRemainderIsDrainedTest() {
+    ResponseDrainCounters counters = new ResponseDrainCounters();
+    ResponseBufferBudget budget = new ResponseBufferBudget(1024L);
+    JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(
+        new ResponseBodyPolicy(0, 0L, budget, 0L, null, 100L, counters), 150L);
+    Upstream upstream = new Upstream();
+    Downstream downstream = new Downstream();
+
+    processor.onSubscribe(upstream);
+    processor.subscribe(downstream);
+    downstream.subscription.request(1L);
+    processor.onNext(List.of(ByteBuffer.allocate(60)));
+    downstream.subscription.cancel();
+
+    // 90 bytes remain, which is under the threshold, so keep reading
+    assertThat(upstream.cancelled).isFalse();
+    assertThat(upstream.requested.get()).isEqualTo(2L);
+
+    processor.onNext(List.of(ByteBuffer.allocate(90)));
+    processor.onComplete();
+
+    assertThat(upstream.cancelled).isFalse();
+    assertThat(counters.snapshot().drainedResponses()).isEqualTo(1L);
+    assertThat(counters.snapshot().drainedBytes()).isEqualTo(90L);
+    assertThat(counters.snapshot().abortedResponses()).isEqualTo(0L);
+    assertThat(budget.used()).isEqualTo(0L);
+  }
+
+  @Test
+  public void longRemainderIsAbortedTest() {
+    ResponseDrainCounters counters = new ResponseDrainCounters();
+    JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(
+        new ResponseBodyPolicy(0, 0L, new ResponseBufferBudget(1024L), 0L, null, 100L,
+            counters), 1000L);
+    Upstream upstream = new Upstream();
+    Downstream downstream = new Downstream();
+
+    processor.onSubscribe(upstream);
+    processor.subscribe(downstream);
+    downstream.subscription.cancel();
+
+    assertThat(upstream.cancelled).isTrue();
+    assertThat(counters.snapshot().abortedResponses()).isEqualTo(1L);
+    assertThat(counters.snapshot().drainedResponses()).isEqualTo(0L);
+  }
+
+  @Test
+  public void longUnknownRemainderIsAbortedWhileDrainingTest() {
+    ResponseDrainCounters counters = new ResponseDrainCounters();
+    JavaHttpClientBodyProcessor processor = new JavaHttpClientBodyProcessor(
+        new ResponseBodyPolicy(0, 0L, new ResponseBufferBudget(1024L), 0L, null, 100L,
+            counters), -1L);
+    Upstream upstream = new Upstream();
+    Downstream downstream = new Downstream();
+
+    processor.onSubscribe(upstream);
+    processor.subscribe(downstream);
+    downstream.subscription.cancel();
+    processor.onNext(List.of(ByteBuffer.allocate(60)));
+
+    assertThat(upstream.cancelled).isFalse();
+
+    processor.onNext(List.of(ByteBuffer.allocate(60)));
+
+    assertThat(upstream.cancelled).isTrue();
+    assertThat(counters.snapshot().abortedResponses()).isEqualTo(1L);
+    assertThat(counters.snapshot().drainedBytes()).isEqualTo(120L);
+  }
+
+  private static class Upstream implements Flow.Subscription {
+
+    public final AtomicLong requested = new AtomicLong(0L);
+    public volatile boolean cancelled;
+
+    @Override
+    public void request(long n) {
+      requested.addAndGet(n);
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+    }
+  }
+
+  private static class BytesDownstream extends Downstream {
+
+    public final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    @Override
+    public void onNext(ByteBuffer item) {
+      byte[] b = new byte[item.remaining()];
+      item.get(b);
+      bytes.write(b, 0, b.length);
+    }
+  }
+
+  private static class Downstream implements Flow.Subscriber<ByteBuffer> {
+
+    public final List<Integer> received = new ArrayList<>();
+    public Flow.Subscription subscription;
+    public Throwable error;
+    public boolean completed;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+      received.add(item.remaining());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+}
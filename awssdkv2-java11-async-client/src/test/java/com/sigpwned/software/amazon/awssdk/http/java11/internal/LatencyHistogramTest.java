@@ -0,0 +1,53 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+  @Test
+  public void emptyTest() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    assertThat(histogram.count()).isZero();
+    assertThat(histogram.valueAtPercentile(99.0)).isZero();
+  }
+
+  @Test
+  public void percentileTest() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    assertThat(histogram.count()).isEqualTo(1000L);
+    assertThat((double) histogram.valueAtPercentile(50.0)).isCloseTo(500000.0, within(32000.0));
+    assertThat((double) histogram.valueAtPercentile(99.0)).isCloseTo(990000.0, within(64000.0));
+    assertThat(histogram.valueAtPercentile(100.0)).isGreaterThanOrEqualTo(1000000L);
+  }
+
+  @Test
+  public void bucketBoundsTest() {
+    for (long value : new long[]{0L, 1L, 15L, 16L, 17L, 1000L, 123456789L, Long.MAX_VALUE}) {
+      int bucket = LatencyHistogram.bucket(value);
+      assertThat(bucket).isBetween(0, LatencyHistogram.BUCKETS - 1);
+      assertThat(LatencyHistogram.highestValue(bucket)).isGreaterThanOrEqualTo(value);
+      if (bucket > 0) {
+        assertThat(LatencyHistogram.highestValue(bucket - 1)).isLessThan(value);
+      }
+    }
+  }
+
+  @Test
+  public void decayTest() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 100; i++) {
+      histogram.record(1000L);
+    }
+    histogram.decay();
+
+    assertThat(histogram.count()).isEqualTo(50L);
+  }
+}
@@ -0,0 +1,115 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.EndpointLatencyStatistics;
+import java.net.URI;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LatencyRecorderTest {
+
+  private static final URI ENDPOINT = URI.create("https://s3.us-east-1.amazonaws.com/bucket/key");
+
+  private LatencyRecorder recorder;
+
+  @Before
+  public void setupLatencyRecorderTest() {
+    recorder = new LatencyRecorder();
+  }
+
+  @Test
+  public void phasesTest() {
+    LatencyRecorder.Exchange exchange = recorder.start(ENDPOINT);
+    exchange.headersReceived(200);
+    BodySubscriber<Void> subscriber = exchange.wrap(BodySubscribers.replacing(null));
+    subscriber.onSubscribe(new NoopSubscription());
+    subscriber.onNext(List.of(ByteBuffer.allocate(0)));
+    subscriber.onNext(List.of(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+    subscriber.onNext(List.of(ByteBuffer.wrap(new byte[]{4, 5, 6})));
+    subscriber.onComplete();
+    exchange.failed();
+
+    List<EndpointLatencyStatistics> statistics = recorder.snapshot();
+    assertThat(statistics).hasSize(1);
+    EndpointLatencyStatistics endpoint = statistics.get(0);
+    assertThat(endpoint.host()).isEqualTo("s3.us-east-1.amazonaws.com");
+    assertThat(endpoint.statusClass()).isEqualTo(2);
+    assertThat(endpoint.timeToHeaders().count()).isEqualTo(1L);
+    assertThat(endpoint.timeToFirstByte().count()).isEqualTo(1L);
+    assertThat(endpoint.totalTime().count()).isEqualTo(1L);
+    assertThat(endpoint.totalTime().max()).isGreaterThanOrEqualTo(endpoint.timeToHeaders().max());
+  }
+
+  @Test
+  public void statusClassTest() {
+    for (int status : new int[]{200, 204, 404, 503, 503}) {
+      LatencyRecorder.Exchange exchange = recorder.start(ENDPOINT);
+      exchange.headersReceived(status);
+      exchange.wrap(BodySubscribers.replacing(null)).onComplete();
+    }
+
+    assertThat(recorder.snapshot()).extracting(EndpointLatencyStatistics::statusClass)
+        .containsExactlyInAnyOrder(2, 4, 5);
+    assertThat(recorder.snapshot()).filteredOn(e -> e.statusClass() == 5)
+        .allMatch(e -> e.totalTime().count() == 2L);
+  }
+
+  @Test
+  public void cancelledTest() {
+    LatencyRecorder.Exchange exchange = recorder.start(ENDPOINT);
+    exchange.headersReceived(200);
+    exchange.wrap(BodySubscribers.replacing(null)).onSubscribe(new NoopSubscription());
+    exchange.cancel();
+    exchange.failed();
+
+    EndpointLatencyStatistics endpoint = recorder.snapshot().get(0);
+    assertThat(endpoint.statusClass()).isEqualTo(2);
+    assertThat(endpoint.totalTime().count()).isEqualTo(1L);
+  }
+
+  @Test
+  public void failedBeforeHeadersTest() {
+    recorder.start(ENDPOINT).failed();
+
+    EndpointLatencyStatistics endpoint = recorder.snapshot().get(0);
+    assertThat(endpoint.statusClass()).isEqualTo(0);
+    assertThat(endpoint.timeToHeaders().count()).isZero();
+    assertThat(endpoint.totalTime().count()).isEqualTo(1L);
+  }
+
+  @Test
+  public void stripedTest() throws Exception {
+    StripedLatencyHistogram histogram = new StripedLatencyHistogram(4);
+    Thread[] threads = new Thread[8];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(() -> {
+        for (int j = 0; j < 10000; j++) {
+          histogram.record(1000L);
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertThat(histogram.snapshot().count()).isEqualTo(80000L);
+  }
+
+  private static final class NoopSubscription implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ExchangeListener;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+
+public class ListeningExchangeTest {
+
+  public RecordingListener listener;
+
+  public ListeningExchange exchange;
+
+  @Before
+  public void setupListeningExchangeTest() {
+    listener = new RecordingListener();
+    exchange = new ListeningExchange(listener);
+  }
+
+  @Test
+  public void completedTest() {
+    exchange.started();
+    HttpRequest request = HttpRequest.newBuilder(URI.create("https://s3.amazonaws.com/")).build();
+    assertThat(exchange.mapped(request)).isSameAs(request);
+
+    BodyPublisher publisher = exchange.wrapRequestBody(
+        BodyPublishers.ofByteArray(new byte[]{1, 2, 3, 4}));
+    assertThat(publisher.contentLength()).isEqualTo(4L);
+    publisher.subscribe(new RequestingSubscriber());
+
+    exchange.headersReceived(200);
+    BodySubscriber<Void> subscriber = exchange.wrap(BodySubscribers.replacing(null));
+    subscriber.onSubscribe(new NoopSubscription());
+    subscriber.onNext(List.of(ByteBuffer.wrap(new byte[]{1, 2}), ByteBuffer.wrap(new byte[]{3})));
+    subscriber.onComplete();
+    exchange.failed(new RuntimeException("late"));
+
+    assertThat(listener.phases).containsExactly("started", "requestMapped",
+        "requestHeadersSent", "requestBodySent 4", "responseHeadersReceived 200",
+        "responseBodyReceived 3", "completed");
+    assertThat(subscriber.getBody().toCompletableFuture()).isCompleted();
+  }
+
+  @Test
+  public void failedTest() {
+    exchange.started();
+    exchange.failed(new IllegalStateException("connect"));
+    exchange.failed(new IllegalStateException("again"));
+
+    assertThat(listener.phases).containsExactly("started", "failed connect");
+  }
+
+  @Test
+  public void cancelledTest() {
+    exchange.headersReceived(200);
+    exchange.wrap(BodySubscribers.replacing(null)).onSubscribe(new NoopSubscription());
+    exchange.cancel();
+    exchange.failed(new IllegalStateException("again"));
+
+    assertThat(listener.phases).containsExactly("responseHeadersReceived 200",
+        "failed response body cancelled");
+  }
+
+  @Test
+  public void listenerThrowsTest() {
+    ListeningExchange throwing = new ListeningExchange(new ExchangeListener() {
+      @Override
+      public void responseBodyReceived(long nanoTime, long bytes) {
+        throw new IllegalStateException("listener");
+      }
+    });
+
+    throwing.headersReceived(200);
+    BodySubscriber<Void> subscriber = throwing.wrap(BodySubscribers.replacing(null));
+    subscriber.onSubscribe(new NoopSubscription());
+    subscriber.onNext(List.of(ByteBuffer.wrap(new byte[]{1})));
+    subscriber.onComplete();
+
+    assertThat(subscriber.getBody().toCompletableFuture()).isCompleted();
+  }
+
+  /**
+   * A request that cannot even be mapped fails synchronously, but its listener must still hear of
+   * it, or it would never finish.
+   */
+  @Test
+  public void invalidHeaderFailsTest() {
+    JavaHttpClientRequestExecutor executor = JavaHttpClientRequestExecutor.builder()
+        .javaClient(HttpClient.newHttpClient())
+        .requestMapper(new JavaHttpClientRequestMapper(Duration.ofSeconds(30)))
+        .listenerFactory(request -> listener).build();
+
+    // The JDK client refuses to let callers set this header
+    assertThatThrownBy(() -> executor.execute(AsyncExecuteRequest.builder()
+        .request(SdkHttpRequest.builder().uri(URI.create("http://localhost/"))
+            .method(SdkHttpMethod.GET).putHeader("Connection", "close").build())
+        .fullDuplex(false).responseHandler(new NoopResponseHandler()).build()))
+        .isInstanceOf(IllegalArgumentException.class);
+
+    assertThat(listener.phases).hasSize(2);
+    assertThat(listener.phases.get(0)).isEqualTo("started");
+    assertThat(listener.phases.get(1)).startsWith("failed");
+  }
+
+  private static class RecordingListener implements ExchangeListener {
+
+    public final List<String> phases = new ArrayList<>();
+
+    private long lastNanoTime;
+
+    @Override
+    public void started(long nanoTime) {
+      record(nanoTime, "started");
+    }
+
+    @Override
+    public void requestMapped(long nanoTime) {
+      record(nanoTime, "requestMapped");
+    }
+
+    @Override
+    public void requestHeadersSent(long nanoTime) {
+      record(nanoTime, "requestHeadersSent");
+    }
+
+    @Override
+    public void requestBodySent(long nanoTime, long bytes) {
+      record(nanoTime, "requestBodySent " + bytes);
+    }
+
+    @Override
+    public void responseHeadersReceived(long nanoTime, int statusCode) {
+      record(nanoTime, "responseHeadersReceived " + statusCode);
+    }
+
+    @Override
+    public void responseBodyReceived(long nanoTime, long bytes) {
+      record(nanoTime, "responseBodyReceived " + bytes);
+    }
+
+    @Override
+    public void completed(long nanoTime) {
+      record(nanoTime, "completed");
+    }
+
+    @Override
+    public void failed(long nanoTime, Throwable error) {
+      record(nanoTime, "failed " + error.getMessage());
+    }
+
+    private void record(long nanoTime, String phase) {
+      if (!phases.isEmpty()) {
+        assertThat(nanoTime - lastNanoTime).isGreaterThanOrEqualTo(0L);
+      }
+      lastNanoTime = nanoTime;
+      phases.add(phase);
+    }
+  }
+
+  private static class RequestingSubscriber implements Flow.Subscriber<ByteBuffer> {
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onComplete() {
+    }
+  }
+
+  private static class NoopResponseHandler implements SdkAsyncHttpResponseHandler {
+
+    @Override
+    public void onHeaders(SdkHttpResponse headers) {
+    }
+
+    @Override
+    public void onStream(Publisher<ByteBuffer> stream) {
+    }
+
+    @Override
+    public void onError(Throwable error) {
+    }
+  }
+
+  private static class NoopSubscription implements Flow.Subscription {
+
+    @Override
+    public void request(long n) {
+    }
+
+    @Override
+    public void cancel() {
+    }
+  }
+}
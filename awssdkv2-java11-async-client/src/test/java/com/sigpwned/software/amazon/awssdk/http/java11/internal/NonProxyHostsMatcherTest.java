@@ -0,0 +1,127 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ProxyConfiguration;
+import java.util.List;
+import org.junit.After;
+import org.junit.Test;
+
+public class NonProxyHostsMatcherTest {
+
+  @After
+  public void cleanupNonProxyHostsMatcherTest() {
+    System.clearProperty("http.proxyHost");
+    System.clearProperty("http.proxyPort");
+    System.clearProperty("http.nonProxyHosts");
+  }
+
+  @Test
+  public void exactTest() {
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(List.of("example.com", "localhost"));
+
+    assertThat(matcher.matches("example.com")).isTrue();
+    assertThat(matcher.matches("EXAMPLE.COM")).isTrue();
+    assertThat(matcher.matches("localhost")).isTrue();
+    assertThat(matcher.matches("www.example.com")).isFalse();
+    assertThat(matcher.matches("com")).isFalse();
+    assertThat(matcher.matches("example.org")).isFalse();
+  }
+
+  @Test
+  public void subdomainTest() {
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(
+        List.of("*.amazonaws.com", ".internal"));
+
+    assertThat(matcher.matches("sqs.us-east-1.amazonaws.com")).isTrue();
+    assertThat(matcher.matches("s3.amazonaws.com")).isTrue();
+    assertThat(matcher.matches("service.internal")).isTrue();
+    assertThat(matcher.matches("amazonaws.com")).isFalse();
+    assertThat(matcher.matches("amazonaws.com.example.com")).isFalse();
+    assertThat(matcher.matches("notamazonaws.com")).isFalse();
+  }
+
+  @Test
+  public void prefixTest() {
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(List.of("192.168.*"));
+
+    assertThat(matcher.matches("192.168.1.1")).isTrue();
+    assertThat(matcher.matches("192.169.1.1")).isFalse();
+  }
+
+  @Test
+  public void cidrTest() {
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(
+        List.of("10.0.0.0/8", "172.16.0.0/12", "fd00::/8"));
+
+    assertThat(matcher.matches("10.1.2.3")).isTrue();
+    assertThat(matcher.matches("172.31.255.255")).isTrue();
+    assertThat(matcher.matches("172.32.0.1")).isFalse();
+    assertThat(matcher.matches("[fd12::1]")).isTrue();
+    assertThat(matcher.matches("[fe80::1]")).isFalse();
+    assertThat(matcher.matches("ten.example.com")).isFalse();
+  }
+
+  /**
+   * Hosts that look like literals but are not must not match, and must not be looked up in DNS.
+   */
+  @Test
+  public void invalidLiteralTest() {
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(
+        List.of("0.0.0.0/0", "::/0", "999.0.0.0/8"));
+
+    assertThat(matcher.matches("255.255.255.255")).isTrue();
+    assertThat(matcher.matches("[::1]")).isTrue();
+    assertThat(matcher.matches("999.1.1.1")).isFalse();
+    assertThat(matcher.matches("1.256.1.1")).isFalse();
+    assertThat(matcher.matches("abc:")).isFalse();
+    assertThat(matcher.matches(":::1")).isFalse();
+  }
+
+  @Test
+  public void otherWildcardTest() {
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(List.of("s3.*.amazonaws.com"));
+
+    assertThat(matcher.matches("s3.us-west-2.amazonaws.com")).isTrue();
+    assertThat(matcher.matches("sqs.us-west-2.amazonaws.com")).isFalse();
+  }
+
+  /**
+   * The SDK rewrites each {@code *} in the system property as {@code .*?}, which must still be read
+   * as a wildcard.
+   */
+  @Test
+  public void systemPropertyTest() {
+    System.setProperty("http.proxyHost", "proxy.example.com");
+    System.setProperty("http.proxyPort", "8080");
+    System.setProperty("http.nonProxyHosts", "*.amazonaws.com|localhost|10.*|s3.*.example.com");
+
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(
+        ProxyConfiguration.builder().useSystemPropertyValues(true).build().nonProxyHosts());
+
+    assertThat(matcher.matches("s3.amazonaws.com")).isTrue();
+    assertThat(matcher.matches("amazonaws.com")).isFalse();
+    assertThat(matcher.matches("localhost")).isTrue();
+    assertThat(matcher.matches("10.1.2.3")).isTrue();
+    assertThat(matcher.matches("100.1.2.3")).isFalse();
+    assertThat(matcher.matches("s3.us-west-2.example.com")).isTrue();
+    assertThat(matcher.matches("example.com")).isFalse();
+  }
+
+  @Test
+  public void everythingTest() {
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(List.of("*"));
+
+    assertThat(matcher.matches("example.com")).isTrue();
+  }
+
+  @Test
+  public void cachedDecisionTest() {
+    NonProxyHostsMatcher matcher = new NonProxyHostsMatcher(List.of("*.example.com"), 1);
+
+    assertThat(matcher.matches("a.example.com")).isTrue();
+    assertThat(matcher.matches("b.example.org")).isFalse();
+    assertThat(matcher.matches("a.example.com")).isTrue();
+    assertThat(matcher.matches("b.example.org")).isFalse();
+  }
+}
@@ -0,0 +1,85 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.HedgingPolicy;
+import java.net.URI;
+import java.time.Duration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RequestHedgerTest {
+
+  private static final URI ENDPOINT = URI.create("https://dynamodb.us-east-1.amazonaws.com/");
+
+  private RequestHedger hedger;
+
+  @Before
+  public void setupRequestHedgerTest() {
+    hedger = new RequestHedger(HedgingPolicy.builder().percentile(90.0)
+        .initialDelay(Duration.ofMillis(100)).minimumDelay(Duration.ofMillis(2))
+        .minimumSamples(10).budgetPercent(10.0).build());
+  }
+
+  @After
+  public void cleanupRequestHedgerTest() {
+    hedger.close();
+  }
+
+  @Test
+  public void initialDelayTest() {
+    assertThat(hedger.admit(ENDPOINT)).isEqualTo(Duration.ofMillis(100).toNanos());
+  }
+
+  @Test
+  public void learnedDelayTest() {
+    for (int i = 1; i <= 10; i++) {
+      hedger.recordTimeToHeaders(ENDPOINT, Duration.ofMillis(i * 10L).toNanos());
+    }
+
+    long delay = hedger.admit(ENDPOINT);
+    assertThat(delay).isBetween(Duration.ofMillis(90).toNanos(), Duration.ofMillis(96).toNanos());
+
+    // Other endpoints are tracked separately
+    assertThat(hedger.admit(URI.create("https://s3.amazonaws.com/")))
+        .isEqualTo(Duration.ofMillis(100).toNanos());
+  }
+
+  @Test
+  public void minimumDelayTest() {
+    for (int i = 0; i < 10; i++) {
+      hedger.recordTimeToHeaders(ENDPOINT, 1000L);
+    }
+
+    assertThat(hedger.admit(ENDPOINT)).isEqualTo(Duration.ofMillis(2).toNanos());
+  }
+
+  @Test
+  public void budgetTest() {
+    assertThat(hedger.tryHedge()).isFalse();
+
+    for (int i = 0; i < 10; i++) {
+      hedger.admit(ENDPOINT);
+    }
+    assertThat(hedger.tryHedge()).isTrue();
+    assertThat(hedger.tryHedge()).isFalse();
+
+    assertThat(hedger.snapshot().eligibleRequests()).isEqualTo(10L);
+    assertThat(hedger.snapshot().hedgesSent()).isEqualTo(1L);
+    assertThat(hedger.snapshot().hedgesDenied()).isEqualTo(2L);
+  }
+
+  @Test
+  public void budgetLimitTest() {
+    for (int i = 0; i < 1000; i++) {
+      hedger.admit(ENDPOINT);
+    }
+
+    int hedges = 0;
+    while (hedger.tryHedge()) {
+      hedges = hedges + 1;
+    }
+    assertThat(hedges).isEqualTo(10);
+  }
+}
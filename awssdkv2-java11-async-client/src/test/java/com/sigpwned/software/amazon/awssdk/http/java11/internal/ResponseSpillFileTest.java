@@ -0,0 +1,59 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ResponseSpillFileTest {
+
+  public Path directory;
+
+  @Before
+  public void setupResponseSpillFileTest() throws IOException {
+    directory = Files.createTempDirectory("ResponseSpillFileTest");
+  }
+
+  @After
+  public void cleanupResponseSpillFileTest() throws IOException {
+    Files.deleteIfExists(directory);
+  }
+
+  @Test
+  public void appendAndReadTest() throws IOException {
+    ResponseSpillFile file = new ResponseSpillFile(directory);
+    assertThat(file.isActive()).isFalse();
+
+    file.append(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+    assertThat(file.isActive()).isTrue();
+    assertThat(file.read(file.writePosition())).isEqualTo(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+
+    file.close();
+
+    assertThat(fileCount()).isEqualTo(0L);
+  }
+
+  @Test
+  public void appendAfterCloseTest() throws IOException {
+    ResponseSpillFile file = new ResponseSpillFile(directory);
+    file.close();
+
+    assertThatThrownBy(() -> file.append(ByteBuffer.wrap(new byte[]{1})))
+        .isInstanceOf(IOException.class);
+    assertThat(fileCount()).isEqualTo(0L);
+  }
+
+  private long fileCount() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.count();
+    }
+  }
+}
@@ -0,0 +1,137 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.internal;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.internal.http.async.SimpleHttpContentPublisher;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+
+public class SmallBodiesTest {
+
+  private static final byte[] CONTENT = "Hello world!".getBytes(UTF_8);
+
+  /**
+   * Make sure we can see the SDK's materialized array in this SDK version.
+   */
+  @Test
+  public void sdkMaterializedBodyIsRecognizedTest() {
+    SdkHttpContentPublisher publisher = new SimpleHttpContentPublisher(request());
+
+    assertThat(SmallBodies.materializedBytes(publisher)).hasValueSatisfying(
+        bytes -> assertThat(bytes).isEqualTo(CONTENT));
+  }
+
+  @Test
+  public void otherBodyIsNotRecognizedTest() {
+    assertThat(SmallBodies.materializedBytes(publisher(AsyncRequestBody.fromBytes(CONTENT),
+        CONTENT.length))).isEmpty();
+  }
+
+  @Test
+  public void drainTest() throws Exception {
+    byte[] drained = SmallBodies.drain(
+        publisher(AsyncRequestBody.fromBytes(CONTENT), CONTENT.length), CONTENT.length).get();
+
+    assertThat(drained).isEqualTo(CONTENT);
+  }
+
+  @Test
+  public void drainShortBodyFailsTest() {
+    assertThatThrownBy(() -> SmallBodies.drain(
+        publisher(AsyncRequestBody.fromBytes(CONTENT), CONTENT.length + 1),
+        CONTENT.length + 1).get()).isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void drainLongBodyFailsTest() {
+    assertThatThrownBy(() -> SmallBodies.drain(
+        publisher(AsyncRequestBody.fromBytes(CONTENT), CONTENT.length - 1),
+        CONTENT.length - 1).get()).isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IOException.class);
+  }
+
+  @Test
+  public void smallBodyIsSentFromMemoryTest() throws Exception {
+    JavaHttpClientRequestMapper mapper = new JavaHttpClientRequestMapper(Duration.ofSeconds(30));
+
+    HttpRequest request = mapper.toJavaHttpClientRequestAsync(
+        executeRequest(new SimpleHttpContentPublisher(request())), null).get();
+
+    assertThat(request.bodyPublisher()).hasValueSatisfying(
+        p -> assertThat(p.contentLength()).isEqualTo(CONTENT.length));
+  }
+
+  @Test
+  public void smallBodyFastPathCanBeDisabledTest() throws Exception {
+    JavaHttpClientRequestMapper mapper = new JavaHttpClientRequestMapper(Duration.ofSeconds(30),
+        0L, JavaHttpClientRequestMapper.DEFAULT_REQUEST_BODY_PREFETCH,
+        JavaHttpClientRequestMapper.DEFAULT_REQUEST_BODY_COALESCE_SIZE_IN_BYTES, 0, false, null);
+
+    // The publisher is never subscribed to, so a streamed body is the only way to get here
+    HttpRequest request = mapper.toJavaHttpClientRequestAsync(executeRequest(
+        publisher(AsyncRequestBody.fromBytes(CONTENT), CONTENT.length)), null).getNow(null);
+
+    assertThat(request).isNotNull();
+    assertThat(request.bodyPublisher()).hasValueSatisfying(
+        p -> assertThat(p.contentLength()).isEqualTo(CONTENT.length));
+  }
+
+  private static SdkHttpFullRequest request() {
+    return SdkHttpFullRequest.builder().method(SdkHttpMethod.POST)
+        .uri(URI.create("http://localhost/"))
+        .contentStreamProvider(() -> new ByteArrayInputStream(CONTENT)).build();
+  }
+
+  private static AsyncExecuteRequest executeRequest(SdkHttpContentPublisher publisher) {
+    return AsyncExecuteRequest.builder().request(request()).requestContentPublisher(publisher)
+        .responseHandler(new SdkAsyncHttpResponseHandler() {
+          @Override
+          public void onHeaders(SdkHttpResponse headers) {
+          }
+
+          @Override
+          public void onStream(Publisher<ByteBuffer> stream) {
+          }
+
+          @Override
+          public void onError(Throwable error) {
+          }
+        }).fullDuplex(true).build();
+  }
+
+  /**
+   * Wraps the given body, and claims the given content length for it, right or wrong.
+   */
+  private static SdkHttpContentPublisher publisher(AsyncRequestBody body, long contentLength) {
+    return new SdkHttpContentPublisher() {
+      @Override
+      public Optional<Long> contentLength() {
+        return Optional.of(contentLength);
+      }
+
+      @Override
+      public void subscribe(Subscriber<? super ByteBuffer> s) {
+        body.subscribe(s);
+      }
+    };
+  }
+}
@@ -0,0 +1,12 @@
+package org.crac;
+
+/**
+ * Just enough of the {@code org.crac} API to test our reflective binding to it.
+ */
+public abstract class Context<R extends Resource> implements Resource {
+
+  protected Context() {
+  }
+
+  public abstract void register(R resource);
+}
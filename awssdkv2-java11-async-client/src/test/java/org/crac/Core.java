@@ -0,0 +1,41 @@
+package org.crac;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Just enough of the {@code org.crac} API to test our reflective binding to it. Unlike the real
+ * global context, this one holds its resources strongly, which the API allows.
+ */
+public final class Core {
+
+  private static final Context<Resource> GLOBAL_CONTEXT = new Context<Resource>() {
+    private final List<Resource> resources = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void register(Resource resource) {
+      resources.add(resource);
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) throws Exception {
+      for (Resource resource : resources) {
+        resource.beforeCheckpoint(this);
+      }
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) throws Exception {
+      for (Resource resource : resources) {
+        resource.afterRestore(this);
+      }
+    }
+  };
+
+  private Core() {
+  }
+
+  public static Context<Resource> getGlobalContext() {
+    return GLOBAL_CONTEXT;
+  }
+}
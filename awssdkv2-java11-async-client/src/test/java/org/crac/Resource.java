@@ -0,0 +1,11 @@
+package org.crac;
+
+/**
+ * Just enough of the {@code org.crac} API to test our reflective binding to it.
+ */
+public interface Resource {
+
+  void beforeCheckpoint(Context<? extends Resource> context) throws Exception;
+
+  void afterRestore(Context<? extends Resource> context) throws Exception;
+}
@@ -0,0 +1,84 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.otel;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ExchangeListener;
+import com.sigpwned.software.amazon.awssdk.http.java11.Java11AsyncHttpClient;
+import com.sigpwned.software.amazon.awssdk.http.java11.otel.internal.HttpClientAttributes;
+import com.sigpwned.software.amazon.awssdk.http.java11.otel.internal.HttpClientInstruments;
+import com.sigpwned.software.amazon.awssdk.http.java11.otel.internal.TelemetryExchangeListener;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.SdkHttpRequest;
+
+/**
+ * Reports a {@link Java11AsyncHttpClient}'s exchanges to OpenTelemetry, following the HTTP client
+ * semantic conventions. Install it on the client with
+ * {@link Java11AsyncHttpClient.Builder#exchangeListenerFactory(ExchangeListener.Factory)}:
+ *
+ * <pre>
+ * SdkAsyncHttpClient httpClient = Java11AsyncHttpClient.builder()
+ *     .exchangeListenerFactory(OpenTelemetryExchangeListenerFactory.create(openTelemetry))
+ *     .build();
+ * </pre>
+ *
+ * <p>
+ * Each exchange gets a {@link SpanKind#CLIENT client} span named for its method, which is a child
+ * of the span that is current when the request is executed. The span ends when the whole response
+ * body has arrived, or when the exchange fails. Its {@code url.full} leaves out the query string,
+ * since presigned requests carry their signature there.
+ * </p>
+ *
+ * <p>
+ * Each exchange also records these metrics, by method, server address, and server port:
+ * </p>
+ *
+ * <ul>
+ *   <li>{@code http.client.active_requests}, the exchanges that have started but not finished</li>
+ *   <li>{@code http.client.request.duration}, from start to the end of the response body</li>
+ *   <li>{@code http.client.request.body.size} and {@code http.client.response.body.size}, the
+ *   bytes sent and received</li>
+ * </ul>
+ *
+ * <p>
+ * The last three also carry the response status code, if there was a response, and
+ * {@code error.type} if the exchange failed or its status was 400 or higher, so errors can be
+ * counted from the duration histogram.
+ * </p>
+ */
+@SdkPublicApi
+public final class OpenTelemetryExchangeListenerFactory implements ExchangeListener.Factory {
+
+  public static final String INSTRUMENTATION_NAME = "com.sigpwned.software.amazon.awssdk.http.java11";
+
+  public static OpenTelemetryExchangeListenerFactory create(OpenTelemetry openTelemetry) {
+    return new OpenTelemetryExchangeListenerFactory(openTelemetry);
+  }
+
+  private final Tracer tracer;
+
+  private final HttpClientInstruments instruments;
+
+  private OpenTelemetryExchangeListenerFactory(OpenTelemetry openTelemetry) {
+    requireNonNull(openTelemetry);
+    this.tracer = openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    this.instruments = HttpClientInstruments.create(openTelemetry.getMeter(INSTRUMENTATION_NAME));
+  }
+
+  @Override
+  public ExchangeListener newListener(SdkHttpRequest request) {
+    final String method = request.method().name();
+    final Attributes attributes = Attributes.of(HttpClientAttributes.HTTP_REQUEST_METHOD, method,
+        HttpClientAttributes.SERVER_ADDRESS, request.host(), HttpClientAttributes.SERVER_PORT,
+        (long) request.port());
+    final Span span = tracer.spanBuilder(method).setSpanKind(SpanKind.CLIENT)
+        .setAllAttributes(attributes)
+        .setAttribute(HttpClientAttributes.URL_FULL, HttpClientAttributes.urlFull(request))
+        .startSpan();
+    return new TelemetryExchangeListener(instruments, attributes, span);
+  }
+}
@@ -0,0 +1,45 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.otel.internal;
+
+import io.opentelemetry.api.common.AttributeKey;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.utils.http.SdkHttpUtils;
+
+/**
+ * The attributes of the HTTP client semantic conventions that exchanges report. They are declared
+ * here rather than taken from the semantic conventions artifact, which is not yet stable.
+ */
+@SdkInternalApi
+public final class HttpClientAttributes {
+
+  public static final AttributeKey<String> HTTP_REQUEST_METHOD = AttributeKey.stringKey(
+      "http.request.method");
+
+  public static final AttributeKey<Long> HTTP_RESPONSE_STATUS_CODE = AttributeKey.longKey(
+      "http.response.status_code");
+
+  public static final AttributeKey<String> SERVER_ADDRESS = AttributeKey.stringKey(
+      "server.address");
+
+  public static final AttributeKey<Long> SERVER_PORT = AttributeKey.longKey("server.port");
+
+  public static final AttributeKey<String> URL_FULL = AttributeKey.stringKey("url.full");
+
+  public static final AttributeKey<String> ERROR_TYPE = AttributeKey.stringKey("error.type");
+
+  private HttpClientAttributes() {
+  }
+
+  /**
+   * @return the URL of the given request, without its query string, and without its port if it is
+   * the standard one for its protocol
+   */
+  public static String urlFull(SdkHttpRequest request) {
+    StringBuilder result = new StringBuilder().append(request.protocol()).append("://")
+        .append(request.host());
+    if (!SdkHttpUtils.isUsingStandardPort(request.protocol(), request.port())) {
+      result.append(':').append(request.port());
+    }
+    return result.append(request.encodedPath()).toString();
+  }
+}
@@ -0,0 +1,52 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.otel.internal;
+
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongHistogram;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
+import io.opentelemetry.api.metrics.Meter;
+import java.util.List;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * The metrics of the HTTP client semantic conventions that exchanges record. Shared by all
+ * exchanges of a client.
+ */
+@SdkInternalApi
+public final class HttpClientInstruments {
+
+  /**
+   * The bucket boundaries the semantic conventions recommend for request duration, in seconds
+   */
+  private static final List<Double> DURATION_BUCKETS = List.of(0.005, 0.01, 0.025, 0.05, 0.075,
+      0.1, 0.25, 0.5, 0.75, 1.0, 2.5, 5.0, 7.5, 10.0);
+
+  public static HttpClientInstruments create(Meter meter) {
+    return new HttpClientInstruments(
+        meter.upDownCounterBuilder("http.client.active_requests")
+            .setDescription("Number of active HTTP requests.").setUnit("{request}").build(),
+        meter.histogramBuilder("http.client.request.duration")
+            .setDescription("Duration of HTTP client requests.").setUnit("s")
+            .setExplicitBucketBoundariesAdvice(DURATION_BUCKETS).build(),
+        meter.histogramBuilder("http.client.request.body.size")
+            .setDescription("Size of HTTP client request bodies.").setUnit("By").ofLongs().build(),
+        meter.histogramBuilder("http.client.response.body.size")
+            .setDescription("Size of HTTP client response bodies.").setUnit("By").ofLongs()
+            .build());
+  }
+
+  public final LongUpDownCounter activeRequests;
+
+  public final DoubleHistogram requestDuration;
+
+  public final LongHistogram requestBodySize;
+
+  public final LongHistogram responseBodySize;
+
+  private HttpClientInstruments(LongUpDownCounter activeRequests, DoubleHistogram requestDuration,
+      LongHistogram requestBodySize, LongHistogram responseBodySize) {
+    this.activeRequests = activeRequests;
+    this.requestDuration = requestDuration;
+    this.requestBodySize = requestBodySize;
+    this.responseBodySize = responseBodySize;
+  }
+}
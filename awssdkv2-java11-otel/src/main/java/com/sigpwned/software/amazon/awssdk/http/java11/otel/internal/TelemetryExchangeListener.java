@@ -0,0 +1,114 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.otel.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ExchangeListener;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import java.util.concurrent.atomic.AtomicLong;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Reports one exchange to its span and to the client's metrics. The span is already started, and
+ * is ended when the exchange completes or fails.
+ */
+@SdkInternalApi
+public final class TelemetryExchangeListener implements ExchangeListener {
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+  private final HttpClientInstruments instruments;
+
+  /**
+   * The method, server address, and server port of the exchange
+   */
+  private final Attributes attributes;
+
+  private final Span span;
+
+  /**
+   * The bytes of request body sent, across all attempts if the request is hedged
+   */
+  private final AtomicLong requestBytes = new AtomicLong();
+
+  private volatile long startNanos;
+
+  private volatile int statusCode;
+
+  private volatile long responseBytes;
+
+  public TelemetryExchangeListener(HttpClientInstruments instruments, Attributes attributes,
+      Span span) {
+    this.instruments = requireNonNull(instruments);
+    this.attributes = requireNonNull(attributes);
+    this.span = requireNonNull(span);
+  }
+
+  @Override
+  public void started(long nanoTime) {
+    startNanos = nanoTime;
+    instruments.activeRequests.add(1L, attributes);
+  }
+
+  @Override
+  public void requestBodySent(long nanoTime, long bytes) {
+    requestBytes.addAndGet(bytes);
+  }
+
+  @Override
+  public void responseHeadersReceived(long nanoTime, int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  @Override
+  public void responseBodyReceived(long nanoTime, long bytes) {
+    responseBytes = responseBytes + bytes;
+  }
+
+  @Override
+  public void completed(long nanoTime) {
+    finish(nanoTime, null);
+  }
+
+  @Override
+  public void failed(long nanoTime, Throwable error) {
+    finish(nanoTime, error);
+  }
+
+  private void finish(long nanoTime, Throwable error) {
+    instruments.activeRequests.add(-1L, attributes);
+
+    final int status = statusCode;
+    final String errorType;
+    if (error != null) {
+      errorType = error.getClass().getName();
+    } else if (status >= 400) {
+      errorType = Integer.toString(status);
+    } else {
+      errorType = null;
+    }
+
+    AttributesBuilder builder = attributes.toBuilder();
+    if (status != 0) {
+      builder.put(HttpClientAttributes.HTTP_RESPONSE_STATUS_CODE, (long) status);
+      span.setAttribute(HttpClientAttributes.HTTP_RESPONSE_STATUS_CODE, (long) status);
+    }
+    if (errorType != null) {
+      builder.put(HttpClientAttributes.ERROR_TYPE, errorType);
+      span.setAttribute(HttpClientAttributes.ERROR_TYPE, errorType);
+      span.setStatus(StatusCode.ERROR);
+    }
+    if (error != null) {
+      span.recordException(error);
+    }
+    final Attributes result = builder.build();
+
+    instruments.requestDuration.record((nanoTime - startNanos) / NANOS_PER_SECOND, result);
+    instruments.requestBodySize.record(requestBytes.get(), result);
+    instruments.responseBodySize.record(responseBytes, result);
+
+    span.end();
+  }
+}
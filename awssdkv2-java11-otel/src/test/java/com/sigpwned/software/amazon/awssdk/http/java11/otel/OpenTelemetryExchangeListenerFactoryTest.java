@@ -0,0 +1,169 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.otel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.ExchangeListener;
+import com.sigpwned.software.amazon.awssdk.http.java11.otel.internal.HttpClientAttributes;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SimpleSpanProcessor;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+
+public class OpenTelemetryExchangeListenerFactoryTest {
+
+  private static final SdkHttpRequest REQUEST = SdkHttpFullRequest.builder()
+      .method(SdkHttpMethod.PUT)
+      .uri(URI.create("https://bucket.s3.amazonaws.com/key?X-Amz-Signature=secret")).build();
+
+  public InMemorySpanExporter spanExporter;
+
+  public InMemoryMetricReader metricReader;
+
+  public OpenTelemetrySdk openTelemetry;
+
+  public OpenTelemetryExchangeListenerFactory factory;
+
+  @Before
+  public void setupOpenTelemetryExchangeListenerFactoryTest() {
+    spanExporter = InMemorySpanExporter.create();
+    metricReader = InMemoryMetricReader.create();
+    openTelemetry = OpenTelemetrySdk.builder()
+        .setTracerProvider(SdkTracerProvider.builder()
+            .addSpanProcessor(SimpleSpanProcessor.create(spanExporter)).build())
+        .setMeterProvider(SdkMeterProvider.builder().registerMetricReader(metricReader).build())
+        .build();
+    factory = OpenTelemetryExchangeListenerFactory.create(openTelemetry);
+  }
+
+  @After
+  public void cleanupOpenTelemetryExchangeListenerFactoryTest() {
+    openTelemetry.close();
+  }
+
+  @Test
+  public void completedTest() {
+    ExchangeListener listener = factory.newListener(REQUEST);
+    listener.started(0L);
+    assertThat(activeRequests()).isEqualTo(1L);
+    listener.requestMapped(1_000_000L);
+    listener.requestHeadersSent(2_000_000L);
+    listener.requestBodySent(3_000_000L, 100L);
+    listener.responseHeadersReceived(40_000_000L, 200);
+    listener.responseBodyReceived(45_000_000L, 10L);
+    listener.responseBodyReceived(48_000_000L, 20L);
+    listener.completed(50_000_000L);
+
+    assertThat(activeRequests()).isEqualTo(0L);
+
+    SpanData span = onlySpan();
+    assertThat(span.getName()).isEqualTo("PUT");
+    assertThat(span.getKind()).isEqualTo(SpanKind.CLIENT);
+    assertThat(span.getStatus().getStatusCode()).isEqualTo(StatusCode.UNSET);
+    assertThat(span.getAttributes().get(HttpClientAttributes.HTTP_REQUEST_METHOD))
+        .isEqualTo("PUT");
+    assertThat(span.getAttributes().get(HttpClientAttributes.SERVER_ADDRESS))
+        .isEqualTo("bucket.s3.amazonaws.com");
+    assertThat(span.getAttributes().get(HttpClientAttributes.SERVER_PORT)).isEqualTo(443L);
+    assertThat(span.getAttributes().get(HttpClientAttributes.URL_FULL))
+        .isEqualTo("https://bucket.s3.amazonaws.com/key");
+    assertThat(span.getAttributes().get(HttpClientAttributes.HTTP_RESPONSE_STATUS_CODE))
+        .isEqualTo(200L);
+    assertThat(span.getAttributes().get(HttpClientAttributes.ERROR_TYPE)).isNull();
+
+    HistogramPointData duration = onlyPoint("http.client.request.duration");
+    assertThat(duration.getCount()).isEqualTo(1L);
+    assertThat(duration.getSum()).isEqualTo(0.05);
+    assertThat(duration.getAttributes().get(HttpClientAttributes.HTTP_RESPONSE_STATUS_CODE))
+        .isEqualTo(200L);
+    assertThat(onlyPoint("http.client.request.body.size").getSum()).isEqualTo(100.0);
+    assertThat(onlyPoint("http.client.response.body.size").getSum()).isEqualTo(30.0);
+  }
+
+  @Test
+  public void errorStatusTest() {
+    ExchangeListener listener = factory.newListener(REQUEST);
+    listener.started(0L);
+    listener.responseHeadersReceived(1_000_000L, 503);
+    listener.completed(2_000_000L);
+
+    SpanData span = onlySpan();
+    assertThat(span.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+    assertThat(span.getAttributes().get(HttpClientAttributes.ERROR_TYPE)).isEqualTo("503");
+
+    Attributes attributes = onlyPoint("http.client.request.duration").getAttributes();
+    assertThat(attributes.get(HttpClientAttributes.HTTP_RESPONSE_STATUS_CODE)).isEqualTo(503L);
+    assertThat(attributes.get(HttpClientAttributes.ERROR_TYPE)).isEqualTo("503");
+  }
+
+  @Test
+  public void failedTest() {
+    ExchangeListener listener = factory.newListener(REQUEST);
+    listener.started(0L);
+    listener.failed(1_000_000L, new IOException("connection reset"));
+
+    assertThat(activeRequests()).isEqualTo(0L);
+
+    SpanData span = onlySpan();
+    assertThat(span.getStatus().getStatusCode()).isEqualTo(StatusCode.ERROR);
+    assertThat(span.getAttributes().get(HttpClientAttributes.ERROR_TYPE))
+        .isEqualTo("java.io.IOException");
+    assertThat(span.getAttributes().get(HttpClientAttributes.HTTP_RESPONSE_STATUS_CODE)).isNull();
+    assertThat(span.getEvents()).extracting("name").containsExactly("exception");
+
+    Attributes attributes = onlyPoint("http.client.request.duration").getAttributes();
+    assertThat(attributes.get(HttpClientAttributes.HTTP_RESPONSE_STATUS_CODE)).isNull();
+    assertThat(attributes.get(HttpClientAttributes.ERROR_TYPE)).isEqualTo("java.io.IOException");
+  }
+
+  @Test
+  public void urlFullTest() {
+    SdkHttpRequest request = SdkHttpFullRequest.builder().method(SdkHttpMethod.GET)
+        .uri(URI.create("http://localhost:8080/a/b?c=d")).build();
+
+    assertThat(HttpClientAttributes.urlFull(request)).isEqualTo("http://localhost:8080/a/b");
+  }
+
+  private SpanData onlySpan() {
+    List<SpanData> spans = spanExporter.getFinishedSpanItems();
+    assertThat(spans).hasSize(1);
+    return spans.get(0);
+  }
+
+  private long activeRequests() {
+    MetricData metric = metric("http.client.active_requests");
+    long result = 0L;
+    for (LongPointData point : metric.getLongSumData().getPoints()) {
+      result = result + point.getValue();
+    }
+    return result;
+  }
+
+  private HistogramPointData onlyPoint(String name) {
+    List<HistogramPointData> points = List.copyOf(metric(name).getHistogramData().getPoints());
+    assertThat(points).hasSize(1);
+    return points.get(0);
+  }
+
+  private MetricData metric(String name) {
+    return metricReader.collectAllMetrics().stream().filter(m -> m.getName().equals(name))
+        .findFirst().orElseThrow(() -> new AssertionError("no metric " + name));
+  }
+}
@@ -0,0 +1,65 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import java.util.Objects;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.utils.ToString;
+
+/**
+ * One successfully uploaded part of a multipart upload, as needed to complete the upload.
+ */
+@SdkPublicApi
+public final class CompletedPart {
+
+  public static CompletedPart create(int partNumber, String eTag, long contentLength) {
+    return new CompletedPart(partNumber, eTag, contentLength);
+  }
+
+  private final int partNumber;
+  private final String eTag;
+  private final long contentLength;
+
+  private CompletedPart(int partNumber, String eTag, long contentLength) {
+    this.partNumber = partNumber;
+    this.eTag = eTag;
+    this.contentLength = contentLength;
+  }
+
+  public int partNumber() {
+    return partNumber;
+  }
+
+  /**
+   * @return the {@code ETag} the server returned for the part, or {@code null} if it returned none
+   */
+  public String eTag() {
+    return eTag;
+  }
+
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CompletedPart)) {
+      return false;
+    }
+    CompletedPart that = (CompletedPart) o;
+    return partNumber == that.partNumber && contentLength == that.contentLength
+        && Objects.equals(eTag, that.eTag);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(partNumber, eTag, contentLength);
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("CompletedPart").add("partNumber", partNumber).add("eTag", eTag)
+        .add("contentLength", contentLength).build();
+  }
+}
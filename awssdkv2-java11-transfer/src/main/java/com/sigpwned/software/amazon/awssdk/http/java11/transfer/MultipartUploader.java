@@ -0,0 +1,228 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.FileContentPublisher;
+import com.sigpwned.software.amazon.awssdk.http.java11.Java11AsyncHttpClient;
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal.ByteBudget;
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal.MultipartUpload;
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal.StreamPartSource;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.reactivestreams.Publisher;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Uploads large objects as many concurrent part uploads, which is much faster than one request
+ * over one connection. The caller creates the multipart upload, supplies a
+ * {@link PartRequestFactory} for its part requests, and completes the upload with the
+ * {@link CompletedPart parts} this returns, which are in part number order.
+ *
+ * <p>
+ * The bytes of the parts in flight, plus any parts buffered in memory and waiting to go, never
+ * exceed a budget shared by all of the uploader's uploads, so memory use does not grow with the
+ * size or number of the objects. File parts are not copied into memory at all; they are sent
+ * straight from the file, memory-mapped if the client is a {@link Java11AsyncHttpClient}. Stream
+ * parts are copied into part-sized buffers, and the stream is only read as fast as the budget
+ * allows. Each part is retried on its own.
+ * </p>
+ */
+@SdkPublicApi
+public final class MultipartUploader {
+
+  public static final long DEFAULT_PART_SIZE_IN_BYTES = 8L * 1024L * 1024L;
+
+  public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+  public static final int DEFAULT_MAX_ATTEMPTS_PER_PART = 3;
+
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  public interface Builder {
+
+    /**
+     * The client to send requests with. Required.
+     */
+    Builder httpClient(SdkAsyncHttpClient httpClient);
+
+    /**
+     * The size of each part but the last. Defaults to {@link #DEFAULT_PART_SIZE_IN_BYTES}.
+     */
+    Builder partSizeInBytes(Long partSizeInBytes);
+
+    /**
+     * The most parts to upload concurrently. Defaults to {@link #DEFAULT_MAX_CONCURRENCY}.
+     */
+    Builder maxConcurrency(Integer maxConcurrency);
+
+    /**
+     * The most bytes to hold in memory or in flight at once, across all of the uploader's uploads.
+     * Defaults to the part size times the maximum concurrency. At least one part is always allowed,
+     * however large.
+     */
+    Builder maxInFlightBytes(Long maxInFlightBytes);
+
+    /**
+     * The most times to try each part before failing the upload. Defaults to
+     * {@link #DEFAULT_MAX_ATTEMPTS_PER_PART}.
+     */
+    Builder maxAttemptsPerPart(Integer maxAttemptsPerPart);
+
+    MultipartUploader build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private SdkAsyncHttpClient httpClient;
+    private Long partSizeInBytes;
+    private Integer maxConcurrency;
+    private Long maxInFlightBytes;
+    private Integer maxAttemptsPerPart;
+
+    @Override
+    public Builder httpClient(SdkAsyncHttpClient httpClient) {
+      this.httpClient = httpClient;
+      return this;
+    }
+
+    @Override
+    public Builder partSizeInBytes(Long partSizeInBytes) {
+      this.partSizeInBytes = partSizeInBytes;
+      return this;
+    }
+
+    @Override
+    public Builder maxConcurrency(Integer maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    @Override
+    public Builder maxInFlightBytes(Long maxInFlightBytes) {
+      this.maxInFlightBytes = maxInFlightBytes;
+      return this;
+    }
+
+    @Override
+    public Builder maxAttemptsPerPart(Integer maxAttemptsPerPart) {
+      this.maxAttemptsPerPart = maxAttemptsPerPart;
+      return this;
+    }
+
+    @Override
+    public MultipartUploader build() {
+      return new MultipartUploader(this);
+    }
+  }
+
+  private final SdkAsyncHttpClient httpClient;
+  private final long partSizeInBytes;
+  private final int maxConcurrency;
+  private final long maxInFlightBytes;
+  private final int maxAttemptsPerPart;
+  private final ByteBudget budget;
+
+  private MultipartUploader(DefaultBuilder builder) {
+    this.httpClient = Validate.paramNotNull(builder.httpClient, "httpClient");
+    this.partSizeInBytes = Validate.isPositive(
+        Optional.ofNullable(builder.partSizeInBytes).orElse(DEFAULT_PART_SIZE_IN_BYTES),
+        "partSizeInBytes");
+    Validate.isTrue(partSizeInBytes <= Integer.MAX_VALUE, "partSizeInBytes must be at most %d",
+        Integer.MAX_VALUE);
+    this.maxConcurrency = Validate.isPositive(
+        Optional.ofNullable(builder.maxConcurrency).orElse(DEFAULT_MAX_CONCURRENCY),
+        "maxConcurrency");
+    this.maxInFlightBytes = Validate.isPositive(
+        Optional.ofNullable(builder.maxInFlightBytes).orElse(partSizeInBytes * maxConcurrency),
+        "maxInFlightBytes");
+    this.maxAttemptsPerPart = Validate.isPositive(
+        Optional.ofNullable(builder.maxAttemptsPerPart).orElse(DEFAULT_MAX_ATTEMPTS_PER_PART),
+        "maxAttemptsPerPart");
+    this.budget = new ByteBudget(maxInFlightBytes);
+  }
+
+  /**
+   * Uploads the given file. An empty file is uploaded as a single empty part.
+   *
+   * @return a future that completes with the uploaded parts, in part number order
+   */
+  public CompletableFuture<List<CompletedPart>> upload(Path source,
+      PartRequestFactory partRequestFactory) {
+    final long size;
+    try {
+      size = Files.size(source);
+    } catch (IOException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+
+    final MultipartUpload upload = newUpload(partRequestFactory);
+    final int partCount = (int) Math.max(1L, (size + partSizeInBytes - 1L) / partSizeInBytes);
+    upload.provider(new MultipartUpload.PartProvider() {
+      private int nextPartNumber = 1;
+
+      @Override
+      public MultipartUpload.UploadPart poll() {
+        if (nextPartNumber > partCount) {
+          return null;
+        }
+        final long position = (nextPartNumber - 1L) * partSizeInBytes;
+        final long length = Math.min(partSizeInBytes, size - position);
+        if (!budget.tryAcquire(length)) {
+          return null;
+        }
+        return new MultipartUpload.UploadPart(nextPartNumber++, length,
+            () -> FileContentPublisher.create(source, position, length));
+      }
+
+      @Override
+      public void onBudgetReleased() {
+      }
+
+      @Override
+      public void onUploadFailed() {
+      }
+    });
+
+    upload.sourceComplete(partCount);
+    upload.pump();
+
+    return upload.result();
+  }
+
+  /**
+   * Uploads the content of the given publisher, which is read only as fast as the budget allows.
+   * An empty publisher is uploaded as a single empty part.
+   *
+   * @return a future that completes with the uploaded parts, in part number order
+   */
+  public CompletableFuture<List<CompletedPart>> upload(Publisher<ByteBuffer> source,
+      PartRequestFactory partRequestFactory) {
+    final MultipartUpload upload = newUpload(partRequestFactory);
+    final StreamPartSource parts = new StreamPartSource(upload, budget, (int) partSizeInBytes);
+    upload.provider(parts);
+
+    source.subscribe(parts);
+
+    return upload.result();
+  }
+
+  private MultipartUpload newUpload(PartRequestFactory partRequestFactory) {
+    return new MultipartUpload(httpClient, partRequestFactory, maxConcurrency,
+        maxAttemptsPerPart, budget);
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("MultipartUploader").add("partSizeInBytes", partSizeInBytes)
+        .add("maxConcurrency", maxConcurrency).add("maxInFlightBytes", maxInFlightBytes)
+        .add("maxAttemptsPerPart", maxAttemptsPerPart).build();
+  }
+}
@@ -0,0 +1,20 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.SdkHttpRequest;
+
+/**
+ * Creates the request that uploads one part of a multipart upload, e.g., an S3 UploadPart request
+ * for an upload the caller has already created. Called once per attempt, so the request may be
+ * signed or presigned here.
+ */
+@SdkPublicApi
+@FunctionalInterface
+public interface PartRequestFactory {
+
+  /**
+   * @param partNumber    the number of the part, starting at 1
+   * @param contentLength the length of the part's body
+   */
+  SdkHttpRequest partRequest(int partNumber, long contentLength);
+}
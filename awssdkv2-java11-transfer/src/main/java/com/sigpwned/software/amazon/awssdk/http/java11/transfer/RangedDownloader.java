@@ -0,0 +1,301 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.FileResponseHandler;
+import com.sigpwned.software.amazon.awssdk.http.java11.FsyncPolicy;
+import com.sigpwned.software.amazon.awssdk.http.java11.Java11AsyncHttpClient;
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal.AimdConcurrencyLimiter;
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal.OrderedPartPublisher;
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal.RangedDownload;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.UnaryOperator;
+import org.reactivestreams.Publisher;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.utils.ToString;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Downloads large objects as many concurrent byte-range requests, which is much faster than one
+ * request over one connection. The first part's response tells the downloader how large the object
+ * is; the remaining parts are then requested concurrently. The number of parts in flight adapts to
+ * how the server responds, growing while parts succeed and shrinking when they fail, and each part
+ * is retried on its own.
+ *
+ * <p>
+ * The server must support range requests. If it ignores the range and sends the whole object
+ * instead, the download still succeeds, but as a single request. When downloading to a publisher,
+ * that single response is buffered whole, so it must have a {@code Content-Length} if it is larger
+ * than one part. Every part after the first is requested with {@code If-Match} on the first part's
+ * {@code ETag}, if it had one, so that an object that changes during the download fails the
+ * download instead of corrupting it.
+ * </p>
+ *
+ * <p>
+ * Any {@link SdkAsyncHttpClient} will do, but a {@link Java11AsyncHttpClient} writes file
+ * downloads directly from its receive buffers into the file.
+ * </p>
+ */
+@SdkPublicApi
+public final class RangedDownloader {
+
+  public static final long DEFAULT_PART_SIZE_IN_BYTES = 8L * 1024L * 1024L;
+
+  public static final int DEFAULT_INITIAL_CONCURRENCY = 4;
+
+  public static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+  public static final int DEFAULT_MAX_ATTEMPTS_PER_PART = 3;
+
+  public static Builder builder() {
+    return new DefaultBuilder();
+  }
+
+  public interface Builder {
+
+    /**
+     * The client to send requests with. Required.
+     */
+    Builder httpClient(SdkAsyncHttpClient httpClient);
+
+    /**
+     * The size of each part. Defaults to {@link #DEFAULT_PART_SIZE_IN_BYTES}. When downloading to
+     * a publisher, each part is buffered in memory, so this is also the size of the buffers the
+     * publisher publishes.
+     */
+    Builder partSizeInBytes(Long partSizeInBytes);
+
+    /**
+     * The number of parts to request concurrently at first. Defaults to
+     * {@link #DEFAULT_INITIAL_CONCURRENCY}.
+     */
+    Builder initialConcurrency(Integer initialConcurrency);
+
+    /**
+     * The most parts to request concurrently. Defaults to {@link #DEFAULT_MAX_CONCURRENCY}. When
+     * downloading to a publisher, this is also the most parts held in memory at once.
+     */
+    Builder maxConcurrency(Integer maxConcurrency);
+
+    /**
+     * The most times to try each part before failing the download. Defaults to
+     * {@link #DEFAULT_MAX_ATTEMPTS_PER_PART}.
+     */
+    Builder maxAttemptsPerPart(Integer maxAttemptsPerPart);
+
+    /**
+     * Customizes each part request, including retries, just before it is sent, e.g., to sign it.
+     * The request already carries its {@code Range} header. Defaults to the identity.
+     */
+    Builder requestCustomizer(UnaryOperator<SdkHttpRequest> requestCustomizer);
+
+    /**
+     * Whether and how to force downloaded files to storage. Defaults to {@link FsyncPolicy#NONE}.
+     */
+    Builder fsyncPolicy(FsyncPolicy fsyncPolicy);
+
+    RangedDownloader build();
+  }
+
+  private static final class DefaultBuilder implements Builder {
+
+    private SdkAsyncHttpClient httpClient;
+    private Long partSizeInBytes;
+    private Integer initialConcurrency;
+    private Integer maxConcurrency;
+    private Integer maxAttemptsPerPart;
+    private UnaryOperator<SdkHttpRequest> requestCustomizer;
+    private FsyncPolicy fsyncPolicy;
+
+    @Override
+    public Builder httpClient(SdkAsyncHttpClient httpClient) {
+      this.httpClient = httpClient;
+      return this;
+    }
+
+    @Override
+    public Builder partSizeInBytes(Long partSizeInBytes) {
+      this.partSizeInBytes = partSizeInBytes;
+      return this;
+    }
+
+    @Override
+    public Builder initialConcurrency(Integer initialConcurrency) {
+      this.initialConcurrency = initialConcurrency;
+      return this;
+    }
+
+    @Override
+    public Builder maxConcurrency(Integer maxConcurrency) {
+      this.maxConcurrency = maxConcurrency;
+      return this;
+    }
+
+    @Override
+    public Builder maxAttemptsPerPart(Integer maxAttemptsPerPart) {
+      this.maxAttemptsPerPart = maxAttemptsPerPart;
+      return this;
+    }
+
+    @Override
+    public Builder requestCustomizer(UnaryOperator<SdkHttpRequest> requestCustomizer) {
+      this.requestCustomizer = requestCustomizer;
+      return this;
+    }
+
+    @Override
+    public Builder fsyncPolicy(FsyncPolicy fsyncPolicy) {
+      this.fsyncPolicy = fsyncPolicy;
+      return this;
+    }
+
+    @Override
+    public RangedDownloader build() {
+      return new RangedDownloader(this);
+    }
+  }
+
+  private final SdkAsyncHttpClient httpClient;
+  private final long partSizeInBytes;
+  private final int initialConcurrency;
+  private final int maxConcurrency;
+  private final int maxAttemptsPerPart;
+  private final UnaryOperator<SdkHttpRequest> requestCustomizer;
+  private final FsyncPolicy fsyncPolicy;
+
+  private RangedDownloader(DefaultBuilder builder) {
+    this.httpClient = Validate.paramNotNull(builder.httpClient, "httpClient");
+    this.partSizeInBytes = Validate.isPositive(
+        Optional.ofNullable(builder.partSizeInBytes).orElse(DEFAULT_PART_SIZE_IN_BYTES),
+        "partSizeInBytes");
+    Validate.isTrue(partSizeInBytes <= Integer.MAX_VALUE, "partSizeInBytes must be at most %d",
+        Integer.MAX_VALUE);
+    this.maxConcurrency = Validate.isPositive(
+        Optional.ofNullable(builder.maxConcurrency).orElse(DEFAULT_MAX_CONCURRENCY),
+        "maxConcurrency");
+    this.initialConcurrency = Validate.isPositive(
+        Optional.ofNullable(builder.initialConcurrency)
+            .orElse(Math.min(DEFAULT_INITIAL_CONCURRENCY, maxConcurrency)), "initialConcurrency");
+    this.maxAttemptsPerPart = Validate.isPositive(
+        Optional.ofNullable(builder.maxAttemptsPerPart).orElse(DEFAULT_MAX_ATTEMPTS_PER_PART),
+        "maxAttemptsPerPart");
+    this.requestCustomizer = Optional.ofNullable(builder.requestCustomizer)
+        .orElse(UnaryOperator.identity());
+    this.fsyncPolicy = Optional.ofNullable(builder.fsyncPolicy).orElse(FsyncPolicy.NONE);
+  }
+
+  /**
+   * Downloads the object the given GET request names into the given file, replacing its contents.
+   * The parts are written into place as they arrive with positional writes, so memory use does not
+   * depend on the size of the object.
+   *
+   * @return a future that completes with the length of the object once it has been written
+   */
+  public CompletableFuture<Long> download(SdkHttpRequest request, Path destination) {
+    final CompletableFuture<Long> result = new CompletableFuture<>();
+
+    try {
+      // Truncate up front, since the parts all write into the file concurrently
+      FileChannel.open(destination, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING).close();
+    } catch (IOException e) {
+      result.completeExceptionally(e);
+      return result;
+    }
+
+    final RangedDownload download = newDownload(request, new RangedDownload.PartSink() {
+      @Override
+      public RangedDownload.PartHandler newPartHandler(long partNumber, long position,
+          long length) {
+        return new FilePartHandler(FileResponseHandler.builder().path(destination)
+            .position(position).truncateExisting(false).fsyncPolicy(fsyncPolicy).build());
+      }
+
+      @Override
+      public boolean hasCapacity(long partNumber) {
+        return true;
+      }
+
+      @Override
+      public void onPart(long partNumber, RangedDownload.PartHandler handler) {
+      }
+
+      @Override
+      public void onComplete(long partCount, long contentLength) {
+        result.complete(contentLength);
+      }
+
+      @Override
+      public void onError(Throwable cause) {
+        result.completeExceptionally(cause);
+      }
+    });
+
+    result.whenComplete((n, e) -> {
+      if (result.isCancelled()) {
+        download.cancel();
+      }
+    });
+
+    download.start();
+
+    return result;
+  }
+
+  /**
+   * Downloads the object the given GET request names as a publisher of its content, in order, one
+   * buffer per part. The download starts when the publisher is subscribed to, and supports only one
+   * subscriber. At most {@link Builder#maxConcurrency(Integer) maxConcurrency} parts are held in
+   * memory at once, unless the server ignores the range, in which case the whole object is held in
+   * memory as one buffer.
+   */
+  public Publisher<ByteBuffer> download(SdkHttpRequest request) {
+    final OrderedPartPublisher publisher = new OrderedPartPublisher(maxConcurrency);
+    publisher.download(newDownload(request, publisher));
+    return publisher;
+  }
+
+  private RangedDownload newDownload(SdkHttpRequest request, RangedDownload.PartSink sink) {
+    return new RangedDownload(httpClient, request, partSizeInBytes, maxAttemptsPerPart,
+        requestCustomizer, new AimdConcurrencyLimiter(initialConcurrency, 1, maxConcurrency), sink);
+  }
+
+  @Override
+  public String toString() {
+    return ToString.builder("RangedDownloader").add("partSizeInBytes", partSizeInBytes)
+        .add("initialConcurrency", initialConcurrency).add("maxConcurrency", maxConcurrency)
+        .add("maxAttemptsPerPart", maxAttemptsPerPart).build();
+  }
+
+  private static final class FilePartHandler implements RangedDownload.PartHandler {
+
+    private final FileResponseHandler handler;
+
+    public FilePartHandler(FileResponseHandler handler) {
+      this.handler = handler;
+    }
+
+    @Override
+    public SdkAsyncHttpResponseHandler responseHandler() {
+      return handler;
+    }
+
+    @Override
+    public CompletableFuture<SdkHttpResponse> headersFuture() {
+      return handler.headersFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> bodyFuture() {
+      return handler.future();
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import java.io.IOException;
+import software.amazon.awssdk.annotations.SdkPublicApi;
+
+/**
+ * Thrown when a server answers one of the requests of a transfer with a response the transfer
+ * cannot use, e.g., an error status or the wrong byte range.
+ */
+@SdkPublicApi
+public class UnexpectedResponseException extends IOException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int statusCode;
+
+  public UnexpectedResponseException(int statusCode, String message) {
+    super(message);
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * @return the status code of the offending response
+   */
+  public int statusCode() {
+    return statusCode;
+  }
+}
@@ -0,0 +1,36 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * An additive-increase, multiplicative-decrease concurrency limit. Each success grows the limit by
+ * about one per limit's worth of successes, and each failure halves it, so the limit settles just
+ * below the point where the server or the network starts pushing back.
+ */
+@SdkInternalApi
+public final class AimdConcurrencyLimiter {
+
+  private final int minLimit;
+  private final int maxLimit;
+  private double limit;
+
+  public AimdConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+    this.minLimit = Validate.isPositive(minLimit, "minLimit");
+    this.maxLimit = Validate.isPositive(maxLimit, "maxLimit");
+    Validate.isTrue(minLimit <= maxLimit, "minLimit must not be greater than maxLimit");
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+  }
+
+  public synchronized int limit() {
+    return (int) limit;
+  }
+
+  public synchronized void onSuccess() {
+    limit = Math.min(maxLimit, limit + 1.0 / limit);
+  }
+
+  public synchronized void onFailure() {
+    limit = Math.max(minLimit, limit / 2.0);
+  }
+}
@@ -0,0 +1,135 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Collects one part's response body into a single buffer of at most a given capacity. When the
+ * response has a {@code Content-Length}, the buffer is allocated at exactly that size up front.
+ *
+ * <p>
+ * The first part is requested before the size of the object is known, and a server that ignores
+ * the range answers it with the whole object. So for the first part only, a {@code 200} response
+ * with a {@code Content-Length} may be as large as its {@code Content-Length} says, up to
+ * {@link Integer#MAX_VALUE} bytes, instead of the given capacity.
+ * </p>
+ */
+@SdkInternalApi
+public final class BufferingPartHandler implements RangedDownload.PartHandler,
+    SdkAsyncHttpResponseHandler {
+
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+  private final boolean firstPart;
+  private final CompletableFuture<SdkHttpResponse> headersFuture = new CompletableFuture<>();
+  private final CompletableFuture<Long> bodyFuture = new CompletableFuture<>();
+  private int capacity;
+  private ByteBuffer buffer;
+
+  /**
+   * @param firstPart whether this is the first part, which may receive the whole object
+   */
+  public BufferingPartHandler(long capacity, boolean firstPart) {
+    Validate.isTrue(capacity >= 0L && capacity <= Integer.MAX_VALUE,
+        "capacity must be between 0 and %d", Integer.MAX_VALUE);
+    this.capacity = (int) capacity;
+    this.firstPart = firstPart;
+  }
+
+  @Override
+  public SdkAsyncHttpResponseHandler responseHandler() {
+    return this;
+  }
+
+  @Override
+  public CompletableFuture<SdkHttpResponse> headersFuture() {
+    return headersFuture;
+  }
+
+  @Override
+  public CompletableFuture<Long> bodyFuture() {
+    return bodyFuture;
+  }
+
+  /**
+   * @return the body, ready to read. Only meaningful once {@link #bodyFuture()} has completed.
+   */
+  public ByteBuffer body() {
+    return buffer;
+  }
+
+  @Override
+  public void onHeaders(SdkHttpResponse headers) {
+    if (firstPart && headers.statusCode() == 200) {
+      // The server ignored our range, so make room for the whole object, if we know its size
+      headers.firstMatchingHeader("Content-Length").map(Long::parseLong)
+          .filter(n -> n <= Integer.MAX_VALUE).ifPresent(n -> capacity = n.intValue());
+    }
+    final int initialSize = headers.firstMatchingHeader("Content-Length").map(Long::parseLong)
+        .filter(n -> n <= capacity).map(Long::intValue)
+        .orElse(Math.min(capacity, INITIAL_BUFFER_SIZE));
+    buffer = ByteBuffer.allocate(initialSize);
+    headersFuture.complete(headers);
+  }
+
+  @Override
+  public void onStream(Publisher<ByteBuffer> stream) {
+    stream.subscribe(new Subscriber<ByteBuffer>() {
+      private Subscription subscription;
+
+      @Override
+      public void onSubscribe(Subscription s) {
+        subscription = s;
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onNext(ByteBuffer b) {
+        if (b.remaining() > buffer.remaining() && !grow(buffer.position() + b.remaining())) {
+          subscription.cancel();
+          onError(new IOException("Response body exceeded " + capacity + " bytes"));
+          return;
+        }
+        buffer.put(b);
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        BufferingPartHandler.this.onError(t);
+      }
+
+      @Override
+      public void onComplete() {
+        buffer.flip();
+        bodyFuture.complete((long) buffer.remaining());
+      }
+    });
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    headersFuture.completeExceptionally(error);
+    bodyFuture.completeExceptionally(error);
+  }
+
+  private boolean grow(long required) {
+    if (required > capacity) {
+      return false;
+    }
+    final long size = Math.min(capacity, Math.max(required, 2L * buffer.capacity()));
+    final ByteBuffer larger = ByteBuffer.allocate((int) size);
+    buffer.flip();
+    larger.put(buffer);
+    buffer = larger;
+    return true;
+  }
+}
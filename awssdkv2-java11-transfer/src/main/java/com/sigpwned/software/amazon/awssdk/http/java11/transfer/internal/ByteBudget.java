@@ -0,0 +1,61 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * A count of bytes that may be held at once. An acquisition always succeeds when nothing is held,
+ * so a single request larger than the whole budget still makes progress. A budget may be shared by
+ * many uploads, so every release notifies all the listeners, which may be waiting for room.
+ */
+@SdkInternalApi
+public final class ByteBudget {
+
+  private final long limit;
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+  private long used;
+
+  public ByteBudget(long limit) {
+    this.limit = Validate.isPositive(limit, "limit");
+  }
+
+  public synchronized boolean tryAcquire(long n) {
+    if (used == 0L || used + n <= limit) {
+      used = used + n;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Gives back the given bytes, and then runs every listener. Must not be called with a lock held
+   * that a listener might take.
+   */
+  public void release(long n) {
+    synchronized (this) {
+      used = used - n;
+    }
+    for (Runnable listener : listeners) {
+      listener.run();
+    }
+  }
+
+  public synchronized long used() {
+    return used;
+  }
+
+  /**
+   * Adds a listener to run whenever some of the budget is released.
+   */
+  public void addListener(Runnable listener) {
+    listeners.add(requireNonNull(listener));
+  }
+
+  public void removeListener(Runnable listener) {
+    listeners.remove(listener);
+  }
+}
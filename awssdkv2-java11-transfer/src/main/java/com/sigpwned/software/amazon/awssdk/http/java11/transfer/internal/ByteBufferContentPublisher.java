@@ -0,0 +1,55 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+
+/**
+ * A request body that is already in memory. Each subscriber gets its own read-only view of the
+ * buffer, so the body can be sent again on retry.
+ */
+@SdkInternalApi
+public final class ByteBufferContentPublisher implements SdkHttpContentPublisher {
+
+  private final ByteBuffer buffer;
+
+  public ByteBufferContentPublisher(ByteBuffer buffer) {
+    this.buffer = buffer.asReadOnlyBuffer();
+  }
+
+  @Override
+  public Optional<Long> contentLength() {
+    return Optional.of((long) buffer.remaining());
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+    final ByteBuffer view = buffer.duplicate();
+    final AtomicBoolean done = new AtomicBoolean(false);
+    subscriber.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+        if (done.compareAndSet(false, true)) {
+          if (n <= 0L) {
+            subscriber.onError(
+                new IllegalArgumentException("n must be positive, per reactive streams 3.9"));
+            return;
+          }
+          if (view.hasRemaining()) {
+            subscriber.onNext(view);
+          }
+          subscriber.onComplete();
+        }
+      }
+
+      @Override
+      public void cancel() {
+        done.set(true);
+      }
+    });
+  }
+}
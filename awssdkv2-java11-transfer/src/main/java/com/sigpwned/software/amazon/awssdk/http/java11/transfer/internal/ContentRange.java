@@ -0,0 +1,69 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * A parsed {@code Content-Range} response header, e.g., {@code bytes 0-99/1000}, or the
+ * unsatisfied range form that servers send with a 416 response.
+ */
+@SdkInternalApi
+public final class ContentRange {
+
+  private static final Pattern PATTERN = Pattern.compile(
+      "\\s*bytes\\s+(?:(\\d+)-(\\d+)|\\*)/(\\d+|\\*)\\s*", Pattern.CASE_INSENSITIVE);
+
+  /**
+   * @return the parsed header, or empty if the value is not a valid byte range
+   */
+  public static Optional<ContentRange> parse(String value) {
+    Matcher m = PATTERN.matcher(value);
+    if (!m.matches()) {
+      return Optional.empty();
+    }
+    try {
+      long first = m.group(1) != null ? Long.parseLong(m.group(1)) : -1L;
+      long last = m.group(2) != null ? Long.parseLong(m.group(2)) : -1L;
+      long completeLength = !m.group(3).equals("*") ? Long.parseLong(m.group(3)) : -1L;
+      if (last < first) {
+        return Optional.empty();
+      }
+      return Optional.of(new ContentRange(first, last, completeLength));
+    } catch (NumberFormatException e) {
+      return Optional.empty();
+    }
+  }
+
+  private final long first;
+  private final long last;
+  private final long completeLength;
+
+  private ContentRange(long first, long last, long completeLength) {
+    this.first = first;
+    this.last = last;
+    this.completeLength = completeLength;
+  }
+
+  /**
+   * @return the offset of the first byte in the range, or -1 if the range is unsatisfied
+   */
+  public long first() {
+    return first;
+  }
+
+  /**
+   * @return the offset of the last byte in the range, inclusive, or -1 if the range is unsatisfied
+   */
+  public long last() {
+    return last;
+  }
+
+  /**
+   * @return the length of the complete representation, or -1 if the server did not say
+   */
+  public long completeLength() {
+    return completeLength;
+  }
+}
@@ -0,0 +1,70 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+
+/**
+ * Keeps a response's headers and reads and discards its body, for requests whose responses carry
+ * everything of interest in their headers.
+ */
+@SdkInternalApi
+public final class DiscardingResponseHandler implements SdkAsyncHttpResponseHandler {
+
+  private final CompletableFuture<SdkHttpResponse> headersFuture = new CompletableFuture<>();
+  private final CompletableFuture<Long> bodyFuture = new CompletableFuture<>();
+
+  public CompletableFuture<SdkHttpResponse> headersFuture() {
+    return headersFuture;
+  }
+
+  /**
+   * @return a future that completes with the number of body bytes discarded
+   */
+  public CompletableFuture<Long> bodyFuture() {
+    return bodyFuture;
+  }
+
+  @Override
+  public void onHeaders(SdkHttpResponse headers) {
+    headersFuture.complete(headers);
+  }
+
+  @Override
+  public void onStream(Publisher<ByteBuffer> stream) {
+    stream.subscribe(new Subscriber<ByteBuffer>() {
+      private long discarded;
+
+      @Override
+      public void onSubscribe(Subscription s) {
+        s.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(ByteBuffer b) {
+        discarded = discarded + b.remaining();
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        DiscardingResponseHandler.this.onError(t);
+      }
+
+      @Override
+      public void onComplete() {
+        bodyFuture.complete(discarded);
+      }
+    });
+  }
+
+  @Override
+  public void onError(Throwable error) {
+    headersFuture.completeExceptionally(error);
+    bodyFuture.completeExceptionally(error);
+  }
+}
@@ -0,0 +1,39 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+
+/**
+ * The request body of a request that has none.
+ */
+@SdkInternalApi
+public final class EmptyContentPublisher implements SdkHttpContentPublisher {
+
+  public static final EmptyContentPublisher INSTANCE = new EmptyContentPublisher();
+
+  private EmptyContentPublisher() {
+  }
+
+  @Override
+  public Optional<Long> contentLength() {
+    return Optional.of(0L);
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+    subscriber.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+      }
+
+      @Override
+      public void cancel() {
+      }
+    });
+    subscriber.onComplete();
+  }
+}
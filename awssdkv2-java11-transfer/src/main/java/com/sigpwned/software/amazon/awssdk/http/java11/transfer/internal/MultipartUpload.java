@@ -0,0 +1,279 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.CompletedPart;
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.PartRequestFactory;
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.UnexpectedResponseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.async.SdkHttpContentPublisher;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Uploads the parts of a multipart upload concurrently. Parts come from a {@link PartProvider},
+ * which holds a share of a {@link ByteBudget} for each part it hands out. The share is released
+ * once the part has been uploaded, so the budget bounds the bytes in memory or in flight at once.
+ * The budget may be shared with other uploads, so the upload listens for releases by any of them.
+ * Completed parts are tracked by part number and reported in order.
+ */
+@SdkInternalApi
+public final class MultipartUpload {
+
+  private static final Logger log = Logger.loggerFor(MultipartUpload.class);
+
+  private static final long INITIAL_RETRY_DELAY_MILLIS = 100L;
+
+  /**
+   * One part, ready to upload.
+   */
+  public static final class UploadPart {
+
+    private final int partNumber;
+    private final long contentLength;
+    private final Supplier<SdkHttpContentPublisher> body;
+
+    public UploadPart(int partNumber, long contentLength, Supplier<SdkHttpContentPublisher> body) {
+      this.partNumber = partNumber;
+      this.contentLength = contentLength;
+      this.body = requireNonNull(body);
+    }
+
+    public int partNumber() {
+      return partNumber;
+    }
+
+    public long contentLength() {
+      return contentLength;
+    }
+
+    /**
+     * @return a fresh body for one attempt at this part
+     */
+    public SdkHttpContentPublisher body() {
+      return body.get();
+    }
+  }
+
+  /**
+   * Hands out parts in order.
+   */
+  public interface PartProvider {
+
+    /**
+     * @return the next part, or {@code null} if no part is ready now. Called with the upload's lock
+     *     held, so must not call back into the upload.
+     */
+    UploadPart poll();
+
+    /**
+     * Called when the upload has released some of the budget, so the provider may be able to
+     * prepare more parts.
+     */
+    void onBudgetReleased();
+
+    /**
+     * Called when the upload fails, so the provider should stop preparing parts, and release the
+     * budget held by any parts it prepared but never handed out.
+     */
+    void onUploadFailed();
+  }
+
+  private final SdkAsyncHttpClient httpClient;
+  private final PartRequestFactory partRequestFactory;
+  private final int maxConcurrency;
+  private final int maxAttemptsPerPart;
+  private final ByteBudget budget;
+  private final CompletableFuture<List<CompletedPart>> result = new CompletableFuture<>();
+  private final Runnable budgetListener = this::onBudgetReleased;
+  private PartProvider provider;
+
+  // All guarded by this
+  private final SortedMap<Integer, CompletedPart> completedParts = new TreeMap<>();
+  private int inFlight;
+  private int partCount = -1;
+  private boolean done;
+
+  public MultipartUpload(SdkAsyncHttpClient httpClient, PartRequestFactory partRequestFactory,
+      int maxConcurrency, int maxAttemptsPerPart, ByteBudget budget) {
+    this.httpClient = requireNonNull(httpClient);
+    this.partRequestFactory = requireNonNull(partRequestFactory);
+    this.maxConcurrency = maxConcurrency;
+    this.maxAttemptsPerPart = maxAttemptsPerPart;
+    this.budget = requireNonNull(budget);
+    this.result.whenComplete((parts, e) -> budget.removeListener(budgetListener));
+  }
+
+  /**
+   * Sets the provider of parts. Must be called before {@link #pump()}.
+   */
+  public void provider(PartProvider provider) {
+    this.provider = requireNonNull(provider);
+    budget.addListener(budgetListener);
+  }
+
+  /**
+   * @return a future that completes with the uploaded parts, in part number order
+   */
+  public CompletableFuture<List<CompletedPart>> result() {
+    return result;
+  }
+
+  /**
+   * Uploads as many ready parts as the concurrency limit allows. The provider should call this
+   * whenever it makes a part ready.
+   */
+  public void pump() {
+    final List<UploadPart> parts = new ArrayList<>();
+    synchronized (this) {
+      UploadPart part;
+      while (!done && inFlight < maxConcurrency && (part = provider.poll()) != null) {
+        parts.add(part);
+        inFlight = inFlight + 1;
+      }
+    }
+    for (UploadPart part : parts) {
+      send(part, 1);
+    }
+  }
+
+  /**
+   * Called by the provider once it knows how many parts there are.
+   */
+  public void sourceComplete(int partCount) {
+    final List<CompletedPart> parts;
+    synchronized (this) {
+      this.partCount = partCount;
+      parts = takeResultIfComplete();
+    }
+    if (parts != null) {
+      result.complete(parts);
+    }
+  }
+
+  /**
+   * Called by the provider if it cannot provide the remaining parts.
+   */
+  public void sourceFailed(Throwable cause) {
+    fail(cause);
+  }
+
+  private void send(UploadPart part, int attempt) {
+    final DiscardingResponseHandler handler = new DiscardingResponseHandler();
+
+    CompletableFuture<Void> execution;
+    try {
+      execution = httpClient.execute(AsyncExecuteRequest.builder()
+          .request(partRequestFactory.partRequest(part.partNumber(), part.contentLength()))
+          .requestContentPublisher(part.body()).responseHandler(handler)
+          .fullDuplex(true).build());
+    } catch (RuntimeException e) {
+      execution = new CompletableFuture<>();
+      execution.completeExceptionally(e);
+    }
+
+    execution.thenCompose(x -> handler.bodyFuture()).whenComplete((discarded, e) -> {
+      if (e != null) {
+        onPartFailure(part, attempt, unwrap(e), true);
+        return;
+      }
+      final SdkHttpResponse response = handler.headersFuture().join();
+      if (!response.isSuccessful()) {
+        final int statusCode = response.statusCode();
+        onPartFailure(part, attempt, new UnexpectedResponseException(statusCode,
+                "Unexpected status " + statusCode + " for part " + part.partNumber()),
+            statusCode == 408 || statusCode == 429 || statusCode >= 500);
+        return;
+      }
+      onPartSuccess(part, response.firstMatchingHeader("ETag").orElse(null));
+    });
+  }
+
+  private void onPartSuccess(UploadPart part, String eTag) {
+    final List<CompletedPart> parts;
+    synchronized (this) {
+      inFlight = inFlight - 1;
+      completedParts.put(part.partNumber(),
+          CompletedPart.create(part.partNumber(), eTag, part.contentLength()));
+      parts = takeResultIfComplete();
+    }
+
+    // This calls back into onBudgetReleased, which uploads the next parts if we are not done
+    budget.release(part.contentLength());
+
+    if (parts != null) {
+      result.complete(parts);
+    }
+  }
+
+  private void onBudgetReleased() {
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+    }
+    provider.onBudgetReleased();
+    pump();
+  }
+
+  private void onPartFailure(UploadPart part, int attempt, Throwable cause, boolean retryable) {
+    if (retryable && attempt < maxAttemptsPerPart) {
+      final boolean abandoned;
+      synchronized (this) {
+        abandoned = done;
+      }
+      if (abandoned) {
+        // The upload has already failed, so there is no point retrying, but the part still holds
+        // its share of the budget, which other uploads may be waiting for
+        budget.release(part.contentLength());
+        return;
+      }
+      log.debug(() -> "Retrying part " + part.partNumber() + " after attempt " + attempt
+          + " failed", cause);
+      final long delay = INITIAL_RETRY_DELAY_MILLIS << (attempt - 1);
+      CompletableFuture.runAsync(() -> send(part, attempt + 1),
+          CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+    } else {
+      fail(cause);
+      budget.release(part.contentLength());
+    }
+  }
+
+  private void fail(Throwable cause) {
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      done = true;
+    }
+    provider.onUploadFailed();
+    result.completeExceptionally(cause);
+  }
+
+  private List<CompletedPart> takeResultIfComplete() {
+    if (done || partCount < 0 || completedParts.size() != partCount) {
+      return null;
+    }
+    done = true;
+    return new ArrayList<>(completedParts.values());
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    while ((e instanceof CompletionException || e instanceof ExecutionException)
+        && e.getCause() != null) {
+      e = e.getCause();
+    }
+    return e;
+  }
+}
@@ -0,0 +1,153 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.utils.Validate;
+
+/**
+ * Publishes the parts of a ranged download in order, one buffer per part, to a single subscriber.
+ * Parts that arrive early wait in memory until the parts before them have been published, and no
+ * part is requested until it is within {@code maxBufferedParts} of the next part to publish, so
+ * memory use is bounded by {@code maxBufferedParts} times the part size no matter how large the
+ * object is or how slowly the subscriber reads.
+ */
+@SdkInternalApi
+public final class OrderedPartPublisher implements Publisher<ByteBuffer>,
+    RangedDownload.PartSink {
+
+  private final int maxBufferedParts;
+  private final AtomicReference<Subscriber<? super ByteBuffer>> subscriber =
+      new AtomicReference<>();
+  private final Map<Long, ByteBuffer> parts = new ConcurrentHashMap<>();
+  private final AtomicLong requested = new AtomicLong(0L);
+  private final AtomicInteger wip = new AtomicInteger(0);
+  private RangedDownload download;
+  private volatile long nextToPublish;
+  private volatile long partCount = -1L;
+  private volatile Throwable error;
+  private volatile boolean cancelled;
+  private boolean terminated;
+
+  public OrderedPartPublisher(int maxBufferedParts) {
+    this.maxBufferedParts = Validate.isPositive(maxBufferedParts, "maxBufferedParts");
+  }
+
+  /**
+   * Sets the download that feeds this publisher. Must be called before subscribing.
+   */
+  public void download(RangedDownload download) {
+    this.download = download;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super ByteBuffer> s) {
+    if (!subscriber.compareAndSet(null, s)) {
+      s.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      s.onError(new IllegalStateException("This publisher only supports one subscriber"));
+      return;
+    }
+
+    s.onSubscribe(new Subscription() {
+      @Override
+      public void request(long n) {
+        if (n <= 0L) {
+          error = new IllegalArgumentException("n must be positive, per reactive streams 3.9");
+        } else {
+          requested.getAndUpdate(r -> r + n < 0L ? Long.MAX_VALUE : r + n);
+        }
+        drain();
+      }
+
+      @Override
+      public void cancel() {
+        cancelled = true;
+        download.cancel();
+        drain();
+      }
+    });
+
+    download.start();
+  }
+
+  @Override
+  public RangedDownload.PartHandler newPartHandler(long partNumber, long position, long length) {
+    return new BufferingPartHandler(length, partNumber == 0L);
+  }
+
+  @Override
+  public boolean hasCapacity(long partNumber) {
+    return partNumber < nextToPublish + maxBufferedParts;
+  }
+
+  @Override
+  public void onPart(long partNumber, RangedDownload.PartHandler handler) {
+    parts.put(partNumber, ((BufferingPartHandler) handler).body());
+    drain();
+  }
+
+  @Override
+  public void onComplete(long partCount, long contentLength) {
+    this.partCount = partCount;
+    drain();
+  }
+
+  @Override
+  public void onError(Throwable cause) {
+    error = cause;
+    drain();
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+
+    boolean published = false;
+    do {
+      final Subscriber<? super ByteBuffer> s = subscriber.get();
+      if (terminated) {
+        parts.clear();
+      } else if (cancelled) {
+        terminated = true;
+        parts.clear();
+      } else if (error != null) {
+        terminated = true;
+        parts.clear();
+        s.onError(error);
+      } else {
+        ByteBuffer part;
+        while (requested.get() > 0L && (part = parts.remove(nextToPublish)) != null) {
+          nextToPublish = nextToPublish + 1L;
+          requested.decrementAndGet();
+          published = true;
+          s.onNext(part);
+        }
+        if (partCount >= 0L && nextToPublish >= partCount) {
+          terminated = true;
+          s.onComplete();
+        }
+      }
+    } while (wip.decrementAndGet() != 0);
+
+    if (published) {
+      // We made room for more parts
+      download.pump();
+    }
+  }
+}
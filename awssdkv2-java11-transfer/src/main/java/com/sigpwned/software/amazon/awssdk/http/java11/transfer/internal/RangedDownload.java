@@ -0,0 +1,330 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.transfer.UnexpectedResponseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.http.async.AsyncExecuteRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpResponseHandler;
+import software.amazon.awssdk.utils.Logger;
+
+/**
+ * Downloads one object as a series of byte-range requests. The first part is requested before the
+ * size of the object is known, and its response headers tell us how many parts there are. The
+ * remaining parts are then requested concurrently, up to an adaptive concurrency limit, and each
+ * part is retried independently. Where the parts go is up to the {@link PartSink}.
+ */
+@SdkInternalApi
+public final class RangedDownload {
+
+  private static final Logger log = Logger.loggerFor(RangedDownload.class);
+
+  private static final long INITIAL_RETRY_DELAY_MILLIS = 100L;
+
+  /**
+   * Receives the response for one attempt at one part.
+   */
+  public interface PartHandler {
+
+    SdkAsyncHttpResponseHandler responseHandler();
+
+    CompletableFuture<SdkHttpResponse> headersFuture();
+
+    /**
+     * @return a future that completes with the number of body bytes received
+     */
+    CompletableFuture<Long> bodyFuture();
+  }
+
+  /**
+   * Where the parts go.
+   */
+  public interface PartSink {
+
+    /**
+     * Creates a handler for one attempt at the given part, which covers {@code length} bytes
+     * starting at {@code position}. For the first part, the length is the part size, since the
+     * length of the object is not known yet.
+     */
+    PartHandler newPartHandler(long partNumber, long position, long length);
+
+    /**
+     * @return {@code true} if the sink has room to receive the given part now. Called with the
+     *     download's lock held, so must not call back into the download.
+     */
+    boolean hasCapacity(long partNumber);
+
+    void onPart(long partNumber, PartHandler handler);
+
+    void onComplete(long partCount, long contentLength);
+
+    void onError(Throwable cause);
+  }
+
+  private final SdkAsyncHttpClient httpClient;
+  private final SdkHttpRequest request;
+  private final long partSizeInBytes;
+  private final int maxAttemptsPerPart;
+  private final UnaryOperator<SdkHttpRequest> requestCustomizer;
+  private final AimdConcurrencyLimiter limiter;
+  private final PartSink sink;
+
+  // All guarded by this
+  private long partCount = -1L;
+  private long contentLength = -1L;
+  private String etag;
+  private long nextPart = 1L;
+  private int inFlight;
+  private long completedParts;
+  private boolean done;
+
+  public RangedDownload(SdkAsyncHttpClient httpClient, SdkHttpRequest request,
+      long partSizeInBytes, int maxAttemptsPerPart, UnaryOperator<SdkHttpRequest> requestCustomizer,
+      AimdConcurrencyLimiter limiter, PartSink sink) {
+    this.httpClient = requireNonNull(httpClient);
+    this.request = requireNonNull(request);
+    this.partSizeInBytes = partSizeInBytes;
+    this.maxAttemptsPerPart = maxAttemptsPerPart;
+    this.requestCustomizer = requireNonNull(requestCustomizer);
+    this.limiter = requireNonNull(limiter);
+    this.sink = requireNonNull(sink);
+  }
+
+  public void start() {
+    synchronized (this) {
+      inFlight = 1;
+    }
+    fetch(0L, 1);
+  }
+
+  /**
+   * Stops requesting new parts. Parts already in flight run to completion, but are not delivered.
+   */
+  public void cancel() {
+    synchronized (this) {
+      done = true;
+    }
+  }
+
+  /**
+   * Requests as many parts as the concurrency limit and the sink allow. The sink should call this
+   * whenever it makes room for more parts.
+   */
+  public void pump() {
+    final List<Long> parts = new ArrayList<>();
+    synchronized (this) {
+      while (!done && nextPart < partCount && inFlight < limiter.limit()
+          && sink.hasCapacity(nextPart)) {
+        parts.add(nextPart++);
+        inFlight = inFlight + 1;
+      }
+    }
+    for (Long part : parts) {
+      fetch(part, 1);
+    }
+  }
+
+  private void fetch(long part, int attempt) {
+    final long position = part * partSizeInBytes;
+    final long length;
+    final String ifMatch;
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      length = part == 0L ? partSizeInBytes : Math.min(partSizeInBytes, contentLength - position);
+      ifMatch = etag;
+    }
+
+    final SdkHttpRequest.Builder partRequest = request.toBuilder()
+        .putHeader("Range", "bytes=" + position + "-" + (position + length - 1L));
+    if (ifMatch != null) {
+      // Make sure every part comes from the same version of the object
+      partRequest.putHeader("If-Match", ifMatch);
+    }
+
+    final PartHandler handler = sink.newPartHandler(part, position, length);
+    if (part == 0L) {
+      handler.headersFuture().thenAccept(this::onFirstHeaders);
+    }
+
+    CompletableFuture<Void> execution;
+    try {
+      execution = httpClient.execute(AsyncExecuteRequest.builder()
+          .request(requestCustomizer.apply(partRequest.build()))
+          .requestContentPublisher(EmptyContentPublisher.INSTANCE)
+          .responseHandler(handler.responseHandler()).fullDuplex(false).build());
+    } catch (RuntimeException e) {
+      execution = new CompletableFuture<>();
+      execution.completeExceptionally(e);
+    }
+
+    execution.thenCompose(x -> handler.bodyFuture()).whenComplete((received, e) -> {
+      if (e != null) {
+        onPartFailure(part, attempt, unwrap(e), true);
+        return;
+      }
+      try {
+        checkPart(part, position, handler.headersFuture().join(), received);
+      } catch (UnexpectedResponseException ure) {
+        onPartFailure(part, attempt, ure, isRetryable(ure.statusCode()));
+        return;
+      }
+      onPartSuccess(part, handler);
+    });
+  }
+
+  /**
+   * Works out the size of the object from the headers of the first part, so that we can start
+   * requesting the other parts before the first part's body arrives.
+   */
+  private void onFirstHeaders(SdkHttpResponse response) {
+    synchronized (this) {
+      if (partCount >= 0L) {
+        return;
+      }
+      final ContentRange range = response.firstMatchingHeader("Content-Range")
+          .flatMap(ContentRange::parse).orElse(null);
+      if (response.statusCode() == 206 && range != null && range.completeLength() >= 0L) {
+        contentLength = range.completeLength();
+        partCount = (contentLength + partSizeInBytes - 1L) / partSizeInBytes;
+        etag = response.firstMatchingHeader("ETag").orElse(null);
+      } else if (response.statusCode() == 200) {
+        // The server ignored our range, so the whole object is coming in the first part
+        partCount = 1L;
+      } else {
+        return;
+      }
+    }
+    pump();
+  }
+
+  private void checkPart(long part, long position, SdkHttpResponse response, long received)
+      throws UnexpectedResponseException {
+    final int statusCode = response.statusCode();
+    if (part == 0L) {
+      if (statusCode == 416 && response.firstMatchingHeader("Content-Range")
+          .flatMap(ContentRange::parse).map(r -> r.completeLength() == 0L).orElse(false)) {
+        // The object is empty, so it has no ranges to satisfy
+        synchronized (this) {
+          partCount = 0L;
+          contentLength = 0L;
+        }
+        return;
+      }
+      if (statusCode == 200) {
+        synchronized (this) {
+          partCount = 1L;
+          contentLength = received;
+        }
+        return;
+      }
+      onFirstHeaders(response);
+    }
+
+    if (statusCode != 206) {
+      throw new UnexpectedResponseException(statusCode,
+          "Unexpected status " + statusCode + " for part " + part);
+    }
+
+    final long expectedLength;
+    synchronized (this) {
+      if (partCount < 0L) {
+        throw new UnexpectedResponseException(statusCode,
+            "Server did not report the length of the object");
+      }
+      expectedLength = Math.min(partSizeInBytes, contentLength - position);
+    }
+
+    final ContentRange range = response.firstMatchingHeader("Content-Range")
+        .flatMap(ContentRange::parse).orElse(null);
+    if (range == null || range.first() != position
+        || range.last() != position + expectedLength - 1L) {
+      throw new UnexpectedResponseException(statusCode,
+          "Unexpected content range " + response.firstMatchingHeader("Content-Range").orElse(null)
+              + " for part " + part);
+    }
+    if (received != expectedLength) {
+      // A truncated body is a transport problem, so treat it like a server error
+      throw new UnexpectedResponseException(500,
+          "Received " + received + " of " + expectedLength + " bytes for part " + part);
+    }
+  }
+
+  private void onPartSuccess(long part, PartHandler handler) {
+    final boolean complete;
+    final long count;
+    final long length;
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      inFlight = inFlight - 1;
+      if (partCount == 0L) {
+        complete = true;
+      } else {
+        completedParts = completedParts + 1L;
+        complete = completedParts == partCount;
+      }
+      if (complete) {
+        done = true;
+      }
+      count = partCount;
+      length = contentLength;
+    }
+
+    limiter.onSuccess();
+
+    if (count > 0L) {
+      sink.onPart(part, handler);
+    }
+    if (complete) {
+      sink.onComplete(count, length);
+    } else {
+      pump();
+    }
+  }
+
+  private void onPartFailure(long part, int attempt, Throwable cause, boolean retryable) {
+    synchronized (this) {
+      if (done) {
+        return;
+      }
+      if (!retryable || attempt >= maxAttemptsPerPart) {
+        done = true;
+      }
+    }
+
+    if (retryable && attempt < maxAttemptsPerPart) {
+      log.debug(() -> "Retrying part " + part + " after attempt " + attempt + " failed", cause);
+      limiter.onFailure();
+      final long delay = INITIAL_RETRY_DELAY_MILLIS << (attempt - 1);
+      CompletableFuture.runAsync(() -> fetch(part, attempt + 1),
+          CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+    } else {
+      sink.onError(cause);
+    }
+  }
+
+  private static boolean isRetryable(int statusCode) {
+    return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+  }
+
+  private static Throwable unwrap(Throwable e) {
+    while ((e instanceof CompletionException || e instanceof ExecutionException)
+        && e.getCause() != null) {
+      e = e.getCause();
+    }
+    return e;
+  }
+}
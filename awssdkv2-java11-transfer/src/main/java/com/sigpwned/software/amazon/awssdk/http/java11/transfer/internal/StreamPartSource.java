@@ -0,0 +1,218 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer.internal;
+
+import static java.util.Objects.requireNonNull;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.annotations.SdkInternalApi;
+
+/**
+ * Cuts a stream of buffers into part-sized chunks for a multipart upload. A chunk's full part size
+ * is taken from the budget before the chunk is filled, and upstream demand stops whenever the
+ * budget is exhausted, so the stream is read no faster than the parts can be uploaded.
+ */
+@SdkInternalApi
+public final class StreamPartSource implements Subscriber<ByteBuffer>,
+    MultipartUpload.PartProvider {
+
+  private final MultipartUpload upload;
+  private final ByteBudget budget;
+  private final int partSizeInBytes;
+  private final Queue<MultipartUpload.UploadPart> ready = new ConcurrentLinkedQueue<>();
+
+  // All guarded by this
+  private Subscription subscription;
+  private ByteBuffer chunk;
+  private ByteBuffer pending;
+  private int nextPartNumber = 1;
+  private boolean requested;
+  private boolean upstreamComplete;
+  private boolean finished;
+
+  public StreamPartSource(MultipartUpload upload, ByteBudget budget, int partSizeInBytes) {
+    this.upload = requireNonNull(upload);
+    this.budget = requireNonNull(budget);
+    this.partSizeInBytes = partSizeInBytes;
+  }
+
+  @Override
+  public MultipartUpload.UploadPart poll() {
+    return ready.poll();
+  }
+
+  @Override
+  public void onBudgetReleased() {
+    resume();
+  }
+
+  @Override
+  public void onUploadFailed() {
+    final Subscription s;
+    final long held;
+    synchronized (this) {
+      finished = true;
+      held = abandon();
+      s = subscription;
+    }
+    if (held > 0L) {
+      budget.release(held);
+    }
+    if (s != null) {
+      s.cancel();
+    }
+  }
+
+  @Override
+  public void onSubscribe(Subscription s) {
+    synchronized (this) {
+      if (subscription != null) {
+        s.cancel();
+        return;
+      }
+      subscription = s;
+    }
+    resume();
+  }
+
+  @Override
+  public void onNext(ByteBuffer buffer) {
+    synchronized (this) {
+      requested = false;
+      if (finished) {
+        return;
+      }
+      pending = buffer;
+    }
+    resume();
+  }
+
+  @Override
+  public void onError(Throwable t) {
+    final long held;
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      held = abandon();
+    }
+    if (held > 0L) {
+      budget.release(held);
+    }
+    upload.sourceFailed(t);
+  }
+
+  @Override
+  public void onComplete() {
+    synchronized (this) {
+      upstreamComplete = true;
+    }
+    resume();
+  }
+
+  /**
+   * Moves as much of the stream into chunks as the budget allows, then asks for more if there is
+   * room for it.
+   */
+  private void resume() {
+    boolean sealed = false;
+    long unused = 0L;
+    boolean request = false;
+    int partCount = -1;
+    synchronized (this) {
+      if (finished || subscription == null) {
+        return;
+      }
+
+      while (pending != null) {
+        if (chunk == null) {
+          if (!budget.tryAcquire(partSizeInBytes)) {
+            // Wait for an upload to release some budget
+            break;
+          }
+          chunk = ByteBuffer.allocate(partSizeInBytes);
+        }
+        final int n = Math.min(chunk.remaining(), pending.remaining());
+        final ByteBuffer slice = pending.duplicate();
+        slice.limit(slice.position() + n);
+        chunk.put(slice);
+        pending.position(pending.position() + n);
+        if (!pending.hasRemaining()) {
+          pending = null;
+        }
+        if (!chunk.hasRemaining()) {
+          unused = unused + seal();
+          sealed = true;
+        }
+      }
+
+      if (pending == null) {
+        if (upstreamComplete) {
+          if (chunk != null || nextPartNumber == 1) {
+            // Upload the last, short part, or a single empty part for an empty stream
+            if (chunk == null) {
+              chunk = ByteBuffer.allocate(0);
+            }
+            unused = unused + seal();
+            sealed = true;
+          }
+          finished = true;
+          partCount = nextPartNumber - 1;
+        } else if (!requested) {
+          requested = true;
+          request = true;
+        }
+      }
+    }
+
+    if (unused > 0L) {
+      // Released outside our lock, since the release calls back into this and other uploads
+      budget.release(unused);
+    }
+    if (sealed) {
+      upload.pump();
+    }
+    if (partCount >= 0) {
+      upload.sourceComplete(partCount);
+    }
+    if (request) {
+      subscription.request(1L);
+    }
+  }
+
+  /**
+   * Drops the chunk being filled and the parts not yet handed out. Parts already handed out give
+   * back their own share of the budget when they finish.
+   *
+   * @return how much budget the dropped chunk and parts held, which the caller must release
+   */
+  private long abandon() {
+    long held = 0L;
+    if (chunk != null) {
+      held = held + chunk.capacity();
+      chunk = null;
+    }
+    pending = null;
+    MultipartUpload.UploadPart part;
+    while ((part = ready.poll()) != null) {
+      held = held + part.contentLength();
+    }
+    return held;
+  }
+
+  /**
+   * @return how much of the part's budget the part did not use, which the caller must release
+   */
+  private long seal() {
+    chunk.flip();
+    final ByteBuffer body = chunk;
+    chunk = null;
+    ready.add(new MultipartUpload.UploadPart(nextPartNumber++, body.remaining(),
+        () -> new ByteBufferContentPublisher(body)));
+    // We took a whole part's worth of budget, so give back what the part did not use
+    return body.capacity() - (long) body.remaining();
+  }
+}
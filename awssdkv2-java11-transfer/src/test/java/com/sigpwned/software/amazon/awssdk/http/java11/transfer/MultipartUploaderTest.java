@@ -0,0 +1,235 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.Java11AsyncHttpClient;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.SubmissionPublisher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.FlowAdapters;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+
+public class MultipartUploaderTest {
+
+  private static final int PART_SIZE = 64 * 1024;
+
+  private SdkAsyncHttpClient client;
+  private Path file;
+
+  @Before
+  public void setupMultipartUploaderTest() throws Exception {
+    client = Java11AsyncHttpClient.builder().build();
+    file = Files.createTempFile("MultipartUploaderTest", ".bin");
+  }
+
+  @After
+  public void cleanupMultipartUploaderTest() throws Exception {
+    client.close();
+    Files.deleteIfExists(file);
+  }
+
+  @Test(timeout = 10000)
+  public void uploadFileTest() throws Exception {
+    final byte[] content = content(5 * PART_SIZE + 17);
+    Files.write(file, content);
+    try (UploadServer server = new UploadServer()) {
+      List<CompletedPart> parts = uploader().upload(file, factory(server)).get();
+
+      assertThat(parts).hasSize(6);
+      assertThat(parts.get(0)).isEqualTo(CompletedPart.create(1, "\"etag-1\"", PART_SIZE));
+      assertThat(parts.get(5)).isEqualTo(CompletedPart.create(6, "\"etag-6\"", 17L));
+      assertThat(assemble(server)).isEqualTo(content);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void uploadStreamTest() throws Exception {
+    final byte[] content = content(3 * PART_SIZE + 1000);
+    try (UploadServer server = new UploadServer()) {
+      final SubmissionPublisher<ByteBuffer> publisher = new SubmissionPublisher<>();
+      final CompletableFuture<List<CompletedPart>> result = uploader()
+          .upload(FlowAdapters.toPublisher(publisher), factory(server));
+
+      // Feed the stream in odd-sized chunks that do not line up with the parts
+      for (int offset = 0; offset < content.length; offset = offset + 10007) {
+        publisher.submit(ByteBuffer.wrap(content, offset,
+            Math.min(10007, content.length - offset)));
+      }
+      publisher.close();
+
+      assertThat(result.get()).extracting(CompletedPart::partNumber).containsExactly(1, 2, 3, 4);
+      assertThat(assemble(server)).isEqualTo(content);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void emptyFileTest() throws Exception {
+    try (UploadServer server = new UploadServer()) {
+      assertThat(uploader().upload(file, factory(server)).get()).containsExactly(
+          CompletedPart.create(1, "\"etag-1\"", 0L));
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void failedPartIsRetriedTest() throws Exception {
+    final byte[] content = content(3 * PART_SIZE);
+    Files.write(file, content);
+    try (UploadServer server = new UploadServer().failPart(2, 2)) {
+      assertThat(uploader().upload(file, factory(server)).get()).hasSize(3);
+      assertThat(assemble(server)).isEqualTo(content);
+      assertThat(server.requests()).isEqualTo(5);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void exhaustedRetriesFailUploadTest() throws Exception {
+    Files.write(file, content(2 * PART_SIZE));
+    try (UploadServer server = new UploadServer().failPart(1, 3)) {
+      try {
+        uploader().upload(file, factory(server)).get();
+        throw new AssertionError("upload should have failed");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(UnexpectedResponseException.class);
+        assertThat(((UnexpectedResponseException) e.getCause()).statusCode()).isEqualTo(503);
+      }
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void budgetLimitsBytesInFlightTest() throws Exception {
+    final byte[] content = content(6 * PART_SIZE);
+    Files.write(file, content);
+    try (UploadServer server = new UploadServer()) {
+      MultipartUploader.builder().httpClient(client).partSizeInBytes((long) PART_SIZE)
+          .maxConcurrency(8).maxInFlightBytes(2L * PART_SIZE).build()
+          .upload(file, factory(server)).get();
+
+      assertThat(assemble(server)).isEqualTo(content);
+      assertThat(server.maxInFlight()).isLessThanOrEqualTo(2);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void budgetIsSharedByUploadsTest() throws Exception {
+    Files.write(file, content(6 * PART_SIZE));
+    try (UploadServer server = new UploadServer()) {
+      MultipartUploader uploader = MultipartUploader.builder().httpClient(client)
+          .partSizeInBytes((long) PART_SIZE).maxConcurrency(8).maxInFlightBytes(2L * PART_SIZE)
+          .build();
+
+      // Number the second upload's parts apart from the first's, since they share a server
+      CompletableFuture<List<CompletedPart>> first = uploader.upload(file, factory(server));
+      CompletableFuture<List<CompletedPart>> second = uploader.upload(file,
+          (partNumber, contentLength) -> SdkHttpRequest.builder()
+              .uri(server.uri(100 + partNumber)).method(SdkHttpMethod.PUT).build());
+
+      assertThat(first.get()).hasSize(6);
+      assertThat(second.get()).hasSize(6);
+      assertThat(server.parts()).hasSize(12);
+      assertThat(server.maxInFlight()).isLessThanOrEqualTo(2);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void failedUploadReleasesBudgetTest() throws Exception {
+    Files.write(file, content(PART_SIZE));
+    try (UploadServer server = new UploadServer()) {
+      MultipartUploader uploader = MultipartUploader.builder().httpClient(client)
+          .partSizeInBytes((long) PART_SIZE).maxInFlightBytes((long) PART_SIZE).build();
+
+      // The stream fails while its second part is half full, so that part holds the whole budget
+      final IOException failure = new IOException("simulated");
+      CompletableFuture<List<CompletedPart>> first = uploader.upload(
+          new FailingPublisher(List.of(ByteBuffer.wrap(content(PART_SIZE)),
+              ByteBuffer.wrap(content(PART_SIZE / 2))), failure), factory(server));
+      try {
+        first.get();
+        throw new AssertionError("upload should have failed");
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isSameAs(failure);
+      }
+
+      // Number the second upload's parts apart from the first's, since they share a server
+      CompletableFuture<List<CompletedPart>> second = uploader.upload(file,
+          (partNumber, contentLength) -> SdkHttpRequest.builder()
+              .uri(server.uri(100 + partNumber)).method(SdkHttpMethod.PUT).build());
+
+      assertThat(second.get()).hasSize(1);
+    }
+  }
+
+  private MultipartUploader uploader() {
+    return MultipartUploader.builder().httpClient(client).partSizeInBytes((long) PART_SIZE)
+        .build();
+  }
+
+  private static PartRequestFactory factory(UploadServer server) {
+    return (partNumber, contentLength) -> SdkHttpRequest.builder().uri(server.uri(partNumber))
+        .method(SdkHttpMethod.PUT).build();
+  }
+
+  private static byte[] assemble(UploadServer server) {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream();
+    final List<Integer> partNumbers = new ArrayList<>(server.parts().keySet());
+    for (int i = 0; i < partNumbers.size(); i++) {
+      assertThat(partNumbers.get(i)).isEqualTo(i + 1);
+      result.writeBytes(server.parts().get(partNumbers.get(i)));
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Publishes the given buffers one per request, then fails on the next request.
+   */
+  private static final class FailingPublisher implements Publisher<ByteBuffer> {
+
+    private final Iterator<ByteBuffer> buffers;
+    private final Throwable failure;
+
+    public FailingPublisher(List<ByteBuffer> buffers, Throwable failure) {
+      this.buffers = buffers.iterator();
+      this.failure = failure;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+          if (buffers.hasNext()) {
+            subscriber.onNext(buffers.next());
+          } else {
+            subscriber.onError(failure);
+          }
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+    }
+  }
+
+  private static byte[] content(int length) {
+    byte[] result = new byte[length];
+    new Random(length).nextBytes(result);
+    return result;
+  }
+}
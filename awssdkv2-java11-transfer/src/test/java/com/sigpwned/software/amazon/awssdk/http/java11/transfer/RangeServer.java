@@ -0,0 +1,132 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+/**
+ * A local server that serves one object with support for single byte-range requests, and can be
+ * told to fail some of them.
+ */
+public class RangeServer implements AutoCloseable {
+
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+  private static final String ETAG = "\"example\"";
+
+  private final byte[] content;
+  private final Server server;
+  private final Map<Long, AtomicInteger> failuresByPosition = new ConcurrentHashMap<>();
+  private final List<HttpServletRequest> requests = new CopyOnWriteArrayList<>();
+  private final List<String> ranges = new CopyOnWriteArrayList<>();
+  private final List<String> customHeaders = new CopyOnWriteArrayList<>();
+  private volatile boolean ignoreRanges;
+
+  public RangeServer(byte[] content) throws Exception {
+    this.content = content;
+    this.server = new Server(0);
+    this.server.setHandler(new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+          HttpServletResponse response) throws IOException {
+        baseRequest.setHandled(true);
+        serve(request, response);
+      }
+    });
+    this.server.start();
+  }
+
+  /**
+   * Fail the next {@code count} requests for the range starting at {@code position} with a 503.
+   */
+  public RangeServer failRange(long position, int count) {
+    failuresByPosition.put(position, new AtomicInteger(count));
+    return this;
+  }
+
+  public RangeServer ignoreRanges() {
+    ignoreRanges = true;
+    return this;
+  }
+
+  public URI uri() {
+    int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    return URI.create("http://localhost:" + port + "/object");
+  }
+
+  public List<String> ranges() {
+    return ranges;
+  }
+
+  public List<String> customHeaders() {
+    return customHeaders;
+  }
+
+  private void serve(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    final String range = request.getHeader("Range");
+    ranges.add(String.valueOf(range));
+    if (request.getHeader("x-custom") != null) {
+      customHeaders.add(request.getHeader("x-custom"));
+    }
+
+    response.setHeader("ETag", ETAG);
+
+    final Matcher m = range != null ? RANGE.matcher(range) : null;
+    if (ignoreRanges || m == null || !m.matches()) {
+      response.setStatus(200);
+      response.setContentLength(content.length);
+      response.getOutputStream().write(content);
+      return;
+    }
+
+    final String ifMatch = request.getHeader("If-Match");
+    if (ifMatch != null && !ifMatch.equals(ETAG)) {
+      response.setStatus(412);
+      response.setContentLength(0);
+      return;
+    }
+
+    final long first = Long.parseLong(m.group(1));
+    final long last = Math.min(Long.parseLong(m.group(2)), content.length - 1L);
+    if (first >= content.length) {
+      response.setStatus(416);
+      response.setHeader("Content-Range", "bytes */" + content.length);
+      response.setContentLength(0);
+      return;
+    }
+
+    final AtomicInteger failures = failuresByPosition.get(first);
+    if (failures != null && failures.getAndDecrement() > 0) {
+      response.setStatus(503);
+      response.setContentLength(0);
+      return;
+    }
+
+    response.setStatus(206);
+    response.setHeader("Content-Range", "bytes " + first + "-" + last + "/" + content.length);
+    response.setContentLength((int) (last - first + 1L));
+    response.getOutputStream().write(content, (int) first, (int) (last - first + 1L));
+  }
+
+  @Override
+  public void close() {
+    try {
+      server.stop();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
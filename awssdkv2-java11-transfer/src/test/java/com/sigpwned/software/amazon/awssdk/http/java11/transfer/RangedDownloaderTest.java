@@ -0,0 +1,166 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sigpwned.software.amazon.awssdk.http.java11.Java11AsyncHttpClient;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+
+public class RangedDownloaderTest {
+
+  private static final int PART_SIZE = 64 * 1024;
+
+  private SdkAsyncHttpClient client;
+  private Path file;
+
+  @Before
+  public void setupRangedDownloaderTest() throws Exception {
+    client = Java11AsyncHttpClient.builder().build();
+    file = Files.createTempFile("RangedDownloaderTest", ".bin");
+  }
+
+  @After
+  public void cleanupRangedDownloaderTest() throws Exception {
+    client.close();
+    Files.deleteIfExists(file);
+  }
+
+  @Test(timeout = 10000)
+  public void downloadToFileTest() throws Exception {
+    final byte[] content = content(10 * PART_SIZE + 123);
+    try (RangeServer server = new RangeServer(content)) {
+      long length = downloader().download(request(server), file).get();
+
+      assertThat(length).isEqualTo(content.length);
+      assertThat(Files.readAllBytes(file)).isEqualTo(content);
+      assertThat(server.ranges()).hasSize(11).contains("bytes=655360-655482");
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void downloadToPublisherTest() throws Exception {
+    final byte[] content = content(10 * PART_SIZE + 123);
+    try (RangeServer server = new RangeServer(content)) {
+      assertThat(collect(RangedDownloader.builder().httpClient(client)
+          .partSizeInBytes((long) PART_SIZE).maxConcurrency(2).build()
+          .download(request(server))).get()).isEqualTo(content);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void failedPartIsRetriedTest() throws Exception {
+    final byte[] content = content(4 * PART_SIZE);
+    try (RangeServer server = new RangeServer(content).failRange(0L, 1)
+        .failRange(2L * PART_SIZE, 2)) {
+      downloader().download(request(server), file).get();
+
+      assertThat(Files.readAllBytes(file)).isEqualTo(content);
+      assertThat(server.ranges()).hasSize(7);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void serverIgnoringRangesTest() throws Exception {
+    final byte[] content = content(4 * PART_SIZE);
+    try (RangeServer server = new RangeServer(content).ignoreRanges()) {
+      assertThat(downloader().download(request(server), file).get()).isEqualTo(content.length);
+
+      assertThat(Files.readAllBytes(file)).isEqualTo(content);
+      assertThat(server.ranges()).hasSize(1);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void serverIgnoringRangesToPublisherTest() throws Exception {
+    final byte[] content = content(4 * PART_SIZE);
+    try (RangeServer server = new RangeServer(content).ignoreRanges()) {
+      assertThat(collect(downloader().download(request(server))).get()).isEqualTo(content);
+
+      assertThat(server.ranges()).hasSize(1);
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void emptyObjectTest() throws Exception {
+    Files.write(file, new byte[]{1, 2, 3});
+    try (RangeServer server = new RangeServer(new byte[0])) {
+      assertThat(downloader().download(request(server), file).get()).isEqualTo(0L);
+      assertThat(Files.size(file)).isEqualTo(0L);
+      assertThat(collect(downloader().download(request(server))).get()).isEmpty();
+    }
+  }
+
+  @Test(timeout = 10000)
+  public void requestCustomizerTest() throws Exception {
+    final byte[] content = content(3 * PART_SIZE);
+    try (RangeServer server = new RangeServer(content)) {
+      RangedDownloader.builder().httpClient(client).partSizeInBytes((long) PART_SIZE)
+          .requestCustomizer(r -> r.toBuilder().putHeader("x-custom", "signed").build()).build()
+          .download(request(server), file).get();
+
+      assertThat(server.customHeaders()).hasSize(3).containsOnly("signed");
+    }
+  }
+
+  private RangedDownloader downloader() {
+    return RangedDownloader.builder().httpClient(client).partSizeInBytes((long) PART_SIZE)
+        .build();
+  }
+
+  private static SdkHttpRequest request(RangeServer server) {
+    return SdkHttpRequest.builder().uri(server.uri()).method(SdkHttpMethod.GET).build();
+  }
+
+  private static byte[] content(int length) {
+    byte[] result = new byte[length];
+    new Random(length).nextBytes(result);
+    return result;
+  }
+
+  private static CompletableFuture<byte[]> collect(
+      Publisher<ByteBuffer> publisher) {
+    final CompletableFuture<byte[]> result = new CompletableFuture<>();
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    publisher.subscribe(new Subscriber<ByteBuffer>() {
+      private Subscription subscription;
+
+      @Override
+      public void onSubscribe(Subscription s) {
+        subscription = s;
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onNext(ByteBuffer b) {
+        byte[] bytes = new byte[b.remaining()];
+        b.get(bytes);
+        buffer.writeBytes(bytes);
+        subscription.request(1L);
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        result.completeExceptionally(t);
+      }
+
+      @Override
+      public void onComplete() {
+        result.complete(buffer.toByteArray());
+      }
+    });
+    return result;
+  }
+}
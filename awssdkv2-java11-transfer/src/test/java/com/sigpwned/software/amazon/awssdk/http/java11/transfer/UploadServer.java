@@ -0,0 +1,110 @@
+package com.sigpwned.software.amazon.awssdk.http.java11.transfer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+
+/**
+ * A local server that accepts part uploads, remembers them, and can be told to fail some of them.
+ */
+public class UploadServer implements AutoCloseable {
+
+  private final Server server;
+  private final SortedMap<Integer, byte[]> parts = new ConcurrentSkipListMap<>();
+  private final Map<Integer, AtomicInteger> failuresByPartNumber = new ConcurrentHashMap<>();
+  private final AtomicInteger requests = new AtomicInteger(0);
+  private final AtomicInteger inFlight = new AtomicInteger(0);
+  private final AtomicInteger maxInFlight = new AtomicInteger(0);
+
+  public UploadServer() throws Exception {
+    this.server = new Server(0);
+    this.server.setHandler(new AbstractHandler() {
+      @Override
+      public void handle(String target, Request baseRequest, HttpServletRequest request,
+          HttpServletResponse response) throws IOException {
+        baseRequest.setHandled(true);
+        int n = inFlight.incrementAndGet();
+        maxInFlight.accumulateAndGet(n, Math::max);
+        try {
+          serve(request, response);
+        } finally {
+          inFlight.decrementAndGet();
+        }
+      }
+    });
+    this.server.start();
+  }
+
+  /**
+   * Fail the next {@code count} uploads of the given part with a 503.
+   */
+  public UploadServer failPart(int partNumber, int count) {
+    failuresByPartNumber.put(partNumber, new AtomicInteger(count));
+    return this;
+  }
+
+  public URI uri(int partNumber) {
+    int port = ((ServerConnector) server.getConnectors()[0]).getLocalPort();
+    return URI.create("http://localhost:" + port + "/object?partNumber=" + partNumber);
+  }
+
+  public SortedMap<Integer, byte[]> parts() {
+    return parts;
+  }
+
+  public int requests() {
+    return requests.get();
+  }
+
+  public int maxInFlight() {
+    return maxInFlight.get();
+  }
+
+  private void serve(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    requests.incrementAndGet();
+
+    final int partNumber = Integer.parseInt(request.getParameter("partNumber"));
+    final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    request.getInputStream().transferTo(body);
+
+    final AtomicInteger failures = failuresByPartNumber.get(partNumber);
+    if (failures != null && failures.getAndDecrement() > 0) {
+      response.setStatus(503);
+      response.setContentLength(0);
+      return;
+    }
+
+    // Hold the request for a moment so that concurrent uploads overlap
+    try {
+      Thread.sleep(20L);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    parts.put(partNumber, body.toByteArray());
+    response.setStatus(200);
+    response.setHeader("ETag", "\"etag-" + partNumber + "\"");
+    response.setContentLength(0);
+  }
+
+  @Override
+  public void close() {
+    try {
+      server.stop();
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+}